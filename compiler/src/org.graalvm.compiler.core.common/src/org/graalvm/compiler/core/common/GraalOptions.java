@@ -96,6 +96,9 @@ public final class GraalOptions {
     @Option(help = "Re-associate loop invariants and constants.", type = OptionType.Debug)
     public static final OptionKey<Boolean> ReassociateExpressions = new OptionKey<>(true);
 
+    @Option(help = "Replace multiplications of induction variables in loops with additions.", type = OptionType.Debug)
+    public static final OptionKey<Boolean> LoopStrengthReduction = new OptionKey<>(false);
+
     @Option(help = "", type = OptionType.Debug)
     public static final OptionKey<Boolean> FullUnroll = new OptionKey<>(true);
 
@@ -280,6 +283,12 @@ public final class GraalOptions {
     @Option(help = "Alignment in bytes for loop header blocks.", type = OptionType.Expert)
     public static final OptionKey<Integer> LoopHeaderAlignment = new OptionKey<>(16);
 
+    @Option(help = "Emit rarely executed blocks (exception handlers, deoptimization and other uncommon paths) after all other blocks of a method.", type = OptionType.Expert)
+    public static final OptionKey<Boolean> SplitColdCode = new OptionKey<>(false);
+
+    @Option(help = "Blocks whose relative frequency is below this value are considered cold by SplitColdCode.", type = OptionType.Expert)
+    public static final OptionKey<Double> ColdBlockRelativeFrequency = new OptionKey<>(1E-3);
+
     @Option(help = "String.indexOf invocations will be evaluated at compile time if the receiver is a constant and its length is lower than this value.", type = OptionType.Expert)
     public static final OptionKey<Integer> StringIndexOfLimit = new OptionKey<>(4096);
     
@@ -45,7 +45,9 @@ import org.graalvm.compiler.core.common.cfg.Loop;
  * The machine code generator order includes reordering of loop headers such that the backward jump
  * is a conditional jump if there is only one loop end block. Additionally, the target of loop
  * backward jumps are always marked as aligned. Aligning the target of conditional jumps does not
- * bring a measurable benefit and is therefore avoided to keep the code size small.
+ * bring a measurable benefit and is therefore avoided to keep the code size small. Optionally, cold
+ * blocks (exception handlers and blocks whose relative frequency is below a threshold) are moved
+ * behind all other blocks so that the hot part of the method is emitted as one contiguous region.
  *
  * The linear scan register allocator order has an additional mechanism that prevents merge nodes
  * from being scheduled if there is at least one highly likely predecessor still unscheduled. This
@@ -88,14 +90,56 @@ public final class ComputeBlockOrder {
      * @return sorted list of blocks
      */
     public static <T extends AbstractBlockBase<T>> AbstractBlockBase<?>[] computeCodeEmittingOrder(int blockCount, T startBlock) {
+        return computeCodeEmittingOrder(blockCount, startBlock, false, 0.0D);
+    }
+
+    /**
+     * Computes the block order used for code emission.
+     *
+     * @param splitColdCode if true, cold blocks are emitted after all other blocks
+     * @param coldBlockFrequency blocks with a relative frequency below this value are cold
+     * @return sorted list of blocks
+     */
+    public static <T extends AbstractBlockBase<T>> AbstractBlockBase<?>[] computeCodeEmittingOrder(int blockCount, T startBlock, boolean splitColdCode, double coldBlockFrequency) {
         List<T> order = new ArrayList<>();
         BitSet visitedBlocks = new BitSet(blockCount);
         PriorityQueue<T> worklist = initializeWorklist(startBlock, visitedBlocks);
         computeCodeEmittingOrder(order, worklist, visitedBlocks);
+        if (splitColdCode) {
+            order = moveColdBlocksToEnd(order, startBlock, coldBlockFrequency);
+        }
         assert checkOrder(order, blockCount);
         return order.toArray(new AbstractBlockBase<?>[0]);
     }
 
+    /**
+     * Moves all cold blocks behind the hot blocks. The relative order within the hot and within
+     * the cold blocks is preserved, so the fall-through paths computed for the hot blocks stay
+     * intact.
+     */
+    private static <T extends AbstractBlockBase<T>> List<T> moveColdBlocksToEnd(List<T> order, T startBlock, double coldBlockFrequency) {
+        List<T> result = new ArrayList<>(order.size());
+        List<T> coldBlocks = new ArrayList<>();
+        for (T block : order) {
+            if (block != startBlock && isColdBlock(block, coldBlockFrequency)) {
+                // Aligning cold blocks only wastes code space.
+                block.setAlign(false);
+                coldBlocks.add(block);
+            } else {
+                result.add(block);
+            }
+        }
+        result.addAll(coldBlocks);
+        return result;
+    }
+
+    /**
+     * Determines whether a block is rarely executed and should therefore be emitted out of line.
+     */
+    public static boolean isColdBlock(AbstractBlockBase<?> block, double coldBlockFrequency) {
+        return block.isExceptionEntry() || block.getRelativeFrequency() < coldBlockFrequency;
+    }
+
     /**
      * Iteratively adds paths to the code emission block order.
      */
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.compiler.core.common.util.CompilationAlarm;
+import org.graalvm.compiler.debug.CompilationListener;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.debug.DebugContext.CompilerPhaseScope;
+import org.graalvm.compiler.loop.phases.LoopUnswitchingPhase;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
+import org.graalvm.compiler.nodes.loop.DefaultLoopPolicies;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.common.CompilationBudget;
+import org.graalvm.compiler.phases.common.CompilationBudget.Degradation;
+import org.junit.Assert;
+import org.junit.Test;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+public class CompilationBudgetTest extends GraalCompilerTest {
+
+    public static int unswitchSnippet(int[] a, boolean flag) {
+        int sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (flag) {
+                sum += a[i];
+            } else {
+                sum -= a[i];
+            }
+        }
+        return sum;
+    }
+
+    private static OptionValues budgetOptions(int maxNodes) {
+        return new OptionValues(getInitialOptions(), CompilationBudget.Options.CompilationBudgetNodeCount, maxNodes);
+    }
+
+    @Test
+    public void testNodeCountBudget() {
+        StructuredGraph unlimited = parseEager("unswitchSnippet", AllowAssumptions.NO, budgetOptions(0));
+        Assert.assertFalse(CompilationBudget.shouldDegrade(unlimited, Degradation.LoopUnswitching));
+
+        StructuredGraph limited = parseEager("unswitchSnippet", AllowAssumptions.NO, budgetOptions(1));
+        Assert.assertTrue(CompilationBudget.shouldDegrade(limited, Degradation.LoopUnswitching));
+    }
+
+    @Test
+    public void testTimeBudget() throws InterruptedException {
+        OptionValues options = new OptionValues(getInitialOptions(), CompilationBudget.Options.CompilationBudgetMillis, 1, CompilationAlarm.Options.CompilationExpirationPeriod, 0);
+        // the time budget does not need an alarm
+        Assert.assertNull(CompilationAlarm.trackCompilationPeriod(options));
+        Assert.assertNull(CompilationBudget.startTimer(budgetOptions(0)));
+
+        StructuredGraph graph = parseEager("unswitchSnippet", AllowAssumptions.NO, options);
+        try (CompilationBudget.Timer timer = CompilationBudget.startTimer(options)) {
+            Assert.assertNotNull(timer);
+            Assert.assertNull(CompilationBudget.startTimer(options));
+            Thread.sleep(20);
+            Assert.assertTrue(CompilationBudget.shouldDegrade(graph, Degradation.LoopUnswitching));
+        }
+        // no compilation is tracked any more
+        StructuredGraph untracked = parseEager("unswitchSnippet", AllowAssumptions.NO, options);
+        Assert.assertFalse(CompilationBudget.shouldDegrade(untracked, Degradation.LoopUnswitching));
+    }
+
+    private static final class DegradationRecorder implements CompilationListener {
+        final List<String> degradations = new ArrayList<>();
+
+        @Override
+        public CompilerPhaseScope enterPhase(CharSequence name, int nesting) {
+            return () -> {
+            };
+        }
+
+        @Override
+        public void notifyInlining(ResolvedJavaMethod caller, ResolvedJavaMethod callee, boolean succeeded, CharSequence message, int bci) {
+        }
+
+        @Override
+        public void notifyDegradation(CharSequence optimization, CharSequence reason) {
+            degradations.add(optimization.toString());
+        }
+    }
+
+    @Test
+    public void testDegradationReportedOnce() {
+        DegradationRecorder recorder = new DegradationRecorder();
+        DebugContext debug = new DebugContext.Builder(budgetOptions(1)).compilationListener(recorder).build();
+        StructuredGraph graph = parseEager("unswitchSnippet", AllowAssumptions.NO, debug);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(CompilationBudget.shouldDegrade(graph, Degradation.Inlining));
+            Assert.assertTrue(CompilationBudget.shouldDegrade(graph, Degradation.LoopUnswitching));
+        }
+        Assert.assertEquals(2, recorder.degradations.size());
+        Assert.assertTrue(recorder.degradations.contains(Degradation.Inlining.name()));
+        Assert.assertTrue(recorder.degradations.contains(Degradation.LoopUnswitching.name()));
+        Assert.assertEquals(2, graph.getSkippedOptimizations().size());
+        Assert.assertTrue(graph.getSkippedOptimizations().contains(Degradation.Inlining.name()));
+    }
+
+    @Test
+    public void testUnswitchingSkipped() {
+        StructuredGraph graph = parseEager("unswitchSnippet", AllowAssumptions.NO, budgetOptions(1));
+        int nodeCount = graph.getNodeCount();
+        new LoopUnswitchingPhase(new DefaultLoopPolicies()).apply(graph, getDefaultHighTierContext());
+        Assert.assertEquals(nodeCount, graph.getNodeCount());
+    }
+
+    @Test
+    public void testDegradedCompilation() {
+        int[] array = {1, 2, 3, 4};
+        test(budgetOptions(1), "unswitchSnippet", array, true);
+        test(budgetOptions(1), "unswitchSnippet", array, false);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.compiler.api.directives.GraalDirectives;
+import org.graalvm.compiler.core.common.alloc.ComputeBlockOrder;
+import org.graalvm.compiler.core.common.cfg.AbstractBlockBase;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
+import org.graalvm.compiler.nodes.cfg.ControlFlowGraph;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ComputeBlockOrderTest extends GraalCompilerTest {
+
+    private static final double COLD_BLOCK_FREQUENCY = 1E-3;
+
+    public static int coldPathSnippet(int[] array, int value) {
+        int sum = 0;
+        for (int i = 0; i < array.length; i++) {
+            if (GraalDirectives.injectBranchProbability(GraalDirectives.SLOWPATH_PROBABILITY, array[i] == value)) {
+                GraalDirectives.sideEffect(i);
+                sum += 42;
+            }
+            sum += array[i];
+        }
+        return sum;
+    }
+
+    @Test
+    public void testColdBlocksEmittedLast() {
+        StructuredGraph graph = parseEager("coldPathSnippet", AllowAssumptions.YES);
+        createCanonicalizerPhase().apply(graph, getProviders());
+        ControlFlowGraph cfg = ControlFlowGraph.compute(graph, true, true, true, false);
+
+        AbstractBlockBase<?>[] order = ComputeBlockOrder.computeCodeEmittingOrder(cfg.getBlocks().length, cfg.getStartBlock());
+        AbstractBlockBase<?>[] splitOrder = ComputeBlockOrder.computeCodeEmittingOrder(cfg.getBlocks().length, cfg.getStartBlock(), true, COLD_BLOCK_FREQUENCY);
+        Assert.assertEquals(order.length, splitOrder.length);
+        Assert.assertSame(cfg.getStartBlock(), splitOrder[0]);
+
+        List<AbstractBlockBase<?>> hot = new ArrayList<>();
+        List<AbstractBlockBase<?>> cold = new ArrayList<>();
+        for (AbstractBlockBase<?> block : order) {
+            if (block != cfg.getStartBlock() && ComputeBlockOrder.isColdBlock(block, COLD_BLOCK_FREQUENCY)) {
+                cold.add(block);
+            } else {
+                hot.add(block);
+            }
+        }
+        Assert.assertFalse("expected at least one cold block", cold.isEmpty());
+
+        // hot blocks keep their relative order and all cold blocks follow them
+        for (int i = 0; i < hot.size(); i++) {
+            Assert.assertSame(hot.get(i), splitOrder[i]);
+        }
+        for (int i = 0; i < cold.size(); i++) {
+            Assert.assertSame(cold.get(i), splitOrder[hot.size() + i]);
+            Assert.assertFalse(splitOrder[hot.size() + i].isAligned());
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.test;
+
+import org.graalvm.compiler.lir.alloc.lsra.LinearScan;
+import org.graalvm.compiler.options.OptionValues;
+import org.junit.Test;
+
+/**
+ * Compiles methods with many blocks and loops while the local live sets of the linear scan
+ * register allocator are computed in parallel and compared with the sequentially computed ones,
+ * see {@link LinearScan.Options#LSRAVerifyParallelLocalLiveSets}.
+ */
+public class LinearScanParallelLiveSetsTest extends GraalCompilerTest {
+
+    private OptionValues parallelOptions(int threads) {
+        return new OptionValues(getInitialOptions(), LinearScan.Options.LSRAParallelLocalLiveSetsMinBlocks, 1, LinearScan.Options.LSRAParallelLocalLiveSetsThreads, threads,
+                        LinearScan.Options.LSRAVerifyParallelLocalLiveSets, true);
+    }
+
+    public static int nestedLoopsSnippet(int[] a, int n) {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            int x = a[i % a.length];
+            for (int j = 0; j < i; j++) {
+                if ((x & 1) == 0) {
+                    x = x / 2 + j;
+                } else {
+                    x = 3 * x + 1 - j;
+                }
+                if (x > 1000) {
+                    sum -= x;
+                    break;
+                }
+            }
+            sum += x;
+        }
+        return sum;
+    }
+
+    public static long switchSnippet(int[] a, long seed) {
+        long v = seed;
+        long w = seed * 7;
+        for (int i = 0; i < a.length; i++) {
+            switch (a[i] & 7) {
+                case 0:
+                    v += w;
+                    break;
+                case 1:
+                    v ^= w << 3;
+                    break;
+                case 2:
+                    w -= v;
+                    break;
+                case 3:
+                    for (int j = 0; j < a[i]; j++) {
+                        v += j * w;
+                    }
+                    break;
+                case 4:
+                    v = w / (a[i] | 1);
+                    break;
+                case 5:
+                    w = Long.rotateLeft(v, a[i]);
+                    break;
+                default:
+                    v++;
+                    w--;
+                    break;
+            }
+        }
+        return v + w;
+    }
+
+    public static int exceptionSnippet(Object[] objects) {
+        int result = 0;
+        for (Object o : objects) {
+            try {
+                result += ((String) o).length();
+            } catch (ClassCastException e) {
+                result += 100;
+            } catch (NullPointerException e) {
+                result -= 1;
+            }
+        }
+        return result;
+    }
+
+    private static final int[] VALUES = {3, 8, 15, 1, 42, 7, 0, 23, 4, 16, 5, 9, 2, 6, 11};
+
+    @Test
+    public void testNestedLoops() {
+        for (int threads : new int[]{1, 2, 4}) {
+            test(parallelOptions(threads), "nestedLoopsSnippet", VALUES, 40);
+        }
+    }
+
+    @Test
+    public void testSwitch() {
+        for (int threads : new int[]{1, 2, 4}) {
+            test(parallelOptions(threads), "switchSnippet", VALUES, 13L);
+        }
+    }
+
+    @Test
+    public void testExceptions() {
+        for (int threads : new int[]{1, 2, 4}) {
+            test(parallelOptions(threads), "exceptionSnippet", (Object) new Object[]{"a", 1, null, "abc", 2.0});
+        }
+    }
+}
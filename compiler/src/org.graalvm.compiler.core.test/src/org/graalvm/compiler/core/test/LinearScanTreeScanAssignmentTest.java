@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.test;
+
+import org.graalvm.compiler.debug.Assertions;
+import org.graalvm.compiler.lir.alloc.lsra.LinearScan;
+import org.graalvm.compiler.options.OptionValues;
+import org.junit.Test;
+
+import jdk.vm.ci.code.InstalledCode;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Compiles methods with more live values than registers once with the registers assigned by the
+ * linear scan walker and once recolored by the tree-scan assignment, see
+ * {@link LinearScan.Options#LSRATreeScanAssignment}, and compares the results of both.
+ */
+public class LinearScanTreeScanAssignmentTest extends GraalCompilerTest {
+
+    private OptionValues allocatorOptions(boolean treeScan) {
+        return new OptionValues(getInitialOptions(), LinearScan.Options.LSRATreeScanAssignment, treeScan, Assertions.Options.DetailedAsserts, true);
+    }
+
+    public static long manyLongsSnippet(long[] a, int n) {
+        long v0 = a[0];
+        long v1 = a[1];
+        long v2 = a[2];
+        long v3 = a[3];
+        long v4 = a[4];
+        long v5 = a[5];
+        long v6 = a[6];
+        long v7 = a[7];
+        long v8 = a[8];
+        long v9 = a[9];
+        long v10 = a[10];
+        long v11 = a[11];
+        long v12 = a[12];
+        long v13 = a[13];
+        long v14 = a[14];
+        long v15 = a[15];
+        for (int i = 0; i < n; i++) {
+            long t = v0;
+            v0 = v1 + v15;
+            v1 = v2 ^ v14;
+            v2 = v3 - v13;
+            v3 = v4 * 3 + v12;
+            v4 = v5 + v11;
+            v5 = v6 ^ (v10 << 7);
+            v6 = v7 + v9;
+            v7 = v8 - i;
+            v8 = v9 + v0;
+            v9 = v10 ^ v1;
+            v10 = v11 + v2;
+            v11 = v12 - v3;
+            v12 = v13 + (v4 >>> 3);
+            v13 = v14 ^ v5;
+            v14 = v15 + v6;
+            v15 = t;
+        }
+        return v0 + v1 + v2 + v3 + v4 + v5 + v6 + v7 + v8 + v9 + v10 + v11 + v12 + v13 + v14 + v15;
+    }
+
+    public static double mixedKindsSnippet(double[] d, int[] x, int n) {
+        double d0 = d[0];
+        double d1 = d[1];
+        double d2 = d[2];
+        double d3 = d[3];
+        double d4 = d[4];
+        double d5 = d[5];
+        int i0 = x[0];
+        int i1 = x[1];
+        int i2 = x[2];
+        int i3 = x[3];
+        int i4 = x[4];
+        int i5 = x[5];
+        for (int i = 0; i < n; i++) {
+            if ((i & 1) == 0) {
+                d0 += d1 * i2;
+                d1 -= d2 / (i3 | 1);
+                i0 += i1 * 3;
+                i1 ^= i4;
+            } else {
+                d2 += Math.sqrt(Math.abs(d3)) + i5;
+                d3 = d4 - d5;
+                i2 -= i0;
+                i3 += i5 >> 1;
+            }
+            d4 += d0 * 0.5;
+            d5 = Math.max(d5, d1);
+            i4 = i4 * 31 + i;
+            i5 = Integer.rotateLeft(i5, i0 & 31);
+        }
+        return d0 + d1 + d2 + d3 + d4 + d5 + i0 + i1 + i2 + i3 + i4 + i5;
+    }
+
+    static int opaque(int x) {
+        return x * 17 + 1;
+    }
+
+    public static int liveAcrossCallsSnippet(Object[] objects, int n) {
+        Object o0 = objects[0];
+        Object o1 = objects[1];
+        Object o2 = objects[2];
+        int a = n;
+        int b = n * 3;
+        int c = n ^ 0x55;
+        int d = n - 7;
+        int e = n << 2;
+        int f = n >>> 1;
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += opaque(a + i) + b;
+            a = b ^ c;
+            b = c + d;
+            c = d - e;
+            d = e ^ f;
+            e = f + sum;
+            f = opaque(a) - i;
+            Object t = o0;
+            o0 = o1;
+            o1 = o2;
+            o2 = t;
+        }
+        return sum + a + b + c + d + e + f + o0.hashCode() + o1.hashCode() + o2.hashCode();
+    }
+
+    private static final long[] LONGS = {3, 8, 15, 1, 42, 7, 0, 23, 4, 16, 5, 9, 2, 6, 11, 13};
+    private static final double[] DOUBLES = {1.5, -2.25, 3.0, 0.125, 42.0, -7.5};
+    private static final int[] INTS = {3, 8, 15, 1, 42, 7};
+
+    private void testAllocators(String name, Object... args) {
+        ResolvedJavaMethod method = getResolvedJavaMethod(name);
+        Result expected = executeExpected(method, null, args);
+        Result linearScan = execute(allocatorOptions(false), method, args);
+        assertEquals(expected, linearScan);
+        Result treeScan = execute(allocatorOptions(true), method, args);
+        assertEquals(linearScan, treeScan);
+    }
+
+    private Result execute(OptionValues options, ResolvedJavaMethod method, Object... args) {
+        InstalledCode code = getCode(method, null, true, false, options);
+        try {
+            return new Result(code.executeVarargs(args), null);
+        } catch (Throwable e) {
+            return new Result(null, e);
+        }
+    }
+
+    @Test
+    public void testManyLongs() {
+        for (int n : new int[]{0, 1, 17, 100}) {
+            testAllocators("manyLongsSnippet", LONGS, n);
+        }
+    }
+
+    @Test
+    public void testMixedKinds() {
+        for (int n : new int[]{0, 1, 17, 100}) {
+            testAllocators("mixedKindsSnippet", DOUBLES, INTS, n);
+        }
+    }
+
+    @Test
+    public void testLiveAcrossCalls() {
+        for (int n : new int[]{0, 1, 17, 100}) {
+            testAllocators("liveAcrossCallsSnippet", new Object[]{"a", "bc", "def"}, n);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.test.ea;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.common.DeadCodeEliminationPhase;
+import org.graalvm.compiler.phases.tiers.HighTierContext;
+import org.graalvm.compiler.virtual.phases.ea.EffectsPhase;
+import org.graalvm.compiler.virtual.phases.ea.PartialEscapePhase;
+import org.junit.Test;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Checks that {@link EffectsPhase.Options#IncrementalEffectsPhase} produces the same result as the
+ * full iteration, with {@link EffectsPhase.Options#VerifyIncrementalEffectsPhase} checking every
+ * skipped iteration, for the snippets below and for those of the other escape analysis tests.
+ */
+public class IncrementalEffectsPhaseTest extends EATestBase {
+
+    public static int canonicalizeSnippet(int v) {
+        TestClassInt key = new TestClassInt(v);
+        TestClassInt key2;
+        if (key.x == v) {
+            key2 = new TestClassInt(v, 1);
+        } else {
+            key2 = null;
+        }
+        return key2.x + key2.y;
+    }
+
+    public static int boxLoopSnippet(int n) {
+        Integer sum = 0;
+        for (Integer i = 0; i < n; i++) {
+            if (sum == null) {
+                sum = null;
+            } else {
+                sum += i;
+            }
+        }
+        return sum;
+    }
+
+    public static Object partialEscapeSnippet(int a, Object x) {
+        TestClassObject obj = new TestClassObject(x);
+        TestClassObject[] array = new TestClassObject[]{obj};
+        if (a > 0) {
+            return array[0];
+        }
+        return array[0].x;
+    }
+
+    @Test
+    public void testCanonicalize() {
+        testIncremental(getResolvedJavaMethod("canonicalizeSnippet"));
+    }
+
+    @Test
+    public void testBoxLoop() {
+        testIncremental(getResolvedJavaMethod("boxLoopSnippet"));
+    }
+
+    @Test
+    public void testPartialEscape() {
+        testIncremental(getResolvedJavaMethod("partialEscapeSnippet"));
+    }
+
+    @Test
+    public void testEscapeAnalysisSnippets() {
+        Class<?>[] tests = {EscapeAnalysisTest.class, PartialEscapeAnalysisTest.class, EAMergingTest.class, PartialEscapeAnalysisTreesTest.class, PartialEscapeAnalysisIterationTest.class};
+        for (Class<?> test : tests) {
+            Method[] methods = test.getDeclaredMethods();
+            Arrays.sort(methods, Comparator.comparing(Method::getName));
+            for (Method method : methods) {
+                if (method.getName().endsWith("Snippet")) {
+                    testIncremental(getMetaAccess().lookupJavaMethod(method));
+                }
+            }
+        }
+    }
+
+    private void testIncremental(ResolvedJavaMethod method) {
+        StructuredGraph full = runPartialEscape(method, new OptionValues(getInitialOptions(), EffectsPhase.Options.IncrementalEffectsPhase, false));
+        StructuredGraph incremental = runPartialEscape(method, new OptionValues(getInitialOptions(), EffectsPhase.Options.IncrementalEffectsPhase, true,
+                        EffectsPhase.Options.VerifyIncrementalEffectsPhase, true));
+        assertEquals(full, incremental);
+    }
+
+    @SuppressWarnings("try")
+    private StructuredGraph runPartialEscape(ResolvedJavaMethod method, OptionValues options) {
+        DebugContext debug = getDebugContext(options, null, method);
+        try (DebugContext.Scope s = debug.scope(getClass(), method, getCodeCache())) {
+            StructuredGraph g = parseEager(method, AllowAssumptions.YES, debug);
+            HighTierContext highTierContext = getDefaultHighTierContext();
+            createInliningPhase().apply(g, highTierContext);
+            new DeadCodeEliminationPhase().apply(g);
+            createCanonicalizerPhase().apply(g, highTierContext);
+            new PartialEscapePhase(true, false, createCanonicalizerPhase(), null, options).apply(g, highTierContext);
+            return g;
+        } catch (Throwable e) {
+            throw debug.handle(e);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.test.inlining;
+
+import org.graalvm.compiler.core.test.GraalCompilerTest;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
+import org.graalvm.compiler.phases.common.inlining.info.elem.EscapeSummary;
+import org.graalvm.compiler.phases.common.inlining.info.elem.EscapeSummary.Usage;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EscapeSummaryTest extends GraalCompilerTest {
+
+    static class Point {
+        int x;
+        int y;
+    }
+
+    static Object sink;
+
+    public static int readSnippet(Point p, Point unused) {
+        return p.x + p.y;
+    }
+
+    public static void writeSnippet(Point p, int v) {
+        if (p != null) {
+            p.x = v;
+        }
+    }
+
+    public static void storeSnippet(Point p, Point q) {
+        p.x = q.y;
+        sink = q;
+    }
+
+    public static Point returnSnippet(Point p) {
+        return p;
+    }
+
+    public static boolean callSnippet(Point p) {
+        return sink.equals(p);
+    }
+
+    public static void arraySnippet(int[] a, Object[] b, Object c) {
+        a[0] = a.length;
+        b[0] = c;
+    }
+
+    private EscapeSummary summary(String snippet) {
+        StructuredGraph graph = parseEager(snippet, AllowAssumptions.YES);
+        createCanonicalizerPhase().apply(graph, getProviders());
+        return EscapeSummary.compute(graph);
+    }
+
+    @Test
+    public void testRead() {
+        EscapeSummary summary = summary("readSnippet");
+        Assert.assertEquals(Usage.READ, summary.getUsage(0));
+        Assert.assertEquals(Usage.UNUSED, summary.getUsage(1));
+    }
+
+    @Test
+    public void testWrite() {
+        EscapeSummary summary = summary("writeSnippet");
+        Assert.assertEquals(Usage.WRITTEN, summary.getUsage(0));
+        Assert.assertEquals(Usage.ESCAPES, summary.getUsage(1));
+    }
+
+    @Test
+    public void testStoreEscapes() {
+        EscapeSummary summary = summary("storeSnippet");
+        Assert.assertEquals(Usage.WRITTEN, summary.getUsage(0));
+        Assert.assertEquals(Usage.ESCAPES, summary.getUsage(1));
+    }
+
+    @Test
+    public void testReturnEscapes() {
+        Assert.assertEquals(Usage.ESCAPES, summary("returnSnippet").getUsage(0));
+    }
+
+    @Test
+    public void testCallEscapes() {
+        Assert.assertEquals(Usage.ESCAPES, summary("callSnippet").getUsage(0));
+    }
+
+    @Test
+    public void testArrays() {
+        EscapeSummary summary = summary("arraySnippet");
+        Assert.assertEquals(Usage.WRITTEN, summary.getUsage(0));
+        Assert.assertEquals(Usage.ESCAPES, summary.getUsage(2));
+    }
+}
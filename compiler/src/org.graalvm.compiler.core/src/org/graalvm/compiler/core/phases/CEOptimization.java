@@ -32,6 +32,7 @@ import org.graalvm.compiler.loop.phases.LoopFullUnrollPhase;
 import org.graalvm.compiler.loop.phases.LoopPartialUnrollPhase;
 import org.graalvm.compiler.loop.phases.LoopPeelingPhase;
 import org.graalvm.compiler.loop.phases.LoopSafepointEliminationPhase;
+import org.graalvm.compiler.loop.phases.LoopStrengthReductionPhase;
 import org.graalvm.compiler.loop.phases.LoopUnswitchingPhase;
 import org.graalvm.compiler.nodes.memory.MemoryMap;
 import org.graalvm.compiler.options.OptionKey;
@@ -206,6 +207,17 @@ public enum CEOptimization {
      */
     ExpressionReassociation(GraalOptions.ReassociateExpressions, ReassociationPhase.class),
 
+    /**
+     * {@link LoopStrengthReductionPhase} replaces multiplications of loop induction variables that
+     * cannot be folded into an addressing mode, such as the index computation {@code i * cols + k}
+     * of a column access, with a new induction variable that is incremented by a loop invariant
+     * stride.
+     *
+     * This phase is disabled by default and can be enabled with
+     * {@link GraalOptions#LoopStrengthReduction}.
+     */
+    LoopStrengthReduction(GraalOptions.LoopStrengthReduction, LoopStrengthReductionPhase.class),
+
     /**
      * {@link DeoptimizationGroupingPhase} tries to reduce the meta-data the compiler needs to
      * preserve in the generated machine code for deoptimization purposes. This optimization can
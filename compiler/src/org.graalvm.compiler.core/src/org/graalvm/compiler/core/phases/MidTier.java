@@ -26,6 +26,7 @@ package org.graalvm.compiler.core.phases;
 
 import static org.graalvm.compiler.core.common.GraalOptions.ConditionalElimination;
 import static org.graalvm.compiler.core.common.GraalOptions.LoopPredication;
+import static org.graalvm.compiler.core.common.GraalOptions.LoopStrengthReduction;
 import static org.graalvm.compiler.core.common.GraalOptions.OptDeoptimizationGrouping;
 import static org.graalvm.compiler.core.common.GraalOptions.OptFloatingReads;
 import static org.graalvm.compiler.core.common.GraalOptions.PartialUnroll;
@@ -38,6 +39,7 @@ import static org.graalvm.compiler.core.common.SpectrePHTMitigations.Options.Spe
 import org.graalvm.compiler.loop.phases.LoopPartialUnrollPhase;
 import org.graalvm.compiler.loop.phases.LoopPredicationPhase;
 import org.graalvm.compiler.loop.phases.LoopSafepointEliminationPhase;
+import org.graalvm.compiler.loop.phases.LoopStrengthReductionPhase;
 import org.graalvm.compiler.nodes.loop.DefaultLoopPolicies;
 import org.graalvm.compiler.nodes.loop.LoopPolicies;
 import org.graalvm.compiler.nodes.spi.LoweringTool;
@@ -110,6 +112,10 @@ public class MidTier extends BaseTier<MidTierContext> {
             appendPhase(new ReassociationPhase(canonicalizer));
         }
 
+        if (LoopStrengthReduction.getValue(options)) {
+            appendPhase(new LoopStrengthReductionPhase(canonicalizer));
+        }
+
         if (OptDeoptimizationGrouping.getValue(options)) {
             appendPhase(new DeoptimizationGroupingPhase());
         }
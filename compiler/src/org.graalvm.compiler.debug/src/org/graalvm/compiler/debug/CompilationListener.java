@@ -30,7 +30,8 @@ import jdk.vm.ci.meta.ResolvedJavaMethod;
 
 /**
  * Implemented by clients interested in when the compiler starts/ends a {@linkplain #enterPhase
- * phase} or {@linkplain #notifyInlining considers inlining} a method.
+ * phase}, {@linkplain #notifyInlining considers inlining} a method or
+ * {@linkplain #notifyDegradation skips an optimization} to stay within its budget.
  */
 public interface CompilationListener {
 
@@ -54,4 +55,14 @@ public interface CompilationListener {
      * @param bci byte code index of call site
      */
     void notifyInlining(ResolvedJavaMethod caller, ResolvedJavaMethod callee, boolean succeeded, CharSequence message, int bci);
+
+    /**
+     * Notifies this listener when the compiler skips an optimization because the compilation
+     * exceeded its budget.
+     *
+     * @param optimization name of the skipped optimization
+     * @param reason description of the exceeded budget
+     */
+    default void notifyDegradation(CharSequence optimization, CharSequence reason) {
+    }
 }
@@ -408,7 +408,8 @@ public final class DebugContext implements AutoCloseable {
     }
 
     /**
-     * Determines if {@link #enterCompilerPhase} and {@link #notifyInlining} do anything.
+     * Determines if {@link #enterCompilerPhase}, {@link #notifyInlining} and
+     * {@link #notifyDegradation} do anything.
      *
      * @return {@code true} if there is a listener for compiler phase and inlining events attached
      *         to this object, {@code false} otherwise
@@ -490,6 +491,19 @@ public final class DebugContext implements AutoCloseable {
         }
     }
 
+    /**
+     * Notifies this object when the compiler skips an optimization because the compilation
+     * exceeded its budget.
+     *
+     * @param optimization name of the skipped optimization
+     * @param reason description of the exceeded budget
+     */
+    public void notifyDegradation(CharSequence optimization, CharSequence reason) {
+        if (compilationListener != null) {
+            compilationListener.notifyDegradation(optimization, reason);
+        }
+    }
+
     /**
      * Gets the global metrics associated with this debug context.
      *
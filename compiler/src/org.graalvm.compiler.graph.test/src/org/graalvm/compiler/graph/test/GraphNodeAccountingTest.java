@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.graph.test;
+
+import static org.graalvm.compiler.nodeinfo.NodeCycles.CYCLES_IGNORED;
+import static org.graalvm.compiler.nodeinfo.NodeSize.SIZE_IGNORED;
+
+import org.graalvm.compiler.api.test.Graal;
+import org.graalvm.compiler.graph.Graph;
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.graph.NodeClass;
+import org.graalvm.compiler.nodeinfo.NodeInfo;
+import org.graalvm.compiler.options.OptionValues;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GraphNodeAccountingTest extends GraphTest {
+
+    @NodeInfo(cycles = CYCLES_IGNORED, size = SIZE_IGNORED)
+    static final class TestNode extends Node {
+        public static final NodeClass<TestNode> TYPE = NodeClass.create(TestNode.class);
+
+        protected TestNode() {
+            super(TYPE);
+        }
+    }
+
+    @Before
+    public void before() {
+        // Need to initialize HotSpotGraalRuntime before any Node class is initialized.
+        Graal.getRuntime();
+    }
+
+    @Test
+    public void testPeakAndAllocatedCounts() {
+        OptionValues options = new OptionValues(getOptions(), Graph.Options.GraphCompressionThreshold, 70);
+        Graph graph = new Graph(options, getDebug(options));
+        int initialCount = graph.getNodeCount();
+        TestNode[] nodes = new TestNode[1000];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = graph.add(new TestNode());
+        }
+        Assert.assertEquals(initialCount + nodes.length, graph.getPeakNodeCount());
+        for (int i = 10; i < nodes.length; i++) {
+            nodes[i].safeDelete();
+        }
+        Assert.assertEquals(initialCount + 10, graph.getNodeCount());
+        Assert.assertEquals(initialCount + nodes.length, graph.getPeakNodeCount());
+        Assert.assertEquals(initialCount + nodes.length, graph.getTotalNodesAllocated());
+
+        Assert.assertTrue(graph.maybeCompress());
+        Assert.assertEquals(initialCount + 10, graph.getNodeCount());
+        Assert.assertEquals(initialCount + nodes.length, graph.getPeakNodeCount());
+        Assert.assertEquals(initialCount + nodes.length, graph.getTotalNodesAllocated());
+
+        // the node storage must still grow correctly after it has been trimmed
+        for (int i = 0; i < nodes.length; i++) {
+            graph.add(new TestNode());
+        }
+        Assert.assertEquals(initialCount + 10 + nodes.length, graph.getNodeCount());
+        Assert.assertEquals(initialCount + 10 + nodes.length, graph.getPeakNodeCount());
+        Assert.assertEquals(initialCount + 2 * nodes.length, graph.getTotalNodesAllocated());
+        int count = 0;
+        for (Node n : graph.getNodes()) {
+            Assert.assertTrue(n.isAlive());
+            count++;
+        }
+        Assert.assertEquals(graph.getNodeCount(), count);
+    }
+}
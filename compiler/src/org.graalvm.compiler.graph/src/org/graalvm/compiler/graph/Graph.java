@@ -113,6 +113,11 @@ public class Graph {
     private int nodesDeletedSinceLastCompression;
     private int nodesDeletedBeforeLastCompression;
 
+    /**
+     * The maximum number of live nodes this graph has had.
+     */
+    private int peakNodeCount;
+
     /**
      * The number of times this graph has been compressed.
      */
@@ -452,6 +457,21 @@ public class Graph {
         return nodesDeletedSinceLastCompression + nodesDeletedBeforeLastCompression;
     }
 
+    /**
+     * Gets the total number of nodes which have been added to this graph, including the nodes that
+     * have since been deleted.
+     */
+    public int getTotalNodesAllocated() {
+        return getNodeCount() + getTotalNodesDeleted();
+    }
+
+    /**
+     * Gets the maximum number of live nodes this graph has had at any point in time.
+     */
+    public int getPeakNodeCount() {
+        return peakNodeCount;
+    }
+
     /**
      * Adds a new node to the graph.
      *
@@ -948,6 +968,10 @@ public class Graph {
             Arrays.fill(nodeUsageModCounts, 0);
         }
         nodesSize = nextId;
+        if (nodes.length > 2 * nextId + INITIAL_NODES_SIZE) {
+            // release the storage of the deleted nodes but leave some room to grow
+            nodes = Arrays.copyOf(nodes, nextId + (nextId >> 1) + INITIAL_NODES_SIZE);
+        }
         compressions++;
         nodesDeletedBeforeLastCompression += nodesDeletedSinceLastCompression;
         nodesDeletedSinceLastCompression = 0;
@@ -1075,6 +1099,10 @@ public class Graph {
         int id = nodesSize++;
         nodes[id] = node;
         node.id = id;
+        int liveNodeCount = id + 1 - nodesDeletedSinceLastCompression;
+        if (liveNodeCount > peakNodeCount) {
+            peakNodeCount = liveNodeCount;
+        }
         if (currentNodeSourcePosition != null && trackNodeSourcePosition()) {
             node.setNodeSourcePosition(currentNodeSourcePosition);
         }
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.hotspot.test;
+
+import org.graalvm.compiler.core.test.GraalCompilerTest;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.replacements.arraycopy.ArrayCopyLoopIdiomPhase;
+import org.junit.Test;
+
+/**
+ * Tests that loops replaced by {@link ArrayCopyLoopIdiomPhase} keep the semantics of the loop,
+ * including the exceptions thrown for out of bounds ranges and null arrays.
+ */
+public class ArrayCopyLoopIdiomTest extends GraalCompilerTest {
+
+    private static OptionValues idiomOptions() {
+        return new OptionValues(getInitialOptions(), ArrayCopyLoopIdiomPhase.Options.ArrayCopyLoopIdiom, true);
+    }
+
+    public static int[] copyInts(int[] src, int[] dst, int start, int limit) {
+        for (int i = start; i < limit; i++) {
+            dst[i] = src[i];
+        }
+        return dst;
+    }
+
+    public static byte[] copyBytes(byte[] src, byte[] dst, int start, int limit) {
+        for (int i = start; i < limit; i++) {
+            dst[i] = src[i];
+        }
+        return dst;
+    }
+
+    @Test
+    public void testInts() {
+        int[] src = new int[100];
+        for (int i = 0; i < src.length; i++) {
+            src[i] = i * 31;
+        }
+        test(idiomOptions(), "copyInts", src, new int[100], 0, 100);
+        test(idiomOptions(), "copyInts", src, new int[100], 17, 63);
+        test(idiomOptions(), "copyInts", src, new int[100], 50, 10);
+    }
+
+    @Test
+    public void testBytes() {
+        byte[] src = new byte[37];
+        for (int i = 0; i < src.length; i++) {
+            src[i] = (byte) i;
+        }
+        test(idiomOptions(), "copyBytes", src, new byte[37], 0, 37);
+        test(idiomOptions(), "copyBytes", src, src, 3, 30);
+    }
+
+    @Test
+    public void testOutOfBounds() {
+        test(idiomOptions(), "copyInts", new int[10], new int[20], 0, 20);
+        test(idiomOptions(), "copyInts", new int[20], new int[10], 5, 20);
+        test(idiomOptions(), "copyInts", new int[10], new int[10], -1, 5);
+    }
+
+    @Test
+    public void testNull() {
+        test(idiomOptions(), "copyInts", null, new int[10], 0, 10);
+        test(idiomOptions(), "copyInts", new int[10], null, 0, 10);
+        test(idiomOptions(), "copyInts", null, null, 0, 0);
+    }
+}
@@ -340,7 +340,6 @@ public class CheckGraalIntrinsics extends GraalTest {
 
             // Compact string support - HotSpot MacroAssembler-based intrinsic or complex C2 logic.
             add(toBeInvestigated,
-                            "java/lang/StringCoding.hasNegatives([BII)Z",
                             "java/lang/StringCoding.implEncodeISOArray([BI[BII)I");
             add(ignore,
                             // handled through an intrinsic for String.equals itself
@@ -533,6 +532,7 @@ public class CheckGraalIntrinsics extends GraalTest {
 
             if (isJDK9OrHigher()) {
                 add(toBeInvestigated,
+                                "java/lang/StringCoding.hasNegatives([BII)Z",
                                 "java/lang/Thread.onSpinWait()V",
                                 "java/util/ArraysSupport.vectorizedMismatch(Ljava/lang/Object;JLjava/lang/Object;JII)I");
             }
@@ -1141,4 +1141,73 @@ public class RangeCheckPredicatesTest extends GraalCompilerTest {
     public void testGuardAboveExitTest() {
         verifyRangeCheckInLoop("rangeCheckPredicatesGuardAboveExitTest");
     }
+
+    public static void rangeCheckPredicatesLoopUpSubOffset1(int[] array, int start, int stop, int offset) {
+        for (int i = start; i < stop; i++) {
+            array[i - offset] = i;
+        }
+    }
+
+    @Test
+    public void testLoopUpSubOffset1() {
+        verifyNoRangeCheckInLoop("rangeCheckPredicatesLoopUpSubOffset1");
+        runNoOutOfBound("rangeCheckPredicatesLoopUpSubOffset1", 1000, getOptionsMainPath(), 5, 1005, 5);
+        runOutOfBound("rangeCheckPredicatesLoopUpSubOffset1", 1000, false, 4, 1005, 5);
+    }
+
+    public static void rangeCheckPredicatesLoopUpSubOffset2(int[] array, int start, int stop, int offset) {
+        for (int i = start; i < stop; i++) {
+            array[i - offset] = i;
+        }
+    }
+
+    @Test
+    public void testLoopUpSubOffset2() {
+        verifyNoRangeCheckInLoop("rangeCheckPredicatesLoopUpSubOffset2");
+        runNoOutOfBound("rangeCheckPredicatesLoopUpSubOffset2", 1000, getOptionsMainPath(), 5, 1005, 5);
+        runOutOfBound("rangeCheckPredicatesLoopUpSubOffset2", 1000, false, 5, 1006, 5);
+    }
+
+    public static int rangeCheckPredicatesLoopUpMultipleAccesses1(int[] array, int start, int stop) {
+        int res = 0;
+        for (int i = start; i < stop; i++) {
+            res += array[i] * array[i + 1];
+        }
+        return res;
+    }
+
+    @Test
+    public void testLoopUpMultipleAccesses1() {
+        verifyNoRangeCheckInLoop("rangeCheckPredicatesLoopUpMultipleAccesses1");
+        runNoOutOfBound("rangeCheckPredicatesLoopUpMultipleAccesses1", 1000, getOptionsMainPath(), 0, 999);
+        runOutOfBound("rangeCheckPredicatesLoopUpMultipleAccesses1", 1000, false, 0, 1000);
+    }
+
+    public static int rangeCheckPredicatesLoopUpMultipleAccesses2(int[] array, int start, int stop) {
+        int res = 0;
+        for (int i = start; i < stop; i++) {
+            res += array[i] * array[i + 1];
+        }
+        return res;
+    }
+
+    @Test
+    public void testLoopUpMultipleAccesses2() {
+        verifyNoRangeCheckInLoop("rangeCheckPredicatesLoopUpMultipleAccesses2");
+        runNoOutOfBound("rangeCheckPredicatesLoopUpMultipleAccesses2", 1000, getOptionsMainPath(), 0, 999);
+        runOutOfBound("rangeCheckPredicatesLoopUpMultipleAccesses2", 1000, false, -1, 999);
+    }
+
+    public static void rangeCheckPredicatesLoopUpScaledOffset1(int[] array, int start, int stop, int offset) {
+        for (int i = start; i < stop; i++) {
+            array[2 * (i + offset)] = i;
+        }
+    }
+
+    @Test
+    public void testLoopUpScaledOffset1() {
+        verifyNoRangeCheckInLoop("rangeCheckPredicatesLoopUpScaledOffset1");
+        runNoOutOfBound("rangeCheckPredicatesLoopUpScaledOffset1", 1000, getOptionsMainPath(), -5, 495, 5);
+        runOutOfBound("rangeCheckPredicatesLoopUpScaledOffset1", 1000, false, -5, 496, 5);
+    }
 }
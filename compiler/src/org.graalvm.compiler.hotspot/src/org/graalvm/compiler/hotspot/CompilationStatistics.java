@@ -40,7 +40,10 @@ import java.util.Deque;
 import java.util.Locale;
 import java.util.concurrent.ConcurrentLinkedDeque;
 
+import org.graalvm.collections.EconomicSet;
 import org.graalvm.compiler.debug.CSVUtil;
+import org.graalvm.compiler.graph.Graph;
+import org.graalvm.compiler.nodes.StructuredGraph;
 import org.graalvm.compiler.options.Option;
 import org.graalvm.compiler.options.OptionKey;
 import org.graalvm.compiler.options.OptionValues;
@@ -97,6 +100,9 @@ public final class CompilationStatistics {
     private int codeSize;
     @TimeValue private long duration;
     private long memoryUsed;
+    private int nodesAllocated;
+    private int peakNodeCount;
+    private String skippedOptimizations = "";
     private final boolean osr;
     private final String holder;
     private final String name;
@@ -121,10 +127,32 @@ public final class CompilationStatistics {
     }
 
     public void finish(HotSpotResolvedJavaMethod method, HotSpotInstalledCode code) {
+        finish(method, code, null);
+    }
+
+    /**
+     * Records the statistics of a finished compilation.
+     *
+     * @param graph the graph that was compiled or {@code null} if it is not available. If non-null,
+     *            the total number of nodes allocated in the graph and its peak live node count are
+     *            recorded, as well as the optimizations that were skipped because the compilation
+     *            exceeded its budget.
+     */
+    public void finish(HotSpotResolvedJavaMethod method, HotSpotInstalledCode code, Graph graph) {
         if (isEnabled()) {
             duration = System.nanoTime() - startTime;
-            codeSize = (int) code.getCodeSize();
+            codeSize = code == null ? 0 : (int) code.getCodeSize();
             memoryUsed = getThreadAllocatedBytes() - threadAllocatedBytesStart;
+            if (graph != null) {
+                nodesAllocated = graph.getTotalNodesAllocated();
+                peakNodeCount = graph.getPeakNodeCount();
+                if (graph instanceof StructuredGraph) {
+                    EconomicSet<String> skipped = ((StructuredGraph) graph).getSkippedOptimizations();
+                    if (skipped != null) {
+                        skippedOptimizations = String.join(" ", skipped);
+                    }
+                }
+            }
             if (current.get().getLast() != this) {
                 throw new RuntimeException("mismatch in finish()");
             }
@@ -181,7 +181,7 @@ public class CompilationTask {
                 // Installation is included in compilation time and memory usage reported by printer
                 printer.finish(result);
             }
-            stats.finish(method, installedCode);
+            stats.finish(method, installedCode, graph);
             if (result != null) {
                 // For compilation of substitutions the method in the compilation request might be
                 // different than the actual method parsed. The root of the compilation will always
@@ -63,6 +63,7 @@ import org.graalvm.compiler.phases.tiers.LowTierContext;
 import org.graalvm.compiler.phases.tiers.MidTierContext;
 import org.graalvm.compiler.phases.tiers.Suites;
 import org.graalvm.compiler.phases.tiers.SuitesCreator;
+import org.graalvm.compiler.replacements.arraycopy.ArrayCopyLoopIdiomPhase;
 
 /**
  * HotSpot implementation of {@link SuitesCreator}.
@@ -85,6 +86,12 @@ public class HotSpotSuitesProvider extends SuitesProviderBase {
     public Suites createSuites(OptionValues options) {
         Suites ret = defaultSuitesCreator.createSuites(options);
 
+        if (ArrayCopyLoopIdiomPhase.Options.ArrayCopyLoopIdiom.getValue(options)) {
+            ListIterator<BasePhase<? super HighTierContext>> highTierLowering = ret.getHighTier().findPhase(LoweringPhase.class);
+            highTierLowering.previous();
+            highTierLowering.add(new ArrayCopyLoopIdiomPhase(CanonicalizerPhase.create()));
+        }
+
         if (ImmutableCode.getValue(options)) {
             ListIterator<BasePhase<? super MidTierContext>> midTierLowering = ret.getMidTier().findPhase(LoweringPhase.class);
 
@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.lir.amd64;
+
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+import static org.graalvm.compiler.asm.amd64.AMD64BaseAssembler.OperandSize.DWORD;
+import static org.graalvm.compiler.lir.LIRInstruction.OperandFlag.REG;
+
+import java.util.Objects;
+
+import org.graalvm.compiler.asm.Label;
+import org.graalvm.compiler.asm.amd64.AMD64Address;
+import org.graalvm.compiler.asm.amd64.AMD64Address.Scale;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.AMD64RMOp;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.ConditionFlag;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexMRIOp;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexMoveOp;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexRMIOp;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexRMOp;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexRVMOp;
+import org.graalvm.compiler.asm.amd64.AMD64MacroAssembler;
+import org.graalvm.compiler.asm.amd64.AVXKind;
+import org.graalvm.compiler.core.common.LIRKind;
+import org.graalvm.compiler.debug.GraalError;
+import org.graalvm.compiler.lir.LIRInstructionClass;
+import org.graalvm.compiler.lir.Opcode;
+import org.graalvm.compiler.lir.asm.CompilationResultBuilder;
+import org.graalvm.compiler.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.amd64.AMD64.CPUFeature;
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Emits code which computes the polynomial hash code {@code h = 31 * h + a[i]} over an array
+ * region, as done by {@link java.util.Arrays#hashCode(int[])} and friends.
+ *
+ * The elements are processed in vectors of {@code n} int lanes. Each iteration multiplies the
+ * accumulator vector by {@code 31^n} and adds the next {@code n} elements, so that lane {@code l}
+ * accumulates all elements at positions {@code i} with {@code i % n == l}. After the vector loop
+ * the lanes are combined with {@code n} scalar Horner steps and the initial value, scaled by
+ * {@code 31^m} for the {@code m} elements consumed by the vector loop, is added. The remaining
+ * elements are handled by a scalar loop.
+ */
+@Opcode("AMD64_ARRAY_HASH_CODE")
+public final class AMD64ArrayHashCodeOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64ArrayHashCodeOp> TYPE = LIRInstructionClass.create(AMD64ArrayHashCodeOp.class);
+
+    private final JavaKind elementKind;
+    private final boolean unsigned;
+    private final Scale elementScale;
+    private final AVXKind.AVXSize vectorSize;
+
+    @Def({REG}) private Value resultValue;
+    @Alive({REG}) private Value arrayValue;
+    @Alive({REG}) private Value lengthValue;
+    @Alive({REG}) private Value initialValue;
+
+    @Temp({REG}) private Value arrayTemp;
+    @Temp({REG}) private Value lengthTemp;
+    @Temp({REG}) private Value indexTemp;
+    @Temp({REG}) private Value powerTemp;
+    @Temp({REG}) private Value scalarTemp;
+    @Temp({REG}) private Value accumulatorTemp;
+    @Temp({REG}) private Value elementsTemp;
+    @Temp({REG}) private Value multiplierTemp;
+
+    /**
+     * @param elementKind the kind of the array elements, one of {@link JavaKind#Byte},
+     *            {@link JavaKind#Short}, {@link JavaKind#Char} or {@link JavaKind#Int}
+     * @param unsigned whether byte elements are zero-extended instead of sign-extended
+     */
+    public AMD64ArrayHashCodeOp(LIRGeneratorTool tool, JavaKind elementKind, boolean unsigned, Value result, Value array, Value length, Value initial, int maxVectorSize) {
+        super(TYPE);
+        assert supportsAVX(tool);
+        assert elementKind == JavaKind.Byte || elementKind == JavaKind.Short || elementKind == JavaKind.Char || elementKind == JavaKind.Int : elementKind;
+        this.elementKind = elementKind;
+        this.unsigned = unsigned || elementKind == JavaKind.Char;
+        this.elementScale = Objects.requireNonNull(Scale.fromInt(tool.getProviders().getMetaAccess().getArrayIndexScale(elementKind)));
+        this.vectorSize = ((AMD64) tool.target().arch).getFeatures().contains(CPUFeature.AVX2) && (maxVectorSize < 0 || maxVectorSize >= 32) ? AVXKind.AVXSize.YMM : AVXKind.AVXSize.XMM;
+
+        this.resultValue = result;
+        this.arrayValue = array;
+        this.lengthValue = length;
+        this.initialValue = initial;
+
+        LIRKind wordKind = LIRKind.value(tool.target().arch.getWordKind());
+        this.arrayTemp = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.lengthTemp = tool.newVariable(wordKind);
+        this.indexTemp = tool.newVariable(wordKind);
+        this.powerTemp = tool.newVariable(LIRKind.value(AMD64Kind.DWORD));
+        this.scalarTemp = tool.newVariable(LIRKind.value(AMD64Kind.DWORD));
+
+        LIRKind vectorKind = LIRKind.value(vectorSize == AVXKind.AVXSize.YMM ? AMD64Kind.V256_DWORD : AMD64Kind.V128_DWORD);
+        this.accumulatorTemp = tool.newVariable(vectorKind);
+        this.elementsTemp = tool.newVariable(vectorKind);
+        this.multiplierTemp = tool.newVariable(vectorKind);
+    }
+
+    public static boolean supportsAVX(LIRGeneratorTool tool) {
+        return ((AMD64) tool.target().arch).getFeatures().contains(CPUFeature.AVX);
+    }
+
+    private int lanes() {
+        return vectorSize.getBytes() / Integer.BYTES;
+    }
+
+    private static int powerOf31(int exponent) {
+        int power = 1;
+        for (int i = 0; i < exponent; i++) {
+            power *= 31;
+        }
+        return power;
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register result = asRegister(resultValue);
+        Register array = asRegister(arrayTemp);
+        Register length = asRegister(lengthTemp);
+        Register index = asRegister(indexTemp);
+        Register power = asRegister(powerTemp);
+        Register tmp = asRegister(scalarTemp);
+        Register accumulator = asRegister(accumulatorTemp);
+        Register elements = asRegister(elementsTemp);
+        Register multiplier = asRegister(multiplierTemp);
+
+        Label vectorLoop = new Label();
+        Label scalarTail = new Label();
+        Label scalarLoop = new Label();
+        Label done = new Label();
+
+        int lanes = lanes();
+
+        masm.movq(array, asRegister(arrayValue));
+        masm.movl(length, asRegister(lengthValue));
+        masm.movl(result, asRegister(initialValue));
+
+        masm.movl(index, length);
+        masm.andl(length, lanes - 1);
+        masm.andlAndJcc(index, -lanes, ConditionFlag.Zero, scalarTail, false);
+
+        VexRVMOp.VPXOR.emit(masm, vectorSize, accumulator, accumulator, accumulator);
+        masm.movl(tmp, powerOf31(lanes));
+        masm.movdl(multiplier, tmp);
+        if (vectorSize == AVXKind.AVXSize.YMM) {
+            VexRMOp.VPBROADCASTD.emit(masm, vectorSize, multiplier, multiplier);
+        } else {
+            VexRMIOp.VPSHUFD.emit(masm, vectorSize, multiplier, multiplier, 0);
+        }
+        masm.movl(power, 1);
+        masm.leaq(array, new AMD64Address(array, index, elementScale));
+        masm.negq(index);
+
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(vectorLoop);
+        VexRVMOp.VPMULLD.emit(masm, vectorSize, accumulator, accumulator, multiplier);
+        emitLoadElements(masm, elements, new AMD64Address(array, index, elementScale));
+        VexRVMOp.VPADDD.emit(masm, vectorSize, accumulator, accumulator, elements);
+        masm.imull(power, power, powerOf31(lanes));
+        masm.addqAndJcc(index, lanes, ConditionFlag.NotZero, vectorLoop, false);
+
+        // result = initial * 31^m + sum(accumulator[l] * 31^(lanes - 1 - l))
+        AMD64RMOp.IMUL.emit(masm, DWORD, result, power);
+        for (int lane = 0; lane < lanes; lane++) {
+            if (lane == 4) {
+                VexMRIOp.VEXTRACTI128.emit(masm, vectorSize, elements, accumulator, 1);
+            }
+            Register source = lane < 4 ? accumulator : elements;
+            if (lane == 0) {
+                VexMRIOp.VPEXTRD.emit(masm, AVXKind.AVXSize.XMM, power, source, 0);
+            } else {
+                masm.imull(power, power, 31);
+                VexMRIOp.VPEXTRD.emit(masm, AVXKind.AVXSize.XMM, tmp, source, lane % 4);
+                masm.addl(power, tmp);
+            }
+        }
+        masm.addl(result, power);
+
+        masm.bind(scalarTail);
+        masm.testlAndJcc(length, length, ConditionFlag.Zero, done, false);
+        masm.leaq(array, new AMD64Address(array, length, elementScale));
+        masm.negq(length);
+
+        masm.bind(scalarLoop);
+        masm.imull(result, result, 31);
+        emitLoadElement(masm, tmp, new AMD64Address(array, length, elementScale));
+        masm.addl(result, tmp);
+        masm.incqAndJcc(length, ConditionFlag.NotZero, scalarLoop, true);
+
+        masm.bind(done);
+    }
+
+    private void emitLoadElements(AMD64MacroAssembler masm, Register dst, AMD64Address src) {
+        switch (elementKind) {
+            case Byte:
+                (unsigned ? VexRMOp.VPMOVZXBD : VexRMOp.VPMOVSXBD).emit(masm, vectorSize, dst, src);
+                break;
+            case Short:
+                VexRMOp.VPMOVSXWD.emit(masm, vectorSize, dst, src);
+                break;
+            case Char:
+                VexRMOp.VPMOVZXWD.emit(masm, vectorSize, dst, src);
+                break;
+            case Int:
+                VexMoveOp.VMOVDQU32.emit(masm, vectorSize, dst, src);
+                break;
+            default:
+                throw GraalError.shouldNotReachHere();
+        }
+    }
+
+    private void emitLoadElement(AMD64MacroAssembler masm, Register dst, AMD64Address src) {
+        switch (elementKind) {
+            case Byte:
+                if (unsigned) {
+                    masm.movzbl(dst, src);
+                } else {
+                    masm.movsbl(dst, src);
+                }
+                break;
+            case Short:
+                masm.movswl(dst, src);
+                break;
+            case Char:
+                masm.movzwl(dst, src);
+                break;
+            case Int:
+                masm.movl(dst, src);
+                break;
+            default:
+                throw GraalError.shouldNotReachHere();
+        }
+    }
+
+    @Override
+    public boolean needsClearUpperVectorRegisters() {
+        return true;
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.lir.amd64;
+
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+import static org.graalvm.compiler.lir.LIRInstruction.OperandFlag.REG;
+
+import org.graalvm.compiler.asm.Label;
+import org.graalvm.compiler.asm.amd64.AMD64Address;
+import org.graalvm.compiler.asm.amd64.AMD64Address.Scale;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.ConditionFlag;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexMoveOp;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexRMOp;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexRVMOp;
+import org.graalvm.compiler.asm.amd64.AMD64MacroAssembler;
+import org.graalvm.compiler.asm.amd64.AVXKind;
+import org.graalvm.compiler.core.common.LIRKind;
+import org.graalvm.compiler.lir.LIRInstructionClass;
+import org.graalvm.compiler.lir.Opcode;
+import org.graalvm.compiler.lir.asm.CompilationResultBuilder;
+import org.graalvm.compiler.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.amd64.AMD64.CPUFeature;
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Emits code which checks whether a byte array region contains a negative value, i.e. whether it
+ * is not pure ASCII. The check is performed on two SSE or AVX2 vectors per iteration by extracting
+ * the sign bits of all bytes with {@code pmovmskb}, followed by a tail loop over 8 bytes at a time
+ * and a final byte-wise loop.
+ */
+@Opcode("AMD64_HAS_NEGATIVES")
+public final class AMD64HasNegativesOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64HasNegativesOp> TYPE = LIRInstructionClass.create(AMD64HasNegativesOp.class);
+
+    private static final long SIGN_BITS_MASK = 0x8080808080808080L;
+
+    private final AVXKind.AVXSize vectorSize;
+
+    @Def({REG}) private Value resultValue;
+    @Alive({REG}) private Value arrayValue;
+    @Alive({REG}) private Value lengthValue;
+
+    @Temp({REG}) private Value arrayTemp;
+    @Temp({REG}) private Value lengthTemp;
+    @Temp({REG}) private Value indexTemp;
+    @Temp({REG}) private Value maskTemp;
+    @Temp({REG}) private Value vectorTemp1;
+    @Temp({REG}) private Value vectorTemp2;
+
+    public AMD64HasNegativesOp(LIRGeneratorTool tool, Value result, Value array, Value length, int maxVectorSize) {
+        super(TYPE);
+        this.vectorSize = ((AMD64) tool.target().arch).getFeatures().contains(CPUFeature.AVX2) && (maxVectorSize < 0 || maxVectorSize >= 32) ? AVXKind.AVXSize.YMM : AVXKind.AVXSize.XMM;
+
+        this.resultValue = result;
+        this.arrayValue = array;
+        this.lengthValue = length;
+
+        this.arrayTemp = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.lengthTemp = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.indexTemp = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.maskTemp = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+
+        LIRKind vectorKind = LIRKind.value(vectorSize == AVXKind.AVXSize.YMM ? AMD64Kind.V256_BYTE : AMD64Kind.V128_BYTE);
+        this.vectorTemp1 = tool.newVariable(vectorKind);
+        this.vectorTemp2 = tool.newVariable(vectorKind);
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register result = asRegister(resultValue);
+        Register array = asRegister(arrayTemp);
+        Register length = asRegister(lengthTemp);
+        Register index = asRegister(indexTemp);
+        Register mask = asRegister(maskTemp);
+        Register vector1 = asRegister(vectorTemp1);
+        Register vector2 = asRegister(vectorTemp2);
+
+        Label vectorLoop = new Label();
+        Label qwordTail = new Label();
+        Label qwordLoop = new Label();
+        Label byteTail = new Label();
+        Label byteLoop = new Label();
+        Label found = new Label();
+        Label notFound = new Label();
+        Label done = new Label();
+
+        masm.movq(array, asRegister(arrayValue));
+        masm.movl(length, asRegister(lengthValue));
+
+        // Check two vectors per iteration.
+        int bytesPerIteration = vectorSize.getBytes() * 2;
+        masm.movl(index, length);
+        masm.andl(length, bytesPerIteration - 1);
+        masm.andlAndJcc(index, -bytesPerIteration, ConditionFlag.Zero, qwordTail, false);
+        masm.leaq(array, new AMD64Address(array, index, Scale.Times1));
+        masm.negq(index);
+
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(vectorLoop);
+        emitLoad(masm, vector1, new AMD64Address(array, index, Scale.Times1));
+        emitLoad(masm, vector2, new AMD64Address(array, index, Scale.Times1, vectorSize.getBytes()));
+        emitOr(masm, vector1, vector2);
+        emitMoveMask(masm, result, vector1);
+        masm.testlAndJcc(result, result, ConditionFlag.NotZero, found, false);
+        masm.addqAndJcc(index, bytesPerIteration, ConditionFlag.NotZero, vectorLoop, false);
+
+        // Check 8 bytes at a time.
+        masm.bind(qwordTail);
+        masm.movl(index, length);
+        masm.andl(length, Long.BYTES - 1);
+        masm.andlAndJcc(index, -Long.BYTES, ConditionFlag.Zero, byteTail, true);
+        masm.movq(mask, SIGN_BITS_MASK);
+        masm.leaq(array, new AMD64Address(array, index, Scale.Times1));
+        masm.negq(index);
+
+        masm.bind(qwordLoop);
+        masm.movq(result, new AMD64Address(array, index, Scale.Times1));
+        masm.testqAndJcc(result, mask, ConditionFlag.NotZero, found, false);
+        masm.addqAndJcc(index, Long.BYTES, ConditionFlag.NotZero, qwordLoop, true);
+
+        // Check the remaining bytes one by one.
+        masm.bind(byteTail);
+        masm.testlAndJcc(length, length, ConditionFlag.Zero, notFound, true);
+        masm.leaq(array, new AMD64Address(array, length, Scale.Times1));
+        masm.negq(length);
+
+        masm.bind(byteLoop);
+        masm.movsbl(result, new AMD64Address(array, length, Scale.Times1));
+        masm.testlAndJcc(result, result, ConditionFlag.Negative, found, false);
+        masm.incqAndJcc(length, ConditionFlag.NotZero, byteLoop, true);
+
+        masm.bind(notFound);
+        masm.xorl(result, result);
+        masm.jmpb(done);
+
+        masm.bind(found);
+        masm.movl(result, 1);
+
+        masm.bind(done);
+    }
+
+    private void emitLoad(AMD64MacroAssembler masm, Register dst, AMD64Address src) {
+        if (masm.supports(CPUFeature.AVX)) {
+            VexMoveOp.VMOVDQU32.emit(masm, vectorSize, dst, src);
+        } else {
+            // SSE
+            masm.movdqu(dst, src);
+        }
+    }
+
+    private void emitOr(AMD64MacroAssembler masm, Register dst, Register src) {
+        if (masm.supports(CPUFeature.AVX)) {
+            VexRVMOp.VPOR.emit(masm, vectorSize, dst, dst, src);
+        } else {
+            // SSE
+            masm.por(dst, src);
+        }
+    }
+
+    private void emitMoveMask(AMD64MacroAssembler masm, Register dst, Register src) {
+        if (masm.supports(CPUFeature.AVX)) {
+            VexRMOp.VPMOVMSKB.emit(masm, vectorSize, dst, src);
+        } else {
+            // SSE
+            masm.pmovmskb(dst, src);
+        }
+    }
+
+    @Override
+    public boolean needsClearUpperVectorRegisters() {
+        return true;
+    }
+}
@@ -44,6 +44,7 @@ import org.graalvm.compiler.debug.Assertions;
 import org.graalvm.compiler.debug.GraalError;
 import org.graalvm.compiler.lir.LIRInstruction;
 import org.graalvm.compiler.lir.Variable;
+import jdk.vm.ci.code.Register;
 import jdk.vm.ci.code.RegisterValue;
 import jdk.vm.ci.code.StackSlot;
 import jdk.vm.ci.meta.AllocatableValue;
@@ -561,6 +562,16 @@ public final class Interval {
         this.location = newLocation;
     }
 
+    /**
+     * Replaces the register assigned to this interval. Only used by
+     * {@link TreeScanRegisterAssignment}, which recolors intervals after the walker has assigned
+     * them a register.
+     */
+    void reassignRegister(Register register) {
+        assert location != null && isRegister(location) : "can only re-assign a register location of " + this;
+        this.location = register.asValue(kind);
+    }
+
     /** Returns true is this is the sentinel interval that denotes the end of an interval list. */
     public boolean isEndMarker() {
         return operandNumber == END_MARKER_OPERAND_NUMBER;
@@ -85,6 +85,21 @@ public class LinearScan {
         // @formatter:off
         @Option(help = "Enable spill position optimization", type = OptionType.Debug)
         public static final OptionKey<Boolean> LIROptLSRAOptimizeSpillPosition = new NestedBooleanOptionKey(LIROptimization, true);
+
+        @Option(help = "Minimum number of blocks for which the local live sets are computed in parallel (0 disables parallel computation).", type = OptionType.Expert)
+        public static final OptionKey<Integer> LSRAParallelLocalLiveSetsMinBlocks = new OptionKey<>(0);
+
+        @Option(help = "Number of threads that compute local live sets in parallel, including the compiler thread (0: number of processors). " +
+                       "All compilations share a dedicated pool of these threads, sized by the first compilation that uses it. " +
+                       "Not supported in libgraal.", type = OptionType.Expert)
+        public static final OptionKey<Integer> LSRAParallelLocalLiveSetsThreads = new OptionKey<>(0);
+
+        @Option(help = "Check that local live sets computed in parallel equal the sequentially computed ones.", type = OptionType.Debug)
+        public static final OptionKey<Boolean> LSRAVerifyParallelLocalLiveSets = new OptionKey<>(false);
+
+        @Option(help = "Recolor the registers chosen by the linear scan walker with a tree-scan assignment that " +
+                       "coalesces phi, move and split sibling operands.", type = OptionType.Expert)
+        public static final OptionKey<Boolean> LSRATreeScanAssignment = new OptionKey<>(false);
         // @formatter:on
     }
 
@@ -182,6 +197,7 @@ public class LinearScan {
      */
     private int numVariables;
     private final boolean neverSpillConstants;
+    private final boolean optimizeSpillPosition;
 
     /**
      * Sentinel interval to denote the end of an interval list.
@@ -192,7 +208,7 @@ public class LinearScan {
     private final LIRGenerationResult res;
 
     protected LinearScan(TargetDescription target, LIRGenerationResult res, MoveFactory spillMoveFactory, RegisterAllocationConfig regAllocConfig, AbstractBlockBase<?>[] sortedBlocks,
-                    boolean neverSpillConstants) {
+                    boolean neverSpillConstants, boolean optimizeSpillPosition) {
         this.ir = res.getLIR();
         this.res = res;
         this.debug = ir.getDebug();
@@ -207,6 +223,7 @@ public class LinearScan {
         this.numVariables = ir.numVariables();
         this.blockData = new BlockMap<>(ir.getControlFlowGraph());
         this.neverSpillConstants = neverSpillConstants;
+        this.optimizeSpillPosition = optimizeSpillPosition && Options.LIROptLSRAOptimizeSpillPosition.getValue(ir.getOptions());
         this.rangeEndMarker = new Range(Integer.MAX_VALUE, Integer.MAX_VALUE, null);
         this.intervalEndMarker = new Interval(Value.ILLEGAL, Interval.END_MARKER_OPERAND_NUMBER, null, rangeEndMarker);
         this.intervalEndMarker.next = intervalEndMarker;
@@ -714,7 +731,7 @@ public class LinearScan {
 
                 createRegisterAllocationPhase().apply(target, lirGenRes, context);
 
-                if (LinearScan.Options.LIROptLSRAOptimizeSpillPosition.getValue(getOptions())) {
+                if (optimizeSpillPosition) {
                     createOptimizeSpillPositionPhase().apply(target, lirGenRes, context);
                 }
                 createResolveDataFlowPhase().apply(target, lirGenRes, context);
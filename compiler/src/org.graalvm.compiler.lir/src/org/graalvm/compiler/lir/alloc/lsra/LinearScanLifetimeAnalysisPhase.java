@@ -28,6 +28,7 @@ import static jdk.vm.ci.code.ValueUtil.asRegister;
 import static jdk.vm.ci.code.ValueUtil.asStackSlot;
 import static jdk.vm.ci.code.ValueUtil.isRegister;
 import static jdk.vm.ci.code.ValueUtil.isStackSlot;
+import static jdk.vm.ci.services.Services.IS_IN_NATIVE_IMAGE;
 import static org.graalvm.compiler.lir.LIRValueUtil.isCast;
 import static org.graalvm.compiler.lir.LIRValueUtil.asVariable;
 import static org.graalvm.compiler.lir.LIRValueUtil.isVariable;
@@ -37,6 +38,9 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.EnumSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.graalvm.collections.EconomicSet;
 import org.graalvm.collections.Equivalence;
@@ -157,7 +161,6 @@ public class LinearScanLifetimeAnalysisPhase extends LinearScanAllocationPhase {
      * Computes local live sets (i.e. {@link BlockData#liveGen} and {@link BlockData#liveKill})
      * separately for each block.
      */
-    @SuppressWarnings("try")
     void computeLocalLiveSets() {
         int liveSize = allocator.liveSetSize();
         int variables = allocator.operandSize();
@@ -172,6 +175,21 @@ public class LinearScanLifetimeAnalysisPhase extends LinearScanAllocationPhase {
             throw new PermanentBailoutException(e, "Cannot handle %d variables in %d loops", variables, loops);
         }
 
+        AbstractBlockBase<?>[] blocks = allocator.sortedBlocks();
+        int parallelMinBlocks = LinearScan.Options.LSRAParallelLocalLiveSetsMinBlocks.getValue(allocator.getOptions());
+        // libgraal does not start helper threads
+        if (parallelMinBlocks > 0 && blocks.length >= parallelMinBlocks && !IS_IN_NATIVE_IMAGE && !debug.isLogEnabled() && !allocator.detailedAsserts) {
+            computeLocalLiveSetsParallel(blocks, liveSize);
+            if (LinearScan.Options.LSRAVerifyParallelLocalLiveSets.getValue(allocator.getOptions())) {
+                verifyParallelLocalLiveSets(blocks, liveSize, variables, loops);
+            }
+            return;
+        }
+        computeLocalLiveSetsSequential(liveSize);
+    }
+
+    @SuppressWarnings("try")
+    private void computeLocalLiveSetsSequential(int liveSize) {
         try {
             final BitSet liveGenScratch = new BitSet(liveSize);
             final BitSet liveKillScratch = new BitSet(liveSize);
@@ -272,6 +290,159 @@ public class LinearScanLifetimeAnalysisPhase extends LinearScanAllocationPhase {
         }
     }
 
+    /**
+     * Result of the local live set computation of a single block.
+     */
+    private static final class LocalLiveSets {
+        final BitSet liveGen;
+        final BitSet liveKill;
+        /**
+         * Variables used or defined in the block, or {@code null} if the block is not in a loop.
+         */
+        final BitSet loopOperands;
+
+        LocalLiveSets(BitSet liveGen, BitSet liveKill, BitSet loopOperands) {
+            this.liveGen = liveGen;
+            this.liveKill = liveKill;
+            this.loopOperands = loopOperands;
+        }
+    }
+
+    /**
+     * Computes the same result as {@link #computeLocalLiveSetsSequential}, but splits the blocks
+     * into ranges that are processed by the compiler thread and the threads of the
+     * {@link LocalLiveSetsExecutor}. The blocks only read the LIR and the operand numbering, the
+     * shared {@link #intervalInLoop} map and the block data are updated afterwards on the compiler
+     * thread in block order, so the result does not depend on the scheduling of the tasks. Debug
+     * logging and detailed assertions are not supported here, the caller falls back to the
+     * sequential loop for them.
+     */
+    private void computeLocalLiveSetsParallel(AbstractBlockBase<?>[] blocks, int liveSize) {
+        LocalLiveSets[] results = new LocalLiveSets[blocks.length];
+        int threads = LocalLiveSetsExecutor.getThreadCount(allocator.getOptions());
+        int ranges = Math.min(threads, blocks.length);
+        try {
+            ExecutorService executor = ranges > 1 ? LocalLiveSetsExecutor.get(allocator.getOptions()) : null;
+            Future<?>[] futures = new Future<?>[ranges];
+            for (int r = 1; r < ranges; r++) {
+                int start = blocks.length * r / ranges;
+                int end = blocks.length * (r + 1) / ranges;
+                futures[r] = executor.submit(() -> computeLocalLiveSets(blocks, start, end, liveSize, results));
+            }
+            computeLocalLiveSets(blocks, 0, blocks.length / ranges, liveSize, results);
+            for (int r = 1; r < ranges; r++) {
+                futures[r].get();
+            }
+        } catch (OutOfMemoryError oom) {
+            throw new PermanentBailoutException(oom, "Out-of-memory during live set allocation of size %d", liveSize);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof OutOfMemoryError) {
+                throw new PermanentBailoutException(cause, "Out-of-memory during live set allocation of size %d", liveSize);
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new GraalError(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GraalError(e);
+        }
+        for (int i = 0; i < blocks.length; i++) {
+            AbstractBlockBase<?> block = blocks[i];
+            LocalLiveSets sets = results[i];
+            if (sets.loopOperands != null) {
+                int loopIndex = block.getLoop().getIndex();
+                for (int operandNum = sets.loopOperands.nextSetBit(0); operandNum >= 0; operandNum = sets.loopOperands.nextSetBit(operandNum + 1)) {
+                    intervalInLoop.setBit(operandNum, loopIndex);
+                }
+            }
+            BlockData blockSets = allocator.getBlockData(block);
+            blockSets.liveGen = sets.liveGen;
+            blockSets.liveKill = sets.liveKill;
+            // sticky size, will get non-sticky in computeGlobalLiveSets
+            blockSets.liveIn = new BitSet(0);
+            blockSets.liveOut = new BitSet(0);
+        }
+    }
+
+    private void computeLocalLiveSets(AbstractBlockBase<?>[] blocks, int start, int end, int liveSize, LocalLiveSets[] results) {
+        for (int i = start; i < end; i++) {
+            results[i] = computeLocalLiveSets(blocks[i], liveSize);
+        }
+    }
+
+    /**
+     * Checks that the sequential computation produces the same local live sets as the parallel
+     * computation, see {@link LinearScan.Options#LSRAVerifyParallelLocalLiveSets}.
+     */
+    private void verifyParallelLocalLiveSets(AbstractBlockBase<?>[] blocks, int liveSize, int variables, int loops) {
+        BitSet[] parallelGen = new BitSet[blocks.length];
+        BitSet[] parallelKill = new BitSet[blocks.length];
+        for (int i = 0; i < blocks.length; i++) {
+            parallelGen[i] = allocator.getBlockData(blocks[i]).liveGen;
+            parallelKill[i] = allocator.getBlockData(blocks[i]).liveKill;
+        }
+        BitMap2D parallelInLoop = intervalInLoop;
+        intervalInLoop = new BitMap2D(variables, loops);
+        computeLocalLiveSetsSequential(liveSize);
+        for (int i = 0; i < blocks.length; i++) {
+            BlockData blockSets = allocator.getBlockData(blocks[i]);
+            GraalError.guarantee(parallelGen[i].equals(blockSets.liveGen), "liveGen of %s differs: parallel %s, sequential %s", blocks[i], parallelGen[i], blockSets.liveGen);
+            GraalError.guarantee(parallelKill[i].equals(blockSets.liveKill), "liveKill of %s differs: parallel %s, sequential %s", blocks[i], parallelKill[i], blockSets.liveKill);
+        }
+        for (int operandNum = 0; operandNum < variables; operandNum++) {
+            for (int loop = 0; loop < loops; loop++) {
+                GraalError.guarantee(parallelInLoop.at(operandNum, loop) == intervalInLoop.at(operandNum, loop), "intervalInLoop of operand %d in loop %d differs", operandNum, loop);
+            }
+        }
+    }
+
+    private LocalLiveSets computeLocalLiveSets(AbstractBlockBase<?> block, int liveSize) {
+        final BitSet liveGen = new BitSet(liveSize);
+        final BitSet liveKill = new BitSet(liveSize);
+        final BitSet loopOperands = block.getLoop() != null ? new BitSet(liveSize) : null;
+
+        ValueConsumer useConsumer = (operand, mode, flags) -> {
+            if (isVariable(operand)) {
+                int operandNum = getOperandNumber(operand);
+                if (!liveKill.get(operandNum)) {
+                    liveGen.set(operandNum);
+                }
+                if (loopOperands != null) {
+                    loopOperands.set(operandNum);
+                }
+            }
+        };
+        ValueConsumer stateConsumer = (operand, mode, flags) -> {
+            if (LinearScan.isVariableOrRegister(operand) && allocator.isProcessed(operand)) {
+                int operandNum = getOperandNumber(operand);
+                if (!liveKill.get(operandNum)) {
+                    liveGen.set(operandNum);
+                }
+            }
+        };
+        ValueConsumer defConsumer = (operand, mode, flags) -> {
+            if (isVariable(operand)) {
+                int varNum = getOperandNumber(operand);
+                liveKill.set(varNum);
+                if (loopOperands != null) {
+                    loopOperands.set(varNum);
+                }
+            }
+        };
+
+        for (LIRInstruction op : allocator.getLIR().getLIRforBlock(block)) {
+            op.visitEachInput(useConsumer);
+            op.visitEachAlive(useConsumer);
+            op.visitEachState(stateConsumer);
+            op.visitEachTemp(defConsumer);
+            op.visitEachOutput(defConsumer);
+        }
+        return new LocalLiveSets(trimClone(liveGen), trimClone(liveKill), loopOperands);
+    }
+
     private void verifyTemp(BitSet liveKill, Value operand) {
         /*
          * Fixed intervals are never live at block boundaries, so they need not be processed in live
@@ -309,85 +480,96 @@ public class LinearScanLifetimeAnalysisPhase extends LinearScanAllocationPhase {
     protected void computeGlobalLiveSets() {
         try (Indent indent = debug.logAndIndent("compute global live sets")) {
             int numBlocks = allocator.blockCount();
-            boolean changeOccurred;
-            boolean changeOccurredInBlock;
-            int iterationCount = 0;
+            long visitCount = 0;
             BitSet scratch = new BitSet(allocator.liveSetSize()); // scratch set for calculations
+            BitSet visited = new BitSet(numBlocks);
+            BitSet onWorklist = new BitSet(numBlocks);
+            ArrayDeque<AbstractBlockBase<?>> worklist = new ArrayDeque<>(numBlocks);
 
             /*
              * Perform a backward dataflow analysis to compute liveOut and liveIn for each block.
-             * The loop is executed until a fixpoint is reached (no changes in an iteration).
+             * All blocks are processed once in reverse order. After that, a block is only processed
+             * again if the liveIn set of one of its successors has changed, until a fixpoint is
+             * reached (the worklist is empty).
              */
-            do {
-                changeOccurred = false;
+            for (int i = numBlocks - 1; i >= 0; i--) {
+                worklist.add(allocator.blockAt(i));
+                onWorklist.set(i);
+            }
+            while (!worklist.isEmpty()) {
+                AbstractBlockBase<?> block = worklist.poll();
+                int blockIndex = block.getLinearScanNumber();
+                assert allocator.blockAt(blockIndex) == block : "linear scan number does not match block order: " + block;
+                onWorklist.clear(blockIndex);
+                BlockData blockSets = allocator.getBlockData(block);
 
-                try (Indent indent2 = debug.logAndIndent("new iteration %d", iterationCount)) {
+                boolean changeOccurredInBlock = false;
 
-                    // iterate all blocks in reverse order
-                    for (int i = numBlocks - 1; i >= 0; i--) {
-                        AbstractBlockBase<?> block = allocator.blockAt(i);
-                        BlockData blockSets = allocator.getBlockData(block);
+                /*
+                 * liveOut(block) is the union of liveIn(sux), for successors sux of block.
+                 */
+                if (block.getSuccessorCount() > 0) {
+                    scratch.clear();
+                    for (AbstractBlockBase<?> successor : block.getSuccessors()) {
+                        scratch.or(allocator.getBlockData(successor).liveIn);
+                    }
 
-                        changeOccurredInBlock = false;
+                    if (!blockSets.liveOut.equals(scratch)) {
+                        blockSets.liveOut = trimClone(scratch);
+                        changeOccurredInBlock = true;
+                    }
+                }
 
+                if (!visited.get(blockIndex) || changeOccurredInBlock) {
+                    visited.set(blockIndex);
+                    /*
+                     * liveIn(block) is the union of liveGen(block) with (liveOut(block) &
+                     * !liveKill(block)).
+                     *
+                     * Note: liveIn has to be computed only on the first visit or if liveOut has
+                     * changed!
+                     *
+                     * Note: liveIn set can only grow, never shrink.
+                     */
+                    BitSet liveIn = blockSets.liveIn;
+                    scratch.clear();
+                    scratch.or(blockSets.liveOut);
+                    scratch.andNot(blockSets.liveKill);
+                    scratch.or(blockSets.liveGen);
+                    scratch.or(liveIn);
+
+                    if (!liveIn.equals(scratch)) {
                         /*
-                         * liveOut(block) is the union of liveIn(sux), for successors sux of block.
+                         * BitSet#or will call BitSet#ensureSize (since the bit set is of length 0
+                         * initially) and set sticky to false
                          */
-                        int n = block.getSuccessorCount();
-                        if (n > 0) {
-                            scratch.clear();
-                            // block has successors
-                            if (n > 0) {
-                                for (AbstractBlockBase<?> successor : block.getSuccessors()) {
-                                    scratch.or(allocator.getBlockData(successor).liveIn);
-                                }
-                            }
-
-                            if (!blockSets.liveOut.equals(scratch)) {
-                                blockSets.liveOut = trimClone(scratch);
-
-                                changeOccurred = true;
-                                changeOccurredInBlock = true;
-                            }
-                        }
-
-                        if (iterationCount == 0 || changeOccurredInBlock) {
-                            /*
-                             * liveIn(block) is the union of liveGen(block) with (liveOut(block) &
-                             * !liveKill(block)).
-                             *
-                             * Note: liveIn has to be computed only in first iteration or if liveOut
-                             * has changed!
-                             *
-                             * Note: liveIn set can only grow, never shrink. No need to clear it.
-                             */
-                            BitSet liveIn = blockSets.liveIn;
-                            /*
-                             * BitSet#or will call BitSet#ensureSize (since the bit set is of length
-                             * 0 initially) and set sticky to false
-                             */
-                            liveIn.or(blockSets.liveOut);
-                            liveIn.andNot(blockSets.liveKill);
-                            liveIn.or(blockSets.liveGen);
-
-                            liveIn.clone(); // trimToSize()
-
-                            if (debug.isLogEnabled()) {
-                                debug.log("block %d: livein = %s,  liveout = %s", block.getId(), liveIn, blockSets.liveOut);
+                        liveIn.or(scratch);
+                        liveIn.clone(); // trimToSize()
+
+                        // the liveOut sets of the predecessors need to be recomputed
+                        for (AbstractBlockBase<?> predecessor : block.getPredecessors()) {
+                            int predecessorIndex = predecessor.getLinearScanNumber();
+                            if (!onWorklist.get(predecessorIndex)) {
+                                onWorklist.set(predecessorIndex);
+                                worklist.add(predecessor);
                             }
                         }
                     }
-                    iterationCount++;
 
-                    if (changeOccurred && iterationCount > 50) {
-                        /*
-                         * Very unlikely, should never happen: If it happens we cannot guarantee it
-                         * won't happen again.
-                         */
-                        throw new PermanentBailoutException("too many iterations in computeGlobalLiveSets");
+                    if (debug.isLogEnabled()) {
+                        debug.log("block %d: livein = %s,  liveout = %s", block.getId(), liveIn, blockSets.liveOut);
                     }
                 }
-            } while (changeOccurred);
+
+                visitCount++;
+                if (visitCount > 50L * numBlocks) {
+                    /*
+                     * Very unlikely, should never happen: If it happens we cannot guarantee it
+                     * won't happen again.
+                     */
+                    throw new PermanentBailoutException("too many iterations in computeGlobalLiveSets");
+                }
+            }
 
             if (Assertions.detailedAssertionsEnabled(allocator.getOptions())) {
                 verifyLiveness();
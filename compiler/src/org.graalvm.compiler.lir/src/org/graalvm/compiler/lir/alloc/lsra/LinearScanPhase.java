@@ -34,11 +34,27 @@ import jdk.vm.ci.code.TargetDescription;
 
 public final class LinearScanPhase extends RegisterAllocationPhase {
 
+    private final boolean optimizeSpillPosition;
+
+    public LinearScanPhase() {
+        this(true);
+    }
+
+    /**
+     * @param optimizeSpillPosition if {@code false}, spill moves are always placed directly after
+     *            the definition of an interval instead of being moved to less frequently executed
+     *            blocks. This trades code quality for allocation speed.
+     */
+    public LinearScanPhase(boolean optimizeSpillPosition) {
+        this.optimizeSpillPosition = optimizeSpillPosition;
+    }
+
     @Override
     protected void run(TargetDescription target, LIRGenerationResult lirGenRes, AllocationContext context) {
         MoveFactory spillMoveFactory = context.spillMoveFactory;
         RegisterAllocationConfig registerAllocationConfig = context.registerAllocationConfig;
-        final LinearScan allocator = new SSALinearScan(target, lirGenRes, spillMoveFactory, registerAllocationConfig, lirGenRes.getLIR().linearScanOrder(), getNeverSpillConstants());
+        final LinearScan allocator = new SSALinearScan(target, lirGenRes, spillMoveFactory, registerAllocationConfig, lirGenRes.getLIR().linearScanOrder(), getNeverSpillConstants(),
+                        optimizeSpillPosition);
         allocator.allocate(target, lirGenRes, context);
     }
 }
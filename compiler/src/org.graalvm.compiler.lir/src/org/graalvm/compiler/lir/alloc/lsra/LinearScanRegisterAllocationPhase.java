@@ -63,7 +63,14 @@ public final class LinearScanRegisterAllocationPhase extends LinearScanAllocatio
             } else {
                 lsw = new LinearScanWalker(allocator, precoloredIntervals, notPrecoloredIntervals);
             }
+            boolean treeScanAssignment = LinearScan.Options.LSRATreeScanAssignment.getValue(allocator.getOptions());
+            if (treeScanAssignment) {
+                lsw.deferMoves();
+            }
             lsw.walk();
+            if (treeScanAssignment) {
+                new TreeScanRegisterAssignment(allocator, lsw.deferredMoves()).assign();
+            }
             lsw.finishAllocation();
         }
     }
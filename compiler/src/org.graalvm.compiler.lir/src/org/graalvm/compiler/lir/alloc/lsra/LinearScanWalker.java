@@ -65,6 +65,12 @@ class LinearScanWalker extends IntervalWalker {
 
     private MoveResolver moveResolver; // for ordering spill moves
 
+    /**
+     * Moves requested by {@link #insertMove} that are only handed to the {@link #moveResolver} in
+     * {@link #finishAllocation()}, or {@code null} if moves are resolved immediately.
+     */
+    private ArrayList<DeferredMove> deferredMoves;
+
     private int minReg;
 
     private int maxReg;
@@ -265,7 +271,45 @@ class LinearScanWalker extends IntervalWalker {
         }
     }
 
+    /**
+     * A move between two split siblings whose resolution has been postponed until all register
+     * assignments are final.
+     */
+    static final class DeferredMove {
+        final int operandId;
+        final Interval from;
+        final Interval to;
+
+        DeferredMove(int operandId, Interval from, Interval to) {
+            this.operandId = operandId;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * Records the moves requested during {@link #walk()} instead of resolving them right away, so
+     * that the registers of the intervals involved can still change before
+     * {@link #finishAllocation()} orders the moves.
+     */
+    void deferMoves() {
+        assert moveResolver.checkEmpty();
+        deferredMoves = new ArrayList<>();
+    }
+
+    List<DeferredMove> deferredMoves() {
+        return deferredMoves;
+    }
+
     void insertMove(int operandId, Interval srcIt, Interval dstIt) {
+        if (deferredMoves != null) {
+            deferredMoves.add(new DeferredMove(operandId, srcIt, dstIt));
+        } else {
+            addMove(operandId, srcIt, dstIt);
+        }
+    }
+
+    private void addMove(int operandId, Interval srcIt, Interval dstIt) {
         // output all moves here. When source and target are equal, the move is
         // optimized away later in assignRegNums
 
@@ -1136,6 +1180,12 @@ class LinearScanWalker extends IntervalWalker {
 
     public void finishAllocation() {
         // must be called when all intervals are allocated
+        if (deferredMoves != null) {
+            for (DeferredMove move : deferredMoves) {
+                addMove(move.operandId, move.from, move.to);
+            }
+            deferredMoves = null;
+        }
         moveResolver.resolveAndAppendMoves();
     }
 }
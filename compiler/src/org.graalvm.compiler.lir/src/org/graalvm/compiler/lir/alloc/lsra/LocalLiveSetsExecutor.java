@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.lir.alloc.lsra;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.graalvm.compiler.options.OptionValues;
+
+/**
+ * The threads that help the compiler threads to compute local live sets in parallel, see
+ * {@link LinearScan.Options#LSRAParallelLocalLiveSetsThreads}. They do not use the common
+ * fork-join pool, which is shared with application code. The pool is sized by the options of the
+ * first compilation that needs it and is never replaced, so it can be shared by concurrent
+ * compilations. Idle threads terminate after a while, so the pool does not keep any threads alive
+ * when it is not used.
+ */
+final class LocalLiveSetsExecutor {
+    private static final long KEEP_ALIVE_SECONDS = 10;
+
+    private static volatile ExecutorService executor;
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+
+    private LocalLiveSetsExecutor() {
+    }
+
+    /** Returns the number of threads, including the compiler thread, that share the work. */
+    static int getThreadCount(OptionValues options) {
+        int threads = LinearScan.Options.LSRAParallelLocalLiveSetsThreads.getValue(options);
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Returns the shared executor. It is created on first use with {@code getThreadCount(options) -
+     * 1} threads, which help the compiler threads.
+     */
+    static ExecutorService get(OptionValues options) {
+        ExecutorService result = executor;
+        if (result == null) {
+            synchronized (LocalLiveSetsExecutor.class) {
+                result = executor;
+                if (result == null) {
+                    int helpers = Math.max(getThreadCount(options) - 1, 1);
+                    ThreadPoolExecutor pool = new ThreadPoolExecutor(helpers, helpers, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                        Thread thread = new Thread(r, "LSRALocalLiveSets-" + threadCounter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    pool.allowCoreThreadTimeOut(true);
+                    result = pool;
+                    executor = result;
+                }
+            }
+        }
+        return result;
+    }
+}
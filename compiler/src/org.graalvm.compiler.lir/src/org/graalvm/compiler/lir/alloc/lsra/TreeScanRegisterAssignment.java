@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.lir.alloc.lsra;
+
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+import static jdk.vm.ci.code.ValueUtil.isRegister;
+import static org.graalvm.compiler.lir.LIRValueUtil.isVariable;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+import org.graalvm.compiler.core.common.alloc.RegisterAllocationConfig.AllocatableRegisters;
+import org.graalvm.compiler.core.common.cfg.AbstractBlockBase;
+import org.graalvm.compiler.core.common.util.Util;
+import org.graalvm.compiler.debug.CounterKey;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.debug.Indent;
+import org.graalvm.compiler.lir.LIR;
+import org.graalvm.compiler.lir.LIRInstruction;
+import org.graalvm.compiler.lir.LIRInstruction.OperandMode;
+import org.graalvm.compiler.lir.StandardOp.ValueMoveOp;
+import org.graalvm.compiler.lir.alloc.lsra.LinearScanWalker.DeferredMove;
+import org.graalvm.compiler.lir.ssa.SSAUtil;
+
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Tree-scan register assignment on top of the spill decisions of the {@link LinearScanWalker}.
+ *
+ * The walker splits and spills intervals so that no more values are kept in registers than there
+ * are registers, but it picks the register of each interval greedily at the moment the interval is
+ * activated, guided by at most one location hint. On large methods with many phis and split
+ * intervals this leaves a lot of register-to-register moves at phis, at block edges and between
+ * split siblings.
+ *
+ * This pass keeps the spilling and splitting of the walker and only recolors the intervals that
+ * received a register. They are visited in the order of their start position, so every SSA value
+ * is colored after the values live at its definition, as in a tree scan over the dominator tree.
+ * Each interval gets the free register that is preferred by the largest frequency-weighted sum of
+ * already colored affine intervals: the operands of moves, the inputs and results of phis, split
+ * siblings connected by a move or a block edge, and the interval's location hint. If some interval
+ * cannot be colored, the assignment of the walker is restored.
+ *
+ * Enabled with {@link LinearScan.Options#LSRATreeScanAssignment}.
+ */
+final class TreeScanRegisterAssignment {
+
+    private static final CounterKey numReassigned = DebugContext.counter("LSRA TreeScan[numReassigned]");
+    private static final CounterKey numFailed = DebugContext.counter("LSRA TreeScan[numFailed]");
+
+    /**
+     * An edge of the affinity graph: the interval owning the edge should preferably get the same
+     * register as {@link #other}.
+     */
+    private static final class Affinity {
+        final Interval other;
+        final double weight;
+        final Affinity next;
+
+        Affinity(Interval other, double weight, Affinity next) {
+            this.other = other;
+            this.weight = weight;
+            this.next = next;
+        }
+    }
+
+    private final LinearScan allocator;
+    private final List<DeferredMove> walkerMoves;
+
+    /**
+     * Affinity edges indexed by {@linkplain Interval#operandNumber operand number}.
+     */
+    private final Affinity[] affinities;
+
+    TreeScanRegisterAssignment(LinearScan allocator, List<DeferredMove> walkerMoves) {
+        this.allocator = allocator;
+        this.walkerMoves = walkerMoves;
+        this.affinities = new Affinity[allocator.intervals().length];
+    }
+
+    /**
+     * Recolors all variable intervals that have a register location.
+     *
+     * @return {@code false} if the assignment of the walker was kept
+     */
+    @SuppressWarnings("try")
+    boolean assign() {
+        DebugContext debug = allocator.getDebug();
+        try (Indent indent = debug.logAndIndent("tree-scan register assignment")) {
+            Interval[] intervals = allocator.intervals();
+            Range[] fixedRanges = new Range[allocator.getRegisters().size()];
+            ArrayList<Interval> candidates = new ArrayList<>();
+            for (Interval interval : intervals) {
+                if (interval == null) {
+                    continue;
+                }
+                if (isRegister(interval.operand)) {
+                    if (!interval.first().isEndMarker()) {
+                        fixedRanges[asRegister(interval.operand).number] = interval.first();
+                    }
+                } else if (isVariable(interval.operand) && interval.location() != null && isRegister(interval.location())) {
+                    candidates.add(interval);
+                }
+            }
+            candidates.sort(Comparator.comparingInt(Interval::from).thenComparingInt(i -> i.operandNumber));
+            collectAffinities();
+
+            Register[] original = new Register[candidates.size()];
+            for (int i = 0; i < original.length; i++) {
+                original[i] = asRegister(candidates.get(i).location());
+            }
+            boolean[] colored = new boolean[intervals.length];
+            List<Interval>[] live = Util.uncheckedCast(new List<?>[fixedRanges.length]);
+            for (int i = 0; i < live.length; i++) {
+                live[i] = new ArrayList<>();
+            }
+            double[] score = new double[fixedRanges.length];
+
+            for (int i = 0; i < original.length; i++) {
+                Interval interval = candidates.get(i);
+                Register register = selectRegister(interval, original[i], fixedRanges, live, colored, score);
+                if (register == null) {
+                    debug.log("no register left for %s, keeping the walker assignment", interval);
+                    numFailed.increment(debug);
+                    for (int j = 0; j < i; j++) {
+                        candidates.get(j).reassignRegister(original[j]);
+                    }
+                    return false;
+                }
+                if (!register.equals(original[i])) {
+                    debug.log("reassigning %s from %s to %s", interval, original[i], register);
+                    numReassigned.increment(debug);
+                    interval.reassignRegister(register);
+                }
+                colored[interval.operandNumber] = true;
+                live[register.number].add(interval);
+            }
+            return true;
+        }
+    }
+
+    private Register selectRegister(Interval interval, Register original, Range[] fixedRanges, List<Interval>[] live, boolean[] colored, double[] score) {
+        for (Affinity affinity = affinities[interval.operandNumber]; affinity != null; affinity = affinity.next) {
+            if (isRegister(affinity.other.operand) || colored[affinity.other.operandNumber]) {
+                score[asRegister(affinity.other.location()).number] += affinity.weight;
+            }
+        }
+
+        AllocatableRegisters allocatableRegisters = allocator.getRegisterAllocationConfig().getAllocatableRegisters(interval.kind().getPlatformKind());
+        Register best = null;
+        double bestScore = 0;
+        for (Register register : allocatableRegisters.allocatableRegisters) {
+            if (isFree(register, interval, fixedRanges, live)) {
+                double s = score[register.number];
+                if (best == null || s > bestScore || (s == bestScore && register.equals(original))) {
+                    best = register;
+                    bestScore = s;
+                }
+            }
+        }
+
+        for (Affinity affinity = affinities[interval.operandNumber]; affinity != null; affinity = affinity.next) {
+            if (isRegister(affinity.other.location())) {
+                score[asRegister(affinity.other.location()).number] = 0;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Checks whether {@code register} is neither blocked by its fixed interval nor assigned to an
+     * already colored interval that intersects {@code interval}. Intervals are visited by
+     * increasing start position, so ranges and intervals ending before that position are dropped.
+     */
+    private static boolean isFree(Register register, Interval interval, Range[] fixedRanges, List<Interval>[] live) {
+        int from = interval.from();
+        Range fixed = fixedRanges[register.number];
+        if (fixed != null) {
+            while (!fixed.isEndMarker() && fixed.to <= from) {
+                fixed = fixed.next;
+            }
+            fixedRanges[register.number] = fixed;
+            if (!fixed.isEndMarker() && fixed.intersects(interval.first())) {
+                return false;
+            }
+        }
+
+        List<Interval> assigned = live[register.number];
+        for (int i = assigned.size() - 1; i >= 0; i--) {
+            Interval other = assigned.get(i);
+            if (other.to() <= from) {
+                int last = assigned.size() - 1;
+                assigned.set(i, assigned.get(last));
+                assigned.remove(last);
+            } else if (other.intersects(interval)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void collectAffinities() {
+        LIR lir = allocator.getLIR();
+        for (DeferredMove move : walkerMoves) {
+            addAffinity(move.from, move.to, allocator.blockForId((move.operandId + 1) & ~1).getRelativeFrequency());
+        }
+
+        for (AbstractBlockBase<?> block : allocator.sortedBlocks()) {
+            double frequency = block.getRelativeFrequency();
+            for (LIRInstruction op : lir.getLIRforBlock(block)) {
+                if (ValueMoveOp.isValueMoveOp(op)) {
+                    ValueMoveOp move = ValueMoveOp.asValueMoveOp(op);
+                    if (isVariable(move.getInput()) && isVariable(move.getResult())) {
+                        addAffinity(splitChildAt(move.getInput(), op.id(), OperandMode.USE), splitChildAt(move.getResult(), op.id(), OperandMode.DEF), frequency);
+                    }
+                }
+            }
+
+            int toBlockFirstInstructionId = allocator.getFirstLirInstructionId(block);
+            BitSet liveIn = allocator.getBlockData(block).liveIn;
+            for (AbstractBlockBase<?> pred : block.getPredecessors()) {
+                double edgeFrequency = Math.min(frequency, pred.getRelativeFrequency());
+                int fromBlockLastInstructionId = allocator.getLastLirInstructionId(pred) + 1;
+                for (int operandNum = liveIn.nextSetBit(0); operandNum >= 0; operandNum = liveIn.nextSetBit(operandNum + 1)) {
+                    Interval parent = allocator.intervalFor(operandNum);
+                    if (!parent.getSplitChildren().isEmpty()) {
+                        addAffinity(allocator.splitChildAtOpId(parent, fromBlockLastInstructionId, OperandMode.DEF), allocator.splitChildAtOpId(parent, toBlockFirstInstructionId, OperandMode.DEF),
+                                        edgeFrequency);
+                    }
+                }
+                if (block.getPredecessorCount() > 1) {
+                    int phiOutId = SSAUtil.phiOut(lir, pred).id();
+                    SSAUtil.forEachPhiValuePair(lir, block, pred, (phiIn, phiOut) -> {
+                        if (isVariable(phiOut)) {
+                            addAffinity(splitChildAt(phiIn, toBlockFirstInstructionId, OperandMode.DEF), splitChildAt(phiOut, phiOutId, OperandMode.DEF), edgeFrequency);
+                        }
+                    });
+                }
+            }
+        }
+
+        for (Interval interval : allocator.intervals()) {
+            if (interval != null && isVariable(interval.operand) && interval.isSplitParent() && interval.locationHint(false) != null) {
+                Interval hint = interval.locationHint(false);
+                double frequency = allocator.blockForId(interval.from()).getRelativeFrequency();
+                if (isRegister(hint.operand)) {
+                    addAffinity(interval, hint, frequency);
+                } else {
+                    addAffinity(interval, childCovering(hint, interval.from()), frequency);
+                }
+            }
+        }
+    }
+
+    private Interval splitChildAt(Value operand, int opId, OperandMode mode) {
+        return allocator.splitChildAtOpId(allocator.intervalFor(operand), opId, mode);
+    }
+
+    private static Interval childCovering(Interval parent, int opId) {
+        if (parent.from() <= opId && opId <= parent.to()) {
+            return parent;
+        }
+        for (Interval child : parent.getSplitChildren()) {
+            if (child.from() <= opId && opId <= child.to()) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds a symmetric affinity between two intervals that are both kept in a register.
+     */
+    private void addAffinity(Interval a, Interval b, double weight) {
+        if (a == null || b == null || a == b || a.location() == null || !isRegister(a.location()) || b.location() == null || !isRegister(b.location())) {
+            return;
+        }
+        if (isVariable(a.operand)) {
+            affinities[a.operandNumber] = new Affinity(b, weight, affinities[a.operandNumber]);
+        }
+        if (isVariable(b.operand)) {
+            affinities[b.operandNumber] = new Affinity(a, weight, affinities[b.operandNumber]);
+        }
+    }
+}
@@ -41,8 +41,8 @@ import jdk.vm.ci.code.TargetDescription;
 public final class SSALinearScan extends LinearScan {
 
     public SSALinearScan(TargetDescription target, LIRGenerationResult res, MoveFactory spillMoveFactory, RegisterAllocationConfig regAllocConfig, AbstractBlockBase<?>[] sortedBlocks,
-                    boolean neverSpillConstants) {
-        super(target, res, spillMoveFactory, regAllocConfig, sortedBlocks, neverSpillConstants);
+                    boolean neverSpillConstants, boolean optimizeSpillPosition) {
+        super(target, res, spillMoveFactory, regAllocConfig, sortedBlocks, neverSpillConstants, optimizeSpillPosition);
     }
 
     @Override
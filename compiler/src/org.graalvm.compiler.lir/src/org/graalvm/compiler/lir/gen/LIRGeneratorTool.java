@@ -248,6 +248,25 @@ public interface LIRGeneratorTool extends DiagnosticLIRGeneratorTool, ValueKindF
         throw GraalError.unimplemented("String.indexOf substitution is not implemented on this architecture");
     }
 
+    /**
+     * Emits code that checks whether any of the {@code length} bytes starting at address
+     * {@code array} is negative. The result is 1 if a negative byte was found and 0 otherwise.
+     */
+    @SuppressWarnings("unused")
+    default Variable emitHasNegatives(Value array, Value length) {
+        throw GraalError.unimplemented("StringCoding.hasNegatives substitution is not implemented on this architecture");
+    }
+
+    /**
+     * Emits code that computes {@code h = 31 * h + a[i]} for the {@code length} elements of kind
+     * {@code elementKind} starting at address {@code array}, with {@code h} starting at
+     * {@code initialValue}. Byte elements are zero-extended if {@code unsigned} is true.
+     */
+    @SuppressWarnings("unused")
+    default Variable emitArrayHashCode(JavaKind elementKind, boolean unsigned, Value array, Value length, Value initialValue) {
+        throw GraalError.unimplemented("Array hashCode substitution is not implemented on this architecture");
+    }
+
     /*
      * The routines emitStringLatin1Inflate/3 and emitStringUTF16Compress/3 models a simplified
      * version of
@@ -35,7 +35,8 @@ public class EconomyAllocationStage extends LIRPhaseSuite<AllocationContext> {
     public EconomyAllocationStage(@SuppressWarnings("unused") OptionValues options) {
         appendPhase(new MarkBasePointersPhase());
 
-        appendPhase(new LinearScanPhase());
+        // spill position optimization is not worth its cost in economy mode
+        appendPhase(new LinearScanPhase(false));
 
         // build frame map
         appendPhase(new SimpleStackSlotAllocator());
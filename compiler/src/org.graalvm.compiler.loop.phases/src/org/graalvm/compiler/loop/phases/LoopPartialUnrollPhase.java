@@ -36,6 +36,8 @@ import org.graalvm.compiler.nodes.loop.LoopsData;
 import org.graalvm.compiler.nodes.spi.CoreProviders;
 import org.graalvm.compiler.nodes.spi.LoopsDataProvider;
 import org.graalvm.compiler.phases.common.CanonicalizerPhase;
+import org.graalvm.compiler.phases.common.CompilationBudget;
+import org.graalvm.compiler.phases.common.CompilationBudget.Degradation;
 import org.graalvm.compiler.phases.common.util.EconomicSetNodeEventListener;
 
 public class LoopPartialUnrollPhase extends LoopPhase<LoopPolicies> {
@@ -50,7 +52,7 @@ public class LoopPartialUnrollPhase extends LoopPhase<LoopPolicies> {
     @Override
     @SuppressWarnings("try")
     protected void run(StructuredGraph graph, CoreProviders context) {
-        if (graph.hasLoops()) {
+        if (graph.hasLoops() && !CompilationBudget.shouldDegrade(graph, Degradation.LoopPartialUnroll)) {
             EconomicSetNodeEventListener listener = new EconomicSetNodeEventListener();
             boolean changed = true;
             EconomicMap<LoopBeginNode, OpaqueNode> opaqueUnrolledStrides = null;
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.loop.phases;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.compiler.core.common.type.IntegerStamp;
+import org.graalvm.compiler.debug.CounterKey;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.graph.Graph.NodeEvent;
+import org.graalvm.compiler.graph.Graph.NodeEventScope;
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.nodes.LoopBeginNode;
+import org.graalvm.compiler.nodes.NodeView;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.ValuePhiNode;
+import org.graalvm.compiler.nodes.calc.AddNode;
+import org.graalvm.compiler.nodes.calc.MulNode;
+import org.graalvm.compiler.nodes.loop.BasicInductionVariable;
+import org.graalvm.compiler.nodes.loop.DerivedInductionVariable;
+import org.graalvm.compiler.nodes.loop.DerivedOffsetInductionVariable;
+import org.graalvm.compiler.nodes.loop.DerivedScaledInductionVariable;
+import org.graalvm.compiler.nodes.loop.InductionVariable;
+import org.graalvm.compiler.nodes.loop.LoopEx;
+import org.graalvm.compiler.nodes.loop.LoopsData;
+import org.graalvm.compiler.nodes.spi.CoreProviders;
+import org.graalvm.compiler.nodes.util.GraphUtil;
+import org.graalvm.compiler.phases.BasePhase;
+import org.graalvm.compiler.phases.common.CanonicalizerPhase;
+import org.graalvm.compiler.phases.common.util.EconomicSetNodeEventListener;
+
+import jdk.vm.ci.code.CodeUtil;
+
+//@formatter:off
+/**
+ * Strength reduction of derived induction variables that involve a multiplication which cannot be
+ * folded into an addressing mode, i.e., a multiplication by a loop invariant or by a constant that
+ * is not a power of two. The derived value is replaced with a new loop phi that is incremented by
+ * the (loop invariant) stride of the derived induction variable:
+ *
+ * <pre>
+ *     for (int i = 0; i < n; i++) {              int j = k;
+ *         sum += a[i * cols + k];        =>      for (int i = 0; i < n; i++, j += cols) {
+ *     }                                              sum += a[j];
+ *                                                }
+ * </pre>
+ *
+ * The transformation is only applied to chains of additions, subtractions and multiplications
+ * without any integer conversion in between. These operations are exact in two's complement
+ * arithmetic, so the new phi has the same value as the replaced expression in every iteration,
+ * including iterations in which the original expression overflows. The array index and any range
+ * check on it therefore see exactly the values they saw before. Since only integer indices are
+ * rewritten and no derived pointers are created, the transformation is independent of the GC.
+ *
+ * Loop invariant parts of address computations are already moved out of loops by
+ * {@link org.graalvm.compiler.phases.common.ReassociationPhase} and the scheduler. This phase
+ * should run after it so that invariant factors have been combined into a single scale.
+ */
+//@formatter:on
+public class LoopStrengthReductionPhase extends BasePhase<CoreProviders> {
+
+    private static final CounterKey REDUCED_INDUCTION_VARIABLES = DebugContext.counter("LoopStrengthReduction_ReducedInductionVariables");
+
+    /**
+     * Maximum number of induction variables introduced per loop. Every new induction variable
+     * occupies a register for the whole loop, so this bounds the additional register pressure.
+     */
+    private static final int MAX_NEW_INDUCTION_VARIABLES_PER_LOOP = 2;
+
+    private final CanonicalizerPhase canonicalizer;
+
+    public LoopStrengthReductionPhase(CanonicalizerPhase canonicalizer) {
+        this.canonicalizer = canonicalizer;
+    }
+
+    @Override
+    @SuppressWarnings("try")
+    protected void run(StructuredGraph graph, CoreProviders context) {
+        if (!graph.hasLoops()) {
+            return;
+        }
+        EconomicSetNodeEventListener changedNodes = new EconomicSetNodeEventListener(EnumSet.of(NodeEvent.NODE_ADDED));
+        try (NodeEventScope news = graph.trackNodeEvents(changedNodes)) {
+            LoopsData loopsData = context.getLoopsDataProvider().getLoopsData(graph);
+            for (LoopEx loop : loopsData.loops()) {
+                // Only innermost loops: rewriting a loop invalidates the cached nodes of the
+                // enclosing loops.
+                if (loop.loop().getChildren().isEmpty()) {
+                    reduce(loop);
+                }
+            }
+            loopsData.deleteUnusedNodes();
+        }
+        canonicalizer.applyIncremental(graph, context, changedNodes.getNodes());
+    }
+
+    private static void reduce(LoopEx loop) {
+        EconomicMap<Node, InductionVariable> ivs = loop.getInductionVariables();
+        List<InductionVariable> candidates = new ArrayList<>();
+        for (InductionVariable iv : ivs.getValues()) {
+            if (candidates.size() < MAX_NEW_INDUCTION_VARIABLES_PER_LOOP && isCandidate(loop, iv, ivs)) {
+                candidates.add(iv);
+            }
+        }
+        StructuredGraph graph = loop.loopBegin().graph();
+        DebugContext debug = graph.getDebug();
+        for (InductionVariable iv : candidates) {
+            ValueNode value = iv.valueNode();
+            if (value.isDeleted()) {
+                continue;
+            }
+            ValuePhiNode phi = createInductionVariable(loop.loopBegin(), value, iv.initNode(), iv.strideNode());
+            debug.log("Strength reduced %s into %s in %s", value, phi, loop.loopBegin());
+            value.replaceAtUsages(phi);
+            GraphUtil.killWithUnusedFloatingInputs(value);
+            REDUCED_INDUCTION_VARIABLES.increment(debug);
+        }
+    }
+
+    private static ValuePhiNode createInductionVariable(LoopBeginNode loopBegin, ValueNode value, ValueNode init, ValueNode stride) {
+        StructuredGraph graph = loopBegin.graph();
+        ValuePhiNode phi = graph.addWithoutUnique(new ValuePhiNode(value.stamp(NodeView.DEFAULT).unrestricted(), loopBegin));
+        phi.addInput(init);
+        ValueNode next = graph.addOrUniqueWithInputs(new AddNode(phi, stride));
+        for (int i = 0; i < loopBegin.getLoopEndCount(); i++) {
+            phi.addInput(next);
+        }
+        return phi;
+    }
+
+    /**
+     * Determines if {@code iv} is the outermost node of a linear expression of a basic induction
+     * variable that contains an expensive multiplication and that is used by something other than
+     * another such expression inside the loop.
+     */
+    private static boolean isCandidate(LoopEx loop, InductionVariable iv, EconomicMap<Node, InductionVariable> ivs) {
+        if (!isLinear(iv) || !(iv.valueNode().stamp(NodeView.DEFAULT) instanceof IntegerStamp)) {
+            return false;
+        }
+        boolean expensive = false;
+        for (InductionVariable current = iv; current instanceof DerivedInductionVariable; current = ((DerivedInductionVariable) current).getBase()) {
+            if (!isLinear(current)) {
+                return false;
+            }
+            expensive |= isExpensiveScale(current);
+        }
+        if (!expensive) {
+            return false;
+        }
+        boolean usedInLoop = false;
+        for (Node usage : iv.valueNode().usages()) {
+            InductionVariable usageIV = ivs.get(usage);
+            if (usageIV != null && isLinear(usageIV)) {
+                // the usage is reduced instead
+                return false;
+            }
+            usedInLoop |= loop.whole().contains(usage);
+        }
+        return usedInLoop;
+    }
+
+    private static boolean isLinear(InductionVariable iv) {
+        return iv instanceof BasicInductionVariable || iv instanceof DerivedOffsetInductionVariable || iv instanceof DerivedScaledInductionVariable;
+    }
+
+    private static boolean isExpensiveScale(InductionVariable iv) {
+        if (iv instanceof DerivedScaledInductionVariable && iv.valueNode() instanceof MulNode) {
+            ValueNode scale = ((DerivedScaledInductionVariable) iv).getScale();
+            return !scale.isConstant() || !CodeUtil.isPowerOf2(Math.abs(scale.asJavaConstant().asLong()));
+        }
+        return false;
+    }
+
+    @Override
+    public float codeSizeIncrease() {
+        return 1.5f;
+    }
+}
@@ -37,6 +37,8 @@ import org.graalvm.compiler.nodes.loop.LoopEx;
 import org.graalvm.compiler.nodes.loop.LoopPolicies;
 import org.graalvm.compiler.nodes.loop.LoopsData;
 import org.graalvm.compiler.nodes.spi.CoreProviders;
+import org.graalvm.compiler.phases.common.CompilationBudget;
+import org.graalvm.compiler.phases.common.CompilationBudget.Degradation;
 
 public class LoopUnswitchingPhase extends LoopPhase<LoopPolicies> {
     private static final CounterKey UNSWITCHED = DebugContext.counter("Unswitched");
@@ -50,7 +52,7 @@ public class LoopUnswitchingPhase extends LoopPhase<LoopPolicies> {
     @Override
     protected void run(StructuredGraph graph, CoreProviders context) {
         DebugContext debug = graph.getDebug();
-        if (graph.hasLoops()) {
+        if (graph.hasLoops() && !CompilationBudget.shouldDegrade(graph, Degradation.LoopUnswitching)) {
             boolean unswitched;
             do {
                 unswitched = false;
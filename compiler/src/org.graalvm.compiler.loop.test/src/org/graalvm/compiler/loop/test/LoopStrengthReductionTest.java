@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.loop.test;
+
+import org.graalvm.compiler.core.common.GraalOptions;
+import org.graalvm.compiler.core.test.GraalCompilerTest;
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.loop.phases.LoopStrengthReductionPhase;
+import org.graalvm.compiler.nodes.PhiNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
+import org.graalvm.compiler.nodes.calc.MulNode;
+import org.graalvm.compiler.options.OptionValues;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link LoopStrengthReductionPhase}. The {@code test} calls compile the snippets with the
+ * full tier and {@link GraalOptions#LoopStrengthReduction} enabled.
+ */
+public class LoopStrengthReductionTest extends GraalCompilerTest {
+
+    private final OptionValues reductionOptions = new OptionValues(getInitialOptions(), GraalOptions.LoopStrengthReduction, true);
+
+    public static long columnSnippet(long[] a, int rows, int cols, int column) {
+        long sum = 0;
+        for (int i = 0; i < rows; i++) {
+            sum += a[i * cols + column];
+        }
+        return sum;
+    }
+
+    public static int constantScaleSnippet(int[] a, int n) {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += a[i * 11 + 1];
+        }
+        return sum;
+    }
+
+    public static int shiftSnippet(int[] a, int n) {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += a[i * 4];
+        }
+        return sum;
+    }
+
+    public static int overflowSnippet(int[] a, int n, int scale) {
+        int sum = 0;
+        for (int i = 0; i < n; i += 2) {
+            sum += a[i * scale + 1];
+        }
+        return sum;
+    }
+
+    public static long longOverflowSnippet(long start, long scale, int n) {
+        long result = 0;
+        for (long i = start; i < start + n; i++) {
+            result ^= i * scale + 3;
+        }
+        return result;
+    }
+
+    public static int downwardSnippet(int[] a, int n, int scale) {
+        int sum = 0;
+        for (int i = n; i > 0; i -= 3) {
+            sum += a[(i * scale) & 31] + i * scale;
+        }
+        return sum;
+    }
+
+    public static int breakSnippet(int[] a, int n, int cols, int limit) {
+        int index = 0;
+        for (int i = 0; i < n; i++) {
+            index = i * cols + 1;
+            if (a[index] > limit) {
+                break;
+            }
+        }
+        return index;
+    }
+
+    public static int returnSnippet(int[] a, int n, int cols, int key) {
+        for (int i = 0; i < n; i++) {
+            int index = i * cols + 2;
+            if (a[index] == key) {
+                return index;
+            }
+            if (a[index] < 0) {
+                return -index;
+            }
+        }
+        return -1;
+    }
+
+    public static int continueSnippet(int[] a, int n, int cols) {
+        int sum = 0;
+        int i = 0;
+        while (i < n) {
+            int index = i * cols + 1;
+            i++;
+            if ((a[index] & 1) == 0) {
+                continue;
+            }
+            sum += a[index];
+        }
+        return sum;
+    }
+
+    private static long[] longArray(int length) {
+        long[] array = new long[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = i * 31L + 7;
+        }
+        return array;
+    }
+
+    private static int[] intArray(int length) {
+        int[] array = new int[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = i * 17 + 3;
+        }
+        return array;
+    }
+
+    @Test
+    public void testColumn() {
+        assertReduced("columnSnippet", true);
+        test(reductionOptions, "columnSnippet", longArray(60), 10, 6, 2);
+        test(reductionOptions, "columnSnippet", longArray(60), 6, 10, 9);
+        test(reductionOptions, "columnSnippet", longArray(60), 7, 10, 9);
+        test(reductionOptions, "columnSnippet", longArray(60), 0, 10, 0);
+    }
+
+    @Test
+    public void testConstantScale() {
+        // multiplications by constants such as 3 are already canonicalized to shifts and additions
+        assertReduced("constantScaleSnippet", true);
+        test(reductionOptions, "constantScaleSnippet", intArray(160), 13);
+        test(reductionOptions, "constantScaleSnippet", intArray(160), 15);
+    }
+
+    @Test
+    public void testShift() {
+        // a power of two scale is folded into the addressing mode
+        assertReduced("shiftSnippet", false);
+        test(reductionOptions, "shiftSnippet", intArray(40), 10);
+    }
+
+    @Test
+    public void testOverflow() {
+        // i * MIN_VALUE wraps to 0 for all even i
+        test(reductionOptions, "overflowSnippet", intArray(4), 100, Integer.MIN_VALUE);
+        test(reductionOptions, "overflowSnippet", intArray(4), 3, Integer.MIN_VALUE + 1);
+        // i * scale wraps around in every iteration
+        test(reductionOptions, "overflowSnippet", intArray(40), 10, Integer.MAX_VALUE);
+        // the index wraps around to an in-bounds value after an out of bounds access
+        test(reductionOptions, "overflowSnippet", intArray(40), 40, 0x40000001);
+    }
+
+    @Test
+    public void testLongOverflow() {
+        assertReduced("longOverflowSnippet", true);
+        test(reductionOptions, "longOverflowSnippet", 0L, 7L, 100);
+        test(reductionOptions, "longOverflowSnippet", Long.MAX_VALUE - 50, 3L, 100);
+        test(reductionOptions, "longOverflowSnippet", -17L, Long.MIN_VALUE + 1, 100);
+    }
+
+    @Test
+    public void testDownward() {
+        assertReduced("downwardSnippet", true);
+        test(reductionOptions, "downwardSnippet", intArray(32), 100, 7);
+        test(reductionOptions, "downwardSnippet", intArray(32), 100, Integer.MAX_VALUE);
+        test(reductionOptions, "downwardSnippet", intArray(32), Integer.MAX_VALUE, -5);
+    }
+
+    @Test
+    public void testBreak() {
+        assertReduced("breakSnippet", true);
+        int[] a = intArray(40);
+        test(reductionOptions, "breakSnippet", a, 10, 3, 100);
+        test(reductionOptions, "breakSnippet", a, 10, 3, 10000);
+        test(reductionOptions, "breakSnippet", a, 0, 3, 0);
+        test(reductionOptions, "breakSnippet", a, 10, 5, 10000);
+    }
+
+    @Test
+    public void testReturn() {
+        assertReduced("returnSnippet", true);
+        int[] a = intArray(40);
+        a[17] = -1;
+        test(reductionOptions, "returnSnippet", a, 10, 3, a[11]);
+        test(reductionOptions, "returnSnippet", a, 10, 3, 12345);
+        test(reductionOptions, "returnSnippet", a, 10, 5, 12345);
+        test(reductionOptions, "returnSnippet", a, 20, 3, 12345);
+    }
+
+    @Test
+    public void testContinue() {
+        assertReduced("continueSnippet", true);
+        test(reductionOptions, "continueSnippet", intArray(40), 10, 3);
+        test(reductionOptions, "continueSnippet", intArray(40), 20, 3);
+    }
+
+    private static int countLoopMultiplications(StructuredGraph graph) {
+        int count = 0;
+        for (MulNode mul : graph.getNodes().filter(MulNode.class)) {
+            for (Node input : mul.inputs()) {
+                if (input instanceof PhiNode) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private void assertReduced(String snippet, boolean expectReduced) {
+        StructuredGraph graph = parseEager(snippet, AllowAssumptions.NO);
+        createCanonicalizerPhase().apply(graph, getProviders());
+        int before = countLoopMultiplications(graph);
+        new LoopStrengthReductionPhase(createCanonicalizerPhase()).apply(graph, getDefaultMidTierContext());
+        int after = countLoopMultiplications(graph);
+        if (expectReduced) {
+            Assert.assertTrue("expected a multiplication of the induction variable in " + snippet, before > 0);
+            Assert.assertEquals(0, after);
+        } else {
+            Assert.assertEquals(before, after);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.microbenchmarks.lir;
+
+import static jdk.vm.ci.code.ValueUtil.isRegister;
+import static org.graalvm.compiler.lir.LIRValueUtil.isStackSlotValue;
+
+import org.graalvm.compiler.code.CompilationResult;
+import org.graalvm.compiler.core.common.cfg.AbstractBlockBase;
+import org.graalvm.compiler.lir.LIR;
+import org.graalvm.compiler.lir.LIRInstruction;
+import org.graalvm.compiler.lir.StandardOp.MoveOp;
+import org.graalvm.compiler.lir.StandardOp.ValueMoveOp;
+import org.graalvm.compiler.lir.alloc.lsra.LinearScan;
+import org.graalvm.compiler.microbenchmarks.graal.GraalBenchmark;
+import org.graalvm.compiler.options.OptionValues;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the back end compile time of large methods and reports the number of spill and reload
+ * moves and of register-to-register moves left after register allocation as well as the size of
+ * the generated code, with and without {@link LinearScan.Options#LSRATreeScanAssignment tree-scan
+ * register assignment}.
+ */
+public class RegisterAllocationQualityBenchmark extends GraalBenchmark {
+
+    public static class BackEndState extends GraalCompilerState.BackEndOnly {
+        @MethodDescString @Param({
+                        "java.util.HashMap#putVal",
+                        "java.util.concurrent.ConcurrentHashMap#putVal",
+                        "java.util.TimSort#mergeHi",
+                        "java.math.BigInteger#multiplyToLen"
+        }) public String method;
+
+        @Param({"false", "true"}) public boolean treeScanAssignment;
+
+        @Override
+        protected OptionValues getGraphOptions() {
+            return new OptionValues(super.getGraphOptions(), LinearScan.Options.LSRATreeScanAssignment, treeScanAssignment);
+        }
+
+        /**
+         * Counts the moves from or to a stack slot, i.e., the spill and reload moves inserted by the
+         * register allocator.
+         */
+        int countStackMoves() {
+            LIR lir = getLIR();
+            int count = 0;
+            for (AbstractBlockBase<?> block : lir.codeEmittingOrder()) {
+                if (block == null) {
+                    continue;
+                }
+                for (LIRInstruction inst : lir.getLIRforBlock(block)) {
+                    if (MoveOp.isMoveOp(inst)) {
+                        if (isStackSlotValue(MoveOp.asMoveOp(inst).getResult()) || (ValueMoveOp.isValueMoveOp(inst) && isStackSlotValue(ValueMoveOp.asValueMoveOp(inst).getInput()))) {
+                            count++;
+                        }
+                    }
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Counts the moves between two registers, i.e., the phi, split and hint moves the register
+         * allocator could not coalesce.
+         */
+        int countRegisterMoves() {
+            LIR lir = getLIR();
+            int count = 0;
+            for (AbstractBlockBase<?> block : lir.codeEmittingOrder()) {
+                if (block == null) {
+                    continue;
+                }
+                for (LIRInstruction inst : lir.getLIRforBlock(block)) {
+                    if (ValueMoveOp.isValueMoveOp(inst)) {
+                        ValueMoveOp move = ValueMoveOp.asValueMoveOp(inst);
+                        if (isRegister(move.getInput()) && isRegister(move.getResult())) {
+                            count++;
+                        }
+                    }
+                }
+            }
+            return count;
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Quality {
+        public long stackMoves;
+        public long registerMoves;
+        public long codeSize;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            stackMoves = 0;
+            registerMoves = 0;
+            codeSize = 0;
+        }
+    }
+
+    @Benchmark
+    public CompilationResult compile(BackEndState s, Quality q) {
+        CompilationResult result = s.compile();
+        q.stackMoves += s.countStackMoves();
+        q.registerMoves += s.countRegisterMoves();
+        q.codeSize += result.getTargetCodeSize();
+        return result;
+    }
+}
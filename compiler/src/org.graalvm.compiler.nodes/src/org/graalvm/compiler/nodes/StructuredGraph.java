@@ -458,6 +458,12 @@ public final class StructuredGraph extends Graph implements JavaMethodContext {
      */
     private EconomicSet<ResolvedJavaField> fields = null;
 
+    /**
+     * Records the names of the optional optimizations that were skipped for this graph because its
+     * compilation exceeded a budget.
+     */
+    private EconomicSet<String> skippedOptimizations = null;
+
     private enum UnsafeAccessState {
         NO_ACCESS,
         HAS_ACCESS,
@@ -1170,6 +1176,27 @@ public final class StructuredGraph extends Graph implements JavaMethodContext {
         }
     }
 
+    /**
+     * Gets the names of the optional optimizations that were skipped for this graph.
+     *
+     * @return {@code null} if no optimizations were skipped
+     */
+    public EconomicSet<String> getSkippedOptimizations() {
+        return skippedOptimizations;
+    }
+
+    /**
+     * Records that the optional optimization {@code name} was skipped for this graph.
+     *
+     * @return {@code true} if this is the first time {@code name} was recorded for this graph
+     */
+    public boolean recordSkippedOptimization(String name) {
+        if (skippedOptimizations == null) {
+            skippedOptimizations = EconomicSet.create(Equivalence.DEFAULT);
+        }
+        return skippedOptimizations.add(name);
+    }
+
     /**
      * Gets the input bytecode {@linkplain ResolvedJavaMethod#getCodeSize() size} from which this
      * graph is constructed. This ignores how many bytecodes in each constituent method are actually
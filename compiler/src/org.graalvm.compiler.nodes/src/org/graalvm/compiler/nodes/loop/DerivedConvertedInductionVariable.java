@@ -26,6 +26,7 @@ package org.graalvm.compiler.nodes.loop;
 
 import org.graalvm.compiler.core.common.type.Stamp;
 import org.graalvm.compiler.nodes.NodeView;
+import org.graalvm.compiler.nodes.PiNode;
 import org.graalvm.compiler.nodes.ValueNode;
 import org.graalvm.compiler.nodes.calc.IntegerConvertNode;
 
@@ -104,6 +105,39 @@ public class DerivedConvertedInductionVariable extends DerivedInductionVariable
     public void deleteUnusedNodes() {
     }
 
+    /**
+     * A {@link PiNode} only refines the stamp of its input, so range check predication can look
+     * through it. Real integer conversions change the value range and are not looked through.
+     */
+    private boolean isValuePreserving() {
+        return value instanceof PiNode;
+    }
+
+    @Override
+    public boolean isConstantScale(InductionVariable ref) {
+        return super.isConstantScale(ref) || (isValuePreserving() && base.isConstantScale(ref));
+    }
+
+    @Override
+    public long constantScale(InductionVariable ref) {
+        assert isConstantScale(ref);
+        if (super.isConstantScale(ref)) {
+            return super.constantScale(ref);
+        }
+        return base.constantScale(ref);
+    }
+
+    @Override
+    public boolean offsetIsZero(InductionVariable ref) {
+        return super.offsetIsZero(ref) || (isValuePreserving() && base.offsetIsZero(ref));
+    }
+
+    @Override
+    public ValueNode offsetNode(InductionVariable ref) {
+        assert !offsetIsZero(ref);
+        return isValuePreserving() ? base.offsetNode(ref) : null;
+    }
+
     private ValueNode op(ValueNode v) {
         return IntegerConvertNode.convert(v, stamp, graph(), NodeView.DEFAULT);
     }
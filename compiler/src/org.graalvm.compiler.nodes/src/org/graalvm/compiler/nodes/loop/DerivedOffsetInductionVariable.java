@@ -29,6 +29,7 @@ import static org.graalvm.compiler.nodes.loop.MathUtil.sub;
 
 import org.graalvm.compiler.core.common.type.Stamp;
 import org.graalvm.compiler.debug.GraalError;
+import org.graalvm.compiler.nodes.ConstantNode;
 import org.graalvm.compiler.nodes.NodeView;
 import org.graalvm.compiler.nodes.ValueNode;
 import org.graalvm.compiler.nodes.calc.AddNode;
@@ -180,10 +181,17 @@ public class DerivedOffsetInductionVariable extends DerivedInductionVariable {
     @Override
     public ValueNode offsetNode(InductionVariable ref) {
         assert !offsetIsZero(ref);
-        if (!base.offsetIsZero(ref)) {
-            return null;
+        ValueNode baseOffset;
+        if (base.offsetIsZero(ref)) {
+            baseOffset = ConstantNode.forIntegerStamp(offset.stamp(NodeView.DEFAULT), 0, graph());
+        } else {
+            baseOffset = base.offsetNode(ref);
+            if (baseOffset == null) {
+                return null;
+            }
         }
-        return offset;
+        // this = base op offset = (C * ref + baseOffset) op offset
+        return op(baseOffset, offset);
     }
 
     @Override
@@ -159,7 +159,12 @@ public class DerivedScaledInductionVariable extends DerivedInductionVariable {
     @Override
     public ValueNode offsetNode(InductionVariable ref) {
         assert !offsetIsZero(ref);
-        return null;
+        ValueNode baseOffset = base.offsetNode(ref);
+        if (baseOffset == null) {
+            return null;
+        }
+        // this = scale * (C * ref + baseOffset)
+        return mul(graph(), baseOffset, scale);
     }
 
     @Override
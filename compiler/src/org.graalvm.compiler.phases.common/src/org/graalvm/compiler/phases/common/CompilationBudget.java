@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.phases.common;
+
+import org.graalvm.compiler.core.common.util.CompilationAlarm;
+import org.graalvm.compiler.debug.CounterKey;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.compiler.options.OptionKey;
+import org.graalvm.compiler.options.OptionType;
+import org.graalvm.compiler.options.OptionValues;
+
+/**
+ * Soft limits on the time and graph size of a compilation. Once a compilation exceeds one of them,
+ * expensive optimizations that are not needed for correct code are skipped for the rest of the
+ * compilation instead of bailing out. In contrast to the
+ * {@linkplain CompilationAlarm.Options#CompilationExpirationPeriod expiration period}, exceeding
+ * the budget never fails a compilation.
+ */
+public final class CompilationBudget {
+
+    public static class Options {
+        // @formatter:off
+        @Option(help = "Time in milliseconds after which a compilation skips expensive optional optimizations (0 to disable the limit).", type = OptionType.Expert)
+        public static final OptionKey<Integer> CompilationBudgetMillis = new OptionKey<>(0);
+        @Option(help = "Graph node count above which a compilation skips expensive optional optimizations (0 to disable the limit).", type = OptionType.Expert)
+        public static final OptionKey<Integer> CompilationBudgetNodeCount = new OptionKey<>(0);
+        // @formatter:on
+    }
+
+    /**
+     * Optimizations that are skipped once the budget is exceeded.
+     */
+    public enum Degradation {
+        LoopPartialUnroll,
+        LoopUnswitching,
+        IterativeEffects,
+        Inlining;
+
+        private final CounterKey counter = DebugContext.counter("CompilationBudgetSkipped_%s", name());
+    }
+
+    /**
+     * Thread local storage for the start time of the current compilation. It is only tracked if
+     * {@link Options#CompilationBudgetMillis}{@code > 0}.
+     */
+    private static final ThreadLocal<Timer> currentTimer = new ThreadLocal<>();
+
+    /**
+     * Tracks the time spent in a compilation for {@link Options#CompilationBudgetMillis}.
+     */
+    public static final class Timer implements AutoCloseable {
+
+        /**
+         * The time at which the compilation started.
+         */
+        private final long start;
+
+        private Timer(long start) {
+            this.start = start;
+        }
+
+        @Override
+        public void close() {
+            currentTimer.set(null);
+        }
+    }
+
+    private CompilationBudget() {
+    }
+
+    /**
+     * Starts tracking the time of a compilation if there isn't already a tracked compilation and
+     * {@link Options#CompilationBudgetMillis}{@code > 0}. The returned value can be used in a
+     * try-with-resource statement to stop tracking once the compilation is finished.
+     *
+     * @return a {@link Timer} if the time of the compilation is tracked by this call, otherwise
+     *         {@code null}
+     */
+    public static Timer startTimer(OptionValues options) {
+        if (Options.CompilationBudgetMillis.getValue(options) > 0 && currentTimer.get() == null) {
+            Timer timer = new Timer(System.currentTimeMillis());
+            currentTimer.set(timer);
+            return timer;
+        }
+        return null;
+    }
+
+    private static boolean exceedsMillis(int maxMillis) {
+        if (maxMillis > 0) {
+            Timer timer = currentTimer.get();
+            return timer != null && System.currentTimeMillis() - timer.start > maxMillis;
+        }
+        return false;
+    }
+
+    /**
+     * Determines if {@code degradation} should be applied to {@code graph} because the
+     * compilation exceeded its budget. The first time a degradation is applied to a graph, it is
+     * {@linkplain StructuredGraph#recordSkippedOptimization recorded} in the graph, logged, counted
+     * and reported to the {@linkplain DebugContext#notifyDegradation compilation listener}.
+     */
+    public static boolean shouldDegrade(StructuredGraph graph, Degradation degradation) {
+        OptionValues options = graph.getOptions();
+        int maxNodes = Options.CompilationBudgetNodeCount.getValue(options);
+        int maxMillis = Options.CompilationBudgetMillis.getValue(options);
+        String reason;
+        if (maxNodes > 0 && graph.getNodeCount() > maxNodes) {
+            reason = "node count exceeds CompilationBudgetNodeCount";
+        } else if (exceedsMillis(maxMillis)) {
+            reason = "compilation time exceeds CompilationBudgetMillis";
+        } else {
+            return false;
+        }
+        if (graph.recordSkippedOptimization(degradation.name())) {
+            DebugContext debug = graph.getDebug();
+            degradation.counter.increment(debug);
+            if (debug.isLogEnabled()) {
+                debug.log("skipping %s: %s", degradation, reason);
+            }
+            debug.notifyDegradation(degradation.name(), reason);
+        }
+        return true;
+    }
+}
@@ -51,6 +51,9 @@ public class InliningPhase extends AbstractInliningPhase {
          */
         @Option(help = "Per-compilation method inlining exploration limit before giving up (use 0 to disable)", type = OptionType.Debug)//
         public static final OptionKey<Integer> MethodInlineBailoutLimit = new OptionKey<>(5000);
+
+        @Option(help = "Factor applied to the inlining size limits of call sites that pass a new allocation to a parameter that does not escape the callee (use 1 to disable)", type = OptionType.Expert)//
+        public static final OptionKey<Double> NonEscapingArgumentInliningBonus = new OptionKey<>(1.0);
     }
 
     private final InliningPolicy inliningPolicy;
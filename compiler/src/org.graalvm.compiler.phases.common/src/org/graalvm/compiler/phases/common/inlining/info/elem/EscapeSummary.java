@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.phases.common.inlining.info.elem;
+
+import java.util.Arrays;
+
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.graph.NodeStack;
+import org.graalvm.compiler.nodes.ParameterNode;
+import org.graalvm.compiler.nodes.PiNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.VirtualState;
+import org.graalvm.compiler.nodes.calc.IsNullNode;
+import org.graalvm.compiler.nodes.calc.ObjectEqualsNode;
+import org.graalvm.compiler.nodes.java.ArrayLengthNode;
+import org.graalvm.compiler.nodes.java.InstanceOfNode;
+import org.graalvm.compiler.nodes.java.LoadFieldNode;
+import org.graalvm.compiler.nodes.java.LoadIndexedNode;
+import org.graalvm.compiler.nodes.java.StoreFieldNode;
+import org.graalvm.compiler.nodes.java.StoreIndexedNode;
+
+import jdk.vm.ci.meta.JavaKind;
+
+/**
+ * Summarizes how the body of a method uses its object parameters. An argument whose parameter
+ * does not {@linkplain Usage#ESCAPES escape} in the callee can be scalar replaced in the caller if
+ * the callee is inlined, so the summary is used to favor inlining such call sites.
+ *
+ * The summary is computed on the (already specialized and canonicalized) callee graph and is
+ * conservative: any usage that is not understood is treated as an escape, including passing the
+ * parameter on to another call.
+ */
+public final class EscapeSummary {
+
+    /**
+     * The ways a method can use an object parameter, ordered from least to most restrictive.
+     */
+    public enum Usage {
+        /**
+         * The parameter is not used, except in frame states.
+         */
+        UNUSED,
+        /**
+         * Fields or elements of the parameter are read, or it is compared or type checked.
+         */
+        READ,
+        /**
+         * Fields or elements of the parameter are written.
+         */
+        WRITTEN,
+        /**
+         * The parameter may be reachable after the method returns, or is passed to another call.
+         */
+        ESCAPES;
+
+        Usage merge(Usage other) {
+            return compareTo(other) >= 0 ? this : other;
+        }
+    }
+
+    private final Usage[] parameters;
+
+    private EscapeSummary(Usage[] parameters) {
+        this.parameters = parameters;
+    }
+
+    /**
+     * Gets the usage of the parameter with the given index, where the receiver of a non-static
+     * method has index 0.
+     */
+    public Usage getUsage(int index) {
+        return index < parameters.length ? parameters[index] : Usage.ESCAPES;
+    }
+
+    /**
+     * Computes the summary for the object parameters of {@code graph}. Parameters that are not
+     * objects are reported as {@link Usage#ESCAPES} as there is no allocation to save.
+     */
+    public static EscapeSummary compute(StructuredGraph graph) {
+        Usage[] parameters = new Usage[graph.method().getSignature().getParameterCount(!graph.method().isStatic())];
+        Arrays.fill(parameters, Usage.UNUSED);
+        for (ParameterNode param : graph.getNodes(ParameterNode.TYPE)) {
+            if (param.index() < parameters.length) {
+                if (param.getStackKind() == JavaKind.Object) {
+                    parameters[param.index()] = computeUsage(param);
+                } else {
+                    parameters[param.index()] = Usage.ESCAPES;
+                }
+            }
+        }
+        return new EscapeSummary(parameters);
+    }
+
+    private static Usage computeUsage(ParameterNode param) {
+        Usage result = Usage.UNUSED;
+        NodeStack worklist = new NodeStack();
+        worklist.push(param);
+        while (!worklist.isEmpty()) {
+            ValueNode value = (ValueNode) worklist.pop();
+            for (Node usage : value.usages()) {
+                if (usage instanceof VirtualState) {
+                    continue;
+                } else if (usage instanceof PiNode && ((PiNode) usage).object() == value) {
+                    worklist.push(usage);
+                } else if (usage instanceof LoadFieldNode || usage instanceof LoadIndexedNode || usage instanceof ArrayLengthNode || usage instanceof IsNullNode ||
+                                usage instanceof InstanceOfNode || usage instanceof ObjectEqualsNode) {
+                    result = result.merge(Usage.READ);
+                } else if (usage instanceof StoreFieldNode && ((StoreFieldNode) usage).value() != value) {
+                    result = result.merge(Usage.WRITTEN);
+                } else if (usage instanceof StoreIndexedNode && ((StoreIndexedNode) usage).value() != value) {
+                    result = result.merge(Usage.WRITTEN);
+                } else {
+                    return Usage.ESCAPES;
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -67,6 +67,8 @@ public class InlineableGraph implements Inlineable {
 
     private FixedNodeRelativeFrequencyCache probabilites = new FixedNodeRelativeFrequencyCache();
 
+    private EscapeSummary escapeSummary;
+
     public InlineableGraph(final ResolvedJavaMethod method, final Invoke invoke, final HighTierContext context, CanonicalizerPhase canonicalizer, boolean trackNodeSourcePosition) {
         StructuredGraph original = context.getReplacements().getInlineSubstitution(method, invoke.bci(), invoke.getInlineControl(), trackNodeSourcePosition, null,
                         invoke.asNode().graph().allowAssumptions(), invoke.asNode().getOptions());
@@ -230,4 +232,15 @@ public class InlineableGraph implements Inlineable {
     public StructuredGraph getGraph() {
         return graph;
     }
+
+    /**
+     * Gets the summary of how the specialized callee graph uses its parameters, computing it on
+     * first use.
+     */
+    public EscapeSummary getEscapeSummary() {
+        if (escapeSummary == null) {
+            escapeSummary = EscapeSummary.compute(graph);
+        }
+        return escapeSummary;
+    }
 }
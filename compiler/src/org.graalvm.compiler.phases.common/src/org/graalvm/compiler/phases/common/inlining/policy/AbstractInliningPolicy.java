@@ -25,14 +25,22 @@
 package org.graalvm.compiler.phases.common.inlining.policy;
 
 import static org.graalvm.compiler.phases.common.inlining.InliningPhase.Options.AlwaysInlineIntrinsics;
+import static org.graalvm.compiler.phases.common.inlining.InliningPhase.Options.NonEscapingArgumentInliningBonus;
 
 import java.util.Map;
 
+import org.graalvm.compiler.debug.CounterKey;
+import org.graalvm.compiler.debug.DebugContext;
 import org.graalvm.compiler.nodes.Invoke;
 import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.java.AbstractNewObjectNode;
 import org.graalvm.compiler.nodes.spi.Replacements;
+import org.graalvm.compiler.nodes.util.GraphUtil;
 import org.graalvm.compiler.phases.common.inlining.info.InlineInfo;
+import org.graalvm.compiler.phases.common.inlining.info.elem.EscapeSummary;
 import org.graalvm.compiler.phases.common.inlining.info.elem.Inlineable;
+import org.graalvm.compiler.phases.common.inlining.info.elem.InlineableGraph;
 
 import jdk.vm.ci.meta.ProfilingInfo;
 import jdk.vm.ci.meta.ResolvedJavaMethod;
@@ -42,6 +50,8 @@ public abstract class AbstractInliningPolicy implements InliningPolicy {
     public static final float CapInheritedRelevance = 1.0f;
     protected final Map<Invoke, Double> hints;
 
+    private static final CounterKey nonEscapingArgumentBonusCounter = DebugContext.counter("InliningBonusForNonEscapingArgument");
+
     public AbstractInliningPolicy(Map<Invoke, Double> hints) {
         this.hints = hints;
     }
@@ -58,6 +68,37 @@ public abstract class AbstractInliningPolicy implements InliningPolicy {
         return 1;
     }
 
+    /**
+     * Gets the bonus for a call site that passes a new allocation to a parameter that does not
+     * escape any of the callees. Inlining such a call site allows the allocation to be scalar
+     * replaced.
+     */
+    protected double getNonEscapingArgumentBonus(InlineInfo info) {
+        double bonus = NonEscapingArgumentInliningBonus.getValue(info.graph().getOptions());
+        if (bonus == 1.0) {
+            return 1;
+        }
+        int argumentIndex = 0;
+        for (ValueNode argument : info.invoke().callTarget().arguments()) {
+            if (GraphUtil.skipPi(argument) instanceof AbstractNewObjectNode && !escapesInAnyCallee(info, argumentIndex)) {
+                nonEscapingArgumentBonusCounter.increment(info.graph().getDebug());
+                return bonus;
+            }
+            argumentIndex++;
+        }
+        return 1;
+    }
+
+    private static boolean escapesInAnyCallee(InlineInfo info, int argumentIndex) {
+        for (int i = 0; i < info.numberOfMethods(); i++) {
+            Inlineable callee = info.inlineableElementAt(i);
+            if (!(callee instanceof InlineableGraph) || ((InlineableGraph) callee).getEscapeSummary().getUsage(argumentIndex) == EscapeSummary.Usage.ESCAPES) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     protected boolean isIntrinsic(Replacements replacements, InlineInfo info) {
         if (AlwaysInlineIntrinsics.getValue(info.graph().getOptions())) {
             return onlyIntrinsics(replacements, info);
@@ -40,6 +40,8 @@ import org.graalvm.compiler.nodes.Invoke;
 import org.graalvm.compiler.nodes.StructuredGraph;
 import org.graalvm.compiler.nodes.spi.Replacements;
 import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.common.CompilationBudget;
+import org.graalvm.compiler.phases.common.CompilationBudget.Degradation;
 import org.graalvm.compiler.phases.common.inlining.InliningUtil;
 import org.graalvm.compiler.phases.common.inlining.info.InlineInfo;
 import org.graalvm.compiler.phases.common.inlining.walker.MethodInvocation;
@@ -60,6 +62,10 @@ public class GreedyInliningPolicy extends AbstractInliningPolicy {
             inliningStoppedByMaxDesiredSizeCounter.increment(debug);
             return false;
         }
+        if (CompilationBudget.shouldDegrade(currentGraph, Degradation.Inlining)) {
+            InliningUtil.logInliningDecision(currentGraph.getDebug(), "inlining is cut off by the compilation budget");
+            return false;
+        }
         return true;
     }
 
@@ -95,7 +101,7 @@ public class GreedyInliningPolicy extends AbstractInliningPolicy {
             return InliningPolicy.Decision.YES.withReason(isTracing, "forced inlining");
         }
 
-        double inliningBonus = getInliningBonus(info);
+        double inliningBonus = getInliningBonus(info) * getNonEscapingArgumentBonus(info);
         int nodes = info.determineNodeCount();
         int lowLevelGraphSize = previousLowLevelGraphSize(info);
 
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.replacements.amd64;
+
+import static org.graalvm.compiler.nodeinfo.NodeSize.SIZE_128;
+
+import org.graalvm.compiler.core.common.type.StampFactory;
+import org.graalvm.compiler.graph.NodeClass;
+import org.graalvm.compiler.nodeinfo.InputType;
+import org.graalvm.compiler.nodeinfo.NodeCycles;
+import org.graalvm.compiler.nodeinfo.NodeInfo;
+import org.graalvm.compiler.nodes.FixedWithNextNode;
+import org.graalvm.compiler.nodes.NamedLocationIdentity;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.ValueNodeUtil;
+import org.graalvm.compiler.nodes.memory.MemoryAccess;
+import org.graalvm.compiler.nodes.memory.MemoryKill;
+import org.graalvm.compiler.nodes.spi.LIRLowerable;
+import org.graalvm.compiler.nodes.spi.NodeLIRBuilderTool;
+import org.graalvm.word.LocationIdentity;
+import org.graalvm.word.Pointer;
+
+import jdk.vm.ci.meta.JavaKind;
+
+/**
+ * Computes the polynomial hash code {@code h = 31 * h + a[i]} of the {@link #length} elements of
+ * kind {@link #elementKind} starting at {@link #array}, with {@code h} starting at
+ * {@link #initialValue}.
+ */
+@NodeInfo(size = SIZE_128, cycles = NodeCycles.CYCLES_UNKNOWN)
+public final class AMD64ArrayHashCodeNode extends FixedWithNextNode implements LIRLowerable, MemoryAccess {
+
+    public static final NodeClass<AMD64ArrayHashCodeNode> TYPE = NodeClass.create(AMD64ArrayHashCodeNode.class);
+
+    /** Kind of the array being read, which determines the memory location. */
+    private final JavaKind arrayKind;
+    /** Kind of the elements hashed, which may differ from {@link #arrayKind} for strings. */
+    private final JavaKind elementKind;
+    /** Whether byte elements are zero-extended before being added to the hash. */
+    private final boolean unsigned;
+
+    @Input private ValueNode array;
+    @Input private ValueNode length;
+    @Input private ValueNode initialValue;
+
+    @OptionalInput(InputType.Memory) private MemoryKill lastLocationAccess;
+
+    public AMD64ArrayHashCodeNode(@ConstantNodeParameter JavaKind arrayKind, @ConstantNodeParameter JavaKind elementKind, @ConstantNodeParameter boolean unsigned, ValueNode array,
+                    ValueNode length, ValueNode initialValue) {
+        super(TYPE, StampFactory.forKind(JavaKind.Int));
+        this.arrayKind = arrayKind;
+        this.elementKind = elementKind;
+        this.unsigned = unsigned;
+        this.array = array;
+        this.length = length;
+        this.initialValue = initialValue;
+    }
+
+    @Override
+    public LocationIdentity getLocationIdentity() {
+        return NamedLocationIdentity.getArrayLocation(arrayKind);
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool gen) {
+        gen.setResult(this, gen.getLIRGeneratorTool().emitArrayHashCode(elementKind, unsigned, gen.operand(array), gen.operand(length), gen.operand(initialValue)));
+    }
+
+    @Override
+    public MemoryKill getLastLocationAccess() {
+        return lastLocationAccess;
+    }
+
+    @Override
+    public void setLastLocationAccess(MemoryKill lla) {
+        updateUsages(ValueNodeUtil.asNode(lastLocationAccess), ValueNodeUtil.asNode(lla));
+        lastLocationAccess = lla;
+    }
+
+    @NodeIntrinsic
+    public static native int hashCode(@ConstantNodeParameter JavaKind arrayKind, @ConstantNodeParameter JavaKind elementKind, @ConstantNodeParameter boolean unsigned,
+                    Pointer array, int length, int initialValue);
+}
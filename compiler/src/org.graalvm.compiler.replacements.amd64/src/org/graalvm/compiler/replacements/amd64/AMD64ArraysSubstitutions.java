@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.replacements.amd64;
+
+import static org.graalvm.compiler.replacements.ReplacementsUtil.getArrayBaseOffset;
+
+import java.util.Arrays;
+
+import org.graalvm.compiler.api.replacements.ClassSubstitution;
+import org.graalvm.compiler.api.replacements.Fold.InjectedParameter;
+import org.graalvm.compiler.api.replacements.MethodSubstitution;
+import org.graalvm.compiler.word.Word;
+
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.MetaAccessProvider;
+
+// JaCoCo Exclude
+
+/**
+ * Vectorized substitutions for the {@code hashCode} methods of {@link Arrays} on integral element
+ * types.
+ */
+@ClassSubstitution(Arrays.class)
+public class AMD64ArraysSubstitutions {
+
+    /** Marker value for the {@link InjectedParameter} injected parameter. */
+    static final MetaAccessProvider INJECTED = null;
+
+    @MethodSubstitution
+    public static int hashCode(byte[] a) {
+        if (a == null) {
+            return 0;
+        }
+        return AMD64ArrayHashCodeNode.hashCode(JavaKind.Byte, JavaKind.Byte, false, Word.objectToTrackedPointer(a).add(getArrayBaseOffset(INJECTED, JavaKind.Byte)), a.length, 1);
+    }
+
+    @MethodSubstitution
+    public static int hashCode(char[] a) {
+        if (a == null) {
+            return 0;
+        }
+        return AMD64ArrayHashCodeNode.hashCode(JavaKind.Char, JavaKind.Char, false, Word.objectToTrackedPointer(a).add(getArrayBaseOffset(INJECTED, JavaKind.Char)), a.length, 1);
+    }
+
+    @MethodSubstitution
+    public static int hashCode(short[] a) {
+        if (a == null) {
+            return 0;
+        }
+        return AMD64ArrayHashCodeNode.hashCode(JavaKind.Short, JavaKind.Short, false, Word.objectToTrackedPointer(a).add(getArrayBaseOffset(INJECTED, JavaKind.Short)), a.length, 1);
+    }
+
+    @MethodSubstitution
+    public static int hashCode(int[] a) {
+        if (a == null) {
+            return 0;
+        }
+        return AMD64ArrayHashCodeNode.hashCode(JavaKind.Int, JavaKind.Int, false, Word.objectToTrackedPointer(a).add(getArrayBaseOffset(INJECTED, JavaKind.Int)), a.length, 1);
+    }
+}
@@ -101,10 +101,14 @@ public class AMD64GraphBuilderPlugins implements TargetGraphBuilderPlugins {
                     } else {
                         registerStringLatin1Plugins(invocationPlugins, replacements);
                         registerStringUTF16Plugins(invocationPlugins, replacements);
+                        registerStringCodingPlugins(invocationPlugins, replacements);
                     }
                 }
                 registerMathPlugins(invocationPlugins, useFMAIntrinsics, arch, replacements);
                 registerArraysEqualsPlugins(invocationPlugins, replacements);
+                if (arch.getFeatures().contains(AMD64.CPUFeature.AVX)) {
+                    registerHashCodePlugins(invocationPlugins, replacements, GraalOptions.EmitStringSubstitutions.getValue(options));
+                }
             }
         });
     }
@@ -303,6 +307,12 @@ public class AMD64GraphBuilderPlugins implements TargetGraphBuilderPlugins {
         });
     }
 
+    private static void registerStringCodingPlugins(InvocationPlugins plugins, Replacements replacements) {
+        Registration r = new Registration(plugins, "java.lang.StringCoding", replacements);
+        r.setAllowOverwrite(true);
+        r.registerMethodSubstitution(AMD64StringCodingSubstitutions.class, "hasNegatives", byte[].class, int.class, int.class);
+    }
+
     private static void registerUnsafePlugins(InvocationPlugins plugins, Replacements replacements, boolean explicitUnsafeNullChecks) {
         registerUnsafePlugins(new Registration(plugins, Unsafe.class), explicitUnsafeNullChecks, new JavaKind[]{JavaKind.Int, JavaKind.Long, JavaKind.Object}, true);
         if (JavaVersionUtil.JAVA_SPEC > 8) {
@@ -356,4 +366,20 @@ public class AMD64GraphBuilderPlugins implements TargetGraphBuilderPlugins {
         r.registerMethodSubstitution(ArraysSubstitutions.class, "equals", double[].class, double[].class);
     }
 
+    private static void registerHashCodePlugins(InvocationPlugins plugins, Replacements replacements, boolean emitStringSubstitutions) {
+        Registration r = new Registration(plugins, Arrays.class, replacements);
+        r.registerMethodSubstitution(AMD64ArraysSubstitutions.class, "hashCode", byte[].class);
+        r.registerMethodSubstitution(AMD64ArraysSubstitutions.class, "hashCode", char[].class);
+        r.registerMethodSubstitution(AMD64ArraysSubstitutions.class, "hashCode", short[].class);
+        r.registerMethodSubstitution(AMD64ArraysSubstitutions.class, "hashCode", int[].class);
+        if (emitStringSubstitutions && JavaVersionUtil.JAVA_SPEC > 8) {
+            Registration latin1 = new Registration(plugins, "java.lang.StringLatin1", replacements);
+            latin1.setAllowOverwrite(true);
+            latin1.registerMethodSubstitution(AMD64StringLatin1Substitutions.class, "hashCode", byte[].class);
+            Registration utf16 = new Registration(plugins, "java.lang.StringUTF16", replacements);
+            utf16.setAllowOverwrite(true);
+            utf16.registerMethodSubstitution(AMD64StringUTF16Substitutions.class, "hashCode", byte[].class);
+        }
+    }
+
 }
@@ -67,6 +67,15 @@ public class AMD64StringLatin1Substitutions {
         return pointer(source).add(offset * byteArrayIndexScale(INJECTED));
     }
 
+    /**
+     * Vectorized version of {@code java.lang.StringLatin1.hashCode([B)I}. Latin-1 characters are
+     * zero-extended bytes.
+     */
+    @MethodSubstitution
+    public static int hashCode(byte[] value) {
+        return AMD64ArrayHashCodeNode.hashCode(JavaKind.Byte, JavaKind.Byte, true, pointer(value), value.length, 0);
+    }
+
     @MethodSubstitution
     public static int indexOf(byte[] value, int ch, int origFromIndex) {
         int fromIndex = origFromIndex;
@@ -67,6 +67,14 @@ public class AMD64StringUTF16Substitutions {
         return value.length >> 1;
     }
 
+    /**
+     * Vectorized version of {@code java.lang.StringUTF16.hashCode([B)I}.
+     */
+    @MethodSubstitution
+    public static int hashCode(byte[] value) {
+        return AMD64ArrayHashCodeNode.hashCode(JavaKind.Byte, JavaKind.Char, false, pointer(value), length(value), 0);
+    }
+
     @MethodSubstitution
     public static int indexOfCharUnsafe(byte[] value, int ch, int fromIndex, int max) {
         return AMD64ArrayIndexOf.indexOf1Char(value, max, fromIndex, (char) ch);
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.replacements.test;
+
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.graalvm.compiler.core.common.CompilationIdentifier;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
+import org.graalvm.compiler.replacements.amd64.AMD64ArrayHashCodeNode;
+import org.graalvm.compiler.replacements.amd64.AMD64ArraysSubstitutions;
+import org.graalvm.compiler.serviceprovider.JavaVersionUtil;
+import org.graalvm.compiler.test.AddExports;
+import org.junit.Before;
+import org.junit.Test;
+
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.code.InstalledCode;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Tests the vectorized {@code hashCode} substitutions in {@link AMD64ArraysSubstitutions} and the
+ * {@code StringLatin1}/{@code StringUTF16} substitutions built on {@link AMD64ArrayHashCodeNode}.
+ */
+@AddExports({"java.base/java.lang"})
+public final class ArrayHashCodeTest extends MethodSubstitutionTest {
+
+    private static final int MAX_LENGTH = 100;
+
+    @Before
+    public void checkAMD64() {
+        // Test case is (currently) AMD64 only.
+        assumeTrue(getTarget().arch instanceof AMD64);
+        assumeTrue(((AMD64) getTarget().arch).getFeatures().contains(AMD64.CPUFeature.AVX));
+    }
+
+    private InstalledCode compileIntrinsic(ResolvedJavaMethod method) {
+        StructuredGraph graph = getReplacements().getIntrinsicGraph(method, CompilationIdentifier.INVALID_COMPILATION_ID, getDebugContext(), AllowAssumptions.YES, null);
+        assertInGraph(graph, AMD64ArrayHashCodeNode.class);
+        return getCode(method, graph);
+    }
+
+    private void check(ResolvedJavaMethod method, InstalledCode code, Object array) {
+        Object expected = invokeSafe(method, null, array);
+        Object actual = executeVarargsSafe(code, array);
+        assertDeepEquals(expected, actual);
+    }
+
+    private void testArrays(Class<?> arrayClass) {
+        ResolvedJavaMethod method = getResolvedJavaMethod(Arrays.class, "hashCode", arrayClass);
+        InstalledCode code = compileIntrinsic(method);
+        check(method, code, null);
+        Random random = new Random(42);
+        for (int length = 0; length < MAX_LENGTH; length++) {
+            Object array = Array.newInstance(arrayClass.getComponentType(), length);
+            for (int i = 0; i < length; i++) {
+                int value = random.nextInt();
+                if (arrayClass == byte[].class) {
+                    ((byte[]) array)[i] = (byte) value;
+                } else if (arrayClass == char[].class) {
+                    ((char[]) array)[i] = (char) value;
+                } else if (arrayClass == short[].class) {
+                    ((short[]) array)[i] = (short) value;
+                } else {
+                    ((int[]) array)[i] = value;
+                }
+            }
+            check(method, code, array);
+        }
+    }
+
+    @Test
+    public void testByteArray() {
+        testArrays(byte[].class);
+    }
+
+    @Test
+    public void testCharArray() {
+        testArrays(char[].class);
+    }
+
+    @Test
+    public void testShortArray() {
+        testArrays(short[].class);
+    }
+
+    @Test
+    public void testIntArray() {
+        testArrays(int[].class);
+    }
+
+    private void testString(String className) throws ClassNotFoundException {
+        assumeFalse(JavaVersionUtil.JAVA_SPEC <= 8);
+        ResolvedJavaMethod method = getResolvedJavaMethod(Class.forName(className), "hashCode", byte[].class);
+        InstalledCode code = compileIntrinsic(method);
+        Random random = new Random(42);
+        for (int length = 0; length < MAX_LENGTH; length += 2) {
+            byte[] value = new byte[length];
+            random.nextBytes(value);
+            check(method, code, value);
+        }
+    }
+
+    @Test
+    public void testStringLatin1() throws ClassNotFoundException {
+        testString("java.lang.StringLatin1");
+    }
+
+    @Test
+    public void testStringUTF16() throws ClassNotFoundException {
+        testString("java.lang.StringUTF16");
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.replacements.test;
+
+import java.util.Arrays;
+
+import org.graalvm.compiler.replacements.SnippetTemplate.TemplateCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the eviction order and the statistics of {@link TemplateCache}, with strings as templates
+ * whose length is their node count.
+ */
+public class SnippetTemplateCacheTest {
+
+    private static TemplateCache<String, String> newCache(int maxTemplates, int maxNodes) {
+        return new TemplateCache<>(maxTemplates, maxNodes, String::length);
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() {
+        TemplateCache<String, String> cache = newCache(3, 0);
+        Assert.assertEquals(0, cache.put("a", "aa"));
+        Assert.assertEquals(0, cache.put("b", "bb"));
+        Assert.assertEquals(0, cache.put("c", "cc"));
+        Assert.assertEquals("aa", cache.get("a"));
+
+        /* b is now the least recently used template. */
+        Assert.assertEquals(1, cache.put("d", "dd"));
+        Assert.assertEquals(Arrays.asList("c", "a", "d"), cache.getKeys());
+        Assert.assertNull(cache.get("b"));
+
+        Assert.assertEquals(1, cache.put("e", "ee"));
+        Assert.assertEquals(Arrays.asList("a", "d", "e"), cache.getKeys());
+        Assert.assertNull(cache.get("c"));
+
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(2, cache.getMisses());
+        Assert.assertEquals(2, cache.getEvictions());
+        Assert.assertEquals(6, cache.getNodeCount());
+    }
+
+    @Test
+    public void testNodeLimit() {
+        TemplateCache<String, String> cache = newCache(100, 10);
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        Assert.assertEquals("aaaa", cache.get("a"));
+
+        /* Exceeds the node limit, which evicts b, then the limit is met again. */
+        Assert.assertEquals(1, cache.put("c", "ccc"));
+        Assert.assertEquals(Arrays.asList("a", "c"), cache.getKeys());
+        Assert.assertEquals(7, cache.getNodeCount());
+
+        /* The new template is kept even if it alone exceeds the limit. */
+        Assert.assertEquals(2, cache.put("d", "dddddddddddd"));
+        Assert.assertEquals(Arrays.asList("d"), cache.getKeys());
+        Assert.assertEquals(12, cache.getNodeCount());
+        Assert.assertEquals(3, cache.getEvictions());
+    }
+
+    @Test
+    public void testReplace() {
+        TemplateCache<String, String> cache = newCache(2, 0);
+        cache.put("a", "aaa");
+        cache.put("b", "b");
+        Assert.assertEquals(0, cache.put("a", "a"));
+        Assert.assertEquals(Arrays.asList("b", "a"), cache.getKeys());
+        Assert.assertEquals(2, cache.getNodeCount());
+        Assert.assertEquals(0, cache.getEvictions());
+    }
+
+    @Test
+    public void testHitsAndMisses() {
+        TemplateCache<String, String> cache = newCache(2, 0);
+        for (int i = 0; i < 4; i++) {
+            String key = "k" + (i % 3);
+            if (cache.get(key) == null) {
+                cache.put(key, key);
+            }
+        }
+        /* k0, k1, k2 miss, k2 evicts k0, so the second k0 misses and evicts k1. */
+        Assert.assertEquals(0, cache.getHits());
+        Assert.assertEquals(4, cache.getMisses());
+        Assert.assertEquals(2, cache.getEvictions());
+        Assert.assertEquals(Arrays.asList("k2", "k0"), cache.getKeys());
+        Assert.assertEquals("k2", cache.get("k2"));
+        Assert.assertEquals(1, cache.getHits());
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.replacements.test;
+
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+import org.graalvm.compiler.core.common.CompilationIdentifier;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
+import org.graalvm.compiler.replacements.amd64.AMD64HasNegativesNode;
+import org.graalvm.compiler.replacements.amd64.AMD64StringCodingSubstitutions;
+import org.graalvm.compiler.serviceprovider.JavaVersionUtil;
+import org.graalvm.compiler.test.AddExports;
+import org.junit.Before;
+import org.junit.Test;
+
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.code.InstalledCode;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Tests the {@code StringCoding.hasNegatives} substitution provided by
+ * {@link AMD64StringCodingSubstitutions}.
+ */
+@AddExports({"java.base/java.lang"})
+public final class StringCodingHasNegativesTest extends MethodSubstitutionTest {
+
+    private static final int MAX_LENGTH = 200;
+
+    @Before
+    public void checkAMD64() {
+        assumeFalse(JavaVersionUtil.JAVA_SPEC <= 8);
+        // Test case is (currently) AMD64 only.
+        assumeTrue(getTarget().arch instanceof AMD64);
+    }
+
+    private static byte[] asciiBytes(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (32 + i % 95);
+        }
+        return bytes;
+    }
+
+    @Test
+    public void testHasNegatives() throws ClassNotFoundException {
+        Class<?> javaclass = Class.forName("java.lang.StringCoding");
+
+        ResolvedJavaMethod caller = getResolvedJavaMethod(javaclass, "hasNegatives", byte[].class, int.class, int.class);
+        StructuredGraph graph = getReplacements().getIntrinsicGraph(caller, CompilationIdentifier.INVALID_COMPILATION_ID, getDebugContext(), AllowAssumptions.YES, null);
+        assertInGraph(graph, AMD64HasNegativesNode.class);
+
+        InstalledCode code = getCode(caller, graph);
+
+        for (int length = 0; length < MAX_LENGTH; length++) {
+            for (int offset = 0; offset < 3 && offset <= length; offset++) {
+                byte[] bytes = asciiBytes(length);
+                checkHasNegatives(caller, code, bytes, offset, length - offset);
+                // place a single negative byte at every position of the checked region and
+                // right after it
+                for (int i = offset; i < length; i++) {
+                    bytes[i] = (byte) 0x80;
+                    checkHasNegatives(caller, code, bytes, offset, length - offset);
+                    if (i > offset) {
+                        checkHasNegatives(caller, code, bytes, offset, i - offset);
+                    }
+                    bytes[i] = (byte) (32 + i % 95);
+                }
+            }
+        }
+    }
+
+    private void checkHasNegatives(ResolvedJavaMethod caller, InstalledCode code, byte[] bytes, int offset, int length) {
+        Object expected = invokeSafe(caller, null, bytes, offset, length);
+        Object actual = executeVarargsSafe(code, bytes, offset, length);
+        assertDeepEquals(expected, actual);
+    }
+}
@@ -30,6 +30,7 @@ import static org.graalvm.compiler.nodes.graphbuilderconf.IntrinsicContext.Compi
 
 import org.graalvm.collections.EconomicMap;
 import org.graalvm.compiler.bytecode.BytecodeProvider;
+import org.graalvm.compiler.debug.CounterKey;
 import org.graalvm.compiler.debug.DebugCloseable;
 import org.graalvm.compiler.debug.DebugContext;
 import org.graalvm.compiler.debug.TimerKey;
@@ -66,6 +67,8 @@ import java.util.concurrent.ConcurrentHashMap;
 public class CachingPEGraphDecoder extends PEGraphDecoder {
 
     private static final TimerKey BuildGraphTimer = DebugContext.timer("PartialEvaluation-GraphBuilding");
+    private static final CounterKey GraphCacheHits = DebugContext.counter("PartialEvaluation-GraphCacheHits");
+    private static final CounterKey GraphCacheMisses = DebugContext.counter("PartialEvaluation-GraphCacheMisses");
 
     protected final Providers providers;
     protected final GraphBuilderConfiguration graphBuilderConfig;
@@ -153,9 +156,24 @@ public class CachingPEGraphDecoder extends PEGraphDecoder {
     protected EncodedGraph lookupEncodedGraph(ResolvedJavaMethod method, MethodSubstitutionPlugin plugin, BytecodeProvider intrinsicBytecodeProvider, boolean isSubstitution,
                     boolean trackNodeSourcePosition) {
         EncodedGraph result = graphCache.get(method);
-        if (result == null && method.hasBytecodes()) {
+        if (result != null) {
+            GraphCacheHits.increment(debug);
+            onGraphCacheLookup(method, result, true);
+        } else if (method.hasBytecodes()) {
             result = createGraph(method, plugin, intrinsicBytecodeProvider, isSubstitution);
+            GraphCacheMisses.increment(debug);
+            onGraphCacheLookup(method, result, false);
         }
         return result;
     }
+
+    /**
+     * Called after the encoded graph for {@code method} has been looked up in the graph cache.
+     *
+     * @param encodedGraph the encoded graph of {@code method}
+     * @param cached {@code true} if {@code encodedGraph} was found in the cache, {@code false} if it
+     *            was just created and added to the cache
+     */
+    protected void onGraphCacheLookup(ResolvedJavaMethod method, EncodedGraph encodedGraph, boolean cached) {
+    }
 }
@@ -42,12 +42,13 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Formattable;
 import java.util.Formatter;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
 
 import org.graalvm.collections.EconomicMap;
 import org.graalvm.collections.EconomicSet;
@@ -358,6 +359,9 @@ public class SnippetTemplate {
             values[nextParamIdx] = value;
             constStamps[nextParamIdx] = stamp;
             cacheKey.setParam(nextParamIdx, value);
+            if (stamp != null) {
+                cacheKey.setParamStamp(nextParamIdx, stamp);
+            }
             nextParamIdx++;
             return this;
         }
@@ -511,6 +515,11 @@ public class SnippetTemplate {
 
         private final ResolvedJavaMethod method;
         private final Object[] values;
+        /**
+         * Explicit stamps of the constant parameters, or {@code null} if no constant parameter has
+         * an explicit stamp.
+         */
+        private Stamp[] stamps;
         private final GuardsStage guardsStage;
         private final LoweringTool.LoweringStage loweringStage;
         private int hash;
@@ -528,6 +537,14 @@ public class SnippetTemplate {
             hash = (hash * 31) ^ (value == null ? 0 : value.hashCode());
         }
 
+        protected void setParamStamp(int paramIdx, Stamp stamp) {
+            if (stamps == null) {
+                stamps = new Stamp[values.length];
+            }
+            stamps[paramIdx] = stamp;
+            hash = (hash * 31) ^ stamp.hashCode();
+        }
+
         @Override
         public boolean equals(Object obj) {
             if (!(obj instanceof CacheKey)) {
@@ -545,7 +562,7 @@ public class SnippetTemplate {
                     return false;
                 }
             }
-            return true;
+            return Arrays.equals(stamps, other.stamps);
         }
 
         @Override
@@ -556,13 +573,20 @@ public class SnippetTemplate {
 
     private static final TimerKey SnippetTemplateCreationTime = DebugContext.timer("SnippetTemplateCreationTime");
     private static final CounterKey SnippetTemplates = DebugContext.counter("SnippetTemplateCount");
+    private static final CounterKey SnippetTemplateCacheHits = DebugContext.counter("SnippetTemplateCacheHits");
+    private static final CounterKey SnippetTemplateCacheMisses = DebugContext.counter("SnippetTemplateCacheMisses");
+    private static final CounterKey SnippetTemplateCacheEvictions = DebugContext.counter("SnippetTemplateCacheEvictions");
 
     static class Options {
         @Option(help = "Use a LRU cache for snippet templates.")//
         public static final OptionKey<Boolean> UseSnippetTemplateCache = new OptionKey<>(true);
 
-        @Option(help = "")//
+        @Option(help = "Maximum number of cached templates per snippet class.")//
         static final OptionKey<Integer> MaxTemplatesPerSnippet = new OptionKey<>(50);
+
+        @Option(help = "Maximum total node count of the cached templates per snippet class (0 for no limit). " +
+                        "Least recently used templates are evicted first.")//
+        static final OptionKey<Integer> MaxTemplateNodesPerSnippet = new OptionKey<>(0);
     }
 
     /**
@@ -576,7 +600,7 @@ public class SnippetTemplate {
         protected final SnippetReflectionProvider snippetReflection;
         protected final Iterable<DebugHandlersFactory> factories;
         protected final TargetDescription target;
-        private final Map<CacheKey, SnippetTemplate> templates;
+        private final TemplateCache<CacheKey, SnippetTemplate> templates;
 
         protected AbstractTemplates(OptionValues options, Iterable<DebugHandlersFactory> factories, Providers providers, SnippetReflectionProvider snippetReflection, TargetDescription target) {
             this.options = options;
@@ -586,8 +610,7 @@ public class SnippetTemplate {
             this.target = target;
             this.factories = factories;
             if (Options.UseSnippetTemplateCache.getValue(options)) {
-                int size = Options.MaxTemplatesPerSnippet.getValue(options);
-                this.templates = Collections.synchronizedMap(new LRUCache<>(size, size));
+                this.templates = new TemplateCache<>(Options.MaxTemplatesPerSnippet.getValue(options), Options.MaxTemplateNodesPerSnippet.getValue(options), t -> t.snippet.getNodeCount());
             } else {
                 this.templates = null;
             }
@@ -666,7 +689,15 @@ public class SnippetTemplate {
         public SnippetTemplate template(ValueNode replacee, final Arguments args) {
             StructuredGraph graph = replacee.graph();
             DebugContext outer = graph.getDebug();
-            SnippetTemplate template = Options.UseSnippetTemplateCache.getValue(options) && args.cacheable ? templates.get(args.cacheKey) : null;
+            boolean useCache = Options.UseSnippetTemplateCache.getValue(options) && args.cacheable;
+            SnippetTemplate template = useCache ? templates.get(args.cacheKey) : null;
+            if (useCache) {
+                if (template != null) {
+                    SnippetTemplateCacheHits.increment(outer);
+                } else {
+                    SnippetTemplateCacheMisses.increment(outer);
+                }
+            }
             if (template == null || (graph.trackNodeSourcePosition() && !template.snippet.trackNodeSourcePosition())) {
                 try (DebugContext debug = openDebugContext(outer, args)) {
                     try (DebugCloseable a = SnippetTemplateCreationTime.start(debug); DebugContext.Scope s = debug.scope("SnippetSpecialization", args.info.method)) {
@@ -674,7 +705,8 @@ public class SnippetTemplate {
                         OptionValues snippetOptions = new OptionValues(options, GraalOptions.TraceInlining, GraalOptions.TraceInliningForStubsAndSnippets.getValue(options));
                         template = new SnippetTemplate(snippetOptions, debug, providers, snippetReflection, args, graph.trackNodeSourcePosition(), replacee, createMidTierPhases());
                         if (Options.UseSnippetTemplateCache.getValue(snippetOptions) && args.cacheable) {
-                            templates.put(args.cacheKey, template);
+                            int evicted = templates.put(args.cacheKey, template);
+                            SnippetTemplateCacheEvictions.add(outer, evicted);
                         }
                     } catch (Throwable e) {
                         throw debug.handle(e);
@@ -694,18 +726,91 @@ public class SnippetTemplate {
         }
     }
 
-    private static final class LRUCache<K, V> extends LinkedHashMap<K, V> {
-        private static final long serialVersionUID = 1L;
-        private final int maxCacheSize;
+    /**
+     * Least recently used cache of templates bounded by the number of templates and by their total
+     * node count. It also counts lookups that hit or missed and evicted templates.
+     */
+    public static final class TemplateCache<K, V> {
+        private final LinkedHashMap<K, V> map;
+        private final ToIntFunction<V> nodeCount;
+        private final int maxTemplates;
+        private final int maxNodes;
+        private int nodes;
+        private long hits;
+        private long misses;
+        private long evictions;
 
-        LRUCache(int initialCapacity, int maxCacheSize) {
-            super(initialCapacity, 0.75F, true);
-            this.maxCacheSize = maxCacheSize;
+        /**
+         * @param maxNodes the maximum total node count of the cached templates, or 0 for no limit
+         * @param nodeCount computes the node count of a template
+         */
+        public TemplateCache(int maxTemplates, int maxNodes, ToIntFunction<V> nodeCount) {
+            this.map = new LinkedHashMap<>(maxTemplates, 0.75F, true);
+            this.nodeCount = nodeCount;
+            this.maxTemplates = maxTemplates;
+            this.maxNodes = maxNodes;
         }
 
-        @Override
-        protected boolean removeEldestEntry(java.util.Map.Entry<K, V> eldest) {
-            return size() > maxCacheSize;
+        /**
+         * Returns the template for {@code key}, or {@code null} if there is none, and marks it as
+         * the most recently used one.
+         */
+        public synchronized V get(K key) {
+            V template = map.get(key);
+            if (template != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+            return template;
+        }
+
+        /**
+         * Adds {@code template} to the cache and evicts the least recently used templates that
+         * exceed the limits. The new template itself is never evicted.
+         *
+         * @return the number of evicted templates
+         */
+        public synchronized int put(K key, V template) {
+            V previous = map.put(key, template);
+            if (previous != null) {
+                nodes -= nodeCount.applyAsInt(previous);
+            }
+            nodes += nodeCount.applyAsInt(template);
+            int evicted = 0;
+            Iterator<V> iterator = map.values().iterator();
+            while (map.size() > maxTemplates || (maxNodes > 0 && nodes > maxNodes)) {
+                V eldest = iterator.next();
+                if (eldest == template) {
+                    break;
+                }
+                nodes -= nodeCount.applyAsInt(eldest);
+                iterator.remove();
+                evicted++;
+            }
+            evictions += evicted;
+            return evicted;
+        }
+
+        /** Returns the keys of the cached templates, from the least to the most recently used. */
+        public synchronized List<K> getKeys() {
+            return new ArrayList<>(map.keySet());
+        }
+
+        public synchronized int getNodeCount() {
+            return nodes;
+        }
+
+        public synchronized long getHits() {
+            return hits;
+        }
+
+        public synchronized long getMisses() {
+            return misses;
+        }
+
+        public synchronized long getEvictions() {
+            return evictions;
         }
     }
 
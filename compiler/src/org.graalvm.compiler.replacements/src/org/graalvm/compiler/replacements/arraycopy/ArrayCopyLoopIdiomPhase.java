@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.replacements.arraycopy;
+
+import org.graalvm.compiler.core.common.type.IntegerStamp;
+import org.graalvm.compiler.debug.CounterKey;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.nodes.AbstractBeginNode;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.FixedGuardNode;
+import org.graalvm.compiler.nodes.FixedNode;
+import org.graalvm.compiler.nodes.FixedWithNextNode;
+import org.graalvm.compiler.nodes.FrameState;
+import org.graalvm.compiler.nodes.IfNode;
+import org.graalvm.compiler.nodes.LogicConstantNode;
+import org.graalvm.compiler.nodes.LogicNode;
+import org.graalvm.compiler.nodes.LoopBeginNode;
+import org.graalvm.compiler.nodes.LoopEndNode;
+import org.graalvm.compiler.nodes.LoopExitNode;
+import org.graalvm.compiler.nodes.NodeView;
+import org.graalvm.compiler.nodes.PhiNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.calc.IntegerLessThanNode;
+import org.graalvm.compiler.nodes.calc.IsNullNode;
+import org.graalvm.compiler.nodes.calc.SubNode;
+import org.graalvm.compiler.nodes.java.ArrayLengthNode;
+import org.graalvm.compiler.nodes.java.LoadIndexedNode;
+import org.graalvm.compiler.nodes.java.StoreIndexedNode;
+import org.graalvm.compiler.nodes.loop.CountedLoopInfo;
+import org.graalvm.compiler.nodes.loop.InductionVariable;
+import org.graalvm.compiler.nodes.loop.InductionVariable.Direction;
+import org.graalvm.compiler.nodes.loop.LoopEx;
+import org.graalvm.compiler.nodes.loop.LoopsData;
+import org.graalvm.compiler.nodes.spi.CoreProviders;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.compiler.options.OptionKey;
+import org.graalvm.compiler.options.OptionType;
+import org.graalvm.compiler.phases.BasePhase;
+import org.graalvm.compiler.phases.common.CanonicalizerPhase;
+import org.graalvm.compiler.serviceprovider.SpeculationReasonGroup;
+
+import jdk.vm.ci.code.BytecodePosition;
+import jdk.vm.ci.meta.DeoptimizationAction;
+import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.SpeculationLog;
+
+/**
+ * Replaces counted loops that copy a range of a primitive array element by element with an
+ * {@link ArrayCopyNode}, which is lowered to the vectorized arraycopy stubs of the backend:
+ *
+ * <pre>
+ * for (int i = start; i &lt; limit; i++) {
+ *     dst[i] = src[i];
+ * }
+ * </pre>
+ *
+ * The loop throws after copying a part of the range if an index is out of bounds, while the
+ * arraycopy checks the whole range up front. The transformation therefore speculates that the
+ * arrays are non-null and that the range is in bounds of both arrays. If the speculation fails, the
+ * code deoptimizes before the loop and the loop is not transformed in the next compilation.
+ */
+public class ArrayCopyLoopIdiomPhase extends BasePhase<CoreProviders> {
+
+    public static class Options {
+        // @formatter:off
+        @Option(help = "Replace counted loops that copy primitive array elements with an arraycopy.", type = OptionType.Expert)
+        public static final OptionKey<Boolean> ArrayCopyLoopIdiom = new OptionKey<>(false);
+        // @formatter:on
+    }
+
+    private static final SpeculationReasonGroup ARRAYCOPY_LOOP_IDIOM = new SpeculationReasonGroup("ArrayCopyLoopIdiom", BytecodePosition.class);
+
+    private static final CounterKey ArrayCopyLoops = DebugContext.counter("ArrayCopyLoopIdiom_Replaced");
+
+    private final CanonicalizerPhase canonicalizer;
+
+    public ArrayCopyLoopIdiomPhase(CanonicalizerPhase canonicalizer) {
+        this.canonicalizer = canonicalizer;
+    }
+
+    @Override
+    protected void run(StructuredGraph graph, CoreProviders context) {
+        SpeculationLog speculationLog = graph.getSpeculationLog();
+        if (!graph.hasLoops() || speculationLog == null) {
+            return;
+        }
+        boolean changed = false;
+        LoopsData data = context.getLoopsDataProvider().getLoopsData(graph);
+        data.detectedCountedLoops();
+        for (LoopEx loop : data.countedLoops()) {
+            if (!loop.loop().getChildren().isEmpty()) {
+                continue;
+            }
+            FrameState loopState = loop.loopBegin().stateAfter();
+            if (loopState == null) {
+                continue;
+            }
+            SpeculationLog.SpeculationReason reason = ARRAYCOPY_LOOP_IDIOM.createSpeculationReason(new BytecodePosition(null, loopState.getMethod(), loopState.bci));
+            if (!speculationLog.maySpeculate(reason)) {
+                continue;
+            }
+            StoreIndexedNode store = findCopy(loop);
+            if (store != null) {
+                replaceWithArrayCopy(graph, loop, store, speculationLog.speculate(reason));
+                ArrayCopyLoops.increment(graph.getDebug());
+                changed = true;
+            }
+        }
+        if (changed) {
+            canonicalizer.apply(graph, context);
+        }
+    }
+
+    /**
+     * Returns the store of the loop if {@code loop} only copies {@code src[i]} to {@code dst[i]}
+     * for a primitive element kind, or {@code null} otherwise.
+     */
+    private static StoreIndexedNode findCopy(LoopEx loop) {
+        CountedLoopInfo counted = loop.counted();
+        InductionVariable counter = counted.getCounter();
+        if (counted.isInverted() || counted.isUnsignedCheck() || counted.isLimitIncluded() || !counted.isExactTripCount() || counted.getDirection() != Direction.Up ||
+                        !counter.isConstantStride() || counter.constantStride() != 1 || ((IntegerStamp) counter.valueNode().stamp(NodeView.DEFAULT)).getBits() != 32 ||
+                        !loop.loopBegin().isSimpleLoop() || !loop.isOutsideLoop(counted.getLimit())) {
+            return null;
+        }
+        LoadIndexedNode load = null;
+        StoreIndexedNode store = null;
+        for (Node node : loop.whole().nodes()) {
+            if (node instanceof LoadIndexedNode && load == null) {
+                load = (LoadIndexedNode) node;
+            } else if (node instanceof StoreIndexedNode && store == null) {
+                store = (StoreIndexedNode) node;
+            } else if (node instanceof LoopExitNode) {
+                if (((LoopExitNode) node).proxies().isNotEmpty()) {
+                    return null;
+                }
+            } else if (node instanceof FixedNode && !(node instanceof AbstractBeginNode || node instanceof LoopEndNode || node == counted.getLimitTest())) {
+                return null;
+            }
+        }
+        if (load == null || store == null) {
+            return null;
+        }
+        JavaKind kind = store.elementKind();
+        ValueNode index = counter.valueNode();
+        if (!kind.isPrimitive() || load.elementKind() != kind || store.value() != load || load.index() != index || store.index() != index ||
+                        !loop.isOutsideLoop(load.array()) || !loop.isOutsideLoop(store.array())) {
+            return null;
+        }
+        for (Node usage : load.usages()) {
+            if (usage != store) {
+                return null;
+            }
+        }
+        return store;
+    }
+
+    private static void replaceWithArrayCopy(StructuredGraph graph, LoopEx loop, StoreIndexedNode store, SpeculationLog.Speculation speculation) {
+        LoadIndexedNode load = (LoadIndexedNode) store.value();
+        ValueNode src = load.array();
+        ValueNode dst = store.array();
+        CountedLoopInfo counted = loop.counted();
+        ValueNode start = counted.getStart();
+        ValueNode limit = counted.getLimit();
+        LoopBeginNode loopBegin = loop.loopBegin();
+        FixedNode insertionPoint = loopBegin.forwardEnd();
+
+        addGuard(graph, insertionPoint, IsNullNode.create(src), DeoptimizationReason.NullCheckException, speculation);
+        addGuard(graph, insertionPoint, IsNullNode.create(dst), DeoptimizationReason.NullCheckException, speculation);
+        addGuard(graph, insertionPoint, IntegerLessThanNode.create(start, ConstantNode.forInt(0, graph), NodeView.DEFAULT), DeoptimizationReason.BoundsCheckException, speculation);
+        addGuard(graph, insertionPoint, IntegerLessThanNode.create(limit, start, NodeView.DEFAULT), DeoptimizationReason.BoundsCheckException, speculation);
+        ArrayLengthNode srcLength = graph.add(new ArrayLengthNode(src));
+        graph.addBeforeFixed(insertionPoint, srcLength);
+        addGuard(graph, insertionPoint, IntegerLessThanNode.create(srcLength, limit, NodeView.DEFAULT), DeoptimizationReason.BoundsCheckException, speculation);
+        ArrayLengthNode dstLength = graph.add(new ArrayLengthNode(dst));
+        graph.addBeforeFixed(insertionPoint, dstLength);
+        addGuard(graph, insertionPoint, IntegerLessThanNode.create(dstLength, limit, NodeView.DEFAULT), DeoptimizationReason.BoundsCheckException, speculation);
+
+        /*
+         * The copy is idempotent, so deoptimizing after it may re-execute the loop from its first
+         * iteration. The state is the loop header state with the loop phis replaced by their
+         * entry values.
+         */
+        FrameState state = loopBegin.stateAfter().duplicate();
+        for (PhiNode phi : loopBegin.phis()) {
+            state.replaceAllInputs(phi, phi.valueAt(loopBegin.forwardEnd()));
+        }
+        ValueNode length = graph.addOrUniqueWithInputs(SubNode.create(limit, start, NodeView.DEFAULT));
+        ArrayCopyNode copy = graph.add(new ArrayCopyNode(state.bci, src, start, dst, start, length));
+        copy.setStateAfter(state);
+        graph.addBeforeFixed(insertionPoint, copy);
+
+        // Make the loop exit immediately; canonicalization removes the dead loop body.
+        IfNode limitTest = counted.getLimitTest();
+        limitTest.setCondition(LogicConstantNode.forBoolean(limitTest.trueSuccessor() != counted.getBody(), graph));
+    }
+
+    private static void addGuard(StructuredGraph graph, FixedNode insertionPoint, LogicNode failureCondition, DeoptimizationReason reason, SpeculationLog.Speculation speculation) {
+        LogicNode condition = graph.addOrUniqueWithInputs(failureCondition);
+        FixedWithNextNode guard = graph.add(new FixedGuardNode(condition, reason, DeoptimizationAction.InvalidateRecompile, speculation, true));
+        graph.addBeforeFixed(insertionPoint, guard);
+    }
+
+    @Override
+    public float codeSizeIncrease() {
+        return 2.0f;
+    }
+}
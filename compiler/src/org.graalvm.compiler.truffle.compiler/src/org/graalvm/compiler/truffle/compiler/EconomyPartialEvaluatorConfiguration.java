@@ -33,4 +33,14 @@ public class EconomyPartialEvaluatorConfiguration implements PartialEvaluatorCon
     public String name() {
         return "economy";
     }
+
+    @Override
+    public boolean iterativePartialEscape() {
+        return false;
+    }
+
+    @Override
+    public boolean optimizeTruffleTier() {
+        return false;
+    }
 }
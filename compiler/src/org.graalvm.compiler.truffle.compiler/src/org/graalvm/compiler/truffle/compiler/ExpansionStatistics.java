@@ -188,12 +188,15 @@ final class ExpansionStatistics {
         }
     }
 
-    void onShutdown() {
+    void onShutdown(PartialEvaluator partialEvaluator) {
         CompilableTruffleAST ast = this.previousCompilation;
         if (ast == null) {
             // cannot print without any compilations
             return;
         }
+        if (methodExpansionStatistics.containsKey(CompilationTier.peTier) || nodeExpansionStatistics.containsKey(CompilationTier.peTier)) {
+            printEncodedGraphCacheStatistics(ast, partialEvaluator);
+        }
         for (Entry<CompilationTier, Map<ResolvedJavaMethod, Stats>> statsEntry : this.methodExpansionStatistics.entrySet()) {
             printHistogram(ast, statsEntry.getKey(), statsEntry.getValue(), ExpansionStatistics::formatQualifiedMethod, null, null, null, "Method");
         }
@@ -205,6 +208,15 @@ final class ExpansionStatistics {
         }
     }
 
+    private static void printEncodedGraphCacheStatistics(CompilableTruffleAST ast, PartialEvaluator partialEvaluator) {
+        long hits = partialEvaluator.getEncodedGraphCacheHits();
+        long misses = partialEvaluator.getEncodedGraphCacheMisses();
+        long lookups = hits + misses;
+        double hitRate = lookups == 0 ? 0.0D : hits * 100.0D / lookups;
+        TruffleCompilerRuntime.getRuntime().log(ast, String.format("Encoded graph cache statistics: lookups %d, hits %d, misses %d, hit rate %.1f%%, encoded %d bytes",
+                        lookups, hits, misses, hitRate, partialEvaluator.getEncodedGraphCacheBytes()));
+    }
+
     private static <T, S> void printHistogram(CompilableTruffleAST ast, CompilationTier tier,
                     Map<T, Stats> statsMap, Function<T, String> labelFunction,
                     Map<S, Stats> subGroupMap, Function<S, String> subGroupLabelFunction,
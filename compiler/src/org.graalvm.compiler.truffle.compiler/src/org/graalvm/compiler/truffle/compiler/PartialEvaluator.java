@@ -25,16 +25,19 @@
 package org.graalvm.compiler.truffle.compiler;
 
 import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.ExcludeAssertions;
+import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.FirstTierUseEconomy;
 import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.ForceFrameLivenessAnalysis;
 import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.InlineAcrossTruffleBoundary;
 import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.IterativePartialEscape;
 import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.MaximumGraalNodeCount;
 import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.NodeSourcePositions;
 import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.PrintExpansionHistogram;
+import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.ShapeGuardHoisting;
 import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.TracePerformanceWarnings;
 
 import java.net.URI;
 import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.graalvm.collections.EconomicMap;
 import org.graalvm.compiler.api.replacements.SnippetReflectionProvider;
@@ -92,6 +95,7 @@ import org.graalvm.compiler.truffle.compiler.nodes.frame.AllowMaterializeNode;
 import org.graalvm.compiler.truffle.compiler.nodes.frame.VirtualFrameClearNode;
 import org.graalvm.compiler.truffle.compiler.phases.DeoptimizeOnExceptionPhase;
 import org.graalvm.compiler.truffle.compiler.phases.FrameClearPhase;
+import org.graalvm.compiler.truffle.compiler.phases.ShapeGuardHoistingPhase;
 import org.graalvm.compiler.truffle.compiler.phases.InstrumentBranchesPhase;
 import org.graalvm.compiler.truffle.compiler.phases.InstrumentPhase;
 import org.graalvm.compiler.truffle.compiler.phases.InstrumentTruffleBoundariesPhase;
@@ -123,6 +127,7 @@ public abstract class PartialEvaluator {
     private static final TimerKey TruffleFrameClearTimer = DebugContext.timer("PartialEvaluation-FrameClear").doc("Time spent in the frame-clear in Truffle tier.");
     private static final TimerKey TruffleConditionalEliminationTimer = DebugContext.timer("PartialEvaluation-ConditionalElimination").doc("Time spent in conditional elimination in Truffle tier.");
     private static final TimerKey TruffleCanonicalizerTimer = DebugContext.timer("PartialEvaluation-Canonicalizer").doc("Time spent in the canonicalizer in the Truffle tier.");
+    private static final TimerKey TruffleShapeGuardHoistingTimer = DebugContext.timer("PartialEvaluation-ShapeGuardHoisting").doc("Time spent in hoisting shape guards out of loops in Truffle tier.");
     private static final TimerKey TruffleConvertDeoptimizeTimer = DebugContext.timer("PartialEvaluation-ConvertDeoptimizeToGuard").doc("Time spent in converting deoptimize to guard in Truffle tier.");
 
     protected final TruffleCompilerConfiguration config;
@@ -158,6 +163,21 @@ public abstract class PartialEvaluator {
 
     protected final TruffleConstantFieldProvider compilationLocalConstantProvider;
 
+    /**
+     * Lookups in the {@linkplain #getOrCreateEncodedGraphCache() encoded graph cache} that found a
+     * graph, summed over all compilations of this partial evaluator.
+     */
+    private final LongAdder encodedGraphCacheHits = new LongAdder();
+    /**
+     * Lookups in the {@linkplain #getOrCreateEncodedGraphCache() encoded graph cache} that had to
+     * parse and encode the graph, summed over all compilations of this partial evaluator.
+     */
+    private final LongAdder encodedGraphCacheMisses = new LongAdder();
+    /**
+     * Approximate size in bytes of all graphs encoded after an encoded graph cache miss.
+     */
+    private final LongAdder encodedGraphCacheBytes = new LongAdder();
+
     public PartialEvaluator(TruffleCompilerConfiguration config, GraphBuilderConfiguration configForRoot, KnownTruffleTypes knownFields) {
         this.config = config;
         this.providers = config.lastTier().providers();
@@ -197,6 +217,30 @@ public abstract class PartialEvaluator {
         return EconomicMap.create();
     }
 
+    /**
+     * Gets the number of lookups in the encoded graph cache that found a graph, summed over all
+     * compilations of this partial evaluator.
+     */
+    public long getEncodedGraphCacheHits() {
+        return encodedGraphCacheHits.sum();
+    }
+
+    /**
+     * Gets the number of lookups in the encoded graph cache that had to parse and encode the
+     * graph, summed over all compilations of this partial evaluator.
+     */
+    public long getEncodedGraphCacheMisses() {
+        return encodedGraphCacheMisses.sum();
+    }
+
+    /**
+     * Gets the approximate size in bytes of all graphs that were encoded after a miss in the
+     * encoded graph cache.
+     */
+    public long getEncodedGraphCacheBytes() {
+        return encodedGraphCacheBytes.sum();
+    }
+
     /**
      * Gets the instrumentation manager associated with this compiler, creating it first if
      * necessary. Each compiler instance has its own instrumentation manager.
@@ -334,6 +378,16 @@ public abstract class PartialEvaluator {
         public boolean isFirstTier() {
             return task != null && task.isFirstTier();
         }
+
+        /**
+         * Returns the partial evaluator configuration of the tier this request is compiled for.
+         */
+        public PartialEvaluatorConfiguration tierConfiguration() {
+            if (isFirstTier() && options.get(FirstTierUseEconomy)) {
+                return config.firstTier().partialEvaluator();
+            }
+            return config.lastTier().partialEvaluator();
+        }
     }
 
     @SuppressWarnings("try")
@@ -347,21 +401,29 @@ public abstract class PartialEvaluator {
                     new ConvertDeoptimizeToGuardPhase().apply(request.graph, request.highTierContext);
                 }
                 inlineReplacements(request);
-                try (DebugCloseable a = TruffleConditionalEliminationTimer.start(request.debug)) {
-                    new ConditionalEliminationPhase(false).apply(request.graph, request.highTierContext);
+                PartialEvaluatorConfiguration tierConfiguration = request.tierConfiguration();
+                if (tierConfiguration.optimizeTruffleTier()) {
+                    try (DebugCloseable a = TruffleConditionalEliminationTimer.start(request.debug)) {
+                        new ConditionalEliminationPhase(false).apply(request.graph, request.highTierContext);
+                    }
                 }
                 try (DebugCloseable a = TruffleCanonicalizerTimer.start(request.debug)) {
                     canonicalizer.apply(request.graph, request.highTierContext);
                 }
                 boolean performFrameClear = request.options.get(ForceFrameLivenessAnalysis) || request.graph.hasNode(VirtualFrameClearNode.TYPE);
                 try (DebugCloseable a = TruffleEscapeAnalysisTimer.start(request.debug)) {
-                    partialEscape(request);
+                    partialEscape(request, tierConfiguration.iterativePartialEscape());
                 }
                 if (performFrameClear) {
                     try (DebugCloseable a = TruffleFrameClearTimer.start(request.debug)) {
                         new FrameClearPhase(knownTruffleTypes, canonicalizer, request.compilable).apply(request.graph, request.highTierContext);
                     }
                 }
+                if (tierConfiguration.optimizeTruffleTier() && request.options.get(ShapeGuardHoisting)) {
+                    try (DebugCloseable a = TruffleShapeGuardHoistingTimer.start(request.debug)) {
+                        new ShapeGuardHoistingPhase(knownTruffleTypes).apply(request.graph, request.highTierContext);
+                    }
+                }
                 // recompute loop frequencies now that BranchProbabilities have been canonicalized
                 ComputeLoopFrequenciesClosure.compute(request.graph);
                 applyInstrumentationPhases(request);
@@ -415,9 +477,9 @@ public abstract class PartialEvaluator {
     }
 
     @SuppressWarnings({"unused", "try"})
-    private void partialEscape(Request request) {
+    private void partialEscape(Request request, boolean iterative) {
         try (DebugContext.Scope pe = request.debug.scope("TrufflePartialEscape", request.graph)) {
-            new PartialEscapePhase(request.options.get(IterativePartialEscape), canonicalizer, request.graph.getOptions()).apply(request.graph, request.highTierContext);
+            new PartialEscapePhase(iterative && request.options.get(IterativePartialEscape), canonicalizer, request.graph.getOptions()).apply(request.graph, request.highTierContext);
         } catch (Throwable t) {
             request.debug.handle(t);
         }
@@ -543,7 +605,22 @@ public abstract class PartialEvaluator {
         return new CachingPEGraphDecoder(architecture, request.graph, compilationUnitProviders, newConfig, TruffleCompilerImpl.Optimizations,
                         AllowAssumptions.ifNonNull(request.graph.getAssumptions()),
                         loopExplosionPlugin, decodingPlugins, inlineInvokePlugins, parameterPlugin, nodePluginList, callInlined,
-                        sourceLanguagePositionProvider, postParsingPhase, graphCache);
+                        sourceLanguagePositionProvider, postParsingPhase, graphCache) {
+            @Override
+            protected void onGraphCacheLookup(ResolvedJavaMethod method, EncodedGraph encodedGraph, boolean cached) {
+                recordEncodedGraphCacheLookup(encodedGraph, cached);
+            }
+        };
+    }
+
+    protected final void recordEncodedGraphCacheLookup(EncodedGraph encodedGraph, boolean cached) {
+        if (cached) {
+            encodedGraphCacheHits.increment();
+        } else {
+            encodedGraphCacheMisses.increment();
+            // the objects array is counted with one reference per entry
+            encodedGraphCacheBytes.add(encodedGraph.getEncoding().length + (long) encodedGraph.getNumObjects() * Long.BYTES);
+        }
     }
 
     public void doGraphPE(Request request, InlineInvokePlugin inlineInvokePlugin, EconomicMap<ResolvedJavaMethod, EncodedGraph> graphCache) {
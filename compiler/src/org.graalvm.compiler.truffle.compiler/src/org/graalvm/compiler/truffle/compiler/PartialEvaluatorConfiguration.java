@@ -36,6 +36,23 @@ public interface PartialEvaluatorConfiguration {
      */
     String name();
 
+    /**
+     * Whether partial escape analysis in the Truffle tier iterates until it reaches a fixed point.
+     * If {@code false}, a single pass is performed regardless of
+     * {@code PolyglotCompilerOptions#IterativePartialEscape}.
+     */
+    default boolean iterativePartialEscape() {
+        return true;
+    }
+
+    /**
+     * Whether the optional optimizations of the Truffle tier, such as conditional elimination and
+     * shape guard hoisting, are applied after partial evaluation.
+     */
+    default boolean optimizeTruffleTier() {
+        return true;
+    }
+
     /**
      * Register graph-decoding invocation plugins.
      */
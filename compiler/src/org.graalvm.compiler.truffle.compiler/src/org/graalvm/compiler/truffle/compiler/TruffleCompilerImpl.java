@@ -375,7 +375,7 @@ public abstract class TruffleCompilerImpl implements TruffleCompilerBase {
         }
         ExpansionStatistics histogram = this.expansionStatistics;
         if (histogram != null) {
-            histogram.onShutdown();
+            histogram.onShutdown(partialEvaluator);
             this.expansionStatistics = null;
         }
     }
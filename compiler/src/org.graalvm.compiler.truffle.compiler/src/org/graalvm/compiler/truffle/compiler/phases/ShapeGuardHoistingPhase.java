@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.compiler.phases;
+
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.collections.EconomicSet;
+import org.graalvm.collections.Equivalence;
+import org.graalvm.compiler.debug.CounterKey;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.FieldLocationIdentity;
+import org.graalvm.compiler.nodes.FixedGuardNode;
+import org.graalvm.compiler.nodes.FixedNode;
+import org.graalvm.compiler.nodes.FrameState;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.calc.ObjectEqualsNode;
+import org.graalvm.compiler.nodes.java.LoadFieldNode;
+import org.graalvm.compiler.nodes.loop.LoopEx;
+import org.graalvm.compiler.nodes.loop.LoopsData;
+import org.graalvm.compiler.nodes.memory.MemoryKill;
+import org.graalvm.compiler.nodes.memory.MultiMemoryKill;
+import org.graalvm.compiler.nodes.memory.SingleMemoryKill;
+import org.graalvm.compiler.nodes.spi.CoreProviders;
+import org.graalvm.compiler.nodes.type.StampTool;
+import org.graalvm.compiler.phases.BasePhase;
+import org.graalvm.compiler.serviceprovider.SpeculationReasonGroup;
+import org.graalvm.compiler.truffle.compiler.substitutions.KnownTruffleTypes;
+import org.graalvm.word.LocationIdentity;
+
+import jdk.vm.ci.code.BytecodePosition;
+import jdk.vm.ci.meta.ResolvedJavaField;
+import jdk.vm.ci.meta.SpeculationLog;
+import jdk.vm.ci.meta.SpeculationLog.SpeculationReason;
+
+/**
+ * Hoists loop invariant {@code DynamicObject} shape checks out of loops.
+ * <p>
+ * After partial evaluation, a shape check ({@code object.getShape() == cachedShape}) that
+ * deoptimizes on failure is a {@link FixedGuardNode} comparing a load of the
+ * {@code DynamicObject.shape} field with a constant. The shape itself does not need to be checked
+ * again for validity, that is covered by the assumption registered during partial evaluation. If
+ * the shape is loaded in front of an inner most loop, or the object is defined outside of the loop
+ * and nothing in the loop can write the shape field, the check produces the same result in every
+ * iteration. This phase moves such checks, together with the load if needed, in front of the
+ * loop. All checks of the same shape value against the same shape in the loop are merged into a
+ * single hoisted guard, so conditional elimination can afterwards fold any check in the loop body
+ * that is implied by the hoisted one.
+ * <p>
+ * A hoisted guard is speculative since it also fails if the loop would have exited before reaching
+ * the original check. It is therefore associated with a speculation of the graph's
+ * {@link SpeculationLog}, and after such a deoptimization the loop is compiled without hoisting.
+ */
+public final class ShapeGuardHoistingPhase extends BasePhase<CoreProviders> {
+
+    private static final SpeculationReasonGroup SHAPE_GUARD_HOISTING = new SpeculationReasonGroup("Shape Guard Hoisting", BytecodePosition.class);
+
+    private static final CounterKey HoistedGuards = DebugContext.counter("ShapeGuardHoisting_HoistedGuards");
+    private static final CounterKey MergedGuards = DebugContext.counter("ShapeGuardHoisting_MergedGuards");
+
+    private final KnownTruffleTypes types;
+
+    public ShapeGuardHoistingPhase(KnownTruffleTypes types) {
+        this.types = types;
+    }
+
+    @Override
+    protected void run(StructuredGraph graph, CoreProviders context) {
+        SpeculationLog speculationLog = graph.getSpeculationLog();
+        if (!graph.hasLoops() || speculationLog == null) {
+            return;
+        }
+        ResolvedJavaField shapeField = types.fieldDynamicObjectShape;
+        LocationIdentity shapeLocation = new FieldLocationIdentity(shapeField);
+        LoopsData loopsData = context.getLoopsDataProvider().getLoopsData(graph);
+        for (LoopEx loop : loopsData.loops()) {
+            // Only inner most loops: hoisted nodes are not part of the enclosing loop's data.
+            if (!loop.loop().getChildren().isEmpty()) {
+                continue;
+            }
+            FrameState state = loop.loopBegin().stateAfter();
+            if (state == null) {
+                continue;
+            }
+            SpeculationReason reason = SHAPE_GUARD_HOISTING.createSpeculationReason(toBytecodePosition(state));
+            if (speculationLog.maySpeculate(reason)) {
+                hoistShapeGuards(graph, loop, shapeField, shapeLocation, speculationLog, reason);
+            }
+        }
+    }
+
+    private static void hoistShapeGuards(StructuredGraph graph, LoopEx loop, ResolvedJavaField shapeField, LocationIdentity shapeLocation, SpeculationLog speculationLog,
+                    SpeculationReason reason) {
+        DebugContext debug = graph.getDebug();
+        /*
+         * Collect the shape checks per shape value: a load in front of the loop (e.g., left there
+         * by read elimination) or an invariant object whose shape is loaded in the loop. A value
+         * that is checked against different shapes in the same loop is left alone: hoisting would
+         * make at least one of the checks fail.
+         */
+        Boolean loopWritesShape = null;
+        EconomicMap<ValueNode, ConstantNode> expectedShapes = EconomicMap.create(Equivalence.IDENTITY);
+        EconomicSet<ValueNode> polymorphic = EconomicSet.create(Equivalence.IDENTITY);
+        EconomicMap<FixedGuardNode, LoadFieldNode> candidates = EconomicMap.create(Equivalence.IDENTITY);
+        EconomicMap<FixedGuardNode, ValueNode> candidateKeys = EconomicMap.create(Equivalence.IDENTITY);
+        for (FixedGuardNode guard : loop.whole().nodes().filter(FixedGuardNode.class)) {
+            LoadFieldNode load = shapeLoad(guard, shapeField);
+            if (load == null) {
+                continue;
+            }
+            if (!loop.isOutsideLoop(load)) {
+                if (!loop.isOutsideLoop(load.object()) || !StampTool.isPointerNonNull(load.object())) {
+                    continue;
+                }
+                if (loopWritesShape == null) {
+                    loopWritesShape = mayWriteShape(loop, shapeLocation);
+                }
+                if (loopWritesShape) {
+                    continue;
+                }
+            }
+            ValueNode key = shapeKey(loop, load);
+            ConstantNode shape = shapeConstant(guard, load);
+            ConstantNode previous = expectedShapes.put(key, shape);
+            if (previous != null && !previous.asJavaConstant().equals(shape.asJavaConstant())) {
+                polymorphic.add(key);
+            }
+            candidates.put(guard, load);
+            candidateKeys.put(guard, key);
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        SpeculationLog.Speculation speculation = null;
+        FixedNode insertionPoint = loop.loopBegin().forwardEnd();
+        EconomicMap<ValueNode, LoadFieldNode> hoistedLoads = EconomicMap.create(Equivalence.IDENTITY);
+        EconomicMap<ValueNode, FixedGuardNode> hoistedGuards = EconomicMap.create(Equivalence.IDENTITY);
+        for (FixedGuardNode guard : candidates.getKeys()) {
+            LoadFieldNode load = candidates.get(guard);
+            ValueNode key = candidateKeys.get(guard);
+            if (polymorphic.contains(key)) {
+                continue;
+            }
+            LoadFieldNode hoistedLoad = hoistedLoads.get(key);
+            if (hoistedLoad == null) {
+                if (key == load) {
+                    hoistedLoad = load;
+                } else {
+                    hoistedLoad = graph.add(LoadFieldNode.create(graph.getAssumptions(), load.object(), shapeField));
+                    graph.addBeforeFixed(insertionPoint, hoistedLoad);
+                }
+                hoistedLoads.put(key, hoistedLoad);
+            }
+            FixedGuardNode hoistedGuard = hoistedGuards.get(key);
+            if (hoistedGuard == null) {
+                if (speculation == null) {
+                    speculation = speculationLog.speculate(reason);
+                }
+                ObjectEqualsNode condition = graph.unique(new ObjectEqualsNode(hoistedLoad, expectedShapes.get(key)));
+                hoistedGuard = graph.add(new FixedGuardNode(condition, guard.getReason(), guard.getAction(), speculation, false));
+                graph.addBeforeFixed(insertionPoint, hoistedGuard);
+                hoistedGuards.put(key, hoistedGuard);
+                HoistedGuards.increment(debug);
+            } else {
+                MergedGuards.increment(debug);
+            }
+            debug.log(DebugContext.VERBOSE_LEVEL, "Hoisting %s out of %s", guard, loop.loopBegin());
+            guard.replaceAtUsages(hoistedGuard);
+            graph.removeFixed(guard);
+            // The load may already have been replaced when it is shared with an earlier guard.
+            if (load != hoistedLoad && load.isAlive()) {
+                load.replaceAtUsages(hoistedLoad);
+                graph.removeFixed(load);
+            }
+        }
+    }
+
+    /**
+     * Returns the load of the shape field checked by {@code guard} if the guard is a shape check,
+     * i.e., if it deoptimizes unless the shape field is equal to a constant.
+     */
+    private static LoadFieldNode shapeLoad(FixedGuardNode guard, ResolvedJavaField shapeField) {
+        if (guard.isNegated() || !(guard.condition() instanceof ObjectEqualsNode)) {
+            return null;
+        }
+        ObjectEqualsNode equals = (ObjectEqualsNode) guard.condition();
+        ValueNode load;
+        if (equals.getY().isJavaConstant()) {
+            load = equals.getX();
+        } else if (equals.getX().isJavaConstant()) {
+            load = equals.getY();
+        } else {
+            return null;
+        }
+        if (load instanceof LoadFieldNode && ((LoadFieldNode) load).field().equals(shapeField) && !((LoadFieldNode) load).isVolatile()) {
+            return (LoadFieldNode) load;
+        }
+        return null;
+    }
+
+    /**
+     * Shape checks on a load in front of the loop are grouped by that load, shape checks on loads
+     * in the loop by the loaded object.
+     */
+    private static ValueNode shapeKey(LoopEx loop, LoadFieldNode load) {
+        return loop.isOutsideLoop(load) ? load : load.object();
+    }
+
+    private static ConstantNode shapeConstant(FixedGuardNode guard, LoadFieldNode load) {
+        ObjectEqualsNode equals = (ObjectEqualsNode) guard.condition();
+        return (ConstantNode) (equals.getX() == load ? equals.getY() : equals.getX());
+    }
+
+    /**
+     * Determines if any node in {@code loop} may write the shape field. Calls are covered since
+     * they kill {@link LocationIdentity#any()}.
+     */
+    private static boolean mayWriteShape(LoopEx loop, LocationIdentity shapeLocation) {
+        for (Node node : loop.whole().nodes()) {
+            if (node instanceof SingleMemoryKill) {
+                if (((SingleMemoryKill) node).getKilledLocationIdentity().overlaps(shapeLocation)) {
+                    return true;
+                }
+            } else if (node instanceof MultiMemoryKill) {
+                for (LocationIdentity killed : ((MultiMemoryKill) node).getKilledLocationIdentities()) {
+                    if (killed.overlaps(shapeLocation)) {
+                        return true;
+                    }
+                }
+            } else if (node instanceof MemoryKill) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static BytecodePosition toBytecodePosition(FrameState state) {
+        FrameState outer = state.outerFrameState();
+        return new BytecodePosition(outer == null ? null : toBytecodePosition(outer), state.getMethod(), state.bci);
+    }
+}
@@ -60,6 +60,8 @@ public class KnownTruffleTypes extends AbstractKnownTruffleTypes {
 
     public final ResolvedJavaField fieldOptimizedAssumptionIsValid = findField(lookupType("com.oracle.truffle.api.impl.AbstractAssumption"), "isValid");
 
+    public final ResolvedJavaField fieldDynamicObjectShape = findField(lookupType("com.oracle.truffle.api.object.DynamicObject"), "shape");
+
     public final ResolvedJavaField fieldStringValue = findField(lookupType(String.class), "value");
 
     public KnownTruffleTypes(MetaAccessProvider metaAccess) {
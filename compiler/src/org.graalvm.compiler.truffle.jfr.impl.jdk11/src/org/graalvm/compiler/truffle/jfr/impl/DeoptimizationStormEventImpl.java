@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.jfr.impl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import jdk.jfr.Unsigned;
+import org.graalvm.compiler.truffle.jfr.DeoptimizationStormEvent;
+
+@Name("org.graalvm.compiler.truffle.DeoptimizationStorm")
+@Category("Truffle Compiler")
+@Label("Deoptimization Storm")
+@Description("Truffle Call Target Repeatedly Deoptimized And Recompiled")
+@StackTrace(false)
+class DeoptimizationStormEventImpl extends RootFunctionEventImpl implements DeoptimizationStormEvent {
+
+    @Label("Recompilations") @Description("Recompilations Within The Detection Window") @Unsigned public int recompilations;
+
+    @Label("Reason") @Description("Most Frequent Reason For Losing Compiled Code") public String reason;
+
+    @Label("Backoff") @Description("Delay Before The Next Recompilation") @Timespan(Timespan.MILLISECONDS) public long backoff;
+
+    @Label("Pinned To First Tier") @Description("Whether The Call Target Is No Longer Compiled In The Last Tier") public boolean pinnedToFirstTier;
+
+    @Override
+    public void setRecompilations(int count) {
+        this.recompilations = count;
+    }
+
+    @Override
+    public void setReason(CharSequence stormReason) {
+        this.reason = stormReason == null ? null : stormReason.toString();
+    }
+
+    @Override
+    public void setBackoff(long backoffMillis) {
+        this.backoff = backoffMillis;
+    }
+
+    @Override
+    public void setPinnedToFirstTier(boolean pinned) {
+        this.pinnedToFirstTier = pinned;
+    }
+}
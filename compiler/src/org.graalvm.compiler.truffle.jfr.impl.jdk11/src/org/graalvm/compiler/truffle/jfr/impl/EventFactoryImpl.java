@@ -38,6 +38,7 @@ import org.graalvm.compiler.truffle.jfr.EventFactory;
 import org.graalvm.compiler.truffle.jfr.CompilationEvent;
 import org.graalvm.compiler.truffle.jfr.CompilationStatisticsEvent;
 import org.graalvm.compiler.truffle.jfr.DeoptimizationEvent;
+import org.graalvm.compiler.truffle.jfr.DeoptimizationStormEvent;
 import org.graalvm.compiler.truffle.jfr.InvalidationEvent;
 
 final class EventFactoryImpl implements EventFactory {
@@ -47,6 +48,7 @@ final class EventFactoryImpl implements EventFactory {
         register(CompilationEventImpl.class);
         register(DeoptimizationEventImpl.class);
         register(InvalidationEventImpl.class);
+        register(DeoptimizationStormEventImpl.class);
         register(CompilationStatisticsEventImpl.class);
     }
 
@@ -99,6 +101,11 @@ final class EventFactoryImpl implements EventFactory {
         return new InvalidationEventImpl();
     }
 
+    @Override
+    public DeoptimizationStormEvent createDeoptimizationStormEvent() {
+        return new DeoptimizationStormEventImpl();
+    }
+
     @Override
     public CompilationStatisticsEvent createCompilationStatisticsEvent() {
         return new CompilationStatisticsEventImpl();
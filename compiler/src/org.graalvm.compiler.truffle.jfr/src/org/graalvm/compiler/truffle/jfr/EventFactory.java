@@ -42,6 +42,8 @@ public interface EventFactory {
 
     InvalidationEvent createInvalidationEvent();
 
+    DeoptimizationStormEvent createDeoptimizationStormEvent();
+
     CompilationStatisticsEvent createCompilationStatisticsEvent();
 
     void addPeriodicEvent(Class<? extends Event> event, Runnable producer);
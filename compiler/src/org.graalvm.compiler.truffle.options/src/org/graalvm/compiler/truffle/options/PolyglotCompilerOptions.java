@@ -299,6 +299,33 @@ public final class PolyglotCompilerOptions {
     @Option(help = "Whether to emit look-back-edge counters in the first-tier compilations.", category = OptionCategory.EXPERT)
     public static final OptionKey<Boolean> FirstTierBackedgeCounts = new OptionKey<>(true);
 
+    @Option(help = "Promote first-tier compiled call targets that spend most of their time in loops to the last tier earlier.", category = OptionCategory.EXPERT)
+    public static final OptionKey<Boolean> FirstTierAdaptivePromotion = new OptionKey<>(true);
+
+    // Persistent compilation cache
+
+    @Option(help = "Path of a file recording which call targets reached last tier compilation. " +
+            "Targets found in the file when the engine is created are compiled directly in the last tier once they reach the first tier thresholds. " +
+            "The file is updated when the engine is closed. The cache is discarded if the runtime, the VM version or the compiler options change.",
+            category = OptionCategory.EXPERT)
+    public static final OptionKey<String> CompilationCacheFile = new OptionKey<>(null, OptionType.defaultType(String.class));
+
+    // Deoptimization storm detection
+
+    @Option(help = "Number of recompilations of a call target after losing its compiled code within DeoptimizationStormWindow that are treated as a deoptimization storm. " +
+            "Recompilation of a call target in a storm is delayed. Set to 0 to disable the detection.",
+            category = OptionCategory.EXPERT)
+    public static final OptionKey<Integer> DeoptimizationStormThreshold = new OptionKey<>(10);
+
+    @Option(help = "Time window in milliseconds in which recompilations of a call target are counted to detect a deoptimization storm.", category = OptionCategory.EXPERT)
+    public static final OptionKey<Long> DeoptimizationStormWindow = new OptionKey<>(10000L);
+
+    @Option(help = "Delay in milliseconds before a call target is compiled again after a deoptimization storm. The delay doubles with every further storm of the call target.", category = OptionCategory.EXPERT)
+    public static final OptionKey<Long> DeoptimizationStormBackoff = new OptionKey<>(100L);
+
+    @Option(help = "Number of deoptimization storms after which a call target is no longer compiled in the last tier. Set to 0 to never pin call targets to the first tier.", category = OptionCategory.EXPERT)
+    public static final OptionKey<Integer> DeoptimizationStormFirstTierPinning = new OptionKey<>(3);
+
     // Failed compilation behavior
 
     @Option(help = "Prints the exception stack trace for compilation exceptions", category = OptionCategory.INTERNAL, deprecated = true, deprecationMessage = "Use 'engine.CompilationFailureAction=Print'")
@@ -413,6 +440,15 @@ public final class PolyglotCompilerOptions {
     @Option(help = "Should forced splits be allowed.", category = OptionCategory.INTERNAL)
     public static final OptionKey<Boolean> SplittingAllowForcedSplits = new OptionKey<>(true);
 
+    @Option(help = "Decide splits using the argument types observed at each call site and the estimated benefit of the split instead of the callee size limit.", category = OptionCategory.INTERNAL)
+    public static final OptionKey<Boolean> SplittingProfileDriven = new OptionKey<>(false);
+
+    @Option(help = "Minimum estimated benefit of a profile-driven split. The benefit is the relative reduction of argument polymorphism scaled by SplittingMaxCalleeSize over the callee size.", category = OptionCategory.INTERNAL)
+    public static final OptionKey<Double> SplittingProfileMinBenefit = new OptionKey<>(0.5);
+
+    @Option(help = "Maximum number of nodes created by profile-driven splitting per engine.", category = OptionCategory.INTERNAL)
+    public static final OptionKey<Integer> SplittingProfileBudget = new OptionKey<>(20000);
+
     // OSR
 
     @Option(help = "Enable automatic on-stack-replacement of loops.", category = OptionCategory.EXPERT)
@@ -448,6 +484,9 @@ public final class PolyglotCompilerOptions {
     @Option(help = "Run the partial escape analysis iteratively in Truffle compilation.", category = OptionCategory.INTERNAL)
     public static final OptionKey<Boolean> IterativePartialEscape = new OptionKey<>(false);
 
+    @Option(help = "Hoist loop invariant DynamicObject shape checks out of loops in Truffle compilation.", category = OptionCategory.INTERNAL)
+    public static final OptionKey<Boolean> ShapeGuardHoisting = new OptionKey<>(true);
+
     @Option(help = "Method filter for host methods in which to add instrumentation.", category = OptionCategory.INTERNAL)
     public static final OptionKey<String> InstrumentFilter = new OptionKey<>("*.*.*");
 
@@ -498,6 +537,10 @@ public final class PolyglotCompilerOptions {
     @Option(help = "Use a configurable compilation queue.", category = OptionCategory.INTERNAL)
     public static final OptionKey<Boolean> ConfigurableCompilationQueue = new OptionKey<>(false);
 
+    @Option(help = "Keep a separate compilation queue per engine and serve the engines fairly, weighted by the call and loop counts of their queued call targets. " +
+            "Prevents a busy engine from starving the compilations of other engines sharing the compiler threads.", category = OptionCategory.EXPERT)
+    public static final OptionKey<Boolean> EngineFairCompilationQueue = new OptionKey<>(false);
+
     // Language agnostic inlining
 
     @Option(help = "Print detailed information for inlining (i.e. the entire explored call tree).", category = OptionCategory.INTERNAL)
@@ -44,6 +44,7 @@ import java.util.function.Consumer;
 import org.graalvm.compiler.truffle.options.PolyglotCompilerOptions;
 import org.graalvm.compiler.truffle.runtime.collection.BTreeQueue;
 import org.graalvm.compiler.truffle.runtime.collection.DelegatingBlockingQueue;
+import org.graalvm.compiler.truffle.runtime.collection.FairPartitionedQueue;
 
 /**
  * The compilation queue accepts compilation requests, and schedules compilations.
@@ -54,6 +55,11 @@ import org.graalvm.compiler.truffle.runtime.collection.DelegatingBlockingQueue;
  * (first-in-first-out).
  *
  * Note that all the compilation requests are second tier when the multi-tier option is turned off.
+ *
+ * If the {@link PolyglotCompilerOptions#EngineFairCompilationQueue EngineFairCompilationQueue}
+ * option is enabled, the requests of each engine are kept in a separate queue and the compiler
+ * threads serve the engines fairly, see {@link FairPartitionedQueue}. The tier policy above still
+ * applies across engines, and any idle compiler thread takes the next request of any engine.
  */
 public class BackgroundCompileQueue {
 
@@ -131,7 +137,12 @@ public class BackgroundCompileQueue {
             long compilerIdleDelay = runtime.getCompilerIdleDelay(callTarget);
             long keepAliveTime = compilerIdleDelay >= 0 ? compilerIdleDelay : 0;
 
-            if (callTarget.getOptionValue(PolyglotCompilerOptions.ConfigurableCompilationQueue)) {
+            if (callTarget.getOptionValue(PolyglotCompilerOptions.EngineFairCompilationQueue)) {
+                this.compilationQueue = new DelegatingBlockingQueue<>(new FairPartitionedQueue<>(
+                                BackgroundCompileQueue::engineOf,
+                                BackgroundCompileQueue::weightOf,
+                                BackgroundCompileQueue::compareTier));
+            } else if (callTarget.getOptionValue(PolyglotCompilerOptions.ConfigurableCompilationQueue)) {
                 this.compilationQueue = new DelegatingBlockingQueue<>(new BTreeQueue<>());
             } else {
                 this.compilationQueue = new IdlingPriorityBlockingQueue<>();
@@ -157,6 +168,22 @@ public class BackgroundCompileQueue {
         }
     }
 
+    private static CompilationTask taskOf(Runnable runnable) {
+        return ((CompilationTask.ExecutorServiceWrapper) runnable).compileTask;
+    }
+
+    private static Object engineOf(Runnable runnable) {
+        return taskOf(runnable).getEngine();
+    }
+
+    private static long weightOf(Runnable runnable) {
+        return taskOf(runnable).getPriority().value;
+    }
+
+    private static int compareTier(Runnable a, Runnable b) {
+        return taskOf(a).getPriority().tier.compareTo(taskOf(b).getPriority().tier);
+    }
+
     @SuppressWarnings("unused")
     protected ThreadFactory newThreadFactory(String threadNamePrefix, OptimizedCallTarget callTarget) {
         return new TruffleCompilerThreadFactory(threadNamePrefix, runtime);
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.runtime;
+
+import com.oracle.truffle.api.object.DynamicObject;
+
+/**
+ * Distribution of the argument types observed in the interpreter, either at a single direct call
+ * site or for all call sites of a call target. Used by profile-driven splitting to estimate how
+ * much a split would reduce the polymorphism seen by the split target.
+ *
+ * The type of a {@link DynamicObject} argument is its shape, the type of any other argument is its
+ * class. At most {@link #MAX_TYPES} types are recorded per argument, any further type makes the
+ * argument megamorphic. Updates are not synchronized, a lost update only makes the profile less
+ * precise.
+ */
+final class CallSiteTypeProfile {
+
+    static final int MAX_ARGUMENTS = 4;
+    static final int MAX_TYPES = 4;
+    static final int MEGAMORPHIC = MAX_TYPES + 1;
+
+    private final Object[][] types = new Object[MAX_ARGUMENTS][];
+    private final int[][] counts = new int[MAX_ARGUMENTS][];
+    private final boolean[] megamorphic = new boolean[MAX_ARGUMENTS];
+    private int arguments;
+    private int samples;
+
+    void record(Object[] args) {
+        int length = Math.min(args.length, MAX_ARGUMENTS);
+        for (int i = 0; i < length; i++) {
+            recordType(i, typeOf(args[i]));
+        }
+        arguments = Math.max(arguments, length);
+        if (samples < Integer.MAX_VALUE) {
+            samples++;
+        }
+    }
+
+    private static Object typeOf(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof DynamicObject) {
+            return ((DynamicObject) value).getShape();
+        }
+        return value.getClass();
+    }
+
+    private void recordType(int argument, Object type) {
+        if (megamorphic[argument]) {
+            return;
+        }
+        Object[] argumentTypes = types[argument];
+        int[] argumentCounts = counts[argument];
+        if (argumentTypes == null) {
+            argumentTypes = new Object[MAX_TYPES];
+            argumentCounts = new int[MAX_TYPES];
+            types[argument] = argumentTypes;
+            counts[argument] = argumentCounts;
+        }
+        for (int i = 0; i < MAX_TYPES; i++) {
+            if (argumentCounts[i] == 0) {
+                argumentTypes[i] = type;
+                argumentCounts[i] = 1;
+                return;
+            } else if (argumentTypes[i] == type) {
+                if (argumentCounts[i] < Integer.MAX_VALUE) {
+                    argumentCounts[i]++;
+                }
+                return;
+            }
+        }
+        megamorphic[argument] = true;
+        types[argument] = null;
+        counts[argument] = null;
+    }
+
+    /**
+     * Returns the number of distinct types observed for an argument, or {@link #MEGAMORPHIC} if
+     * more than {@link #MAX_TYPES} types were observed.
+     */
+    int typeCount(int argument) {
+        if (megamorphic[argument]) {
+            return MEGAMORPHIC;
+        }
+        int[] argumentCounts = counts[argument];
+        int count = 0;
+        if (argumentCounts != null) {
+            while (count < MAX_TYPES && argumentCounts[count] != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    int getSamples() {
+        return samples;
+    }
+
+    /**
+     * Estimates how much less polymorphic the arguments of a call target become if it only sees
+     * the arguments of this call site instead of the arguments of all call sites described by
+     * {@code targetProfile}. For every argument the relative reduction of the number of observed
+     * types is summed up, a monomorphic call site of a megamorphic target contributes
+     * {@code 0.8}.
+     */
+    double polymorphismReduction(CallSiteTypeProfile targetProfile) {
+        double reduction = 0;
+        for (int i = 0; i < MAX_ARGUMENTS; i++) {
+            int siteTypes = typeCount(i);
+            int targetTypes = targetProfile.typeCount(i);
+            if (siteTypes > 0 && targetTypes > siteTypes) {
+                reduction += (double) (targetTypes - siteTypes) / targetTypes;
+            }
+        }
+        return reduction;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < arguments; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append("arg").append(i).append('=');
+            if (megamorphic[i]) {
+                sb.append("megamorphic");
+                continue;
+            }
+            sb.append('{');
+            Object[] argumentTypes = types[i];
+            int[] argumentCounts = counts[i];
+            for (int j = 0; argumentCounts != null && j < MAX_TYPES && argumentCounts[j] != 0; j++) {
+                if (j > 0) {
+                    sb.append(", ");
+                }
+                sb.append(typeName(argumentTypes[j])).append(':').append(argumentCounts[j]);
+            }
+            sb.append('}');
+        }
+        return sb.toString();
+    }
+
+    private static String typeName(Object type) {
+        if (type == null) {
+            return "null";
+        } else if (type instanceof Class<?>) {
+            return ((Class<?>) type).getSimpleName();
+        } else {
+            return "Shape@" + Integer.toHexString(System.identityHashCode(type));
+        }
+    }
+}
@@ -130,6 +130,19 @@ public final class CompilationTask implements TruffleCompilationTask, Callable<V
         return priority.tier == BackgroundCompileQueue.Priority.Tier.LAST;
     }
 
+    BackgroundCompileQueue.Priority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Returns the engine of the call target to compile, or {@code null} if the call target was
+     * already collected.
+     */
+    EngineData getEngine() {
+        OptimizedCallTarget target = targetRef.get();
+        return target == null ? null : target.engine;
+    }
+
     public Future<?> getFuture() {
         return future;
     }
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.runtime;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.graalvm.compiler.truffle.options.PolyglotCompilerOptions;
+
+/**
+ * Detects a call target that is repeatedly compiled, deoptimized and recompiled.
+ * <p>
+ * A recompilation is counted when a call target that was submitted for compilation before is
+ * submitted again without having valid compiled code, i.e., after its code was invalidated or
+ * deoptimized. If {@link PolyglotCompilerOptions#DeoptimizationStormThreshold} recompilations
+ * happen within {@link PolyglotCompilerOptions#DeoptimizationStormWindow} milliseconds, the call
+ * target is in a deoptimization storm. Automatic compilation of the call target is then delayed by
+ * {@link PolyglotCompilerOptions#DeoptimizationStormBackoff} milliseconds, doubled for every
+ * further storm. After {@link PolyglotCompilerOptions#DeoptimizationStormFirstTierPinning} storms
+ * a multi-tier call target is no longer compiled in the last tier.
+ */
+final class DeoptimizationStormDetector {
+
+    /**
+     * Reason recorded for a recompilation if the compiled code was lost without an invalidation,
+     * e.g., by a deoptimization that invalidated the code.
+     */
+    static final String DEOPTIMIZED = "deoptimized";
+
+    private static final int MAX_BACKOFF_DOUBLINGS = 10;
+    private static final int MAX_TRACKED_REASONS = 8;
+
+    /**
+     * Describes a detected deoptimization storm.
+     */
+    static final class Storm {
+        final int recompilations;
+        final String reason;
+        final long backoffMillis;
+        final boolean pinnedToFirstTier;
+
+        Storm(int recompilations, String reason, long backoffMillis, boolean pinnedToFirstTier) {
+            this.recompilations = recompilations;
+            this.reason = reason;
+            this.backoffMillis = backoffMillis;
+            this.pinnedToFirstTier = pinnedToFirstTier;
+        }
+    }
+
+    private final EngineData engine;
+
+    // Guarded by this.
+    private long windowStart;
+    private int recompilations;
+    private int storms;
+    private String lastInvalidationReason;
+    private final Map<String, Integer> reasons = new HashMap<>();
+
+    private volatile boolean backoff;
+    private volatile long backoffEnd;
+    private volatile boolean pinnedToFirstTier;
+
+    DeoptimizationStormDetector(EngineData engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Records the reason for the invalidation of the compiled code of the call target.
+     */
+    synchronized void onInvalidated(CharSequence reason) {
+        lastInvalidationReason = reason.toString();
+    }
+
+    /**
+     * Records a recompilation of the call target after its compiled code was lost.
+     *
+     * @return the detected storm or {@code null} if the recompilation does not complete a storm
+     */
+    synchronized Storm onRecompilation() {
+        long now = System.nanoTime();
+        if (recompilations == 0 || now - windowStart > TimeUnit.MILLISECONDS.toNanos(engine.deoptimizationStormWindow)) {
+            windowStart = now;
+            recompilations = 0;
+            reasons.clear();
+        }
+        recompilations++;
+        String reason = lastInvalidationReason != null ? lastInvalidationReason : DEOPTIMIZED;
+        lastInvalidationReason = null;
+        if (reasons.size() < MAX_TRACKED_REASONS || reasons.containsKey(reason)) {
+            reasons.merge(reason, 1, Integer::sum);
+        }
+        if (recompilations < engine.deoptimizationStormThreshold) {
+            return null;
+        }
+
+        storms++;
+        long backoffMillis = engine.deoptimizationStormBackoff << Math.min(storms - 1, MAX_BACKOFF_DOUBLINGS);
+        backoffEnd = now + TimeUnit.MILLISECONDS.toNanos(backoffMillis);
+        backoff = true;
+        if (engine.multiTier && engine.deoptimizationStormFirstTierPinning > 0 && storms >= engine.deoptimizationStormFirstTierPinning) {
+            pinnedToFirstTier = true;
+        }
+        Storm storm = new Storm(recompilations, mostFrequentReason(), backoffMillis, pinnedToFirstTier);
+        recompilations = 0;
+        reasons.clear();
+        return storm;
+    }
+
+    private String mostFrequentReason() {
+        String result = null;
+        int max = 0;
+        for (Map.Entry<String, Integer> entry : reasons.entrySet()) {
+            if (entry.getValue() > max) {
+                result = entry.getKey();
+                max = entry.getValue();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Determines if an automatic compilation of the call target in the given tier must be delayed
+     * because of a deoptimization storm.
+     */
+    boolean delaysCompilation(boolean lastTier) {
+        if (lastTier && pinnedToFirstTier) {
+            return true;
+        }
+        return backoff && System.nanoTime() - backoffEnd < 0;
+    }
+
+    boolean isPinnedToFirstTier() {
+        return pinnedToFirstTier;
+    }
+}
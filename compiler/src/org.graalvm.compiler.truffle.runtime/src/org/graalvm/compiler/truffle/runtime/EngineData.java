@@ -37,6 +37,11 @@ import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.Compi
 import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.CompileImmediately;
 import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.CompileOnly;
 import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.CompileAOTOnCreate;
+import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.DeoptimizationStormBackoff;
+import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.DeoptimizationStormFirstTierPinning;
+import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.DeoptimizationStormThreshold;
+import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.DeoptimizationStormWindow;
+import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.FirstTierAdaptivePromotion;
 import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.FirstTierCompilationThreshold;
 import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.FirstTierMinInvokeThreshold;
 import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.Inlining;
@@ -52,6 +57,9 @@ import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.Split
 import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.SplittingGrowthLimit;
 import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.SplittingMaxCalleeSize;
 import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.SplittingMaxPropagationDepth;
+import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.SplittingProfileBudget;
+import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.SplittingProfileDriven;
+import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.SplittingProfileMinBenefit;
 import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.SplittingTraceEvents;
 import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.TraceCompilation;
 import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.TraceCompilationDetails;
@@ -90,13 +98,21 @@ public final class EngineData {
 
     private static final AtomicLong engineCounter = new AtomicLong();
 
+    /**
+     * Loop dominated call targets are promoted to the last tier once their call and loop count
+     * reaches this fraction of the last tier compilation threshold.
+     */
+    private static final int LOOP_DOMINATED_PROMOTION_DIVISOR = 4;
+
     int splitLimit;
     int splitCount;
+    int profiledSplitNodeCount;
     public final long id;
     private Function<String, TruffleLogger> loggerFactory;
     @CompilationFinal OptionValues engineOptions;
     final TruffleSplittingStrategy.SplitStatisticsData splittingStatistics;
     @CompilationFinal public StatisticsListener statisticsListener;
+    @CompilationFinal PersistentCompilationCache compilationCache;
 
     /*
      * Important while visible, options must not be modified except in loadOptions.
@@ -111,6 +127,9 @@ public final class EngineData {
     @CompilationFinal public int splittingMaxCalleeSize;
     @CompilationFinal public int splittingMaxPropagationDepth;
     @CompilationFinal public double splittingGrowthLimit;
+    @CompilationFinal public boolean splittingProfileDriven;
+    @CompilationFinal public double splittingProfileMinBenefit;
+    @CompilationFinal public int splittingProfileBudget;
 
     // inlining options
     @CompilationFinal public boolean inlining;
@@ -132,11 +151,18 @@ public final class EngineData {
     @CompilationFinal public boolean traceTransferToInterpreter;
     @CompilationFinal public boolean compileAOTOnCreate;
 
+    // deoptimization storm detection
+    @CompilationFinal public int deoptimizationStormThreshold;
+    @CompilationFinal public long deoptimizationStormWindow;
+    @CompilationFinal public long deoptimizationStormBackoff;
+    @CompilationFinal public int deoptimizationStormFirstTierPinning;
+
     // computed fields.
     @CompilationFinal public int callThresholdInInterpreter;
     @CompilationFinal public int callAndLoopThresholdInInterpreter;
     @CompilationFinal public int callThresholdInFirstTier;
     @CompilationFinal public int callAndLoopThresholdInFirstTier;
+    @CompilationFinal public int loopDominatedCallAndLoopThresholdInFirstTier;
 
     // Cached parsed CompileOnly includes and excludes
     private volatile Pair<List<String>, List<String>> parsedCompileOnly;
@@ -242,6 +268,9 @@ public final class EngineData {
         this.traceSplittingSummary = options.get(TraceSplittingSummary);
         this.traceSplits = options.get(TraceSplitting);
         this.splittingGrowthLimit = options.get(SplittingGrowthLimit);
+        this.splittingProfileDriven = this.splitting && options.get(SplittingProfileDriven);
+        this.splittingProfileMinBenefit = options.get(SplittingProfileMinBenefit);
+        this.splittingProfileBudget = options.get(SplittingProfileBudget);
 
         // inlining options
         this.inlining = options.get(Inlining) && options.get(Mode) != EngineModeEnum.LATENCY;
@@ -262,9 +291,16 @@ public final class EngineData {
         this.callAndLoopThresholdInInterpreter = computeCallAndLoopThresholdInInterpreter(options);
         this.callThresholdInFirstTier = computeCallThresholdInFirstTier(options);
         this.callAndLoopThresholdInFirstTier = computeCallAndLoopThresholdInFirstTier(options);
+        this.loopDominatedCallAndLoopThresholdInFirstTier = computeLoopDominatedCallAndLoopThresholdInFirstTier(options);
         this.callTargetStatisticDetails = options.get(CompilationStatisticDetails);
         this.callTargetStatistics = options.get(CompilationStatistics) || this.callTargetStatisticDetails;
         this.statisticsListener = this.callTargetStatistics ? StatisticsListener.createEngineListener(GraalTruffleRuntime.getRuntime()) : null;
+        this.compilationCache = PersistentCompilationCache.create(this, options);
+        // compiling immediately is used to force compilations, never delay them
+        this.deoptimizationStormThreshold = compileImmediately ? 0 : options.get(DeoptimizationStormThreshold);
+        this.deoptimizationStormWindow = options.get(DeoptimizationStormWindow);
+        this.deoptimizationStormBackoff = options.get(DeoptimizationStormBackoff);
+        this.deoptimizationStormFirstTierPinning = options.get(DeoptimizationStormFirstTierPinning);
         this.profilingEnabled = options.get(Profiling);
         this.traceTransferToInterpreter = options.get(TraceTransferToInterpreter);
         this.compilationFailureAction = computeCompilationFailureAction(options);
@@ -336,6 +372,14 @@ public final class EngineData {
         return result;
     }
 
+    /**
+     * Returns the persistent compilation cache of this engine, or {@code null} if the
+     * {@link PolyglotCompilerOptions#CompilationCacheFile CompilationCacheFile} option is not set.
+     */
+    public PersistentCompilationCache getCompilationCache() {
+        return compilationCache;
+    }
+
     public OptionValues getEngineOptions() {
         return engineOptions;
     }
@@ -407,6 +451,13 @@ public final class EngineData {
         return options.get(CompilationThreshold);
     }
 
+    private int computeLoopDominatedCallAndLoopThresholdInFirstTier(OptionValues options) {
+        if (!options.get(FirstTierAdaptivePromotion)) {
+            return callAndLoopThresholdInFirstTier;
+        }
+        return callAndLoopThresholdInFirstTier / LOOP_DOMINATED_PROMOTION_DIVISOR;
+    }
+
     public TruffleLogger getEngineLogger() {
         return getLogger("engine");
     }
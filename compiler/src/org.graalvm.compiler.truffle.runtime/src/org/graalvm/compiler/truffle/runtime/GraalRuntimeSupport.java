@@ -108,7 +108,7 @@ final class GraalRuntimeSupport extends RuntimeSupport {
         if (callTarget == null) {
             return;
         }
-        TruffleSplittingStrategy.newPolymorphicSpecialize(source, callTarget.engine);
+        TruffleSplittingStrategy.newPolymorphicSpecialize(source, callTarget);
         callTarget.polymorphicSpecialize(source);
     }
 
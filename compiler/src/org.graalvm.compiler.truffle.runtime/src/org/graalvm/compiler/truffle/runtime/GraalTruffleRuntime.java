@@ -429,6 +429,7 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime, TruffleComp
         TraceASTCompilationListener.install(this);
         JFRListener.install(this);
         TruffleSplittingStrategy.installListener(this);
+        PersistentCompilationCache.installListener(this);
         Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown));
     }
 
@@ -72,6 +72,29 @@ public interface GraalTruffleRuntimeListener {
     default void onCompilationSplitFailed(OptimizedDirectCallNode callNode, CharSequence reason) {
     }
 
+    /**
+     * Notifies this object when profile-driven splitting estimated the benefit of splitting the
+     * target of a Truffle call node. The estimate is followed by either
+     * {@link #onCompilationSplit(OptimizedDirectCallNode)} or
+     * {@link #onCompilationSplitFailed(OptimizedDirectCallNode, CharSequence)}.
+     *
+     * @param callNode the call node whose target may be split
+     * @param estimatedBenefit the estimated benefit of the split
+     * @param typeProfile the argument types observed at the call site
+     */
+    default void onCompilationSplitEstimated(OptimizedDirectCallNode callNode, double estimatedBenefit, CharSequence typeProfile) {
+    }
+
+    /**
+     * Notifies this object when a call target created by profile-driven splitting reports a
+     * polymorphic specialization, meaning the split did not keep the target monomorphic.
+     *
+     * @param splitTarget the call target created by the split
+     * @param estimatedBenefit the benefit estimated when the split was decided
+     */
+    default void onCompilationSplitPolymorphic(OptimizedCallTarget splitTarget, double estimatedBenefit) {
+    }
+
     /**
      * @deprecated Use {@link #onCompilationQueued(OptimizedCallTarget, int)}
      */
@@ -218,6 +241,33 @@ public interface GraalTruffleRuntimeListener {
     default void onCompilationDeoptimized(OptimizedCallTarget target, Frame frame) {
     }
 
+    /**
+     * Notifies this object when {@code target} was repeatedly recompiled after losing its compiled
+     * code, i.e., when it is in a deoptimization storm.
+     *
+     * @param target the call target that is about to be recompiled again
+     * @param recompilations the number of recompilations within the detection window
+     * @param reason the most frequent reason why the compiled code was lost
+     * @param backoffMillis the time in milliseconds for which further automatic compilations of
+     *            {@code target} are delayed
+     * @param pinnedToFirstTier {@code true} if {@code target} is no longer compiled in the last
+     *            tier
+     */
+    default void onCompilationDeoptimizationStorm(OptimizedCallTarget target, int recompilations, CharSequence reason, long backoffMillis, boolean pinnedToFirstTier) {
+    }
+
+    /**
+     * Notifies this object when {@code target} was looked up in the
+     * {@linkplain PersistentCompilationCache persistent compilation cache} of its engine before
+     * being submitted for compilation.
+     *
+     * @param target the call target about to be submitted for compilation
+     * @param hit {@code true} if the target reached the last tier in a previous run and is
+     *            therefore submitted directly for a last tier compilation
+     */
+    default void onCompilationCacheLookup(OptimizedCallTarget target, boolean hit) {
+    }
+
     /**
      * Notifies this object the {@link GraalTruffleRuntime} is being shut down.
      */
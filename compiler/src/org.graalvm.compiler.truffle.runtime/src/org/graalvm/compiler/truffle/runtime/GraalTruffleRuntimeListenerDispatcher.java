@@ -58,6 +58,16 @@ final class GraalTruffleRuntimeListenerDispatcher extends CopyOnWriteArrayList<G
         invokeListeners((l) -> l.onCompilationSplitFailed(callNode, reason));
     }
 
+    @Override
+    public void onCompilationSplitEstimated(OptimizedDirectCallNode callNode, double estimatedBenefit, CharSequence typeProfile) {
+        invokeListeners((l) -> l.onCompilationSplitEstimated(callNode, estimatedBenefit, typeProfile));
+    }
+
+    @Override
+    public void onCompilationSplitPolymorphic(OptimizedCallTarget splitTarget, double estimatedBenefit) {
+        invokeListeners((l) -> l.onCompilationSplitPolymorphic(splitTarget, estimatedBenefit));
+    }
+
     @Override
     public void onCompilationQueued(OptimizedCallTarget target, int tier) {
         invokeListeners((l) -> l.onCompilationQueued(target, tier));
@@ -103,6 +113,16 @@ final class GraalTruffleRuntimeListenerDispatcher extends CopyOnWriteArrayList<G
         invokeListeners((l) -> l.onCompilationDeoptimized(target, frame));
     }
 
+    @Override
+    public void onCompilationDeoptimizationStorm(OptimizedCallTarget target, int recompilations, CharSequence reason, long backoffMillis, boolean pinnedToFirstTier) {
+        invokeListeners((l) -> l.onCompilationDeoptimizationStorm(target, recompilations, reason, backoffMillis, pinnedToFirstTier));
+    }
+
+    @Override
+    public void onCompilationCacheLookup(OptimizedCallTarget target, boolean hit) {
+        invokeListeners((l) -> l.onCompilationCacheLookup(target, hit));
+    }
+
     @Override
     public void onShutdown() {
         invokeListeners((l) -> l.onShutdown());
@@ -123,6 +123,11 @@ public abstract class OptimizedCallTarget implements CompilableTruffleAST, RootC
     private static final WeakReference<OptimizedDirectCallNode> NO_CALL = new WeakReference<>(null);
     private static final WeakReference<OptimizedDirectCallNode> MULTIPLE_CALLS = null;
     private static final String SPLIT_LOG_FORMAT = "[poly-event] %-70s %s";
+    /**
+     * Minimum average number of loop iterations per call for a call target to be considered loop
+     * dominated when deciding when to promote it from the first tier.
+     */
+    private static final int LOOP_DOMINATED_ITERATIONS_PER_CALL = 16;
     private static final int MAX_PROFILED_ARGUMENTS = 256;
 
     /** The AST to be executed when this call target is called. */
@@ -270,8 +275,23 @@ public abstract class OptimizedCallTarget implements CompilableTruffleAST, RootC
      */
     private volatile CompilationTask compilationTask;
 
+    /**
+     * Created when this call target is first submitted for compilation, if deoptimization storm
+     * detection is enabled.
+     */
+    private volatile DeoptimizationStormDetector deoptimizationStormDetector;
+
     private volatile boolean needsSplit;
 
+    /**
+     * Argument types observed at all direct call sites of this call target in the interpreter. Only
+     * recorded if profile-driven splitting is enabled.
+     */
+    private volatile CallSiteTypeProfile argumentTypeProfile;
+
+    /** Set if this call target was created by a profile-driven split. */
+    volatile TruffleSplittingStrategy.ProfiledSplit profiledSplit;
+
     /**
      * The engine data associated with this call target. Used to cache option lookups and to gather
      * engine specific statistics.
@@ -536,12 +556,26 @@ public abstract class OptimizedCallTarget implements CompilableTruffleAST, RootC
         this.callAndLoopCount = intLoopCallCount == Integer.MAX_VALUE ? intLoopCallCount : ++intLoopCallCount;
 
         // Check if call target is hot enough to compile
-        if (shouldCompileImpl(intCallCount, intLoopCallCount)) {
+        if (shouldCompileImpl(intCallCount, intLoopCallCount) && !isCompilationDelayed(!engine.multiTier)) {
             return compile(!engine.multiTier);
         }
         return false;
     }
 
+    /**
+     * Determines if a compilation triggered by the call counters is delayed because this call
+     * target is in a deoptimization storm. If so, the call counters are reset so that the check is
+     * repeated only once the compilation thresholds are reached again.
+     */
+    private boolean isCompilationDelayed(boolean lastTier) {
+        DeoptimizationStormDetector detector = deoptimizationStormDetector;
+        if (detector != null && detector.delaysCompilation(lastTier)) {
+            resetCompilationProfile();
+            return true;
+        }
+        return false;
+    }
+
     private boolean shouldCompileImpl(int intCallCount, int intLoopCallCount) {
         return intCallCount >= engine.callThresholdInInterpreter //
                         && intLoopCallCount >= engine.callAndLoopThresholdInInterpreter //
@@ -584,7 +618,7 @@ public abstract class OptimizedCallTarget implements CompilableTruffleAST, RootC
         int firstTierLoopCallCount = this.callAndLoopCount;
         this.callAndLoopCount = firstTierLoopCallCount == Integer.MAX_VALUE ? firstTierLoopCallCount : ++firstTierLoopCallCount;
         if (firstTierCallCount >= engine.callThresholdInFirstTier //
-                        && firstTierLoopCallCount >= engine.callAndLoopThresholdInFirstTier //
+                        && firstTierLoopCallCount >= lastTierPromotionThreshold(firstTierCallCount, firstTierLoopCallCount) //
                         && !compilationFailed //
                         && !isSubmittedForCompilation()) {
             return lastTierCompile();
@@ -592,8 +626,24 @@ public abstract class OptimizedCallTarget implements CompilableTruffleAST, RootC
         return false;
     }
 
+    /**
+     * Returns the call and loop count at which a first tier compiled call target is promoted to the
+     * last tier. Call targets that execute on average at least
+     * {@link #LOOP_DOMINATED_ITERATIONS_PER_CALL} loop iterations per call are promoted earlier,
+     * because the economy first tier generates noticeably slower code for loops.
+     */
+    private int lastTierPromotionThreshold(int intCallCount, int intLoopCallCount) {
+        if ((long) intLoopCallCount - intCallCount >= (long) intCallCount * LOOP_DOMINATED_ITERATIONS_PER_CALL) {
+            return engine.loopDominatedCallAndLoopThresholdInFirstTier;
+        }
+        return engine.callAndLoopThresholdInFirstTier;
+    }
+
     @TruffleBoundary
     private boolean lastTierCompile() {
+        if (isCompilationDelayed(true)) {
+            return false;
+        }
         return compile(true);
     }
 
@@ -690,6 +740,8 @@ public abstract class OptimizedCallTarget implements CompilableTruffleAST, RootC
             }
 
             CompilationTask task = null;
+            DeoptimizationStormDetector.Storm storm = null;
+            boolean lastTier = lastTierCompilation;
             // Do not try to compile this target concurrently,
             // but do not block other threads if compilation is not asynchronous.
             synchronized (this) {
@@ -703,16 +755,32 @@ public abstract class OptimizedCallTarget implements CompilableTruffleAST, RootC
                         prepareForAOTImpl();
                     }
 
+                    if (engine.deoptimizationStormThreshold > 0) {
+                        if (deoptimizationStormDetector == null) {
+                            deoptimizationStormDetector = new DeoptimizationStormDetector(engine);
+                        } else if (!isValid()) {
+                            storm = deoptimizationStormDetector.onRecompilation();
+                        }
+                    }
+
+                    if (!lastTier && engine.multiTier && engine.compilationCache != null && !isPinnedToFirstTier()) {
+                        // Targets that were hot in a previous run skip the first tier.
+                        lastTier = engine.compilationCache.lookup(this);
+                    }
+
                     try {
                         assert compilationTask == null;
-                        this.compilationTask = task = runtime().submitForCompilation(this, lastTierCompilation);
+                        this.compilationTask = task = runtime().submitForCompilation(this, lastTier);
                     } catch (RejectedExecutionException e) {
                         return false;
                     }
                 }
             }
+            if (storm != null) {
+                runtime().getListener().onCompilationDeoptimizationStorm(this, storm.recompilations, storm.reason, storm.backoffMillis, storm.pinnedToFirstTier);
+            }
             if (task != null) {
-                runtime().getListener().onCompilationQueued(this, lastTierCompilation ? 2 : 1);
+                runtime().getListener().onCompilationQueued(this, lastTier ? 2 : 1);
                 return maybeWaitForTask(task);
             }
         }
@@ -734,6 +802,15 @@ public abstract class OptimizedCallTarget implements CompilableTruffleAST, RootC
         return compilationTask != null;
     }
 
+    /**
+     * Determines if this call target is no longer compiled in the last tier because of repeated
+     * deoptimization storms.
+     */
+    public final boolean isPinnedToFirstTier() {
+        DeoptimizationStormDetector detector = deoptimizationStormDetector;
+        return detector != null && detector.isPinnedToFirstTier();
+    }
+
     public final void waitForCompilation() {
         CompilationTask task = compilationTask;
         if (task != null) {
@@ -873,6 +950,11 @@ public abstract class OptimizedCallTarget implements CompilableTruffleAST, RootC
     public final boolean onInvalidate(Object source, CharSequence reason, boolean wasActive) {
         cachedNonTrivialNodeCount = -1;
         if (wasActive) {
+            DeoptimizationStormDetector detector = deoptimizationStormDetector;
+            if (detector != null && reason != null) {
+                // Code replaced by a higher tier is invalidated without a reason.
+                detector.onInvalidated(reason);
+            }
             GraalTruffleRuntime.getRuntime().getListener().onCompilationInvalidated(this, source, reason);
         }
         return cancelCompilation(reason) || wasActive;
@@ -1492,6 +1574,19 @@ public abstract class OptimizedCallTarget implements CompilableTruffleAST, RootC
         return null;
     }
 
+    final void profileArgumentTypes(Object[] arguments) {
+        CallSiteTypeProfile profile = argumentTypeProfile;
+        if (profile == null) {
+            profile = new CallSiteTypeProfile();
+            argumentTypeProfile = profile;
+        }
+        profile.record(arguments);
+    }
+
+    final CallSiteTypeProfile getArgumentTypeProfile() {
+        return argumentTypeProfile;
+    }
+
     final boolean isNeedsSplit() {
         return needsSplit;
     }
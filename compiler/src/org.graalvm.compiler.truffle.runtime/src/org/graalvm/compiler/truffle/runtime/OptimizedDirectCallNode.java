@@ -49,6 +49,7 @@ public final class OptimizedDirectCallNode extends DirectCallNode implements Tru
     @CompilationFinal private Class<? extends Throwable> exceptionProfile;
     @CompilationFinal private OptimizedCallTarget splitCallTarget;
     private volatile boolean splitDecided;
+    private CallSiteTypeProfile typeProfile;
 
     /*
      * Should be instantiated with the runtime.
@@ -62,7 +63,7 @@ public final class OptimizedDirectCallNode extends DirectCallNode implements Tru
     public Object call(Object... arguments) {
         OptimizedCallTarget target = getCurrentCallTarget();
         if (CompilerDirectives.inInterpreter()) {
-            target = onInterpreterCall(target);
+            target = onInterpreterCall(target, arguments);
         }
         if (GraalCompilerDirectives.inFirstTier()) {
             incrementCallCount();
@@ -154,8 +155,14 @@ public final class OptimizedDirectCallNode extends DirectCallNode implements Tru
      * @return The current call target (ie. getCurrentCallTarget) In case a splitting decision was
      *         made during this interpreter call, the argument target otherwise.
      */
-    private OptimizedCallTarget onInterpreterCall(OptimizedCallTarget target) {
+    private OptimizedCallTarget onInterpreterCall(OptimizedCallTarget target, Object[] arguments) {
         incrementCallCount();
+        if (target.engine.splittingProfileDriven) {
+            if (!splitDecided) {
+                profileArgumentTypes(arguments);
+            }
+            target.profileArgumentTypes(arguments);
+        }
         if (target.isNeedsSplit() && !splitDecided) {
             // We intentionally avoid locking here because worst case is a double decision printed
             // and preventing that is not worth the performance impact of locking
@@ -166,6 +173,23 @@ public final class OptimizedDirectCallNode extends DirectCallNode implements Tru
         return target;
     }
 
+    private void profileArgumentTypes(Object[] arguments) {
+        CallSiteTypeProfile profile = typeProfile;
+        if (profile == null) {
+            profile = new CallSiteTypeProfile();
+            typeProfile = profile;
+        }
+        profile.record(arguments);
+    }
+
+    /**
+     * Returns the argument types observed at this call site until the splitting decision was made,
+     * or {@code null} if profile-driven splitting is disabled.
+     */
+    CallSiteTypeProfile getTypeProfile() {
+        return typeProfile;
+    }
+
     private void incrementCallCount() {
         int calls = this.callCount;
         this.callCount = calls == Integer.MAX_VALUE ? calls : ++calls;
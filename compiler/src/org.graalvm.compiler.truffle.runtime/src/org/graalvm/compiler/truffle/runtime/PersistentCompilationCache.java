@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.runtime;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+import org.graalvm.compiler.truffle.common.TruffleCompilerListener.CompilationResultInfo;
+import org.graalvm.compiler.truffle.common.TruffleCompilerListener.GraphInfo;
+import org.graalvm.compiler.truffle.options.PolyglotCompilerOptions;
+import org.graalvm.options.OptionDescriptor;
+import org.graalvm.options.OptionValues;
+
+import com.oracle.truffle.api.nodes.LanguageInfo;
+import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.api.source.SourceSection;
+
+/**
+ * An on-disk record of the call targets that reached last tier compilation in a previous run of
+ * an engine, enabled by {@link PolyglotCompilerOptions#CompilationCacheFile}.
+ * <p>
+ * Installed code cannot be reloaded into a new process, so what is persisted are the compilation
+ * decisions: a call target whose {@linkplain #keyOf(OptimizedCallTarget) key} is found in the
+ * cache is submitted directly for a last tier compilation once it reaches the first tier
+ * thresholds, instead of spending the warmup in first tier code. A cache entry is only a
+ * scheduling hint, so a stale or colliding key can never affect the correctness of the compiled
+ * code.
+ * <p>
+ * Entries are keyed by the language, a hash of the source content, the root source section and
+ * the root name. The whole cache is discarded if the file was written by a different runtime, a
+ * different VM version or with a different set of compiler options.
+ */
+public final class PersistentCompilationCache {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final String HEADER_PREFIX = "# Truffle compilation cache ";
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final Path file;
+    private final String header;
+    private final Set<String> loadedKeys;
+    private final Set<String> compiledKeys = ConcurrentHashMap.newKeySet();
+
+    private PersistentCompilationCache(Path file, String header, Set<String> loadedKeys) {
+        this.file = file;
+        this.header = header;
+        this.loadedKeys = loadedKeys;
+    }
+
+    /**
+     * Creates the cache configured for an engine, or returns {@code null} if the
+     * {@link PolyglotCompilerOptions#CompilationCacheFile} option is not set.
+     */
+    static PersistentCompilationCache create(EngineData engine, OptionValues options) {
+        String fileName = options.get(PolyglotCompilerOptions.CompilationCacheFile);
+        if (fileName == null || fileName.isEmpty()) {
+            return null;
+        }
+        Path file = Paths.get(fileName);
+        String header = HEADER_PREFIX + FORMAT_VERSION + " " + GraalTruffleRuntime.getRuntime().getName() + " " + System.getProperty("java.vm.version") + " " +
+                        Long.toHexString(optionsHash(options));
+        Set<String> keys = ConcurrentHashMap.newKeySet();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            if (header.equals(line)) {
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isEmpty()) {
+                        keys.add(line);
+                    }
+                }
+            } else if (line != null) {
+                engine.getEngineLogger().log(Level.INFO, String.format("Discarding compilation cache %s created by an incompatible runtime or option set.", file));
+            }
+        } catch (NoSuchFileException e) {
+            // first run, the file is created when the engine is closed
+        } catch (IOException e) {
+            engine.getEngineLogger().log(Level.WARNING, String.format("Failed to read compilation cache %s: %s", file, e.getMessage()));
+            keys.clear();
+        }
+        return new PersistentCompilationCache(file, header, keys);
+    }
+
+    /**
+     * Hashes the explicitly set engine options. Any option that changes the compilation of a
+     * call target also changes the hash, which invalidates the cache.
+     */
+    private static long optionsHash(OptionValues options) {
+        List<String> values = new ArrayList<>();
+        for (OptionDescriptor descriptor : PolyglotCompilerOptions.getDescriptors()) {
+            if (descriptor.getKey() != PolyglotCompilerOptions.CompilationCacheFile && options.hasBeenSet(descriptor.getKey())) {
+                values.add(descriptor.getName() + "=" + options.get(descriptor.getKey()));
+            }
+        }
+        Collections.sort(values);
+        long hash = FNV_OFFSET_BASIS;
+        for (String value : values) {
+            hash = fnv(hash, value);
+        }
+        return hash;
+    }
+
+    /**
+     * Looks up {@code target} in the entries loaded from disk and notifies the runtime listeners
+     * about the outcome.
+     *
+     * @return {@code true} if {@code target} reached the last tier in a previous run
+     */
+    boolean lookup(OptimizedCallTarget target) {
+        String key = keyOf(target);
+        if (key == null) {
+            return false;
+        }
+        boolean hit = loadedKeys.contains(key);
+        GraalTruffleRuntime.getRuntime().getListener().onCompilationCacheLookup(target, hit);
+        return hit;
+    }
+
+    void recordCompiled(OptimizedCallTarget target) {
+        String key = keyOf(target);
+        if (key != null) {
+            compiledKeys.add(key);
+        }
+    }
+
+    /**
+     * Writes the loaded and the newly compiled entries. The file is replaced atomically so that
+     * concurrently starting processes never observe a partially written cache.
+     */
+    void store(EngineData engine) {
+        if (compiledKeys.isEmpty() || loadedKeys.containsAll(compiledKeys)) {
+            return;
+        }
+        Set<String> keys = new TreeSet<>(loadedKeys);
+        keys.addAll(compiledKeys);
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path tmp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                writer.write(header);
+                writer.newLine();
+                for (String key : keys) {
+                    writer.write(key);
+                    writer.newLine();
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            engine.getEngineLogger().log(Level.WARNING, String.format("Failed to write compilation cache %s: %s", file, e.getMessage()));
+        }
+    }
+
+    /**
+     * Computes the process independent key of a call target, or {@code null} if the root node has
+     * no source section to identify it across process restarts.
+     */
+    static String keyOf(OptimizedCallTarget target) {
+        RootNode rootNode = target.getRootNode();
+        SourceSection section = rootNode.getSourceSection();
+        if (section == null || !section.isAvailable()) {
+            return null;
+        }
+        Source source = section.getSource();
+        long hash = FNV_OFFSET_BASIS;
+        if (source.hasCharacters()) {
+            hash = fnv(hash, source.getCharacters());
+        } else if (source.hasBytes()) {
+            byte[] bytes = source.getBytes().toByteArray();
+            for (byte b : bytes) {
+                hash = (hash ^ (b & 0xFF)) * FNV_PRIME;
+            }
+        }
+        LanguageInfo language = rootNode.getLanguageInfo();
+        StringBuilder key = new StringBuilder();
+        key.append(language != null ? language.getId() : source.getLanguage());
+        key.append(':').append(Long.toHexString(hash));
+        key.append(':').append(section.hasCharIndex() ? section.getCharIndex() : -1);
+        key.append(':').append(section.hasCharIndex() ? section.getCharLength() : -1);
+        key.append(':').append(rootNode.getName());
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c == '\n' || c == '\r') {
+                key.setCharAt(i, ' ');
+            }
+        }
+        return key.toString();
+    }
+
+    private static long fnv(long initial, CharSequence chars) {
+        long hash = initial;
+        for (int i = 0; i < chars.length(); i++) {
+            hash = (hash ^ chars.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    static void installListener(GraalTruffleRuntime runtime) {
+        runtime.addListener(new CacheRecorder());
+    }
+
+    /**
+     * Records last tier compilations in the cache of the engine owning the call target and
+     * persists the cache when the engine is closed.
+     */
+    private static final class CacheRecorder implements GraalTruffleRuntimeListener {
+
+        @Override
+        public void onCompilationSuccess(OptimizedCallTarget target, TruffleInlining inliningDecision, GraphInfo graph, CompilationResultInfo result, int tier) {
+            PersistentCompilationCache cache = target.engine.compilationCache;
+            if (cache != null && (tier == 2 || !target.engine.multiTier)) {
+                cache.recordCompiled(target);
+            }
+        }
+
+        @Override
+        public void onEngineClosed(EngineData runtimeData) {
+            PersistentCompilationCache cache = runtimeData.compilationCache;
+            if (cache != null) {
+                cache.store(runtimeData);
+            }
+        }
+    }
+}
@@ -41,13 +41,26 @@ import org.graalvm.compiler.truffle.common.TruffleDebugContext;
 class PolymorphicSpecializeDump {
 
     public static void dumpPolymorphicSpecialize(OptimizedCallTarget callTarget, List<Node> toDump) {
+        dump(callTarget, toDump, "Polymorphic Specialize", null);
+    }
+
+    /**
+     * Dumps the parent chain of a call node for which profile-driven splitting made a decision. The
+     * decision, its estimated benefit and the observed argument types are attached as group
+     * properties.
+     */
+    static void dumpProfiledSplitDecision(OptimizedCallTarget callTarget, List<Node> toDump, Map<String, Object> properties) {
+        dump(callTarget, toDump, "Profiled Split Decision", properties);
+    }
+
+    private static void dump(OptimizedCallTarget callTarget, List<Node> toDump, String groupName, Map<String, Object> properties) {
         assert toDump.size() > 0;
         try (TruffleDebugContext debugContext = openDebugContext(callTarget)) {
             Collections.reverse(toDump);
             PolymorphicSpecializeDump.PolymorphicSpecializeGraph graph = new PolymorphicSpecializeDump.PolymorphicSpecializeGraph(toDump);
             final GraphOutput<PolymorphicSpecializeGraph, ?> output = debugContext.buildOutput(
                             GraphOutput.newBuilder(new PolymorphicSpecializeDump.PolymorphicSpecializeGraphStructure()));
-            output.beginGroup(graph, "Polymorphic Specialize [" + callTarget + "]", "Polymorphic Specialize", null, 0, null);
+            output.beginGroup(graph, groupName + " [" + callTarget + "]", groupName, null, 0, properties);
             output.print(graph, null, 0, toDump.get(toDump.size() - 1).toString());
             output.endGroup();
             output.close();
@@ -61,6 +61,10 @@ final class TruffleSplittingStrategy {
         if (shouldSplit(engineData, call)) {
             engineData.splitCount += call.getCallTarget().getUninitializedNodeCount();
             doSplit(engineData, call);
+            if (engineData.splittingProfileDriven) {
+                engineData.profiledSplitNodeCount += call.getCallTarget().getUninitializedNodeCount();
+                onProfiledSplit(engineData, call);
+            }
         }
     }
 
@@ -97,6 +101,9 @@ final class TruffleSplittingStrategy {
             maybeTraceFail(engine, call, TruffleSplittingStrategy::notEnoughBudgetMessageFactory);
             return false;
         }
+        if (engine.splittingProfileDriven) {
+            return shouldSplitProfiled(engine, call);
+        }
         if (callTarget.getUninitializedNodeCount() > engine.splittingMaxCalleeSize) {
             maybeTraceFail(engine, call, TruffleSplittingStrategy::targetTooBigMessageFactory);
             return false;
@@ -104,6 +111,81 @@ final class TruffleSplittingStrategy {
         return true;
     }
 
+    /**
+     * Profile-driven splitting replaces the callee size limit with an estimate of the split's
+     * benefit. A split only pays off if the call site sees fewer argument types than the target as
+     * a whole, and the reduction has to be larger for larger targets.
+     */
+    private static boolean shouldSplitProfiled(EngineData engine, OptimizedDirectCallNode call) {
+        if (engine.profiledSplitNodeCount + call.getCallTarget().getUninitializedNodeCount() > engine.splittingProfileBudget) {
+            maybeTraceFail(engine, call, TruffleSplittingStrategy::profileBudgetExhaustedMessageFactory);
+            return false;
+        }
+        double benefit = estimateSplitBenefit(engine, call);
+        CallSiteTypeProfile typeProfile = call.getTypeProfile();
+        GraalTruffleRuntime.getRuntime().getListener().onCompilationSplitEstimated(call, benefit, String.valueOf(typeProfile));
+        if (benefit < engine.splittingProfileMinBenefit) {
+            maybeTraceFail(engine, call, TruffleSplittingStrategy::lowBenefitMessageFactory);
+            if (engine.splittingDumpDecisions) {
+                dumpProfiledDecision(call, benefit, false);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Estimates the benefit of splitting the target of a call site as the relative reduction of
+     * argument polymorphism the split call target would see, scaled by how the target size compares
+     * to {@link EngineData#splittingMaxCalleeSize}.
+     */
+    static double estimateSplitBenefit(EngineData engine, OptimizedDirectCallNode call) {
+        CallSiteTypeProfile siteProfile = call.getTypeProfile();
+        CallSiteTypeProfile targetProfile = call.getCallTarget().getArgumentTypeProfile();
+        if (siteProfile == null || targetProfile == null) {
+            return 0;
+        }
+        double reduction = siteProfile.polymorphismReduction(targetProfile);
+        return reduction * engine.splittingMaxCalleeSize / Math.max(1, call.getCallTarget().getUninitializedNodeCount());
+    }
+
+    private static void onProfiledSplit(EngineData engine, OptimizedDirectCallNode call) {
+        double benefit = estimateSplitBenefit(engine, call);
+        ProfiledSplit split = new ProfiledSplit(call, benefit, String.valueOf(call.getTypeProfile()));
+        call.getCurrentCallTarget().profiledSplit = split;
+        if (engine.traceSplittingSummary) {
+            synchronized (engine.splittingStatistics) {
+                engine.splittingStatistics.profiledSplits.add(split);
+            }
+        }
+        if (engine.splittingDumpDecisions) {
+            dumpProfiledDecision(call, benefit, true);
+        }
+    }
+
+    private static void dumpProfiledDecision(OptimizedDirectCallNode call, double benefit, boolean split) {
+        final List<Node> toDump = new ArrayList<>();
+        Node node = call;
+        while (node != null) {
+            toDump.add(node);
+            node = node.getParent();
+        }
+        final Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("split", split);
+        properties.put("estimatedBenefit", benefit);
+        properties.put("typeProfile", String.valueOf(call.getTypeProfile()));
+        properties.put("targetTypeProfile", String.valueOf(call.getCallTarget().getArgumentTypeProfile()));
+        PolymorphicSpecializeDump.dumpProfiledSplitDecision(call.getCallTarget(), toDump, properties);
+    }
+
+    private static String profileBudgetExhaustedMessageFactory(OptimizedDirectCallNode call, EngineData engine) {
+        return "Profiled split budget exhausted. " + (engine.profiledSplitNodeCount + call.getCallTarget().getUninitializedNodeCount()) + " > " + engine.splittingProfileBudget;
+    }
+
+    private static String lowBenefitMessageFactory(OptimizedDirectCallNode call, EngineData engine) {
+        return String.format("Estimated benefit too low: %.2f < %.2f, types %s", estimateSplitBenefit(engine, call), engine.splittingProfileMinBenefit, call.getTypeProfile());
+    }
+
     private static String targetTooBigMessageFactory(OptimizedDirectCallNode call, EngineData engine) {
         return "Target too big: " + call.getCallTarget().getUninitializedNodeCount() + " > " + engine.splittingMaxCalleeSize;
     }
@@ -220,7 +302,13 @@ final class TruffleSplittingStrategy {
         }
     }
 
-    static void newPolymorphicSpecialize(Node node, EngineData engineData) {
+    static void newPolymorphicSpecialize(Node node, OptimizedCallTarget callTarget) {
+        final EngineData engineData = callTarget.engine;
+        final ProfiledSplit profiledSplit = callTarget.profiledSplit;
+        if (profiledSplit != null && !profiledSplit.polymorphic) {
+            profiledSplit.polymorphic = true;
+            GraalTruffleRuntime.getRuntime().getListener().onCompilationSplitPolymorphic(callTarget, profiledSplit.estimatedBenefit);
+        }
         if (engineData.traceSplittingSummary) {
             synchronized (engineData.splittingStatistics) {
                 final Map<Class<? extends Node>, Integer> polymorphicNodes = engineData.splittingStatistics.polymorphicNodes;
@@ -230,8 +318,26 @@ final class TruffleSplittingStrategy {
         }
     }
 
+    /**
+     * A split decided by profile-driven splitting. Kept on the split call target to follow how the
+     * split performs after the decision.
+     */
+    static final class ProfiledSplit {
+        final OptimizedDirectCallNode callNode;
+        final double estimatedBenefit;
+        final String typeProfile;
+        volatile boolean polymorphic;
+
+        ProfiledSplit(OptimizedDirectCallNode callNode, double estimatedBenefit, String typeProfile) {
+            this.callNode = callNode;
+            this.estimatedBenefit = estimatedBenefit;
+            this.typeProfile = typeProfile;
+        }
+    }
+
     static class SplitStatisticsData {
         final Map<Class<? extends Node>, Integer> polymorphicNodes = new HashMap<>();
+        final List<ProfiledSplit> profiledSplits = new ArrayList<>();
         final Map<OptimizedCallTarget, Integer> splitTargets = new HashMap<>();
         int splitCount;
         int forcedSplitCount;
@@ -251,6 +357,7 @@ final class TruffleSplittingStrategy {
         private static final String D_LONG_FORMAT = "%n%-120s: %10d";
         private static final String P_FORMAT = "%n%-40s: %9.2f%%";
         private static final String DELIMITER_FORMAT = "%n--- %s";
+        private static final String PROFILED_SPLIT_FORMAT = "%n%-40s: benefit %6.2f | calls %8d | compiled %-5s | polymorphic %-5s | %s";
 
         SplitStatisticsReporter() {
         }
@@ -279,6 +386,16 @@ final class TruffleSplittingStrategy {
                         out.printf(D_FORMAT, entry.getKey(), entry.getValue());
                     }
 
+                    if (engineData.splittingProfileDriven) {
+                        out.printf(D_FORMAT, "Profiled split node count", engineData.profiledSplitNodeCount);
+                        out.printf(D_FORMAT, "Profiled split budget", engineData.splittingProfileBudget);
+                        out.printf(DELIMITER_FORMAT, "PROFILED SPLITS");
+                        for (ProfiledSplit split : stat.profiledSplits) {
+                            OptimizedCallTarget splitTarget = split.callNode.getCurrentCallTarget();
+                            out.printf(PROFILED_SPLIT_FORMAT, splitTarget, split.estimatedBenefit, splitTarget.getCallCount(), splitTarget.isValid(), split.polymorphic, split.typeProfile);
+                        }
+                    }
+
                     out.printf(DELIMITER_FORMAT, "NODES");
                     for (Map.Entry<Class<? extends Node>, Integer> entry : sortByIntegerValue(stat.polymorphicNodes).entrySet()) {
                         out.printf(D_LONG_FORMAT, entry.getKey(), entry.getValue());
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.runtime.collection;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Queue that keeps a separate priority queue per partition and serves the partitions with stride
+ * scheduling.
+ * <p>
+ * Each partition has a pass value. Polling takes the head of the partition with the lowest pass
+ * and advances the pass of that partition by a stride that is inversely proportional to the
+ * logarithm of the weight of the polled element. Partitions with heavier elements are therefore
+ * served more often, but no partition can starve the others. A partition that becomes non-empty
+ * starts at the current global pass so that it cannot claim service for the time it was idle.
+ * <p>
+ * The {@code precedence} comparator is applied to the partition heads before the pass, which
+ * allows a class of elements to be served first regardless of fairness. Within a partition,
+ * elements are ordered by their natural ordering.
+ */
+public final class FairPartitionedQueue<E> implements SerialQueue<E> {
+
+    private static final long STRIDE = 1L << 20;
+
+    private static final class Partition<E> {
+        final Object key;
+        final PriorityQueue<E> queue = new PriorityQueue<>();
+        long pass;
+
+        Partition(Object key) {
+            this.key = key;
+        }
+    }
+
+    private final Function<? super E, Object> partitioner;
+    private final ToLongFunction<? super E> weigher;
+    private final Comparator<? super E> precedence;
+    private final Map<Object, Partition<E>> partitions = new HashMap<>();
+    private long globalPass;
+    private int size;
+
+    /**
+     * @param partitioner computes the partition key of an element
+     * @param weigher computes the non-negative weight of an element
+     * @param precedence orders partition heads before the fairness criterion is applied
+     */
+    public FairPartitionedQueue(Function<? super E, Object> partitioner, ToLongFunction<? super E> weigher, Comparator<? super E> precedence) {
+        this.partitioner = partitioner;
+        this.weigher = weigher;
+        this.precedence = precedence;
+    }
+
+    @Override
+    public void add(E x) {
+        Object key = partitioner.apply(x);
+        Partition<E> partition = partitions.get(key);
+        if (partition == null) {
+            partition = new Partition<>(key);
+            partition.pass = globalPass;
+            partitions.put(key, partition);
+        }
+        partition.queue.add(x);
+        size++;
+    }
+
+    private Partition<E> select() {
+        Partition<E> best = null;
+        for (Partition<E> partition : partitions.values()) {
+            if (best == null) {
+                best = partition;
+                continue;
+            }
+            int order = precedence.compare(partition.queue.peek(), best.queue.peek());
+            if (order < 0 || (order == 0 && partition.pass < best.pass)) {
+                best = partition;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The stride grows with {@code 1 + log2(1 + weight)} so that a partition with a thousand
+     * times hotter elements is served roughly ten times as often, not a thousand times.
+     */
+    private long stride(E element) {
+        long weight = Math.max(0, weigher.applyAsLong(element));
+        int log = 64 - Long.numberOfLeadingZeros(weight);
+        return STRIDE / (1 + log);
+    }
+
+    @Override
+    public E poll() {
+        Partition<E> partition = select();
+        if (partition == null) {
+            return null;
+        }
+        E result = partition.queue.poll();
+        size--;
+        globalPass = Math.max(globalPass, partition.pass);
+        partition.pass += stride(result);
+        if (partition.queue.isEmpty()) {
+            // Empty partitions are dropped so that closed partitions are not retained.
+            partitions.remove(partition.key);
+        }
+        return result;
+    }
+
+    @Override
+    public E peek() {
+        Partition<E> partition = select();
+        return partition == null ? null : partition.queue.peek();
+    }
+
+    @Override
+    public void clear() {
+        partitions.clear();
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of elements in the partition identified by {@code key}.
+     */
+    public int size(Object key) {
+        Partition<E> partition = partitions.get(key);
+        return partition == null ? 0 : partition.queue.size();
+    }
+
+    @Override
+    public Object[] toArray() {
+        Object[] result = new Object[size];
+        int index = 0;
+        for (Partition<E> partition : partitions.values()) {
+            for (E element : partition.queue) {
+                result[index++] = element;
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T[] toArray(T[] a) {
+        T[] result = a.length >= size ? a : (T[]) Arrays.copyOf(a, size, a.getClass());
+        int index = 0;
+        for (Partition<E> partition : partitions.values()) {
+            for (E element : partition.queue) {
+                result[index++] = (T) element;
+            }
+        }
+        if (result.length > size) {
+            result[size] = null;
+        }
+        return result;
+    }
+
+    @Override
+    public int internalCapacity() {
+        return size;
+    }
+}
@@ -32,6 +32,7 @@ import org.graalvm.compiler.truffle.common.TruffleCompilerListener.GraphInfo;
 import org.graalvm.compiler.truffle.jfr.CompilationEvent;
 import org.graalvm.compiler.truffle.jfr.CompilationStatisticsEvent;
 import org.graalvm.compiler.truffle.jfr.DeoptimizationEvent;
+import org.graalvm.compiler.truffle.jfr.DeoptimizationStormEvent;
 import org.graalvm.compiler.truffle.jfr.EventFactory;
 import org.graalvm.compiler.truffle.jfr.InvalidationEvent;
 import org.graalvm.compiler.truffle.runtime.AbstractGraalTruffleRuntimeListener;
@@ -197,6 +198,21 @@ public final class JFRListener extends AbstractGraalTruffleRuntimeListener {
         }
     }
 
+    @Override
+    public void onCompilationDeoptimizationStorm(OptimizedCallTarget target, int recompilations, CharSequence reason, long backoffMillis, boolean pinnedToFirstTier) {
+        if (factory != null) {
+            DeoptimizationStormEvent event = factory.createDeoptimizationStormEvent();
+            if (event.isEnabled()) {
+                event.setRootFunction(target);
+                event.setRecompilations(recompilations);
+                event.setReason(reason);
+                event.setBackoff(backoffMillis);
+                event.setPinnedToFirstTier(pinnedToFirstTier);
+                event.publish();
+            }
+        }
+    }
+
     private CompilationData getCurrentData() {
         return currentCompilation.get();
     }
@@ -71,6 +71,11 @@ public final class StatisticsListener extends AbstractGraalTruffleRuntimeListene
     private int queues;
     private int dequeues;
     private int splits;
+    private int polymorphicSplits;
+    private int compilationCacheHits;
+    private int compilationCacheMisses;
+    private int deoptimizationStorms;
+    private int pinnedToFirstTier;
 
     private final IdentityStatistics<String> temporaryBailoutReasons = new IdentityStatistics<>();
     private final IdentityStatistics<String> permanentBailoutReasons = new IdentityStatistics<>();
@@ -80,6 +85,7 @@ public final class StatisticsListener extends AbstractGraalTruffleRuntimeListene
 
     private final TargetLongStatistics timeToQueue = new TargetLongStatistics();
     private final TargetLongStatistics timeInQueue = new TargetLongStatistics();
+    private final TargetIntStatistics queueDepth = new TargetIntStatistics();
 
     private final TargetIntStatistics nodeCount = new TargetIntStatistics();
     private final TargetIntStatistics nodeCountTrivial = new TargetIntStatistics();
@@ -148,12 +154,35 @@ public final class StatisticsListener extends AbstractGraalTruffleRuntimeListene
             firstCompilation = currentTime;
         }
         timeQueued.put(target, currentTime);
+        queueDepth.accept(timeQueued.size(), target);
         long timeStamp = target.getInitializedTimestamp();
         if (timeStamp != 0) {
             timeToQueue.accept(currentTime - timeStamp, target);
         }
     }
 
+    @Override
+    public synchronized void onCompilationSplitPolymorphic(OptimizedCallTarget splitTarget, double estimatedBenefit) {
+        polymorphicSplits++;
+    }
+
+    @Override
+    public synchronized void onCompilationDeoptimizationStorm(OptimizedCallTarget target, int recompilations, CharSequence reason, long backoffMillis, boolean pinned) {
+        deoptimizationStorms++;
+        if (pinned) {
+            pinnedToFirstTier++;
+        }
+    }
+
+    @Override
+    public synchronized void onCompilationCacheLookup(OptimizedCallTarget target, boolean hit) {
+        if (hit) {
+            compilationCacheHits++;
+        } else {
+            compilationCacheMisses++;
+        }
+    }
+
     @Override
     public synchronized void onCompilationDequeued(OptimizedCallTarget target, Object source, CharSequence reason, int tier) {
         dequeues++;
@@ -299,13 +328,23 @@ public final class StatisticsListener extends AbstractGraalTruffleRuntimeListene
             printStatistic(out, "Dequeues", dequeues);
             dequeuedReasons.printStatistics(out, String::toString, true, false);
             printStatistic(out, "Splits", splits);
+            printStatistic(out, "  Polymorphic after Split", polymorphicSplits);
+            printStatistic(out, "Deoptimization Storms", deoptimizationStorms);
+            printStatistic(out, "  Pinned to First Tier", pinnedToFirstTier);
+            if (runtimeData.getCompilationCache() != null) {
+                printStatistic(out, "Compilation Cache Hits", compilationCacheHits);
+                printStatistic(out, "Compilation Cache Misses", compilationCacheMisses);
+            }
             printStatistic(out, "Compilation Accuracy", 1.0 - invalidations / (double) compilations);
             printStatistic(out, "Queue Accuracy", 1.0 - dequeues / (double) queues);
             printStatistic(out, "Compilation Utilization", compilationTime.getSum() / (double) (endTime - firstCompilation));
             printStatistic(out, "Remaining Compilation Queue", rt.getCompilationQueueSize());
+            printStatistic(out, "Engine Compilation Queue Depth", queueDepth);
             printStatisticTime(out, "Time to queue", timeToQueue);
             printStatisticTime(out, "Time waiting in queue", timeInQueue);
+            printStatisticPercentiles(out, "  Percentiles", timeInQueue);
             printStatisticTime(out, "Time for compilation", compilationTime);
+            printStatisticPercentiles(out, "  Percentiles", compilationTime);
             printStatisticTime(out, "  Truffle Tier", compilationTimeTruffleTier);
             printStatisticTime(out, "  Graal Tier", compilationTimeGraalTier);
             printStatisticTime(out, "  Code Installation", compilationTimeCodeInstallation);
@@ -375,6 +414,11 @@ public final class StatisticsListener extends AbstractGraalTruffleRuntimeListene
                         value.getAverage() / 1e6, value.getMax() / 1000000, value.getMaxName());
     }
 
+    private static void printStatisticPercentiles(PrintWriter out, String label, TargetLongStatistics value) {
+        out.printf("%n  %-50s: p50<=%8d, p90<=%8d, p99<=%8d (milliseconds)", label, value.getPercentile(0.5) / 1000000, value.getPercentile(0.9) / 1000000,
+                        value.getPercentile(0.99) / 1000000);
+    }
+
     private static final class TargetIntStatistics extends IntSummaryStatistics {
 
         private String maxName;
@@ -408,13 +452,39 @@ public final class StatisticsListener extends AbstractGraalTruffleRuntimeListene
 
         private String maxName;
 
+        /**
+         * Histogram with power of two buckets, bucket {@code i > 0} counts the values in
+         * {@code [2^(i-1), 2^i)} and bucket {@code 0} counts the zero values.
+         */
+        private final long[] histogram = new long[Long.SIZE];
+
         public void accept(long value, OptimizedCallTarget target) {
             if (value > getMax()) {
                 maxName = target.getName();
             }
+            histogram[Long.SIZE - Long.numberOfLeadingZeros(Math.max(value, 0))]++;
             super.accept(value);
         }
 
+        /**
+         * Returns an upper bound of the given percentile, accurate within a factor of two.
+         */
+        public long getPercentile(double fraction) {
+            long count = getCount();
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(fraction * count);
+            long seen = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                seen += histogram[i];
+                if (seen >= rank) {
+                    return i == 0 ? 0 : Math.min(getMax(), (1L << i) - 1);
+                }
+            }
+            return getMax();
+        }
+
         public String getMaxName() {
             return maxName;
         }
@@ -646,6 +716,30 @@ public final class StatisticsListener extends AbstractGraalTruffleRuntimeListene
             }
         }
 
+        @Override
+        public void onCompilationSplitPolymorphic(OptimizedCallTarget splitTarget, double estimatedBenefit) {
+            StatisticsListener listener = splitTarget.engine.statisticsListener;
+            if (listener != null) {
+                listener.onCompilationSplitPolymorphic(splitTarget, estimatedBenefit);
+            }
+        }
+
+        @Override
+        public void onCompilationDeoptimizationStorm(OptimizedCallTarget target, int recompilations, CharSequence reason, long backoffMillis, boolean pinned) {
+            StatisticsListener listener = target.engine.statisticsListener;
+            if (listener != null) {
+                listener.onCompilationDeoptimizationStorm(target, recompilations, reason, backoffMillis, pinned);
+            }
+        }
+
+        @Override
+        public void onCompilationCacheLookup(OptimizedCallTarget target, boolean hit) {
+            StatisticsListener listener = target.engine.statisticsListener;
+            if (listener != null) {
+                listener.onCompilationCacheLookup(target, hit);
+            }
+        }
+
         @Override
         public void onCompilationDequeued(OptimizedCallTarget target, Object source, CharSequence reason, int tier) {
             StatisticsListener listener = target.engine.statisticsListener;
@@ -198,6 +198,18 @@ public final class TraceCompilationListener extends AbstractGraalTruffleRuntimeL
         }
     }
 
+    @Override
+    public void onCompilationDeoptimizationStorm(OptimizedCallTarget target, int recompilations, CharSequence reason, long backoffMillis, boolean pinnedToFirstTier) {
+        if (target.engine.traceCompilation || target.engine.traceCompilationDetails) {
+            Map<String, Object> properties = defaultProperties(target);
+            properties.put("Recompilations", recompilations);
+            properties.put("Reason", reason);
+            properties.put("Backoff", String.format("%dms", backoffMillis));
+            properties.put("Pinned", pinnedToFirstTier);
+            runtime.logEvent(target, 0, "opt storm", properties);
+        }
+    }
+
     /**
      * Determines if a failure is permanent.
      *
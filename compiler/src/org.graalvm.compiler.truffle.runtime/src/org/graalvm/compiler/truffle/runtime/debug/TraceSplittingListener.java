@@ -70,6 +70,26 @@ public final class TraceSplittingListener implements GraalTruffleRuntimeListener
         }
     }
 
+    @Override
+    public void onCompilationSplitEstimated(OptimizedDirectCallNode callNode, double estimatedBenefit, CharSequence typeProfile) {
+        OptimizedCallTarget callTarget = callNode.getCallTarget();
+        if (callTarget.getOptionValue(PolyglotCompilerOptions.TraceSplitting)) {
+            String label = String.format("split estimate %.2f", estimatedBenefit);
+            final Map<String, Object> debugProperties = callTarget.getDebugProperties();
+            debugProperties.put("SourceSection", extractSourceSection(callNode));
+            debugProperties.put("Types", typeProfile);
+            TruffleCompilerRuntime.getRuntime().logEvent(callTarget, 0, label, debugProperties);
+        }
+    }
+
+    @Override
+    public void onCompilationSplitPolymorphic(OptimizedCallTarget splitTarget, double estimatedBenefit) {
+        if (splitTarget.getOptionValue(PolyglotCompilerOptions.TraceSplitting)) {
+            String label = String.format("split polymorphic %.2f", estimatedBenefit);
+            TruffleCompilerRuntime.getRuntime().logEvent(splitTarget, 0, label, splitTarget.getDebugProperties());
+        }
+    }
+
     private static String extractSourceSection(OptimizedDirectCallNode node) {
         Node cnode = node;
         while (cnode.getSourceSection() == null && !(cnode instanceof RootNode)) {
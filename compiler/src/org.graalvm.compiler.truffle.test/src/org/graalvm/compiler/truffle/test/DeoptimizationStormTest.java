@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.compiler.truffle.runtime.GraalTruffleRuntime;
+import org.graalvm.compiler.truffle.runtime.GraalTruffleRuntimeListener;
+import org.graalvm.compiler.truffle.runtime.OptimizedCallTarget;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.RootNode;
+
+public class DeoptimizationStormTest extends TestWithPolyglotOptions {
+
+    private static final String INVALIDATION_REASON = "storm test invalidation";
+
+    private static final class ConstantRootNode extends RootNode {
+
+        ConstantRootNode() {
+            super(null);
+        }
+
+        @Override
+        public String getName() {
+            return "stormRoot";
+        }
+
+        @Override
+        public Object execute(VirtualFrame frame) {
+            return 42;
+        }
+    }
+
+    private static final class StormListener implements GraalTruffleRuntimeListener {
+
+        final List<String> reasons = new ArrayList<>();
+        final List<Integer> recompilations = new ArrayList<>();
+        final List<Boolean> pinned = new ArrayList<>();
+
+        @Override
+        public synchronized void onCompilationDeoptimizationStorm(OptimizedCallTarget target, int count, CharSequence reason, long backoffMillis, boolean pinnedToFirstTier) {
+            reasons.add(String.valueOf(reason));
+            recompilations.add(count);
+            pinned.add(pinnedToFirstTier);
+        }
+    }
+
+    private static void callUntilValid(OptimizedCallTarget target) {
+        for (int i = 0; i < 100 && !target.isValid(); i++) {
+            target.call();
+        }
+        Assert.assertTrue(target.isValid());
+    }
+
+    @Test
+    public void testBackoffAfterStorm() {
+        setupContext("engine.CompileImmediately", "false",
+                        "engine.BackgroundCompilation", "false",
+                        "engine.MultiTier", "false",
+                        "engine.CompilationThreshold", "10",
+                        "engine.DeoptimizationStormThreshold", "3",
+                        "engine.DeoptimizationStormBackoff", "600000");
+        GraalTruffleRuntime runtime = GraalTruffleRuntime.getRuntime();
+        StormListener listener = new StormListener();
+        runtime.addListener(listener);
+        try {
+            OptimizedCallTarget target = (OptimizedCallTarget) runtime.createCallTarget(new ConstantRootNode());
+            callUntilValid(target);
+            for (int i = 0; i < 3; i++) {
+                Assert.assertTrue(listener.reasons.isEmpty());
+                target.invalidate(INVALIDATION_REASON);
+                callUntilValid(target);
+            }
+            Assert.assertEquals(1, listener.reasons.size());
+            Assert.assertTrue(listener.reasons.get(0), listener.reasons.get(0).contains(INVALIDATION_REASON));
+            Assert.assertEquals(3, (int) listener.recompilations.get(0));
+            Assert.assertFalse(listener.pinned.get(0));
+
+            // the call target is not compiled again automatically during the backoff
+            target.invalidate(INVALIDATION_REASON);
+            for (int i = 0; i < 100; i++) {
+                target.call();
+            }
+            Assert.assertFalse(target.isValid());
+            Assert.assertFalse(target.isPinnedToFirstTier());
+        } finally {
+            runtime.removeListener(listener);
+            cleanup();
+        }
+    }
+
+    @Test
+    public void testPinnedToFirstTier() {
+        setupContext("engine.CompileImmediately", "false",
+                        "engine.BackgroundCompilation", "false",
+                        "engine.MultiTier", "true",
+                        "engine.FirstTierCompilationThreshold", "10",
+                        "engine.CompilationThreshold", "20",
+                        "engine.DeoptimizationStormThreshold", "1",
+                        "engine.DeoptimizationStormBackoff", "0",
+                        "engine.DeoptimizationStormFirstTierPinning", "1");
+        GraalTruffleRuntime runtime = GraalTruffleRuntime.getRuntime();
+        StormListener listener = new StormListener();
+        runtime.addListener(listener);
+        try {
+            OptimizedCallTarget target = (OptimizedCallTarget) runtime.createCallTarget(new ConstantRootNode());
+            callUntilValid(target);
+            target.invalidate(INVALIDATION_REASON);
+            callUntilValid(target);
+            Assert.assertEquals(1, listener.pinned.size());
+            Assert.assertTrue(listener.pinned.get(0));
+            Assert.assertTrue(target.isPinnedToFirstTier());
+
+            for (int i = 0; i < 200; i++) {
+                target.call();
+            }
+            Assert.assertTrue(target.isValid());
+            Assert.assertFalse(target.isValidLastTier());
+        } finally {
+            runtime.removeListener(listener);
+            cleanup();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.test;
+
+import java.lang.reflect.Method;
+
+import org.graalvm.compiler.core.common.CompilationIdentifier;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.truffle.compiler.PartialEvaluator;
+import org.graalvm.compiler.truffle.compiler.TruffleCompilerImpl;
+import org.graalvm.compiler.truffle.runtime.GraalTruffleRuntime;
+import org.graalvm.compiler.truffle.runtime.OptimizedCallTarget;
+import org.graalvm.compiler.truffle.runtime.TruffleInlining;
+import org.graalvm.compiler.truffle.test.nodes.AbstractTestNode;
+import org.graalvm.compiler.truffle.test.nodes.RootTestNode;
+import org.graalvm.polyglot.Context;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.TruffleOptions;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.VirtualFrame;
+
+/**
+ * Compiles the same AST twice and checks the encoded graph cache statistics of the partial
+ * evaluator: the first compilation encodes the graphs it needs, the second one finds them in the
+ * cache.
+ */
+public final class EncodedGraphCacheStatisticsTest extends PartialEvaluationTest {
+
+    private static final int ATTEMPTS = 10;
+
+    @Before
+    public void resetCompiler() {
+        Assume.assumeFalse("This test does not apply to SVM runtime where the compiler is initialized eagerly.", TruffleOptions.AOT);
+        try {
+            Method m = Truffle.getRuntime().getClass().getMethod("resetCompiler");
+            m.invoke(Truffle.getRuntime());
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    static class StatisticsTestNode extends AbstractTestNode {
+        @Override
+        public int execute(VirtualFrame frame) {
+            return boundary(frame.getArguments().length);
+        }
+
+        @TruffleBoundary
+        private static int boundary(int value) {
+            return value + 42;
+        }
+    }
+
+    private static TruffleCompilerImpl getTruffleCompilerFromRuntime(OptimizedCallTarget callTarget) {
+        return (TruffleCompilerImpl) GraalTruffleRuntime.getRuntime().getTruffleCompiler(callTarget);
+    }
+
+    @SuppressWarnings("try")
+    private static PartialEvaluator compileAST(OptimizedCallTarget target) {
+        GraalTruffleRuntime runtime = GraalTruffleRuntime.getRuntime();
+        DebugContext debug = new DebugContext.Builder(runtime.getGraalOptions(OptionValues.class)).build();
+        try (DebugContext.Scope s = debug.scope("EncodedGraphCacheStatisticsTest")) {
+            TruffleCompilerImpl compiler = getTruffleCompilerFromRuntime(target);
+            CompilationIdentifier compilationId = compiler.createCompilationIdentifier(target);
+            compiler.compileAST(target.getOptionValues(), debug, target, new TruffleInlining(), compilationId, null, null);
+            assertTrue(target.isValid());
+            return compiler.getPartialEvaluator();
+        }
+    }
+
+    @Test
+    public void testStatistics() {
+        setupContext(Context.newBuilder() //
+                        .allowExperimentalOptions(true) //
+                        .option("engine.EncodedGraphCacheCapacity", "1024") //
+                        .option("engine.EncodedGraphCachePurgeDelay", "100000") //
+                        .option("engine.CompilerIdleDelay", "0"));
+        OptimizedCallTarget target = (OptimizedCallTarget) GraalTruffleRuntime.getRuntime().createCallTarget(new RootTestNode(new FrameDescriptor(), "statistics", new StatisticsTestNode()));
+
+        PartialEvaluator partialEvaluator = compileAST(target);
+        long firstMisses = partialEvaluator.getEncodedGraphCacheMisses();
+        long firstHits = partialEvaluator.getEncodedGraphCacheHits();
+        long firstBytes = partialEvaluator.getEncodedGraphCacheBytes();
+        assertTrue("the first compilation must encode graphs", firstMisses > 0);
+        assertTrue("encoded graphs must have a size", firstBytes > 0);
+
+        /* The compile queue can purge the cache at any time, which causes new misses. */
+        boolean allCached = false;
+        for (int attempt = 0; attempt < ATTEMPTS && !allCached; attempt++) {
+            long misses = partialEvaluator.getEncodedGraphCacheMisses();
+            long hits = partialEvaluator.getEncodedGraphCacheHits();
+            long bytes = partialEvaluator.getEncodedGraphCacheBytes();
+            assertTrue("the partial evaluator must be shared", compileAST(target) == partialEvaluator);
+            allCached = partialEvaluator.getEncodedGraphCacheMisses() == misses;
+            if (allCached) {
+                assertTrue("every graph encoded by the first compilation must be found", partialEvaluator.getEncodedGraphCacheHits() - hits >= firstMisses);
+                Assert.assertEquals("no graph must be encoded", bytes, partialEvaluator.getEncodedGraphCacheBytes());
+            } else {
+                assertTrue("misses must encode graphs", partialEvaluator.getEncodedGraphCacheBytes() > bytes);
+            }
+        }
+        assertTrue("the second compilation must find all graphs in the cache", allCached);
+        assertTrue(partialEvaluator.getEncodedGraphCacheHits() > firstHits);
+    }
+}
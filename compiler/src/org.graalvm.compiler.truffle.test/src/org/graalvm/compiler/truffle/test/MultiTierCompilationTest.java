@@ -271,7 +271,8 @@ public class MultiTierCompilationTest extends PartialEvaluationTest {
         int secondThreshold = 1000;
         setupContext(Context.newBuilder().allowExperimentalOptions(true).option("engine.CompileImmediately", "false").option("engine.BackgroundCompilation", "false").option("engine.MultiTier",
                         "true").option("engine.FirstTierInliningPolicy", "None").option("engine.Splitting", "false").option("engine.FirstTierCompilationThreshold",
-                                        String.valueOf(firstThreshold)).option("engine.CompilationThreshold", String.valueOf(secondThreshold)).build());
+                                        String.valueOf(firstThreshold)).option("engine.CompilationThreshold", String.valueOf(secondThreshold)).option("engine.FirstTierAdaptivePromotion",
+                                                        "false").build());
 
         MultiTierLoopBodyNode body = new MultiTierLoopBodyNode(firstThreshold);
         final MultiTierWithLoopRootNode rootNode = new MultiTierWithLoopRootNode(body);
@@ -287,4 +288,29 @@ public class MultiTierCompilationTest extends PartialEvaluationTest {
         Assert.assertEquals(9, rootNode.firstTierCallCount);
     }
 
+    @SuppressWarnings("try")
+    @Test
+    public void testLoopAdaptivePromotion() {
+        int firstThreshold = 100;
+        int secondThreshold = 1000;
+        setupContext(Context.newBuilder().allowExperimentalOptions(true).option("engine.CompileImmediately", "false").option("engine.BackgroundCompilation", "false").option("engine.MultiTier",
+                        "true").option("engine.FirstTierInliningPolicy", "None").option("engine.Splitting", "false").option("engine.FirstTierCompilationThreshold",
+                                        String.valueOf(firstThreshold)).option("engine.CompilationThreshold", String.valueOf(secondThreshold)).option("engine.FirstTierAdaptivePromotion",
+                                                        "true").build());
+
+        MultiTierLoopBodyNode body = new MultiTierLoopBodyNode(firstThreshold);
+        final MultiTierWithLoopRootNode rootNode = new MultiTierWithLoopRootNode(body);
+        OptimizedCallTarget rootTarget = (OptimizedCallTarget) Truffle.getRuntime().createCallTarget(rootNode);
+
+        Assert.assertEquals("break:interpreter", rootTarget.call());
+        Assert.assertEquals("break:first-tier", rootTarget.call());
+        int calls = 0;
+        while (!"break:second-tier".equals(rootTarget.call())) {
+            calls++;
+            Assert.assertTrue("not promoted after " + calls + " calls", calls < secondThreshold / firstThreshold);
+        }
+        // the loop dominated call target leaves the first tier earlier than in testLoop
+        Assert.assertTrue(String.valueOf(rootNode.firstTierCallCount), rootNode.firstTierCallCount < 9);
+    }
+
 }
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.compiler.truffle.runtime.GraalTruffleRuntime;
+import org.graalvm.compiler.truffle.runtime.GraalTruffleRuntimeListener;
+import org.graalvm.compiler.truffle.runtime.OptimizedCallTarget;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.api.source.SourceSection;
+
+public class PersistentCompilationCacheTest extends TestWithPolyglotOptions {
+
+    private static final String CODE = "cached code";
+
+    private static final class SourceRootNode extends RootNode {
+
+        private final SourceSection sourceSection;
+
+        SourceRootNode(SourceSection sourceSection) {
+            super(null);
+            this.sourceSection = sourceSection;
+        }
+
+        @Override
+        public SourceSection getSourceSection() {
+            return sourceSection;
+        }
+
+        @Override
+        public String getName() {
+            return "cachedRoot";
+        }
+
+        @Override
+        public Object execute(VirtualFrame frame) {
+            return 42;
+        }
+    }
+
+    private static final class LookupListener implements GraalTruffleRuntimeListener {
+
+        final List<Boolean> lookups = new ArrayList<>();
+
+        @Override
+        public synchronized void onCompilationCacheLookup(OptimizedCallTarget target, boolean hit) {
+            lookups.add(hit);
+        }
+    }
+
+    private static OptimizedCallTarget createTarget() {
+        Source source = Source.newBuilder("test", CODE, "cached.test").build();
+        return (OptimizedCallTarget) GraalTruffleRuntime.getRuntime().createCallTarget(new SourceRootNode(source.createSection(1)));
+    }
+
+    private void setup(Path cacheFile, String compilationThreshold) {
+        setupContext("engine.CompileImmediately", "false",
+                        "engine.BackgroundCompilation", "false",
+                        "engine.MultiTier", "true",
+                        "engine.FirstTierCompilationThreshold", "10",
+                        "engine.CompilationThreshold", compilationThreshold,
+                        "engine.CompilationCacheFile", cacheFile.toString());
+    }
+
+    @Test
+    public void testHitAfterRestart() throws IOException {
+        Path cacheFile = Files.createTempFile("truffle-compilation-cache", ".txt");
+        Files.delete(cacheFile);
+        GraalTruffleRuntime runtime = GraalTruffleRuntime.getRuntime();
+        LookupListener listener = new LookupListener();
+        runtime.addListener(listener);
+        try {
+            setup(cacheFile, "100");
+            OptimizedCallTarget target = createTarget();
+            for (int i = 0; i < 200 && !target.isValidLastTier(); i++) {
+                target.call();
+            }
+            Assert.assertTrue(target.isValidLastTier());
+            Assert.assertEquals(1, listener.lookups.size());
+            Assert.assertFalse(listener.lookups.get(0));
+
+            // closing the engine persists the cache
+            setup(cacheFile, "100");
+            Assert.assertTrue(Files.exists(cacheFile));
+            listener.lookups.clear();
+
+            target = createTarget();
+            for (int i = 0; i < 20 && !target.isValid(); i++) {
+                target.call();
+            }
+            Assert.assertTrue(target.isValidLastTier());
+            Assert.assertEquals(1, listener.lookups.size());
+            Assert.assertTrue(listener.lookups.get(0));
+        } finally {
+            runtime.removeListener(listener);
+            cleanup();
+            Files.deleteIfExists(cacheFile);
+        }
+    }
+
+    @Test
+    public void testInvalidatedByOptions() throws IOException {
+        Path cacheFile = Files.createTempFile("truffle-compilation-cache", ".txt");
+        Files.delete(cacheFile);
+        GraalTruffleRuntime runtime = GraalTruffleRuntime.getRuntime();
+        LookupListener listener = new LookupListener();
+        runtime.addListener(listener);
+        try {
+            setup(cacheFile, "100");
+            OptimizedCallTarget target = createTarget();
+            for (int i = 0; i < 200 && !target.isValidLastTier(); i++) {
+                target.call();
+            }
+            Assert.assertTrue(target.isValidLastTier());
+
+            // a different compilation threshold invalidates the whole cache
+            setup(cacheFile, "150");
+            listener.lookups.clear();
+            target = createTarget();
+            for (int i = 0; i < 20 && !target.isValid(); i++) {
+                target.call();
+            }
+            Assert.assertTrue(target.isValid());
+            Assert.assertFalse(target.isValidLastTier());
+            Assert.assertEquals(1, listener.lookups.size());
+            Assert.assertFalse(listener.lookups.get(0));
+        } finally {
+            runtime.removeListener(listener);
+            cleanup();
+            Files.deleteIfExists(cacheFile);
+        }
+    }
+}
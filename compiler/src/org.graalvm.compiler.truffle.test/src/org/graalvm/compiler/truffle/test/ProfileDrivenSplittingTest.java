@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.compiler.truffle.runtime.GraalTruffleRuntimeListener;
+import org.graalvm.compiler.truffle.runtime.OptimizedCallTarget;
+import org.graalvm.compiler.truffle.runtime.OptimizedDirectCallNode;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.truffle.api.dsl.NodeChild;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.nodes.DirectCallNode;
+
+public class ProfileDrivenSplittingTest extends AbstractSplittingStrategyTest {
+
+    private ProfiledSplitListener profiledListener;
+
+    @Before
+    public void enableProfileDrivenSplitting() {
+        setupProfileDrivenContext("20000");
+    }
+
+    private void setupProfileDrivenContext(String budget) {
+        setupContext("engine.Compilation", "false",
+                        "engine.SplittingGrowthLimit", "2.0",
+                        "engine.SplittingProfileDriven", "true",
+                        "engine.SplittingProfileBudget", budget,
+                        // split failures are only reported to listeners when splits are traced
+                        "engine.TraceSplitting", "true");
+        createDummyTargetsToBoostGrowingSplitLimit();
+        if (profiledListener == null) {
+            profiledListener = new ProfiledSplitListener();
+            runtime.addListener(profiledListener);
+        }
+    }
+
+    @After
+    public void removeProfiledListener() {
+        runtime.removeListener(profiledListener);
+    }
+
+    @NodeChild
+    abstract static class TypeSpecializedNode extends SplittingTestNode {
+        @Specialization
+        static int doInt(int value) {
+            return value;
+        }
+
+        @Specialization
+        static String doString(String value) {
+            return value;
+        }
+    }
+
+    private OptimizedCallTarget createTypeSpecializedTarget() {
+        return (OptimizedCallTarget) runtime.createCallTarget(new SplittingTestRootNode(ProfileDrivenSplittingTestFactory.TypeSpecializedNodeGen.create(new ReturnsFirstArgumentNode())));
+    }
+
+    @Test
+    public void testSplitsMonomorphicCallSites() {
+        OptimizedCallTarget callTarget = createTypeSpecializedTarget();
+        DirectCallNode intCallNode = runtime.createDirectCallNode(callTarget);
+        DirectCallNode stringCallNode = runtime.createDirectCallNode(callTarget);
+        intCallNode.call(1);
+        intCallNode.call(2);
+        stringCallNode.call("a");
+        Assert.assertTrue("Target does not need split after the node went polymorphic", getNeedsSplit(callTarget));
+        stringCallNode.call("b");
+        Assert.assertTrue("Monomorphic call site of a polymorphic target is not split", stringCallNode.isCallTargetCloned());
+        intCallNode.call(3);
+        Assert.assertTrue("Monomorphic call site of a polymorphic target is not split", intCallNode.isCallTargetCloned());
+        Assert.assertEquals(2, profiledListener.estimatedBenefits.size());
+        for (double benefit : profiledListener.estimatedBenefits) {
+            Assert.assertTrue(String.valueOf(benefit), benefit > 0);
+        }
+    }
+
+    @Test
+    public void testDoesNotSplitPolymorphicCallSite() {
+        OptimizedCallTarget callTarget = createTypeSpecializedTarget();
+        // two callers for a target are needed
+        runtime.createDirectCallNode(callTarget);
+        DirectCallNode callNode = runtime.createDirectCallNode(callTarget);
+        callNode.call(1);
+        callNode.call(2);
+        callNode.call("a");
+        Assert.assertTrue("Target does not need split after the node went polymorphic", getNeedsSplit(callTarget));
+        callNode.call("b");
+        Assert.assertFalse("Call site that sees all types of the target is split", callNode.isCallTargetCloned());
+        Assert.assertEquals(1, profiledListener.estimatedBenefits.size());
+        Assert.assertEquals(0.0, profiledListener.estimatedBenefits.get(0), 0.0);
+        Assert.assertEquals(1, profiledListener.failures.size());
+    }
+
+    @Test
+    public void testBudget() {
+        setupProfileDrivenContext("0");
+        OptimizedCallTarget callTarget = createTypeSpecializedTarget();
+        DirectCallNode intCallNode = runtime.createDirectCallNode(callTarget);
+        DirectCallNode stringCallNode = runtime.createDirectCallNode(callTarget);
+        intCallNode.call(1);
+        intCallNode.call(2);
+        stringCallNode.call("a");
+        stringCallNode.call("b");
+        Assert.assertFalse("Split exceeds the profiled split budget", stringCallNode.isCallTargetCloned());
+        Assert.assertEquals(1, profiledListener.failures.size());
+        Assert.assertTrue(profiledListener.failures.get(0), profiledListener.failures.get(0).contains("budget"));
+    }
+
+    @Test
+    public void testSplitTargetTurnsPolymorphic() {
+        OptimizedCallTarget callTarget = createTypeSpecializedTarget();
+        DirectCallNode intCallNode = runtime.createDirectCallNode(callTarget);
+        DirectCallNode stringCallNode = runtime.createDirectCallNode(callTarget);
+        intCallNode.call(1);
+        intCallNode.call(2);
+        stringCallNode.call("a");
+        stringCallNode.call("b");
+        Assert.assertTrue(stringCallNode.isCallTargetCloned());
+        Assert.assertTrue(profiledListener.polymorphicSplitTargets.isEmpty());
+        stringCallNode.call(3);
+        Assert.assertEquals(1, profiledListener.polymorphicSplitTargets.size());
+        Assert.assertSame(stringCallNode.getClonedCallTarget(), profiledListener.polymorphicSplitTargets.get(0));
+    }
+
+    static class ProfiledSplitListener implements GraalTruffleRuntimeListener {
+
+        final List<Double> estimatedBenefits = new ArrayList<>();
+        final List<String> failures = new ArrayList<>();
+        final List<OptimizedCallTarget> polymorphicSplitTargets = new ArrayList<>();
+
+        @Override
+        public void onCompilationSplitEstimated(OptimizedDirectCallNode callNode, double estimatedBenefit, CharSequence typeProfile) {
+            estimatedBenefits.add(estimatedBenefit);
+        }
+
+        @Override
+        public void onCompilationSplitFailed(OptimizedDirectCallNode callNode, CharSequence reason) {
+            failures.add(reason.toString());
+        }
+
+        @Override
+        public void onCompilationSplitPolymorphic(OptimizedCallTarget splitTarget, double estimatedBenefit) {
+            polymorphicSplitTargets.add(splitTarget);
+        }
+    }
+}
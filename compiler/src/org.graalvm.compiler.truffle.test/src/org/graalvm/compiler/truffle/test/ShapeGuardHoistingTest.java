@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.test;
+
+import org.graalvm.compiler.nodes.FixedGuardNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.cfg.ControlFlowGraph;
+import org.graalvm.compiler.nodes.java.LoadFieldNode;
+import org.graalvm.compiler.truffle.test.nodes.AbstractTestNode;
+import org.graalvm.compiler.truffle.test.nodes.RootTestNode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.api.object.Shape;
+
+import jdk.vm.ci.meta.SpeculationLog;
+
+public class ShapeGuardHoistingTest extends PartialEvaluationTest {
+
+    static final class TestObject extends DynamicObject {
+        TestObject(Shape shape) {
+            super(shape);
+        }
+    }
+
+    static class ShapeCheckLoopNode extends AbstractTestNode {
+        @CompilationFinal private Shape cachedShape;
+        private final boolean callInLoop;
+
+        ShapeCheckLoopNode(Shape cachedShape, boolean callInLoop) {
+            this.cachedShape = cachedShape;
+            this.callInLoop = callInLoop;
+        }
+
+        @Override
+        public int execute(VirtualFrame frame) {
+            DynamicObject object = (DynamicObject) frame.getArguments()[0];
+            int n = (int) frame.getArguments()[1];
+            if (object == null) {
+                return 0;
+            }
+            int sum = 0;
+            for (int i = 0; i < n; i++) {
+                if (object.getShape() != cachedShape) {
+                    CompilerDirectives.transferToInterpreterAndInvalidate();
+                    cachedShape = object.getShape();
+                }
+                sum += i;
+                if (callInLoop) {
+                    sum += boundary(i);
+                }
+            }
+            return sum;
+        }
+
+        @TruffleBoundary
+        private static int boundary(int i) {
+            return i & 1;
+        }
+    }
+
+    private StructuredGraph partialEvalShapeCheckLoop(boolean callInLoop) {
+        Shape shape = Shape.newBuilder().build();
+        RootTestNode root = new RootTestNode(new FrameDescriptor(), "shapeCheckLoop", new ShapeCheckLoopNode(shape, callInLoop));
+        return partialEval(root, new TestObject(shape), 10);
+    }
+
+    private static boolean isShapeLoad(LoadFieldNode load) {
+        return load.field().getName().equals("shape") && load.field().getDeclaringClass().getName().equals("Lcom/oracle/truffle/api/object/DynamicObject;");
+    }
+
+    @Test
+    public void invariantShapeCheckIsHoisted() {
+        StructuredGraph graph = partialEvalShapeCheckLoop(false);
+        ControlFlowGraph cfg = ControlFlowGraph.compute(graph, true, true, false, false);
+        int shapeLoads = 0;
+        for (LoadFieldNode load : graph.getNodes().filter(LoadFieldNode.class)) {
+            if (isShapeLoad(load)) {
+                Assert.assertNull("shape load should be outside of the loop", cfg.blockFor(load).getLoop());
+                shapeLoads++;
+            }
+        }
+        Assert.assertEquals(1, shapeLoads);
+        boolean speculativeGuard = false;
+        for (FixedGuardNode guard : graph.getNodes().filter(FixedGuardNode.class)) {
+            if (guard.getSpeculation() != SpeculationLog.NO_SPECULATION) {
+                Assert.assertNull("hoisted guard should be outside of the loop", cfg.blockFor(guard).getLoop());
+                speculativeGuard = true;
+            }
+        }
+        Assert.assertTrue("expected a speculative shape guard", speculativeGuard);
+    }
+
+    @Test
+    public void shapeCheckWithCallInLoopIsNotHoisted() {
+        StructuredGraph graph = partialEvalShapeCheckLoop(true);
+        ControlFlowGraph cfg = ControlFlowGraph.compute(graph, true, true, false, false);
+        for (LoadFieldNode load : graph.getNodes().filter(LoadFieldNode.class)) {
+            if (isShapeLoad(load)) {
+                Assert.assertNotNull("shape load must stay in the loop", cfg.blockFor(load).getLoop());
+            }
+        }
+    }
+}
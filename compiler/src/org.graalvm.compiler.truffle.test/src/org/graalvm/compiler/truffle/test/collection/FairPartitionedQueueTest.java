@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.test.collection;
+
+import org.graalvm.compiler.truffle.runtime.collection.DelegatingBlockingQueue;
+import org.graalvm.compiler.truffle.runtime.collection.FairPartitionedQueue;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Comparator;
+
+public class FairPartitionedQueueTest {
+
+    private static FairPartitionedQueue<Integer> createQueue(Comparator<Integer> precedence) {
+        // Partition by thousands, weight by the value modulo 1000.
+        return new FairPartitionedQueue<>(x -> x / 1000, x -> x % 1000, precedence);
+    }
+
+    private static FairPartitionedQueue<Integer> createQueue() {
+        return createQueue((a, b) -> 0);
+    }
+
+    @Test
+    public void testNaturalOrderWithinPartition() {
+        FairPartitionedQueue<Integer> queue = createQueue();
+        queue.add(5);
+        queue.add(1);
+        queue.add(3);
+        Assert.assertEquals(3, queue.size());
+        Assert.assertEquals(3, queue.size(0));
+        Assert.assertEquals((Integer) 1, queue.poll());
+        Assert.assertEquals((Integer) 3, queue.poll());
+        Assert.assertEquals((Integer) 5, queue.poll());
+        Assert.assertNull(queue.poll());
+        Assert.assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testBusyPartitionDoesNotStarveOthers() {
+        FairPartitionedQueue<Integer> queue = createQueue();
+        for (int i = 0; i < 100; i++) {
+            queue.add(1999);
+        }
+        queue.add(2001);
+        queue.add(2002);
+        int polled = 0;
+        while (queue.size(2) > 0) {
+            queue.poll();
+            polled++;
+        }
+        // The heavy partition is served more often, but not exclusively.
+        Assert.assertTrue("polled " + polled, polled < 20);
+        Assert.assertEquals(102 - polled, queue.size(1));
+    }
+
+    @Test
+    public void testHeavierPartitionServedMoreOften() {
+        FairPartitionedQueue<Integer> queue = createQueue();
+        for (int i = 0; i < 100; i++) {
+            queue.add(1999);
+            queue.add(2001);
+        }
+        for (int i = 0; i < 100; i++) {
+            queue.poll();
+        }
+        Assert.assertTrue(queue.size(1) < queue.size(2));
+        Assert.assertTrue(queue.size(1) > 0);
+    }
+
+    @Test
+    public void testPrecedence() {
+        FairPartitionedQueue<Integer> queue = createQueue(Comparator.comparing(x -> x % 2));
+        for (int i = 0; i < 10; i++) {
+            queue.add(1001);
+        }
+        queue.add(2002);
+        queue.add(3004);
+        Assert.assertEquals((Integer) 2002, queue.poll());
+        Assert.assertEquals((Integer) 3004, queue.poll());
+        Assert.assertEquals((Integer) 1001, queue.poll());
+    }
+
+    @Test
+    public void testToArray() {
+        DelegatingBlockingQueue<Integer> queue = new DelegatingBlockingQueue<>(createQueue());
+        for (int i = 0; i < 10; i++) {
+            queue.add(i * 1000 + i);
+        }
+        Assert.assertEquals(10, queue.toArray().length);
+        Assert.assertEquals(10, queue.toArray(new Integer[0]).length);
+        queue.clear();
+        Assert.assertEquals(0, queue.size());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.virtual.bench;
+
+import org.graalvm.compiler.microbenchmarks.graal.GraalBenchmark;
+import org.graalvm.compiler.microbenchmarks.graal.util.GraalState;
+import org.graalvm.compiler.microbenchmarks.graal.util.GraphState;
+import org.graalvm.compiler.microbenchmarks.graal.util.MethodSpec;
+import org.graalvm.compiler.phases.common.CanonicalizerPhase;
+import org.graalvm.compiler.virtual.phases.ea.PartialEscapePhase;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Measures the compile time of the iterative {@link PartialEscapePhase}. Compare runs with
+ * {@code -Dgraal.IncrementalEffectsPhase=true} and {@code false} to see the effect of the
+ * incremental mode.
+ */
+public class PartialEscapePhaseBench extends GraalBenchmark {
+
+    static class Link {
+        final int value;
+        final Link next;
+
+        Link(int value, Link next) {
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    @MethodSpec(declaringClass = PartialEscapePhaseBench.class, name = "chainSnippet")
+    public static class Chain extends GraphState {
+    }
+
+    public static int chainSnippet(int a, int b, Object escape) {
+        Link n = new Link(a, new Link(b, new Link(a + b, null)));
+        int sum = 0;
+        for (Link current = n; current != null; current = current.next) {
+            sum += current.value;
+        }
+        if (sum == 0) {
+            return escape.hashCode();
+        }
+        return n.next.value + sum;
+    }
+
+    @MethodSpec(declaringClass = PartialEscapePhaseBench.class, name = "boxingSnippet")
+    public static class Boxing extends GraphState {
+    }
+
+    public static int boxingSnippet(int n) {
+        Integer sum = 0;
+        for (Integer i = 0; i < n; i++) {
+            if (i % 3 == 0) {
+                sum += i;
+            } else {
+                sum -= 1;
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public void chain(Chain s, GraalState g) {
+        new PartialEscapePhase(true, CanonicalizerPhase.create(), s.graph.getOptions()).apply(s.graph, g.providers);
+    }
+
+    @Benchmark
+    public void boxing(Boxing s, GraalState g) {
+        new PartialEscapePhase(true, CanonicalizerPhase.create(), s.graph.getOptions()).apply(s.graph, g.providers);
+    }
+}
@@ -28,15 +28,28 @@ import static org.graalvm.compiler.phases.common.DeadCodeEliminationPhase.Option
 
 import org.graalvm.collections.EconomicSet;
 import org.graalvm.compiler.core.common.util.CompilationAlarm;
+import org.graalvm.compiler.debug.CounterKey;
 import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.debug.GraalError;
 import org.graalvm.compiler.graph.Graph.NodeEventScope;
 import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.nodes.FixedNode;
+import org.graalvm.compiler.nodes.PhiNode;
+import org.graalvm.compiler.nodes.ProxyNode;
 import org.graalvm.compiler.nodes.StructuredGraph;
 import org.graalvm.compiler.nodes.StructuredGraph.ScheduleResult;
 import org.graalvm.compiler.nodes.cfg.ControlFlowGraph;
+import org.graalvm.compiler.nodes.memory.MemoryAccess;
 import org.graalvm.compiler.nodes.spi.CoreProviders;
+import org.graalvm.compiler.nodes.spi.Virtualizable;
+import org.graalvm.compiler.nodes.virtual.VirtualObjectNode;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.compiler.options.OptionKey;
+import org.graalvm.compiler.options.OptionType;
 import org.graalvm.compiler.phases.BasePhase;
 import org.graalvm.compiler.phases.common.CanonicalizerPhase;
+import org.graalvm.compiler.phases.common.CompilationBudget;
+import org.graalvm.compiler.phases.common.CompilationBudget.Degradation;
 import org.graalvm.compiler.phases.common.DeadCodeEliminationPhase;
 import org.graalvm.compiler.phases.common.util.EconomicSetNodeEventListener;
 import org.graalvm.compiler.phases.graph.ReentrantBlockIterator;
@@ -45,6 +58,18 @@ import org.graalvm.compiler.phases.schedule.SchedulePhase.SchedulingStrategy;
 
 public abstract class EffectsPhase<CoreProvidersT extends CoreProviders> extends BasePhase<CoreProvidersT> {
 
+    public static class Options {
+        //@formatter:off
+        @Option(help = "Stop iterating an effects phase as soon as an iteration and its cleanup changed no node " +
+                       "that the analysis depends on, instead of running another full iteration.", type = OptionType.Expert)
+        public static final OptionKey<Boolean> IncrementalEffectsPhase = new OptionKey<>(false);
+        @Option(help = "Verify that the iterations skipped by IncrementalEffectsPhase would not have changed the graph.", type = OptionType.Debug)
+        public static final OptionKey<Boolean> VerifyIncrementalEffectsPhase = new OptionKey<>(false);
+        //@formatter:on
+    }
+
+    private static final CounterKey IterationsSkipped = DebugContext.counter("EffectsPhaseIterationsSkipped");
+
     public abstract static class Closure<T> extends ReentrantBlockIterator.BlockIteratorClosure<T> {
 
         public abstract boolean hasChanged();
@@ -85,7 +110,11 @@ public abstract class EffectsPhase<CoreProvidersT extends CoreProviders> extends
         boolean changed = false;
         CompilationAlarm compilationAlarm = CompilationAlarm.current();
         DebugContext debug = graph.getDebug();
+        boolean incremental = Options.IncrementalEffectsPhase.getValue(graph.getOptions());
         for (int iteration = 0; iteration < maxIterations && !compilationAlarm.hasExpired(); iteration++) {
+            if (iteration > 0 && CompilationBudget.shouldDegrade(graph, Degradation.IterativeEffects)) {
+                break;
+            }
             try (DebugContext.Scope s = debug.scope(debug.areScopesEnabled() ? "iteration " + iteration : null)) {
                 ScheduleResult schedule;
                 ControlFlowGraph cfg;
@@ -101,6 +130,7 @@ public abstract class EffectsPhase<CoreProvidersT extends CoreProviders> extends
                     Closure<?> closure = createEffectsClosure(context, schedule, cfg);
                     ReentrantBlockIterator.apply(closure, cfg.getStartBlock());
 
+                    boolean analysisInputsChanged = true;
                     if (closure.needsApplyEffects()) {
                         // apply the effects collected during this iteration
                         EconomicSetNodeEventListener listener = new EconomicSetNodeEventListener();
@@ -114,7 +144,20 @@ public abstract class EffectsPhase<CoreProvidersT extends CoreProviders> extends
                             new DeadCodeEliminationPhase(Required).apply(graph);
                         }
 
-                        postIteration(graph, context, listener.getNodes());
+                        if (incremental) {
+                            /*
+                             * Both the effects and the cleanup can enable further effects, e.g.,
+                             * an allocation materialized at a loop phi can be virtualized again
+                             * in the next iteration.
+                             */
+                            EconomicSetNodeEventListener postListener = new EconomicSetNodeEventListener();
+                            try (NodeEventScope nes = graph.trackNodeEvents(postListener)) {
+                                postIteration(graph, context, listener.getNodes());
+                            }
+                            analysisInputsChanged = containsAnalysisInput(listener.getNodes()) || containsAnalysisInput(postListener.getNodes());
+                        } else {
+                            postIteration(graph, context, listener.getNodes());
+                        }
                     }
 
                     if (closure.hasChanged()) {
@@ -122,6 +165,13 @@ public abstract class EffectsPhase<CoreProvidersT extends CoreProviders> extends
                     } else {
                         break;
                     }
+                    if (!analysisInputsChanged && iteration + 1 < maxIterations) {
+                        IterationsSkipped.increment(debug);
+                        if (Options.VerifyIncrementalEffectsPhase.getValue(graph.getOptions())) {
+                            verifySkippedIteration(graph, context);
+                        }
+                        break;
+                    }
                 } catch (Throwable t) {
                     throw debug.handle(t);
                 }
@@ -130,6 +180,42 @@ public abstract class EffectsPhase<CoreProvidersT extends CoreProviders> extends
         return changed;
     }
 
+    /**
+     * Determines whether any of the given nodes changed by an iteration or by the cleanup after it
+     * can influence the result of the next iteration of the analysis.
+     */
+    protected boolean containsAnalysisInput(EconomicSet<Node> changedNodes) {
+        for (Node node : changedNodes) {
+            if (node instanceof FixedNode || node instanceof PhiNode || node instanceof ProxyNode || node instanceof MemoryAccess || node instanceof Virtualizable ||
+                            node instanceof VirtualObjectNode) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs the analysis once more without applying its effects and fails if it would have changed
+     * the graph.
+     */
+    private void verifySkippedIteration(StructuredGraph graph, CoreProvidersT context) {
+        ScheduleResult schedule;
+        ControlFlowGraph cfg;
+        if (unscheduled) {
+            schedule = null;
+            cfg = ControlFlowGraph.compute(graph, true, true, false, false);
+        } else {
+            new SchedulePhase(strategy).apply(graph, false);
+            schedule = graph.getLastSchedule();
+            cfg = schedule.getCFG();
+        }
+        Closure<?> closure = createEffectsClosure(context, schedule, cfg);
+        ReentrantBlockIterator.apply(closure, cfg.getStartBlock());
+        if (closure.hasChanged()) {
+            throw new GraalError("%s skipped an iteration that changes %s", getName(), graph);
+        }
+    }
+
     protected void postIteration(final StructuredGraph graph, final CoreProvidersT context, EconomicSet<Node> changedNodes) {
         if (canonicalizer != null) {
             canonicalizer.applyIncremental(graph, context, changedNodes);
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package micro.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares element-wise array copy loops with {@link System#arraycopy}. Run with
+ * {@code -Dgraal.ArrayCopyLoopIdiom=true} to compile the loops to arraycopy stubs.
+ */
+@State(Scope.Thread)
+public class ArrayCopyLoopBenchmark extends BenchmarkBase {
+
+    @Param({"16", "1024", "65536"}) public int size;
+
+    private int[] srcInts;
+    private int[] dstInts;
+    private byte[] srcBytes;
+    private byte[] dstBytes;
+
+    @Setup
+    public void setup() {
+        srcInts = new int[size];
+        dstInts = new int[size];
+        srcBytes = new byte[size];
+        dstBytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            srcInts[i] = i;
+            srcBytes[i] = (byte) i;
+        }
+    }
+
+    @Benchmark
+    public int[] intLoop() {
+        int[] src = srcInts;
+        int[] dst = dstInts;
+        int n = size;
+        for (int i = 0; i < n; i++) {
+            dst[i] = src[i];
+        }
+        return dst;
+    }
+
+    @Benchmark
+    public int[] intArraycopy() {
+        System.arraycopy(srcInts, 0, dstInts, 0, size);
+        return dstInts;
+    }
+
+    @Benchmark
+    public byte[] byteLoop() {
+        byte[] src = srcBytes;
+        byte[] dst = dstBytes;
+        int n = size;
+        for (int i = 0; i < n; i++) {
+            dst[i] = src[i];
+        }
+        return dst;
+    }
+
+    @Benchmark
+    public byte[] byteArraycopy() {
+        System.arraycopy(srcBytes, 0, dstBytes, 0, size);
+        return dstBytes;
+    }
+}
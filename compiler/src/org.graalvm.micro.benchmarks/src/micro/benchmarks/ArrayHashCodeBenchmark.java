@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package micro.benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the {@code Arrays.hashCode} methods on integral arrays. {@code String.hashCode}
+ * shares the same substitution but caches its result, so it is not measured directly.
+ */
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ArrayHashCodeBenchmark extends BenchmarkBase {
+
+    @State(Scope.Benchmark)
+    public static class BenchState {
+        @Param({"7", "64", "1024"}) int length;
+
+        byte[] bytes;
+        char[] chars;
+        short[] shorts;
+        int[] ints;
+
+        @Setup
+        public void setup() {
+            Random random = new Random(42);
+            bytes = new byte[length];
+            random.nextBytes(bytes);
+            chars = new char[length];
+            shorts = new short[length];
+            ints = new int[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) random.nextInt();
+                shorts[i] = (short) random.nextInt();
+                ints[i] = random.nextInt();
+            }
+        }
+    }
+
+    @Benchmark
+    public int hashBytes(BenchState state) {
+        return Arrays.hashCode(state.bytes);
+    }
+
+    @Benchmark
+    public int hashChars(BenchState state) {
+        return Arrays.hashCode(state.chars);
+    }
+
+    @Benchmark
+    public int hashShorts(BenchState state) {
+        return Arrays.hashCode(state.shorts);
+    }
+
+    @Benchmark
+    public int hashInts(BenchState state) {
+        return Arrays.hashCode(state.ints);
+    }
+}
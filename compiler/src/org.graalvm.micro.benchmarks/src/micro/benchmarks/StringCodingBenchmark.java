@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package micro.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks UTF-8 encoding and decoding of {@link String}s. The ASCII cases are dominated by
+ * {@code StringCoding.hasNegatives}. The scalar baseline can be measured by running with
+ * {@code -Dgraal.EmitStringSubstitutions=false}.
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StringCodingBenchmark extends BenchmarkBase {
+
+    @State(Scope.Benchmark)
+    public static class BenchState {
+        @Param({"16", "256", "4096"}) int length;
+
+        byte[] asciiBytes;
+        byte[] mixedBytes;
+        String asciiString;
+
+        @Setup
+        public void setup() {
+            asciiBytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                asciiBytes[i] = (byte) ('a' + i % 26);
+            }
+            asciiString = new String(asciiBytes, StandardCharsets.US_ASCII);
+            // a single two-byte character at the end defeats the ASCII fast path as late as
+            // possible
+            mixedBytes = Arrays.copyOf(asciiBytes, length + 1);
+            mixedBytes[length - 1] = (byte) 0xC3;
+            mixedBytes[length] = (byte) 0xA4;
+        }
+    }
+
+    @Benchmark
+    public String decodeAsciiUTF8(BenchState state) {
+        return new String(state.asciiBytes, StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String decodeMixedUTF8(BenchState state) {
+        return new String(state.mixedBytes, StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String decodeAsciiISO8859(BenchState state) {
+        return new String(state.asciiBytes, StandardCharsets.ISO_8859_1);
+    }
+
+    @Benchmark
+    public byte[] encodeAsciiUTF8(BenchState state) {
+        return state.asciiString.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -487,6 +487,21 @@ def native_unittests_task():
     # We need the -H:+EnableAllSecurityServices for com.oracle.svm.test.SecurityServiceTest
     native_unittest(['--build-args', _native_unittest_features, '-H:+EnableAllSecurityServices'])
 
+    # The default run above collects serially, this one in parallel
+    native_unittest(['com.oracle.svm.test.ParallelGCTest', '--build-args', '-H:+UseParallelGC', '-H:+VerifyHeapAfterCollection', '-R:ParallelGCThreads=4'])
+
+    # Heap configurations that the tests below skip unless they are enabled in the image
+    native_unittest(['com.oracle.svm.test.NumaAllocationTest', '--build-args', '--features=com.oracle.svm.test.NumaAllocationTest$TestFeature',
+                     '-H:+UseNumaAwareAllocation', '-R:NumaSimulatedNodes=4'])
+    native_unittest(['com.oracle.svm.test.AdaptiveCollectionPolicyTest', '--build-args', '--features=com.oracle.svm.test.AdaptiveCollectionPolicyTest$TestFeature',
+                     '-H:InitialCollectionPolicy=com.oracle.svm.core.genscavenge.AdaptiveCollectionPolicy', '-H:MaxSurvivorSpaces=4',
+                     '-R:MaxGCPauseMillis=1', '-R:GCTimeRatio=99', '-R:TargetSurvivorPercent=1'])
+    native_unittest(['com.oracle.svm.test.HeapCompactionStressTest', '--build-args', '--features=com.oracle.svm.test.HeapCompactionStressTest$TestFeature',
+                     '-H:+UseConcurrentMarking', '-H:+UseOldGenerationCompaction', '-H:+VerifyHeapAfterCollection', '-R:MaxHeapSize=256m', '-R:MaxNewSize=8m',
+                     '-R:ConcurrentMarkingInitiatingOccupancy=1', '-R:OldGenerationCompactionThreshold=1', '-R:UnusedChunkUncommitDelay=1'])
+    native_unittest(['com.oracle.svm.test.ConcurrentMarkingTest', '--build-args', '--features=com.oracle.svm.test.ConcurrentMarkingTest$TestFeature',
+                     '-H:+UseConcurrentMarking', '-H:+VerifyHeapAfterCollection', '-R:MaxHeapSize=256m', '-R:MaxNewSize=8m', '-R:ConcurrentMarkingInitiatingOccupancy=1'])
+
 
 def javac_image_command(javac_path):
     return [join(javac_path, 'javac'), "-proc:none", "-bootclasspath",
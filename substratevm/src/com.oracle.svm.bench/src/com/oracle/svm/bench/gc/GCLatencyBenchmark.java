@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.bench.gc;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Measures the distribution of the pauses that the application observes while the old generation
+ * is constantly mutated, for example to compare the default collector with
+ * {@code -H:+UseConcurrentMarking}.
+ *
+ * The benchmark keeps a large live set of binary trees in the old generation and replaces random
+ * trees at a steady rate, so that old objects die continuously and complete collections (or
+ * concurrent marking cycles) are needed to reclaim them. A probe thread repeatedly sleeps for a
+ * short period and records by how much it overslept; with a stop-the-world collector, these delays
+ * are dominated by the collection pauses. The benchmark prints percentiles of the observed delays
+ * together with the number of collections and their accumulated time.
+ *
+ * Usage: {@code gclatencybenchmark [live-set-MB] [seconds] [iterations]}.
+ */
+public final class GCLatencyBenchmark {
+    private static final int TREE_DEPTH = 12;
+    private static final long PROBE_INTERVAL_NANOS = 200_000L;
+    private static final int MAX_SAMPLES = 1 << 22;
+
+    static final class Node {
+        Node left;
+        Node right;
+        final int value;
+
+        Node(Node left, Node right, int value) {
+            this.left = left;
+            this.right = right;
+            this.value = value;
+        }
+    }
+
+    /** Records how much longer than requested each sleep took. */
+    static final class Probe extends Thread {
+        private final long[] delays = new long[MAX_SAMPLES];
+        private volatile boolean stop;
+        private int count;
+
+        Probe() {
+            super("GC Latency Probe");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (!stop && count < delays.length) {
+                long start = System.nanoTime();
+                LockSupport.parkNanos(PROBE_INTERVAL_NANOS);
+                long delay = System.nanoTime() - start - PROBE_INTERVAL_NANOS;
+                delays[count++] = Math.max(0, delay);
+            }
+        }
+
+        long[] finish() throws InterruptedException {
+            stop = true;
+            join();
+            long[] result = Arrays.copyOf(delays, count);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+
+    private GCLatencyBenchmark() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int liveSetMB = args.length > 0 ? Integer.parseInt(args[0]) : 512;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        for (int i = 0; i < iterations; i++) {
+            long[] countsBefore = collectionCounts();
+            long[] timesBefore = collectionTimes();
+            Probe probe = new Probe();
+            probe.start();
+            long checksum = run(liveSetMB, seconds * 1_000_000_000L);
+            report(i, probe.finish(), checksum, countsBefore, timesBefore);
+        }
+    }
+
+    private static long run(int liveSetMB, long durationNanos) {
+        long treeBytes = estimateTreeBytes();
+        int treeCount = (int) Math.max(1, liveSetMB * 1024L * 1024L / treeBytes);
+        Node[] trees = new Node[treeCount];
+        for (int i = 0; i < treeCount; i++) {
+            trees[i] = buildTree(TREE_DEPTH, i);
+        }
+
+        long checksum = 0;
+        long seed = 42;
+        long end = System.nanoTime() + durationNanos;
+        for (int step = 0; (step & 0xFF) != 0 || System.nanoTime() < end; step++) {
+            /* Short-lived garbage, which keeps the young generation busy. */
+            Node garbage = buildTree(6, step);
+            checksum += garbage.value;
+
+            /* Replace a random tree, so that old objects die all over the old generation. */
+            if (step % 8 == 0) {
+                seed = seed * 6364136223846793005L + 1442695040888963407L;
+                int index = (int) ((seed >>> 33) % treeCount);
+                trees[index] = buildTree(TREE_DEPTH, step);
+            }
+            /* Rewire some old objects, which exercises the write barriers of the old generation. */
+            if (step % 2 == 0) {
+                Node a = trees[step % treeCount];
+                Node b = trees[(step * 7) % treeCount];
+                Node tmp = a.left;
+                a.left = b.left;
+                b.left = tmp;
+            }
+        }
+        for (Node tree : trees) {
+            checksum += tree.value;
+        }
+        return checksum;
+    }
+
+    private static Node buildTree(int depth, int value) {
+        if (depth == 0) {
+            return new Node(null, null, value);
+        }
+        return new Node(buildTree(depth - 1, value), buildTree(depth - 1, value + 1), value);
+    }
+
+    private static long estimateTreeBytes() {
+        /* A node has two references and an int, which is about 32 bytes with the header. */
+        return ((1L << (TREE_DEPTH + 1)) - 1) * 32;
+    }
+
+    private static long[] collectionCounts() {
+        List<GarbageCollectorMXBean> beans = ManagementFactory.getGarbageCollectorMXBeans();
+        long[] result = new long[beans.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = beans.get(i).getCollectionCount();
+        }
+        return result;
+    }
+
+    private static long[] collectionTimes() {
+        List<GarbageCollectorMXBean> beans = ManagementFactory.getGarbageCollectorMXBeans();
+        long[] result = new long[beans.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = beans.get(i).getCollectionTime();
+        }
+        return result;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)];
+    }
+
+    private static void report(int iteration, long[] delays, long checksum, long[] countsBefore, long[] timesBefore) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("iteration ").append(iteration).append(": ").append(delays.length).append(" samples, delay us");
+        sb.append(" p50 ").append(percentile(delays, 0.50) / 1000);
+        sb.append(" p90 ").append(percentile(delays, 0.90) / 1000);
+        sb.append(" p99 ").append(percentile(delays, 0.99) / 1000);
+        sb.append(" p99.9 ").append(percentile(delays, 0.999) / 1000);
+        sb.append(" max ").append(delays.length == 0 ? 0 : delays[delays.length - 1] / 1000);
+        List<GarbageCollectorMXBean> beans = ManagementFactory.getGarbageCollectorMXBeans();
+        for (int i = 0; i < beans.size(); i++) {
+            GarbageCollectorMXBean bean = beans.get(i);
+            sb.append(", ").append(bean.getName()).append(": ");
+            sb.append(bean.getCollectionCount() - countsBefore[i]).append(" collections in ");
+            sb.append(bean.getCollectionTime() - timesBefore[i]).append(" ms");
+        }
+        sb.append(" (checksum ").append(checksum).append(')');
+        System.out.println(sb);
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.bench.gc;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Measures how collection times scale with the number of threads of the parallel collector.
+ *
+ * The benchmark keeps a live set of binary trees and arrays that is partially replaced while a
+ * stream of short-lived objects is allocated, so that both incremental and complete collections
+ * have to copy a significant amount of data. Build an image with {@code -H:+UseParallelGC} and run
+ * it repeatedly with different values of {@code -XX:ParallelGCThreads} (for example 1, 2, 4 and the
+ * number of processors). The benchmark prints the number of collections and the accumulated time
+ * of every collector, so the runs can be compared directly.
+ *
+ * Usage: {@code parallelgcbenchmark [live-set-MB] [allocated-MB] [iterations]}.
+ */
+public final class ParallelGCBenchmark {
+    private static final int TREE_DEPTH = 14;
+    private static final int ARRAY_LENGTH = 1024;
+
+    static final class Node {
+        Node left;
+        Node right;
+        final int value;
+
+        Node(Node left, Node right, int value) {
+            this.left = left;
+            this.right = right;
+            this.value = value;
+        }
+    }
+
+    private ParallelGCBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int liveSetMB = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        int allocatedMB = args.length > 1 ? Integer.parseInt(args[1]) : 4096;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        for (int i = 0; i < iterations; i++) {
+            long[] countsBefore = collectionCounts();
+            long[] timesBefore = collectionTimes();
+            long start = System.nanoTime();
+            long checksum = run(liveSetMB, allocatedMB);
+            long elapsed = System.nanoTime() - start;
+            report(i, elapsed, checksum, countsBefore, timesBefore);
+        }
+    }
+
+    private static long run(int liveSetMB, int allocatedMB) {
+        long treeBytes = estimateTreeBytes();
+        int treeCount = (int) Math.max(1, (liveSetMB * 1024L * 1024L / 2) / treeBytes);
+        int arrayCount = (int) Math.max(1, (liveSetMB * 1024L * 1024L / 2) / (ARRAY_LENGTH * 8L));
+        Node[] trees = new Node[treeCount];
+        long[][] arrays = new long[arrayCount][];
+        for (int i = 0; i < treeCount; i++) {
+            trees[i] = buildTree(TREE_DEPTH, i);
+        }
+        for (int i = 0; i < arrayCount; i++) {
+            arrays[i] = new long[ARRAY_LENGTH];
+        }
+
+        long checksum = 0;
+        long allocated = 0;
+        long limit = allocatedMB * 1024L * 1024L;
+        int step = 0;
+        while (allocated < limit) {
+            /* Short-lived garbage, which keeps the young generation busy. */
+            Node garbage = buildTree(8, step);
+            checksum += garbage.value;
+            allocated += 512 * 32;
+
+            /* Replace a part of the live set, so that old objects die and new ones get promoted. */
+            if (step % 16 == 0) {
+                int index = step % treeCount;
+                trees[index] = buildTree(TREE_DEPTH, step);
+                allocated += treeBytes;
+            }
+            if (step % 4 == 0) {
+                int index = (step * 31) % arrayCount;
+                long[] array = new long[ARRAY_LENGTH];
+                array[step % ARRAY_LENGTH] = step;
+                arrays[index] = array;
+                allocated += ARRAY_LENGTH * 8L;
+            }
+            step++;
+        }
+        for (Node tree : trees) {
+            checksum += tree.value;
+        }
+        for (long[] array : arrays) {
+            checksum += array.length;
+        }
+        return checksum;
+    }
+
+    private static Node buildTree(int depth, int value) {
+        if (depth == 0) {
+            return new Node(null, null, value);
+        }
+        return new Node(buildTree(depth - 1, value), buildTree(depth - 1, value + 1), value);
+    }
+
+    private static long estimateTreeBytes() {
+        /* A node has two references and an int, which is about 32 bytes with the header. */
+        return ((1L << (TREE_DEPTH + 1)) - 1) * 32;
+    }
+
+    private static long[] collectionCounts() {
+        List<GarbageCollectorMXBean> beans = ManagementFactory.getGarbageCollectorMXBeans();
+        long[] result = new long[beans.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = beans.get(i).getCollectionCount();
+        }
+        return result;
+    }
+
+    private static long[] collectionTimes() {
+        List<GarbageCollectorMXBean> beans = ManagementFactory.getGarbageCollectorMXBeans();
+        long[] result = new long[beans.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = beans.get(i).getCollectionTime();
+        }
+        return result;
+    }
+
+    private static void report(int iteration, long elapsedNanos, long checksum, long[] countsBefore, long[] timesBefore) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("iteration ").append(iteration).append(": ").append(elapsedNanos / 1_000_000).append(" ms");
+        List<GarbageCollectorMXBean> beans = ManagementFactory.getGarbageCollectorMXBeans();
+        for (int i = 0; i < beans.size(); i++) {
+            GarbageCollectorMXBean bean = beans.get(i);
+            sb.append(", ").append(bean.getName()).append(": ");
+            sb.append(bean.getCollectionCount() - countsBefore[i]).append(" collections in ");
+            sb.append(bean.getCollectionTime() - timesBefore[i]).append(" ms");
+        }
+        sb.append(" (checksum ").append(checksum).append(')');
+        System.out.println(sb);
+    }
+}
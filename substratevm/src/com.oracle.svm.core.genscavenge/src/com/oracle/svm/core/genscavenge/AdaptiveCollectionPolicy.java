@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.genscavenge;
+
+import static com.oracle.svm.core.genscavenge.HeapPolicy.getMaximumHeapSize;
+import static com.oracle.svm.core.genscavenge.HeapPolicy.getMinimumHeapSize;
+
+import org.graalvm.word.UnsignedWord;
+import org.graalvm.word.WordFactory;
+
+import com.oracle.svm.core.log.Log;
+import com.oracle.svm.core.util.TimeUtils;
+import com.oracle.svm.core.util.UnsignedUtils;
+import com.oracle.svm.core.util.VMError;
+
+/**
+ * A collection policy that sizes the young generation to meet a pause time goal and a goal for the
+ * fraction of time spent in collections, see {@link CollectionPolicy.Options#MaxGCPauseMillis} and
+ * {@link CollectionPolicy.Options#GCTimeRatio}.
+ *
+ * The time of an incremental collection mostly depends on the amount of surviving objects, which
+ * grows with the size of the young generation, while the frequency of incremental collections
+ * shrinks with it. After each incremental collection, the policy shrinks the young generation if
+ * the (decaying) average pause exceeds the goal, and grows it if too much time is spent in
+ * collections and the expected pause still meets the goal. The size always stays within the bounds
+ * of {@link HeapPolicy#getMaximumYoungGenerationSize()}.
+ *
+ * With survivor spaces, objects are also promoted by occupancy: if the survivor spaces hold more
+ * than {@link CollectionPolicy.Options#TargetSurvivorPercent} of the young generation, the tenuring
+ * threshold is lowered to the age at which that budget is exceeded, so that older objects are
+ * promoted to the old generation instead of being copied again.
+ *
+ * Complete collections are started when the old generation has grown to twice its size after the
+ * last complete collection, but not before the heap is at least {@code -Xms}, or when the next
+ * incremental collection might exceed the maximum heap size.
+ */
+public final class AdaptiveCollectionPolicy extends CollectionPolicy {
+    /** Weight of the most recent sample in the decaying averages, in percent. */
+    private static final int AVERAGE_WEIGHT_PERCENT = 25;
+    /** The young generation never shrinks below this number of aligned chunks. */
+    private static final int MIN_YOUNG_GENERATION_CHUNKS = 4;
+    /** Growing or shrinking is limited to this factor per collection to avoid oscillation. */
+    private static final double MAX_RESIZE_FACTOR = 2.0;
+
+    private UnsignedWord youngGenerationSize = WordFactory.zero();
+    private int tenuringThreshold = HeapPolicy.getMaxSurvivorSpaces();
+    private UnsignedWord oldGenerationSizeAfterCompleteCollection = WordFactory.zero();
+
+    private double averageIncrementalPauseNanos;
+    private double averageCompletePauseNanos;
+    private double averageGCTimeFraction;
+    private boolean averagesInitialized;
+
+    private long youngGenerationGrowCount;
+    private long youngGenerationShrinkCount;
+
+    @Override
+    public boolean collectIncrementally() {
+        return true;
+    }
+
+    @Override
+    public boolean collectCompletely() {
+        UnsignedWord oldBytes = getAccounting().getOldGenerationAfterChunkBytes();
+        UnsignedWord currentYoungBytes = HeapImpl.getHeapImpl().getYoungGeneration().getChunkBytes();
+        UnsignedWord estimatedHeapAtNextIncrementalCollection = currentYoungBytes.add(getDesiredYoungGenerationSize()).add(oldBytes);
+        if (estimatedHeapAtNextIncrementalCollection.aboveThan(getMaximumHeapSize())) {
+            return true;
+        }
+        if (GCImpl.getChunkBytes().belowOrEqual(getMinimumHeapSize())) {
+            return false;
+        }
+        return oldBytes.aboveThan(oldGenerationSizeAfterCompleteCollection.multiply(2));
+    }
+
+    @Override
+    public UnsignedWord getDesiredYoungGenerationSize() {
+        UnsignedWord max = HeapPolicy.getMaximumYoungGenerationSize();
+        if (youngGenerationSize.equal(0) || youngGenerationSize.aboveThan(max)) {
+            /* Start at the size that the other policies use, the maximum. */
+            return max;
+        }
+        return youngGenerationSize;
+    }
+
+    @Override
+    public int getTenuringThreshold() {
+        return tenuringThreshold;
+    }
+
+    public long getAverageIncrementalPauseNanos() {
+        return (long) averageIncrementalPauseNanos;
+    }
+
+    public long getAverageCompletePauseNanos() {
+        return (long) averageCompletePauseNanos;
+    }
+
+    /** The decaying average of the time spent in collections, in percent of the elapsed time. */
+    public int getGCTimePercent() {
+        return (int) (averageGCTimeFraction * 100);
+    }
+
+    public long getYoungGenerationGrowCount() {
+        return youngGenerationGrowCount;
+    }
+
+    public long getYoungGenerationShrinkCount() {
+        return youngGenerationShrinkCount;
+    }
+
+    @Override
+    void onCollectionEnd(boolean completeCollection, long collectionNanos, long mutatorNanos) {
+        updateAverages(completeCollection, collectionNanos, mutatorNanos);
+        if (completeCollection) {
+            oldGenerationSizeAfterCompleteCollection = UnsignedUtils.max(getAccounting().getOldGenerationAfterChunkBytes(), getMinimumHeapSize().unsignedDivide(2));
+        } else {
+            resizeYoungGeneration();
+            updateTenuringThreshold();
+        }
+        HeapImpl.getHeapImpl().getYoungGeneration().setTenuringThreshold(tenuringThreshold);
+    }
+
+    private void updateAverages(boolean completeCollection, long collectionNanos, long mutatorNanos) {
+        double gcTimeFraction = (collectionNanos + mutatorNanos) > 0 ? (double) collectionNanos / (collectionNanos + mutatorNanos) : 0;
+        if (!averagesInitialized) {
+            averageGCTimeFraction = gcTimeFraction;
+            averagesInitialized = true;
+        } else {
+            averageGCTimeFraction = decayingAverage(averageGCTimeFraction, gcTimeFraction);
+        }
+        if (completeCollection) {
+            averageCompletePauseNanos = (averageCompletePauseNanos == 0) ? collectionNanos : decayingAverage(averageCompletePauseNanos, collectionNanos);
+        } else {
+            averageIncrementalPauseNanos = (averageIncrementalPauseNanos == 0) ? collectionNanos : decayingAverage(averageIncrementalPauseNanos, collectionNanos);
+        }
+    }
+
+    private static double decayingAverage(double average, double sample) {
+        return (average * (100 - AVERAGE_WEIGHT_PERCENT) + sample * AVERAGE_WEIGHT_PERCENT) / 100;
+    }
+
+    private void resizeYoungGeneration() {
+        double pauseGoalNanos = getPauseGoalNanos();
+        double gcTimeGoal = getGCTimeGoal();
+        UnsignedWord current = getDesiredYoungGenerationSize();
+
+        double factor = 1.0;
+        if (averageIncrementalPauseNanos > pauseGoalNanos) {
+            /* Assume that the pause scales with the size of the young generation. */
+            factor = Math.max(1 / MAX_RESIZE_FACTOR, pauseGoalNanos / averageIncrementalPauseNanos);
+        } else if (averageGCTimeFraction > gcTimeGoal) {
+            /* Grow, but only as far as the expected pause still meets the goal. */
+            factor = Math.min(MAX_RESIZE_FACTOR, averageGCTimeFraction / gcTimeGoal);
+            if (averageIncrementalPauseNanos > 0) {
+                factor = Math.min(factor, pauseGoalNanos / averageIncrementalPauseNanos);
+            }
+        }
+        if (factor == 1.0) {
+            return;
+        }
+
+        UnsignedWord chunkSize = HeapPolicy.getAlignedHeapChunkSize();
+        UnsignedWord min = chunkSize.multiply(MIN_YOUNG_GENERATION_CHUNKS);
+        /* Leave room for at least the minimum eden next to the objects that survived. */
+        min = UnsignedUtils.max(min, getAccounting().getYoungChunkBytesAfter().add(chunkSize.multiply(MIN_YOUNG_GENERATION_CHUNKS)));
+        UnsignedWord max = HeapPolicy.getMaximumYoungGenerationSize();
+
+        UnsignedWord size = UnsignedUtils.roundUp(WordFactory.unsigned((long) (current.rawValue() * factor)), chunkSize);
+        size = UnsignedUtils.min(UnsignedUtils.max(size, min), max);
+        if (size.aboveThan(current)) {
+            youngGenerationGrowCount++;
+        } else if (size.belowThan(current)) {
+            youngGenerationShrinkCount++;
+        }
+        youngGenerationSize = size;
+    }
+
+    /**
+     * Sets the tenuring threshold to the lowest age at which the survivor spaces exceed their share
+     * of the young generation, or to the number of survivor spaces if they do not.
+     */
+    private void updateTenuringThreshold() {
+        int maxSurvivorSpaces = HeapPolicy.getMaxSurvivorSpaces();
+        if (maxSurvivorSpaces == 0) {
+            return;
+        }
+        int targetSurvivorPercent = Options.TargetSurvivorPercent.getValue();
+        VMError.guarantee(targetSurvivorPercent >= 0 && targetSurvivorPercent <= 100, "TargetSurvivorPercent should be in [0 ..100]");
+        UnsignedWord survivorBudget = getDesiredYoungGenerationSize().unsignedDivide(100).multiply(targetSurvivorPercent);
+
+        int threshold = maxSurvivorSpaces;
+        UnsignedWord survivorBytes = WordFactory.zero();
+        for (int i = 0; i < maxSurvivorSpaces; i++) {
+            /* After the space flip, the survivors of this collection are in the from-spaces. */
+            survivorBytes = survivorBytes.add(GCAccounting.getSurvivorSpaceAfterChunkBytes(i));
+            if (survivorBytes.aboveThan(survivorBudget)) {
+                threshold = i + 1;
+                break;
+            }
+        }
+        tenuringThreshold = threshold;
+    }
+
+    private static double getPauseGoalNanos() {
+        int maxPauseMillis = Options.MaxGCPauseMillis.getValue();
+        VMError.guarantee(maxPauseMillis > 0, "MaxGCPauseMillis should be positive");
+        return (double) maxPauseMillis * TimeUtils.nanosPerMilli;
+    }
+
+    private static double getGCTimeGoal() {
+        int ratio = Options.GCTimeRatio.getValue();
+        VMError.guarantee(ratio > 0, "GCTimeRatio should be positive");
+        return 1.0 / (1 + ratio);
+    }
+
+    @Override
+    public void nameToLog(Log log) {
+        log.string(getName()).string(": pause goal ").signed(Options.MaxGCPauseMillis.getValue()).string(" ms, GC time ratio ").signed(Options.GCTimeRatio.getValue());
+    }
+
+    @Override
+    public String getName() {
+        return "adaptive";
+    }
+
+    /** Logs the current decisions of the policy, for {@code +VerboseGC}. */
+    void logDecisions(Log log) {
+        log.string("  young generation goal: ").unsigned(getDesiredYoungGenerationSize())
+                        .string("  tenuring threshold: ").signed(tenuringThreshold)
+                        .string("  average pause: ").signed(getAverageIncrementalPauseNanos()).string(" ns")
+                        .string("  GC time: ").signed(getGCTimePercent()).string("%");
+    }
+}
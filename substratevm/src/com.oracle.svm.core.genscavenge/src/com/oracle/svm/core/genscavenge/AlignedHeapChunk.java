@@ -31,8 +31,10 @@ import org.graalvm.compiler.word.Word;
 import org.graalvm.nativeimage.ImageSingletons;
 import org.graalvm.nativeimage.Platform;
 import org.graalvm.nativeimage.Platforms;
+import org.graalvm.nativeimage.c.struct.RawField;
 import org.graalvm.nativeimage.c.struct.RawStructure;
 import org.graalvm.nativeimage.c.struct.SizeOf;
+import org.graalvm.nativeimage.c.struct.UniqueLocationIdentity;
 import org.graalvm.nativeimage.hosted.Feature;
 import org.graalvm.word.Pointer;
 import org.graalvm.word.UnsignedWord;
@@ -92,6 +94,27 @@ public final class AlignedHeapChunk {
      */
     @RawStructure
     public interface AlignedHeader extends HeapChunk.Header<AlignedHeader> {
+        /**
+         * The NUMA node that the memory of this chunk was bound to, or 0 if
+         * {@linkplain NumaAllocation NUMA-aware allocation} is disabled.
+         */
+        @RawField
+        @UniqueLocationIdentity
+        int getNumaNode();
+
+        @RawField
+        @UniqueLocationIdentity
+        void setNumaNode(int node);
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    static int getNumaNode(AlignedHeader that) {
+        return that.getNumaNode();
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    static void setNumaNode(AlignedHeader that, int node) {
+        that.setNumaNode(node);
     }
 
     static Pointer getCardTableStart(AlignedHeader that) {
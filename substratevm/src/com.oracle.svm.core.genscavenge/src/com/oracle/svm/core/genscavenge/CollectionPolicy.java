@@ -48,6 +48,15 @@ public abstract class CollectionPolicy {
 
         @Option(help = "Percentage of total collection time that should be spent on young generation collections.")//
         public static final RuntimeOptionKey<Integer> PercentTimeInIncrementalCollection = new RuntimeOptionKey<>(50);
+
+        @Option(help = "The goal for the maximum pause of an incremental collection in milliseconds, used by the adaptive collection policy.")//
+        public static final RuntimeOptionKey<Integer> MaxGCPauseMillis = new RuntimeOptionKey<>(20);
+
+        @Option(help = "The goal for the ratio of mutator time to collection time, used by the adaptive collection policy (19: 5% of the time in collections).")//
+        public static final RuntimeOptionKey<Integer> GCTimeRatio = new RuntimeOptionKey<>(19);
+
+        @Option(help = "Percentage of the young generation size that survivor spaces may occupy before the adaptive collection policy promotes objects at a lower age.")//
+        public static final RuntimeOptionKey<Integer> TargetSurvivorPercent = new RuntimeOptionKey<>(50);
     }
 
     @Platforms(Platform.HOSTED_ONLY.class)
@@ -82,6 +91,23 @@ public abstract class CollectionPolicy {
     CollectionPolicy() {
     }
 
+    /**
+     * Called at the end of every collection, after {@link GCAccounting} has been updated, with the
+     * duration of the collection and of the mutator interval before it.
+     */
+    void onCollectionEnd(boolean completeCollection, long collectionNanos, long mutatorNanos) {
+    }
+
+    /** The size of the young generation at which an incremental collection is started. */
+    public UnsignedWord getDesiredYoungGenerationSize() {
+        return HeapPolicy.getMaximumYoungGenerationSize();
+    }
+
+    /** Objects in survivor spaces of this age or older are promoted to the old generation. */
+    public int getTenuringThreshold() {
+        return HeapPolicy.getMaxSurvivorSpaces();
+    }
+
     public abstract void nameToLog(Log log);
 
     public abstract String getName();
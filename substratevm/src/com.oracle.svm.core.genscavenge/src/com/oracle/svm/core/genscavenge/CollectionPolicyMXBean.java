@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.genscavenge;
+
+//Checkstyle: stop
+import java.lang.management.ManagementFactory;
+
+import com.sun.management.GarbageCollectorMXBean;
+//Checkstyle: resume
+
+/**
+ * The {@link GarbageCollectorMXBean} of complete collections, which also reports the current
+ * decisions of the {@link CollectionPolicy}. These attributes are available via
+ * {@link ManagementFactory#getPlatformMXBeans(Class)} and, like the attributes of all platform
+ * beans, via the {@linkplain ManagementFactory#getPlatformMBeanServer() platform MBean server} if
+ * the methods of this interface are registered for reflection.
+ */
+public interface CollectionPolicyMXBean extends GarbageCollectorMXBean {
+
+    /** The name of the collection policy that makes the decisions below. */
+    String getCollectionPolicyName();
+
+    /** The young generation size in bytes at which the next incremental collection starts. */
+    long getYoungGenerationSizeGoal();
+
+    /** The survivor space age at which objects are promoted to the old generation. */
+    int getTenuringThreshold();
+
+    /**
+     * The average pause of incremental collections in milliseconds. For the adaptive policy, this
+     * is the decaying average that it compares with its pause goal.
+     */
+    long getAverageIncrementalPauseMillis();
+
+    /** How often the adaptive policy grew the young generation, 0 for other policies. */
+    long getYoungGenerationGrowCount();
+
+    /** How often the adaptive policy shrank the young generation, 0 for other policies. */
+    long getYoungGenerationShrinkCount();
+}
@@ -42,7 +42,7 @@ import com.sun.management.GcInfo;
 import sun.management.Util;
 //Checkstyle: resume
 
-public final class CompleteGarbageCollectorMXBean implements com.sun.management.GarbageCollectorMXBean, NotificationEmitter {
+public final class CompleteGarbageCollectorMXBean implements CollectionPolicyMXBean, NotificationEmitter {
 
     @Platforms(Platform.HOSTED_ONLY.class)
     public CompleteGarbageCollectorMXBean() {
@@ -102,4 +102,42 @@ public final class CompleteGarbageCollectorMXBean implements com.sun.management.
     public GcInfo getLastGcInfo() {
         return null;
     }
+
+    @Override
+    public String getCollectionPolicyName() {
+        return HeapImpl.getHeapImpl().getGCImpl().getPolicy().getName();
+    }
+
+    @Override
+    public long getYoungGenerationSizeGoal() {
+        return HeapImpl.getHeapImpl().getGCImpl().getPolicy().getDesiredYoungGenerationSize().rawValue();
+    }
+
+    @Override
+    public int getTenuringThreshold() {
+        return HeapImpl.getHeapImpl().getGCImpl().getPolicy().getTenuringThreshold();
+    }
+
+    @Override
+    public long getAverageIncrementalPauseMillis() {
+        CollectionPolicy policy = HeapImpl.getHeapImpl().getGCImpl().getPolicy();
+        if (policy instanceof AdaptiveCollectionPolicy) {
+            return TimeUtils.roundNanosToMillis(((AdaptiveCollectionPolicy) policy).getAverageIncrementalPauseNanos());
+        }
+        GCAccounting accounting = HeapImpl.getHeapImpl().getGCImpl().getAccounting();
+        long count = accounting.getIncrementalCollectionCount();
+        return count == 0 ? 0 : TimeUtils.roundNanosToMillis(accounting.getIncrementalCollectionTotalNanos() / count);
+    }
+
+    @Override
+    public long getYoungGenerationGrowCount() {
+        CollectionPolicy policy = HeapImpl.getHeapImpl().getGCImpl().getPolicy();
+        return (policy instanceof AdaptiveCollectionPolicy) ? ((AdaptiveCollectionPolicy) policy).getYoungGenerationGrowCount() : 0;
+    }
+
+    @Override
+    public long getYoungGenerationShrinkCount() {
+        CollectionPolicy policy = HeapImpl.getHeapImpl().getGCImpl().getPolicy();
+        return (policy instanceof AdaptiveCollectionPolicy) ? ((AdaptiveCollectionPolicy) policy).getYoungGenerationShrinkCount() : 0;
+    }
 }
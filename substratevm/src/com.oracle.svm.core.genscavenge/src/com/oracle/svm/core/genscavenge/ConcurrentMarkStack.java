@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.genscavenge;
+
+import org.graalvm.compiler.api.replacements.Fold;
+import org.graalvm.nativeimage.ImageSingletons;
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+import org.graalvm.nativeimage.impl.UnmanagedMemorySupport;
+import org.graalvm.word.Pointer;
+import org.graalvm.word.WordFactory;
+
+import com.oracle.svm.core.annotate.Uninterruptible;
+
+/**
+ * The stack of marked objects whose references still need to be visited by the concurrent marker,
+ * see {@link ConcurrentMarking}. An entry consists of an object and the index of the first array
+ * element that remains to be scanned, so that large object arrays are scanned in slices.
+ *
+ * The stack has a fixed capacity and lives in unmanaged memory, which is allocated at the start of
+ * a cycle. When it is full, {@link #push} fails and the caller leaves the object grey in the
+ * {@link ConcurrentMarkTable} instead, so no growing is needed in uninterruptible code. Only one
+ * thread uses the stack at a time: the marker between collections, the collector during a pause.
+ */
+final class ConcurrentMarkStack {
+    /** Maximum number of entries. */
+    static final int CAPACITY = 64 * 1024;
+
+    private Pointer entries;
+    private int size;
+
+    /* The entry that was popped last. */
+    private Pointer poppedObject;
+    private int poppedIndex;
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    ConcurrentMarkStack() {
+    }
+
+    @Fold
+    static int entrySize() {
+        return 2 * ConcurrentMarkTable.wordSize();
+    }
+
+    /** Returns false if the memory for the stack could not be allocated. */
+    boolean allocate() {
+        if (entries.isNull()) {
+            entries = ImageSingletons.lookup(UnmanagedMemorySupport.class).malloc(WordFactory.unsigned(CAPACITY).multiply(entrySize()));
+        }
+        size = 0;
+        return entries.isNonNull();
+    }
+
+    void free() {
+        if (entries.isNonNull()) {
+            ImageSingletons.lookup(UnmanagedMemorySupport.class).free(entries);
+            entries = WordFactory.nullPointer();
+        }
+        size = 0;
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Returns false if the stack is full. */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    boolean push(Pointer obj, int index) {
+        if (size >= CAPACITY) {
+            return false;
+        }
+        Pointer entry = entries.add(WordFactory.unsigned(size).multiply(entrySize()));
+        entry.writeWord(0, obj);
+        entry.writeWord(ConcurrentMarkTable.wordSize(), WordFactory.unsigned(index));
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes the entry that was pushed last and makes it available via {@link #getPoppedObject}
+     * and {@link #getPoppedIndex}. Returns false if the stack is empty.
+     */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    boolean pop() {
+        if (size == 0) {
+            return false;
+        }
+        size--;
+        Pointer entry = entries.add(WordFactory.unsigned(size).multiply(entrySize()));
+        poppedObject = entry.readWord(0);
+        poppedIndex = (int) entry.readWord(ConcurrentMarkTable.wordSize()).rawValue();
+        return true;
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    Pointer getPoppedObject() {
+        return poppedObject;
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    int getPoppedIndex() {
+        return poppedIndex;
+    }
+
+    /** Drops all entries, e.g., when a cycle is aborted. */
+    void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,506 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.genscavenge;
+
+import org.graalvm.compiler.api.replacements.Fold;
+import org.graalvm.nativeimage.ImageSingletons;
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+import org.graalvm.nativeimage.impl.UnmanagedMemorySupport;
+import org.graalvm.word.LocationIdentity;
+import org.graalvm.word.Pointer;
+import org.graalvm.word.UnsignedWord;
+import org.graalvm.word.WordFactory;
+
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.config.ConfigurationValues;
+import com.oracle.svm.core.genscavenge.AlignedHeapChunk.AlignedHeader;
+import com.oracle.svm.core.genscavenge.UnalignedHeapChunk.UnalignedHeader;
+import com.oracle.svm.core.jdk.UninterruptibleUtils.AtomicInteger;
+import com.oracle.svm.core.thread.VMOperation;
+import com.oracle.svm.core.util.PointerUtils;
+
+/**
+ * Mark bitmaps for the chunks of the old generation that take part in a concurrent marking cycle,
+ * see {@link ConcurrentMarking}.
+ *
+ * The table is built during the initial mark pause and records the top of each old generation
+ * chunk at that point. Only objects below that <em>top at mark start</em> are subject to marking:
+ * objects that are promoted during the cycle are implicitly live, and so is everything that is not
+ * covered by the table, such as young objects and objects in the image heap.
+ *
+ * Each chunk has a mark bitmap and a grey bitmap with one bit per unit of object alignment (an
+ * unaligned chunk only uses the first bit). Grey bits record marked objects that still need to be
+ * scanned. They are set by the write barrier of mutator threads, which must neither block nor
+ * allocate, and by the marker when its stack overflows. The marker claims them in
+ * {@link #drainGrey}, which works through the table in bounded increments.
+ *
+ * Entries also hold the state of an {@link OldGenerationCompaction} at the end of the cycle.
+ *
+ * Entries are kept in an open addressing hash table that is keyed by the chunk address and lives in
+ * unmanaged memory, so that it can be used from uninterruptible code and is not scanned by the
+ * collector.
+ */
+final class ConcurrentMarkTable {
+    /* Entry layout, in words. */
+    private static final int CHUNK = 0;
+    private static final int OBJECTS_START = 1;
+    private static final int TOP_AT_MARK_START = 2;
+    private static final int MARK_BITS = 3;
+    private static final int GREY_BITS = 4;
+    private static final int BITMAP_WORDS = 5;
+    private static final int ALIGNED = 6;
+    private static final int HAS_GREY = 7;
+    private static final int COMPACTION_STATE = 8;
+    private static final int BLOCK_TABLE = 9;
+    private static final int NEW_TOP = 10;
+    private static final int ENTRY_WORDS = 11;
+
+    /* Values of the compaction state. */
+    static final int NOT_COMPACTED = 0;
+    static final int PINNED = 1;
+    static final int COMPACTED = 2;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final AtomicInteger greyPending = new AtomicInteger(0);
+
+    /* Position of a pass of drainGrey that has not reached the end of the table yet. */
+    private boolean draining;
+    private int drainEntry;
+    private UnsignedWord drainWord = WordFactory.zero();
+
+    private Pointer entries;
+    private Pointer bitmaps;
+    private int capacity;
+    private int count;
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    ConcurrentMarkTable() {
+    }
+
+    @Fold
+    static int wordSize() {
+        return ConfigurationValues.getTarget().wordSize;
+    }
+
+    @Fold
+    static int bitsPerWord() {
+        return wordSize() * Byte.SIZE;
+    }
+
+    @Fold
+    static int alignmentShift() {
+        return Integer.numberOfTrailingZeros(ConfigurationValues.getObjectLayout().getAlignment());
+    }
+
+    boolean isBuilt() {
+        return entries.isNonNull();
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * Creates entries for all chunks of the given space. Returns false if the memory for the table
+     * could not be allocated, in which case no cycle can be started.
+     */
+    boolean build(Space space) {
+        assert VMOperation.isGCInProgress() && !isBuilt();
+        int chunks = 0;
+        UnsignedWord bitmapWords = WordFactory.zero();
+        for (AlignedHeader chunk = space.getFirstAlignedHeapChunk(); chunk.isNonNull(); chunk = HeapChunk.getNext(chunk)) {
+            chunks++;
+            bitmapWords = bitmapWords.add(alignedBitmapWords(chunk));
+        }
+        for (UnalignedHeader chunk = space.getFirstUnalignedHeapChunk(); chunk.isNonNull(); chunk = HeapChunk.getNext(chunk)) {
+            chunks++;
+            bitmapWords = bitmapWords.add(1);
+        }
+
+        int newCapacity = MIN_CAPACITY;
+        while (newCapacity < 2 * chunks) {
+            newCapacity *= 2;
+        }
+        UnmanagedMemorySupport memory = ImageSingletons.lookup(UnmanagedMemorySupport.class);
+        Pointer newEntries = memory.calloc(WordFactory.unsigned(newCapacity).multiply(ENTRY_WORDS * wordSize()));
+        Pointer newBitmaps = memory.calloc(bitmapWords.add(1).multiply(2 * wordSize()));
+        if (newEntries.isNull() || newBitmaps.isNull()) {
+            memory.free(newEntries);
+            memory.free(newBitmaps);
+            return false;
+        }
+        entries = newEntries;
+        bitmaps = newBitmaps;
+        capacity = newCapacity;
+        count = 0;
+        greyPending.set(0);
+        draining = false;
+
+        Pointer nextBitmap = newBitmaps;
+        for (AlignedHeader chunk = space.getFirstAlignedHeapChunk(); chunk.isNonNull(); chunk = HeapChunk.getNext(chunk)) {
+            UnsignedWord words = alignedBitmapWords(chunk);
+            insert(HeapChunk.asPointer(chunk), AlignedHeapChunk.getObjectsStart(chunk), HeapChunk.getTopPointer(chunk), nextBitmap, words, true);
+            nextBitmap = nextBitmap.add(words.multiply(2 * wordSize()));
+        }
+        for (UnalignedHeader chunk = space.getFirstUnalignedHeapChunk(); chunk.isNonNull(); chunk = HeapChunk.getNext(chunk)) {
+            UnsignedWord words = WordFactory.unsigned(1);
+            insert(HeapChunk.asPointer(chunk), UnalignedHeapChunk.getObjectStart(chunk), HeapChunk.getTopPointer(chunk), nextBitmap, words, false);
+            nextBitmap = nextBitmap.add(words.multiply(2 * wordSize()));
+        }
+        return true;
+    }
+
+    void free() {
+        if (isBuilt()) {
+            UnmanagedMemorySupport memory = ImageSingletons.lookup(UnmanagedMemorySupport.class);
+            memory.free(entries);
+            memory.free(bitmaps);
+            entries = WordFactory.nullPointer();
+            bitmaps = WordFactory.nullPointer();
+            capacity = 0;
+            count = 0;
+            draining = false;
+        }
+    }
+
+    private static UnsignedWord alignedBitmapWords(AlignedHeader chunk) {
+        UnsignedWord units = HeapChunk.getTopPointer(chunk).subtract(AlignedHeapChunk.getObjectsStart(chunk)).unsignedShiftRight(alignmentShift());
+        return units.add(bitsPerWord() - 1).unsignedDivide(bitsPerWord());
+    }
+
+    private void insert(Pointer chunk, Pointer objectsStart, Pointer topAtMarkStart, Pointer markBits, UnsignedWord bitmapWords, boolean aligned) {
+        int index = hash(chunk);
+        Pointer entry = entryAt(index);
+        while (get(entry, CHUNK).notEqual(0)) {
+            index = (index + 1) & (capacity - 1);
+            entry = entryAt(index);
+        }
+        set(entry, OBJECTS_START, objectsStart);
+        set(entry, TOP_AT_MARK_START, topAtMarkStart);
+        set(entry, MARK_BITS, markBits);
+        set(entry, GREY_BITS, markBits.add(bitmapWords.multiply(wordSize())));
+        set(entry, BITMAP_WORDS, bitmapWords);
+        set(entry, ALIGNED, WordFactory.unsigned(aligned ? 1 : 0));
+        set(entry, HAS_GREY, WordFactory.zero());
+        set(entry, COMPACTION_STATE, WordFactory.unsigned(NOT_COMPACTED));
+        set(entry, BLOCK_TABLE, WordFactory.nullPointer());
+        set(entry, NEW_TOP, topAtMarkStart);
+        set(entry, CHUNK, chunk);
+        count++;
+    }
+
+    /** Returns the entry in the given slot, or null if the slot is empty. */
+    Pointer getEntry(int index) {
+        assert index >= 0 && index < capacity;
+        Pointer entry = entryAt(index);
+        return get(entry, CHUNK).notEqual(0) ? entry : WordFactory.nullPointer();
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the entry of the chunk that contains the given object if the object is subject to
+     * marking, or null if the object is implicitly live.
+     */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    Pointer lookup(Pointer obj) {
+        if (entries.isNull() || obj.isNull()) {
+            return WordFactory.nullPointer();
+        }
+        Pointer entry = find(PointerUtils.roundDown(obj, HeapPolicy.getAlignedHeapChunkAlignment()));
+        if (entry.isNull()) {
+            entry = find(obj.subtract(UnalignedHeapChunk.getObjectStartOffset()));
+            if (entry.isNull()) {
+                return WordFactory.nullPointer();
+            }
+        }
+        if (isAligned(entry)) {
+            boolean covered = obj.aboveOrEqual(getObjectsStart(entry)) && obj.belowThan(getTopAtMarkStart(entry));
+            return covered ? entry : WordFactory.nullPointer();
+        }
+        return obj.equal(getObjectsStart(entry)) ? entry : WordFactory.nullPointer();
+    }
+
+    /** Returns the entry of the given chunk, or null if the chunk is not covered by the table. */
+    Pointer lookupChunk(Pointer chunk) {
+        return entries.isNull() ? WordFactory.nullPointer() : find(chunk);
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private Pointer find(Pointer chunk) {
+        int index = hash(chunk);
+        while (true) {
+            Pointer entry = entryAt(index);
+            Pointer key = (Pointer) get(entry, CHUNK);
+            if (key.equal(chunk)) {
+                return entry;
+            } else if (key.isNull()) {
+                return WordFactory.nullPointer();
+            }
+            index = (index + 1) & (capacity - 1);
+        }
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private int hash(Pointer chunk) {
+        long h = chunk.rawValue() * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (capacity - 1);
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private Pointer entryAt(int index) {
+        return entries.add(WordFactory.unsigned(index).multiply(ENTRY_WORDS * wordSize()));
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static UnsignedWord get(Pointer entry, int field) {
+        return entry.readWord(field * wordSize());
+    }
+
+    private static void set(Pointer entry, int field, UnsignedWord value) {
+        entry.writeWord(field * wordSize(), value);
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    static Pointer getChunk(Pointer entry) {
+        return (Pointer) get(entry, CHUNK);
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    static Pointer getObjectsStart(Pointer entry) {
+        return (Pointer) get(entry, OBJECTS_START);
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    static Pointer getTopAtMarkStart(Pointer entry) {
+        return (Pointer) get(entry, TOP_AT_MARK_START);
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    static boolean isAligned(Pointer entry) {
+        return get(entry, ALIGNED).notEqual(0);
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static UnsignedWord bitIndex(Pointer entry, Pointer obj) {
+        return obj.subtract(getObjectsStart(entry)).unsignedShiftRight(alignmentShift());
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static Pointer bitmapWord(Pointer bitmap, UnsignedWord bitIndex) {
+        return bitmap.add(bitIndex.unsignedDivide(bitsPerWord()).multiply(wordSize()));
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static UnsignedWord bitMask(UnsignedWord bitIndex) {
+        return WordFactory.unsigned(1L).shiftLeft((int) bitIndex.unsignedRemainder(bitsPerWord()).rawValue());
+    }
+
+    /** Atomically sets a bit and returns true if it was not set before. */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static boolean setBit(Pointer bitmap, UnsignedWord bitIndex) {
+        Pointer word = bitmapWord(bitmap, bitIndex);
+        UnsignedWord mask = bitMask(bitIndex);
+        while (true) {
+            UnsignedWord bits = word.readWord(0);
+            if (bits.and(mask).notEqual(0)) {
+                return false;
+            }
+            if (word.logicCompareAndSwapWord(0, bits, bits.or(mask), LocationIdentity.ANY_LOCATION)) {
+                return true;
+            }
+        }
+    }
+
+    /** Marks an object of the given entry and returns true if it was not marked before. */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    static boolean mark(Pointer entry, Pointer obj) {
+        return setBit((Pointer) get(entry, MARK_BITS), bitIndex(entry, obj));
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    static boolean isMarked(Pointer entry, Pointer obj) {
+        UnsignedWord bitIndex = bitIndex(entry, obj);
+        UnsignedWord bits = bitmapWord((Pointer) get(entry, MARK_BITS), bitIndex).readWord(0);
+        return bits.and(bitMask(bitIndex)).notEqual(0);
+    }
+
+    /**
+     * Returns the first marked object of the given entry at or above {@code from} and below
+     * {@code limit}, or null if there is none.
+     */
+    static Pointer nextMarked(Pointer entry, Pointer from, Pointer limit) {
+        Pointer objectsStart = getObjectsStart(entry);
+        Pointer bitmap = (Pointer) get(entry, MARK_BITS);
+        UnsignedWord words = get(entry, BITMAP_WORDS);
+        UnsignedWord bitIndex = bitIndex(entry, from);
+        UnsignedWord w = bitIndex.unsignedDivide(bitsPerWord());
+        if (w.aboveOrEqual(words)) {
+            return WordFactory.nullPointer();
+        }
+        /* Ignore the bits below the start in the first word. */
+        UnsignedWord bits = bitmap.readWord(w.multiply(wordSize()));
+        bits = bits.and(bitMask(bitIndex).subtract(1).not());
+        while (true) {
+            if (bits.notEqual(0)) {
+                UnsignedWord unit = w.multiply(bitsPerWord()).add(Long.numberOfTrailingZeros(bits.rawValue()));
+                Pointer obj = objectsStart.add(unit.shiftLeft(alignmentShift()));
+                return obj.belowThan(limit) ? obj : WordFactory.nullPointer();
+            }
+            w = w.add(1);
+            if (w.aboveOrEqual(words) || objectsStart.add(w.multiply(bitsPerWord()).shiftLeft(alignmentShift())).aboveOrEqual(limit)) {
+                return WordFactory.nullPointer();
+            }
+            bits = bitmap.readWord(w.multiply(wordSize()));
+        }
+    }
+
+    static int getCompactionState(Pointer entry) {
+        return (int) get(entry, COMPACTION_STATE).rawValue();
+    }
+
+    static void setCompactionState(Pointer entry, int state) {
+        set(entry, COMPACTION_STATE, WordFactory.unsigned(state));
+    }
+
+    /**
+     * Returns the block table of a chunk that is being compacted, see
+     * {@link OldGenerationCompaction}, or null if the chunk is not being compacted.
+     */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    static Pointer getBlockTable(Pointer entry) {
+        return (Pointer) get(entry, BLOCK_TABLE);
+    }
+
+    static void setBlockTable(Pointer entry, Pointer blockTable) {
+        set(entry, BLOCK_TABLE, blockTable);
+    }
+
+    static Pointer getNewTop(Pointer entry) {
+        return (Pointer) get(entry, NEW_TOP);
+    }
+
+    static void setNewTop(Pointer entry, Pointer newTop) {
+        set(entry, NEW_TOP, newTop);
+    }
+
+    /** Returns true if any object of the given entry is marked. */
+    static boolean hasMarks(Pointer entry) {
+        Pointer bitmap = (Pointer) get(entry, MARK_BITS);
+        UnsignedWord words = get(entry, BITMAP_WORDS);
+        for (UnsignedWord i = WordFactory.zero(); i.belowThan(words); i = i.add(1)) {
+            UnsignedWord bits = bitmap.readWord(i.multiply(wordSize()));
+            if (bits.notEqual(0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Records that a marked object still needs to be scanned. Safe to call from any thread. */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    void setGrey(Pointer entry, Pointer obj) {
+        if (setBit((Pointer) get(entry, GREY_BITS), bitIndex(entry, obj))) {
+            Pointer hasGrey = entry.add(HAS_GREY * wordSize());
+            hasGrey.logicCompareAndSwapWord(0, WordFactory.zero(), WordFactory.unsigned(1), LocationIdentity.ANY_LOCATION);
+            greyPending.set(1);
+        }
+    }
+
+    /**
+     * Claims grey objects and pushes them onto the stack. A pass over the table starts when grey
+     * objects are pending and is resumed by the next call once {@code maxWords} entries and bitmap
+     * words were examined or the stack is full, so that a call does a bounded amount of work.
+     * Objects that are greyed again during a pass are pending for the next pass.
+     *
+     * @return the number of entries and bitmap words that were examined, which is at least 1, or 0
+     *         if there are no grey objects
+     */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    int drainGrey(ConcurrentMarkStack stack, int maxWords) {
+        if (!draining) {
+            if (!greyPending.compareAndSet(1, 0)) {
+                return 0;
+            }
+            draining = true;
+            drainEntry = 0;
+            drainWord = WordFactory.zero();
+        }
+        int examined = 0;
+        boolean stackFull = false;
+        while (drainEntry < capacity) {
+            Pointer entry = entryAt(drainEntry);
+            if (drainWord.equal(0)) {
+                /* Starting with this entry. */
+                examined++;
+                Pointer hasGrey = entry.add(HAS_GREY * wordSize());
+                if (get(entry, CHUNK).equal(0) || !hasGrey.logicCompareAndSwapWord(0, WordFactory.unsigned(1), WordFactory.zero(), LocationIdentity.ANY_LOCATION)) {
+                    drainEntry++;
+                    continue;
+                }
+            }
+            Pointer bitmap = (Pointer) get(entry, GREY_BITS);
+            UnsignedWord words = get(entry, BITMAP_WORDS);
+            while (drainWord.belowThan(words)) {
+                if (examined >= maxWords || stackFull) {
+                    return examined;
+                }
+                Pointer word = bitmap.add(drainWord.multiply(wordSize()));
+                UnsignedWord bits = claimWord(word);
+                while (bits.notEqual(0)) {
+                    int bit = Long.numberOfTrailingZeros(bits.rawValue());
+                    bits = bits.and(bits.subtract(1));
+                    UnsignedWord unit = drainWord.multiply(bitsPerWord()).add(bit);
+                    Pointer obj = getObjectsStart(entry).add(unit.shiftLeft(alignmentShift()));
+                    if (!stack.push(obj, 0)) {
+                        /* Pending for the next pass. */
+                        setGrey(entry, obj);
+                        stackFull = true;
+                    }
+                }
+                drainWord = drainWord.add(1);
+                examined++;
+            }
+            drainWord = WordFactory.zero();
+            drainEntry++;
+        }
+        draining = false;
+        return Math.max(examined, 1);
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static UnsignedWord claimWord(Pointer word) {
+        while (true) {
+            UnsignedWord bits = word.readWord(0);
+            if (bits.equal(0) || word.logicCompareAndSwapWord(0, bits, WordFactory.zero(), LocationIdentity.ANY_LOCATION)) {
+                return bits;
+            }
+        }
+    }
+}
@@ -0,0 +1,597 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.genscavenge;
+
+import java.lang.ref.Reference;
+
+import org.graalvm.compiler.api.replacements.Fold;
+import org.graalvm.compiler.core.common.NumUtil;
+import org.graalvm.compiler.word.Word;
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+import org.graalvm.word.Pointer;
+import org.graalvm.word.UnsignedWord;
+import org.graalvm.word.WordFactory;
+
+import com.oracle.svm.core.MemoryWalker;
+import com.oracle.svm.core.SubstrateOptions;
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.c.NonmovableArray;
+import com.oracle.svm.core.c.NonmovableArrays;
+import com.oracle.svm.core.code.CodeInfo;
+import com.oracle.svm.core.code.RuntimeCodeCache.CodeInfoVisitor;
+import com.oracle.svm.core.code.RuntimeCodeInfoAccess;
+import com.oracle.svm.core.code.RuntimeCodeInfoMemory;
+import com.oracle.svm.core.config.ConfigurationValues;
+import com.oracle.svm.core.deopt.DeoptimizationSupport;
+import com.oracle.svm.core.genscavenge.AlignedHeapChunk.AlignedHeader;
+import com.oracle.svm.core.genscavenge.GCImpl.ChunkReleaser;
+import com.oracle.svm.core.genscavenge.UnalignedHeapChunk.UnalignedHeader;
+import com.oracle.svm.core.genscavenge.graal.nodes.FormatArrayNode;
+import com.oracle.svm.core.genscavenge.graal.nodes.FormatObjectNode;
+import com.oracle.svm.core.heap.FillerObject;
+import com.oracle.svm.core.heap.ObjectReferenceVisitor;
+import com.oracle.svm.core.heap.ObjectVisitor;
+import com.oracle.svm.core.heap.ReferenceAccess;
+import com.oracle.svm.core.heap.ReferenceInternals;
+import com.oracle.svm.core.hub.DynamicHub;
+import com.oracle.svm.core.hub.DynamicHubSupport;
+import com.oracle.svm.core.hub.InteriorObjRefWalker;
+import com.oracle.svm.core.hub.LayoutEncoding;
+import com.oracle.svm.core.jdk.RuntimeSupport;
+import com.oracle.svm.core.locks.VMCondition;
+import com.oracle.svm.core.locks.VMMutex;
+import com.oracle.svm.core.log.Log;
+import com.oracle.svm.core.snippets.SubstrateForeignCallTarget;
+import com.oracle.svm.core.thread.VMOperation;
+
+import jdk.vm.ci.meta.JavaKind;
+
+/**
+ * Marks the old generation concurrently to the application, so that old objects can be reclaimed
+ * without a complete collection, whose pause time grows with the size of the old generation.
+ *
+ * A cycle uses snapshot-at-the-beginning marking:
+ * <ol>
+ * <li>The <em>initial mark</em> is piggybacked on an incremental collection. It records the top of
+ * every old generation chunk in a {@link ConcurrentMarkTable} and marks the objects that are
+ * directly referenced from the roots, including all young objects, which are few right after the
+ * incremental collection.</li>
+ * <li>The marker thread then traces the old generation while the application runs. Every
+ * application store that overwrites a reference passes the previous value to
+ * {@link #logPreviousValue} (see {@code BarrierSnippets}), so no object that was reachable at the
+ * start of the cycle is missed. Objects that are allocated or promoted during the cycle are
+ * implicitly live.</li>
+ * <li>When the marker runs out of work, it requests another incremental collection, which does
+ * the <em>remark</em>: it rescans the roots, drains the remaining work and then sweeps the old
+ * generation. Chunks without any marked object are released, dead objects in the other chunks are
+ * replaced with filler objects so that they no longer keep young objects alive. If the old
+ * generation is fragmented, it is compacted instead, see {@link OldGenerationCompaction}.</li>
+ * </ol>
+ *
+ * The marker works in bounded uninterruptible steps, so it never needs to be stopped in the middle
+ * of an object when a collection starts, and old objects do not move between the steps because only
+ * complete collections move them. A complete collection aborts the cycle, which is why complete
+ * collections are deferred while a cycle is active and the heap still has room. References are
+ * treated as strong during a cycle: their referents are marked and only reclaimed by a later cycle
+ * or complete collection.
+ */
+public final class ConcurrentMarking {
+    private static final int STEP_MORE = 0;
+    private static final int STEP_DONE = 1;
+    private static final int STEP_ABORTED = 2;
+
+    /**
+     * Units of work of an uninterruptible step of the marker: every visited reference, scanned
+     * object, and examined entry or bitmap word of the {@link ConcurrentMarkTable} counts as one, so
+     * that the length of a step does not depend on the shape of the objects.
+     */
+    private static final int STEP_BUDGET = 16 * 1024;
+    /** Elements of an object array that are scanned at once. */
+    private static final int ARRAY_SLICE = 512;
+    private static final long IDLE_WAIT_NANOS = 50_000_000L;
+
+    /** Read by the write barrier of every reference store, only changed during a safepoint. */
+    private static boolean markingActive;
+
+    private final ConcurrentMarkTable table = new ConcurrentMarkTable();
+    private final ConcurrentMarkStack stack = new ConcurrentMarkStack();
+    private final VMMutex mutex = new VMMutex();
+    private final VMCondition workCondition = new VMCondition(mutex);
+    private final MarkRootsVisitor markRootsVisitor = new MarkRootsVisitor();
+    private final MarkObjectVisitor markObjectVisitor = new MarkObjectVisitor();
+    private final MarkImageHeapRootsVisitor markImageHeapRootsVisitor = new MarkImageHeapRootsVisitor();
+    private final MarkRuntimeCodeVisitor markRuntimeCodeVisitor = new MarkRuntimeCodeVisitor();
+    private final OldGenerationCompaction compaction = OldGenerationCompaction.isEnabled() ? new OldGenerationCompaction() : null;
+
+    private Thread markerThread;
+    private volatile boolean stopped;
+    private volatile long cycleEpoch;
+    private volatile long remarkRequestedEpoch = -1;
+    private UnsignedWord oldBytesAfterLastCycle = WordFactory.zero();
+
+    private long cycles;
+    private long abortedCycles;
+    private long lastInitialMarkNanos;
+    private long lastRemarkNanos;
+    private UnsignedWord lastSweptChunkBytes = WordFactory.zero();
+    private UnsignedWord totalSweptChunkBytes = WordFactory.zero();
+    private UnsignedWord totalFillerBytes = WordFactory.zero();
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    ConcurrentMarking() {
+        RuntimeSupport.getRuntimeSupport().addStartupHook(this::startMarker);
+        RuntimeSupport.getRuntimeSupport().addTearDownHook(this::stopMarker);
+    }
+
+    @Fold
+    public static boolean isEnabled() {
+        return HeapOptions.UseConcurrentMarking.getValue() && SubstrateOptions.MultiThreaded.getValue();
+    }
+
+    @Fold
+    static ConcurrentMarking singleton() {
+        return GCImpl.getGCImpl().getConcurrentMarking();
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public static boolean isMarkingActive() {
+        return markingActive;
+    }
+
+    @Fold
+    static int referenceSize() {
+        return ConfigurationValues.getObjectLayout().getReferenceSize();
+    }
+
+    @Fold
+    static int arrayLengthOffset() {
+        return ConfigurationValues.getObjectLayout().getArrayLengthOffset();
+    }
+
+    @Fold
+    static int minArraySize() {
+        return NumUtil.safeToInt(ConfigurationValues.getObjectLayout().getArraySize(JavaKind.Int, 0));
+    }
+
+    @Fold
+    static int intIndexScale() {
+        return ConfigurationValues.getObjectLayout().getArrayIndexScale(JavaKind.Int);
+    }
+
+    /** Target of the pre-write barrier, called with the reference that is about to be overwritten. */
+    @SubstrateForeignCallTarget(stubCallingConvention = false, fullyUninterruptible = true)
+    @Uninterruptible(reason = "Called from a write barrier, must neither block nor reach a safepoint.")
+    private static void logPreviousValue(Object previous) {
+        if (markingActive) {
+            singleton().markAndGrey(Word.objectToUntrackedPointer(previous));
+        }
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private void markAndGrey(Pointer obj) {
+        Pointer entry = table.lookup(obj);
+        if (entry.isNonNull() && ConcurrentMarkTable.mark(entry, obj)) {
+            table.setGrey(entry, obj);
+        }
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private void markAndPush(Pointer obj) {
+        Pointer entry = table.lookup(obj);
+        if (entry.isNonNull() && ConcurrentMarkTable.mark(entry, obj) && !stack.push(obj, 0)) {
+            table.setGrey(entry, obj);
+        }
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private void markReference(Pointer objRef) {
+        markAndPush(ReferenceAccess.singleton().readObjectAsUntrackedPointer(objRef, ReferenceAccess.singleton().haveCompressedReferences()));
+    }
+
+    /**
+     * Visits the references of a marked object, starting at the given array element, and returns
+     * the units of work that this took (see {@link #STEP_BUDGET}).
+     */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private int scan(Pointer obj, int index) {
+        int work = 1;
+        DynamicHub hub = ObjectHeaderImpl.getObjectHeaderImpl().readDynamicHubFromPointer(obj);
+        int encoding = hub.getLayoutEncoding();
+        if (LayoutEncoding.isObjectArray(encoding)) {
+            int length = obj.readInt(arrayLengthOffset());
+            int end = length - index > ARRAY_SLICE ? index + ARRAY_SLICE : length;
+            if (end < length && !stack.push(obj, end)) {
+                /* Rescanning the whole array later is correct, just slower. */
+                table.setGrey(table.lookup(obj), obj);
+            }
+            Pointer elements = obj.add(LayoutEncoding.getArrayBaseOffset(encoding));
+            for (int i = index; i < end; i++) {
+                markReference(elements.add(WordFactory.unsigned(i).multiply(referenceSize())));
+            }
+            work += end - index;
+        }
+        if (index != 0) {
+            return work;
+        }
+
+        NonmovableArray<Byte> referenceMapEncoding = DynamicHubSupport.getReferenceMapEncoding();
+        Pointer position = NonmovableArrays.addressOf(referenceMapEncoding, hub.getReferenceMapIndex());
+        int entryCount = position.readInt(0);
+        position = position.add(4);
+        for (int i = 0; i < entryCount; i++) {
+            Pointer objRef = obj.add(position.readInt(0));
+            long count = position.readInt(4) & 0xFFFFFFFFL;
+            position = position.add(8);
+            for (long c = 0; c < count; c++) {
+                markReference(objRef);
+                objRef = objRef.add(referenceSize());
+            }
+            work += (int) count;
+        }
+        if (hub.isReferenceInstanceClass()) {
+            /* Not part of the reference map: treat the referent as strong during a cycle. */
+            markReference(obj.add(WordFactory.unsigned(ReferenceInternals.getReferentFieldOffset())));
+            work++;
+        }
+        return work;
+    }
+
+    /** One bounded unit of work of the marker thread. */
+    @Uninterruptible(reason = "Old objects must not move while they are scanned, and the mark stack is shared with the collector.")
+    private int markStep(long epoch) {
+        int budget = STEP_BUDGET;
+        while (budget > 0) {
+            if (!markingActive || cycleEpoch != epoch) {
+                return STEP_ABORTED;
+            }
+            if (stack.pop()) {
+                budget -= scan(stack.getPoppedObject(), stack.getPoppedIndex());
+            } else {
+                int examined = table.drainGrey(stack, budget);
+                if (examined == 0) {
+                    return STEP_DONE;
+                }
+                budget -= examined;
+            }
+        }
+        return STEP_MORE;
+    }
+
+    private void drainAll() {
+        while (true) {
+            while (stack.pop()) {
+                scan(stack.getPoppedObject(), stack.getPoppedIndex());
+            }
+            if (table.drainGrey(stack, Integer.MAX_VALUE) == 0) {
+                return;
+            }
+        }
+    }
+
+    private void startMarker() {
+        Thread thread = new Thread(this::runMarker, "Concurrent Marker");
+        thread.setDaemon(true);
+        markerThread = thread;
+        thread.start();
+    }
+
+    private void stopMarker() {
+        if (markerThread == null) {
+            return;
+        }
+        mutex.lock();
+        try {
+            stopped = true;
+            workCondition.broadcast();
+        } finally {
+            mutex.unlock();
+        }
+        try {
+            markerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        markerThread = null;
+    }
+
+    private void runMarker() {
+        long seenEpoch = 0;
+        while (true) {
+            long epoch = awaitCycle(seenEpoch);
+            if (epoch < 0) {
+                return;
+            }
+            seenEpoch = epoch;
+            int result;
+            do {
+                result = markStep(epoch);
+            } while (result == STEP_MORE);
+            if (result == STEP_DONE) {
+                remarkRequestedEpoch = epoch;
+                HeapImpl.getHeapImpl().getGC().collect(GenScavengeGCCause.ConcurrentMarkRemark);
+            }
+        }
+    }
+
+    /** Waits until a cycle other than the given one is active. Returns -1 when stopped. */
+    private long awaitCycle(long seenEpoch) {
+        mutex.lock();
+        try {
+            while (!stopped && !(markingActive && cycleEpoch != seenEpoch)) {
+                workCondition.block(IDLE_WAIT_NANOS);
+            }
+            return stopped ? -1 : cycleEpoch;
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    /** Called after a collection, outside of the safepoint, to let the marker start right away. */
+    void wakeUpMarker() {
+        if (markingActive) {
+            mutex.lock();
+            try {
+                workCondition.broadcast();
+            } finally {
+                mutex.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns true if a complete collection should be replaced by an incremental one because a
+     * cycle is active and the heap still has room for the young generation.
+     */
+    boolean shouldDeferCompleteCollection() {
+        if (!markingActive) {
+            return false;
+        }
+        UnsignedWord needed = GCImpl.getChunkBytes().add(HeapPolicy.getMaximumYoungGenerationSize());
+        return needed.belowThan(HeapPolicy.getMaximumHeapSize());
+    }
+
+    boolean isRemarkRequested() {
+        return markingActive && remarkRequestedEpoch == cycleEpoch;
+    }
+
+    boolean shouldStartCycle() {
+        if (markingActive || markerThread == null) {
+            return false;
+        }
+        UnsignedWord oldBytes = HeapImpl.getHeapImpl().getOldGeneration().getChunkBytes();
+        int occupancy = HeapOptions.ConcurrentMarkingInitiatingOccupancy.getValue();
+        UnsignedWord threshold = HeapPolicy.getMaximumHeapSize().unsignedDivide(100).multiply(occupancy);
+        return oldBytes.aboveOrEqual(threshold) && oldBytes.aboveOrEqual(oldBytesAfterLastCycle.add(HeapPolicy.getMaximumYoungGenerationSize()));
+    }
+
+    /** Called for every complete collection, which reclaims everything a cycle could. */
+    void onCompleteCollection() {
+        if (markingActive) {
+            markingActive = false;
+            cycleEpoch++;
+            abortedCycles++;
+            stack.clear();
+            stack.free();
+            table.free();
+        }
+        oldBytesAfterLastCycle = HeapImpl.getHeapImpl().getOldGeneration().getChunkBytes();
+    }
+
+    void initialMark() {
+        assert VMOperation.isGCInProgress() && !markingActive;
+        long startNanos = System.nanoTime();
+        if (!stack.allocate()) {
+            return;
+        }
+        if (!table.build(HeapImpl.getHeapImpl().getOldGeneration().getFromSpace())) {
+            stack.free();
+            return;
+        }
+        cycleEpoch++;
+        markRoots();
+        markingActive = true;
+        cycles++;
+        lastInitialMarkNanos = System.nanoTime() - startNanos;
+    }
+
+    private void markRoots() {
+        GCImpl.walkStackRoots(markRootsVisitor);
+        ThreadLocalMTWalker.walk(markRootsVisitor);
+        HeapImpl heap = HeapImpl.getHeapImpl();
+        heap.walkNativeImageHeapRegions(markImageHeapRootsVisitor);
+        if (DeoptimizationSupport.enabled()) {
+            RuntimeCodeInfoMemory.singleton().walkRuntimeMethodsDuringGC(markRuntimeCodeVisitor);
+        }
+        heap.getYoungGeneration().walkObjects(markObjectVisitor);
+    }
+
+    /**
+     * Finishes the cycle: rescans the roots, which the collection may have changed without
+     * barriers, traces everything that is left and then sweeps the old generation.
+     */
+    void remarkAndSweep(ChunkReleaser releaser) {
+        assert VMOperation.isGCInProgress() && markingActive;
+        long startNanos = System.nanoTime();
+        markRoots();
+        drainAll();
+        markingActive = false;
+
+        lastSweptChunkBytes = WordFactory.zero();
+        if (OldGenerationCompaction.isEnabled() && compaction.compact(table, releaser)) {
+            lastSweptChunkBytes = compaction.getLastReleasedChunkBytes();
+        }
+        for (int i = 0; i < table.getCapacity(); i++) {
+            Pointer entry = table.getEntry(i);
+            if (entry.isNonNull() && ConcurrentMarkTable.getCompactionState(entry) != ConcurrentMarkTable.COMPACTED) {
+                sweep(entry, releaser);
+            }
+        }
+        releaser.release();
+        totalSweptChunkBytes = totalSweptChunkBytes.add(lastSweptChunkBytes);
+
+        table.free();
+        stack.free();
+        oldBytesAfterLastCycle = HeapImpl.getHeapImpl().getOldGeneration().getChunkBytes();
+        lastRemarkNanos = System.nanoTime() - startNanos;
+    }
+
+    private void sweep(Pointer entry, ChunkReleaser releaser) {
+        Pointer chunk = ConcurrentMarkTable.getChunk(entry);
+        if (!ConcurrentMarkTable.isAligned(entry)) {
+            if (!ConcurrentMarkTable.hasMarks(entry)) {
+                UnalignedHeader unaligned = (UnalignedHeader) chunk;
+                lastSweptChunkBytes = lastSweptChunkBytes.add(HeapChunk.getEndOffset(unaligned));
+                HeapChunk.getSpace(unaligned).extractUnalignedHeapChunk(unaligned);
+                releaser.add(unaligned);
+            }
+            return;
+        }
+
+        AlignedHeader aligned = (AlignedHeader) chunk;
+        Pointer topAtMarkStart = ConcurrentMarkTable.getTopAtMarkStart(entry);
+        if (!ConcurrentMarkTable.hasMarks(entry) && HeapChunk.getTopPointer(aligned).equal(topAtMarkStart)) {
+            lastSweptChunkBytes = lastSweptChunkBytes.add(HeapChunk.getEndOffset(aligned));
+            HeapChunk.getSpace(aligned).extractAlignedHeapChunk(aligned);
+            releaser.add(aligned);
+            return;
+        }
+
+        /* Replace runs of dead objects with filler objects. */
+        Pointer deadStart = WordFactory.nullPointer();
+        Pointer p = ConcurrentMarkTable.getObjectsStart(entry);
+        while (p.belowThan(topAtMarkStart)) {
+            Pointer next = LayoutEncoding.getObjectEnd(p.toObject());
+            if (ConcurrentMarkTable.isMarked(entry, p)) {
+                if (deadStart.isNonNull()) {
+                    fill(aligned, deadStart, p);
+                    deadStart = WordFactory.nullPointer();
+                }
+            } else if (deadStart.isNull()) {
+                deadStart = p;
+            }
+            p = next;
+        }
+        if (deadStart.isNonNull()) {
+            fill(aligned, deadStart, topAtMarkStart);
+        }
+    }
+
+    private void fill(AlignedHeader chunk, Pointer start, Pointer end) {
+        UnsignedWord size = end.subtract(start);
+        Object filler;
+        if (size.aboveOrEqual(minArraySize())) {
+            int length = (int) size.subtract(minArraySize()).unsignedDivide(intIndexScale()).rawValue();
+            filler = FormatArrayNode.formatArray(start, int[].class, length, true, false, false, 0, false);
+        } else {
+            filler = FormatObjectNode.formatObject(start, FillerObject.class, true, false, false);
+        }
+        assert LayoutEncoding.getObjectEnd(filler).equal(end);
+        AlignedHeapChunk.setUpRememberedSetForObject(chunk, filler);
+        totalFillerBytes = totalFillerBytes.add(size);
+    }
+
+    /** The number of cycles that completed with a remark, excluding aborted cycles. */
+    long getCompletedCycles() {
+        return cycles - abortedCycles - (markingActive ? 1 : 0);
+    }
+
+    /** The number of cycles that compacted the old generation instead of sweeping it. */
+    long getCompactions() {
+        assert OldGenerationCompaction.isEnabled();
+        return compaction.getCompactions();
+    }
+
+    void logStatus(Log log) {
+        log.string("  concurrent marking: ").string(markingActive ? "active" : "idle");
+        log.string("  cycles: ").signed(cycles).string("  aborted: ").signed(abortedCycles);
+        log.string("  last initial mark: ").signed(lastInitialMarkNanos).string(" ns  last remark: ").signed(lastRemarkNanos).string(" ns");
+        log.string("  last swept: ").unsigned(lastSweptChunkBytes).string(" bytes");
+        if (OldGenerationCompaction.isEnabled()) {
+            compaction.logStatus(log);
+        }
+    }
+
+    void printSummary(Log log, String prefix) {
+        log.string(prefix).string("ConcurrentMarkingCycles: ").signed(cycles).newline();
+        log.string(prefix).string("ConcurrentMarkingAbortedCycles: ").signed(abortedCycles).newline();
+        log.string(prefix).string("ConcurrentMarkingSweptChunkBytes: ").unsigned(totalSweptChunkBytes).newline();
+        log.string(prefix).string("ConcurrentMarkingFillerBytes: ").unsigned(totalFillerBytes).newline();
+        if (OldGenerationCompaction.isEnabled()) {
+            compaction.printSummary(log, prefix);
+        }
+    }
+
+    private class MarkRootsVisitor implements ObjectReferenceVisitor {
+        @Override
+        public boolean visitObjectReference(Pointer objRef, boolean compressed) {
+            return visitObjectReferenceInline(objRef, 0, compressed);
+        }
+
+        @Override
+        public boolean visitObjectReferenceInline(Pointer objRef, int innerOffset, boolean compressed) {
+            /* Derived pointers on the stack point into the middle of an object. */
+            Pointer derived = ReferenceAccess.singleton().readObjectAsUntrackedPointer(objRef, compressed);
+            if (derived.isNonNull()) {
+                markAndPush(derived.subtract(innerOffset));
+            }
+            return true;
+        }
+    }
+
+    private class MarkObjectVisitor implements ObjectVisitor {
+        @Override
+        public boolean visitObject(Object o) {
+            InteriorObjRefWalker.walkObject(o, markRootsVisitor);
+            if (o instanceof Reference) {
+                markReference(ReferenceInternals.getReferentFieldAddress((Reference<?>) o));
+            }
+            return true;
+        }
+    }
+
+    private class MarkImageHeapRootsVisitor implements MemoryWalker.ImageHeapRegionVisitor {
+        @Override
+        public <T> boolean visitNativeImageHeapRegion(T region, MemoryWalker.NativeImageHeapRegionAccess<T> access) {
+            if (access.containsReferences(region) && access.isWritable(region)) {
+                access.visitObjects(region, markObjectVisitor);
+            }
+            return true;
+        }
+    }
+
+    private class MarkRuntimeCodeVisitor implements CodeInfoVisitor {
+        @Override
+        public <T extends CodeInfo> boolean visitCode(T codeInfo) {
+            if (!RuntimeCodeInfoAccess.areAllObjectsOnImageHeap(codeInfo)) {
+                RuntimeCodeInfoAccess.walkObjectFields(codeInfo, markRootsVisitor);
+                RuntimeCodeInfoAccess.walkStrongReferences(codeInfo, markRootsVisitor);
+                RuntimeCodeInfoAccess.walkWeakReferences(codeInfo, markRootsVisitor);
+            }
+            return true;
+        }
+    }
+}
@@ -64,6 +64,16 @@ public final class GCAccounting {
     private UnsignedWord oldObjectBytesBefore = WordFactory.zero();
     private UnsignedWord allocatedObjectBytes = WordFactory.zero();
 
+    /*
+     * The heap footprint after the most recent collections, in a ring buffer that is read by
+     * HeapImplMemoryMXBean. Samples are only written during a GC.
+     */
+    static final int FOOTPRINT_HISTORY_LENGTH = 64;
+    private final long[] footprintTimestamps = new long[FOOTPRINT_HISTORY_LENGTH];
+    private final long[] footprintUsedBytes = new long[FOOTPRINT_HISTORY_LENGTH];
+    private final long[] footprintCommittedBytes = new long[FOOTPRINT_HISTORY_LENGTH];
+    private volatile long footprintSampleCount = 0;
+
     @Platforms(Platform.HOSTED_ONLY.class)
     GCAccounting() {
     }
@@ -116,6 +126,27 @@ public final class GCAccounting {
         return lastCollectionPromotedChunkBytes;
     }
 
+    /** The number of footprint samples that were recorded so far, including overwritten ones. */
+    long getFootprintSampleCount() {
+        return footprintSampleCount;
+    }
+
+    long getFootprintTimestamp(long sample) {
+        return footprintTimestamps[footprintIndex(sample)];
+    }
+
+    long getFootprintUsedBytes(long sample) {
+        return footprintUsedBytes[footprintIndex(sample)];
+    }
+
+    long getFootprintCommittedBytes(long sample) {
+        return footprintCommittedBytes[footprintIndex(sample)];
+    }
+
+    private static int footprintIndex(long sample) {
+        return (int) (sample % FOOTPRINT_HISTORY_LENGTH);
+    }
+
     void beforeCollection() {
         Log trace = Log.noopLog().string("[GCImpl.Accounting.beforeCollection:").newline();
         /* Gather some space statistics. */
@@ -154,8 +185,11 @@ public final class GCAccounting {
          */
         incrementalCollectionCount += 1;
         afterCollectionCommon();
-        /* Incremental collections only promote. */
-        lastCollectionPromotedChunkBytes = oldChunkBytesAfter.subtract(oldChunkBytesBefore);
+        /*
+         * Incremental collections only promote, but the remark of a concurrent marking cycle can
+         * also release old chunks, so the old generation may have shrunk.
+         */
+        lastCollectionPromotedChunkBytes = oldChunkBytesAfter.aboveOrEqual(oldChunkBytesBefore) ? oldChunkBytesAfter.subtract(oldChunkBytesBefore) : WordFactory.zero();
         promotedTotalChunkBytes = promotedTotalChunkBytes.add(lastCollectionPromotedChunkBytes);
         incrementalCollectionTotalNanos += collectionTimer.getMeasuredNanos();
         trace.string("  incrementalCollectionCount: ").signed(incrementalCollectionCount)
@@ -195,5 +229,16 @@ public final class GCAccounting {
             UnsignedWord collectedObjectBytes = beforeObjectBytes.subtract(oldObjectBytesAfter).subtract(youngObjectBytesAfter);
             collectedTotalObjectBytes = collectedTotalObjectBytes.add(collectedObjectBytes);
         }
+        recordFootprint(heap);
+    }
+
+    private void recordFootprint(HeapImpl heap) {
+        long sample = footprintSampleCount;
+        int index = footprintIndex(sample);
+        footprintTimestamps[index] = System.currentTimeMillis();
+        footprintUsedBytes[index] = heap.getUsedBytes().rawValue();
+        footprintCommittedBytes[index] = heap.getCommittedBytes().rawValue();
+        /* Published last, so that readers can detect that a sample changed while they read it. */
+        footprintSampleCount = sample + 1;
     }
 }
@@ -71,6 +71,7 @@ import com.oracle.svm.core.heap.CodeReferenceMapDecoder;
 import com.oracle.svm.core.heap.GC;
 import com.oracle.svm.core.heap.GCCause;
 import com.oracle.svm.core.heap.NoAllocationVerifier;
+import com.oracle.svm.core.heap.ObjectReferenceVisitor;
 import com.oracle.svm.core.heap.ObjectVisitor;
 import com.oracle.svm.core.heap.ReferenceHandler;
 import com.oracle.svm.core.heap.RuntimeCodeCacheCleaner;
@@ -109,6 +110,8 @@ public final class GCImpl implements GC {
     private final OutOfMemoryError oldGenerationSizeExceeded = new OutOfMemoryError("Garbage-collected heap size exceeded.");
     private final NoAllocationVerifier noAllocationVerifier = NoAllocationVerifier.factory("GCImpl.GCImpl()", false);
     private final ChunkReleaser chunkReleaser = new ChunkReleaser();
+    private final ParallelGC parallelGC;
+    private final ConcurrentMarking concurrentMarking;
 
     private CollectionPolicy policy;
     private boolean completeCollection = false;
@@ -119,6 +122,8 @@ public final class GCImpl implements GC {
     @Platforms(Platform.HOSTED_ONLY.class)
     GCImpl(FeatureAccess access) {
         this.policy = CollectionPolicy.getInitialPolicy(access);
+        this.parallelGC = ParallelGC.isEnabled() ? new ParallelGC() : null;
+        this.concurrentMarking = ConcurrentMarking.isEnabled() ? new ConcurrentMarking() : null;
         RuntimeSupport.getRuntimeSupport().addShutdownHook(this::printGCSummary);
     }
 
@@ -230,26 +235,41 @@ public final class GCImpl implements GC {
 
     private boolean doCollectImpl(boolean forceFullGC) {
         CommittedMemoryProvider.get().beforeGarbageCollection();
+        HeapImpl.getChunkProvider().beforeCollection();
 
         accounting.beforeCollection();
 
         Timer collectionTimer = timers.collection.open();
         try {
             completeCollection = forceFullGC || policy.collectCompletely();
+            boolean incremental = policy.collectIncrementally();
+            if (completeCollection && !forceFullGC && ConcurrentMarking.isEnabled() && concurrentMarking.shouldDeferCompleteCollection()) {
+                /* Let the active marking cycle reclaim the old generation instead. */
+                completeCollection = false;
+                incremental = true;
+            }
             if (completeCollection) {
                 if (HeapPolicyOptions.CollectYoungGenerationSeparately.getValue()) {
                     scavenge(true);
                 }
                 scavenge(false);
-            } else if (policy.collectIncrementally()) {
+                if (ConcurrentMarking.isEnabled()) {
+                    concurrentMarking.onCompleteCollection();
+                }
+            } else if (incremental) {
                 scavenge(true);
+                if (ConcurrentMarking.isEnabled()) {
+                    concurrentMarkingPhases();
+                }
             }
         } finally {
             collectionTimer.close();
         }
         CommittedMemoryProvider.get().afterGarbageCollection(completeCollection);
+        HeapImpl.getChunkProvider().afterCollection();
 
         accounting.afterCollection(completeCollection, timers.collection);
+        policy.onCollectionEnd(completeCollection, timers.collection.getLastIntervalNanos(), timers.mutator.getLastIntervalNanos());
         UnsignedWord maxBytes = HeapPolicy.getMaximumHeapSize();
         UnsignedWord usedBytes = getChunkBytes();
         boolean outOfMemory = usedBytes.aboveThan(maxBytes);
@@ -259,6 +279,24 @@ public final class GCImpl implements GC {
         return outOfMemory;
     }
 
+    private void concurrentMarkingPhases() {
+        if (concurrentMarking.isRemarkRequested()) {
+            Timer remarkTimer = timers.remark.open();
+            try {
+                concurrentMarking.remarkAndSweep(chunkReleaser);
+            } finally {
+                remarkTimer.close();
+            }
+        } else if (concurrentMarking.shouldStartCycle()) {
+            Timer initialMarkTimer = timers.initialMark.open();
+            try {
+                concurrentMarking.initialMark();
+            } finally {
+                initialMarkTimer.close();
+            }
+        }
+    }
+
     /**
      * This value is only updated during a GC. Be careful when calling this method during a GC as it
      * might wrongly include chunks that will be freed at the end of the GC.
@@ -333,6 +371,16 @@ public final class GCImpl implements GC {
                 verboseGCLog.string("  policy: ");
                 verboseGCLog.string(getPolicy().getName());
                 verboseGCLog.string("  type: ").string(completeCollection ? "complete" : "incremental");
+                verboseGCLog.string("  committed: ").unsigned(heap.getCommittedBytes()).string("  uncommitted: ").unsigned(HeapImpl.getChunkProvider().getBytesInUncommittedChunks());
+                if (getPolicy() instanceof AdaptiveCollectionPolicy) {
+                    ((AdaptiveCollectionPolicy) getPolicy()).logDecisions(verboseGCLog);
+                }
+                if (ConcurrentMarking.isEnabled()) {
+                    concurrentMarking.logStatus(verboseGCLog);
+                }
+                if (ParallelGC.isEnabled()) {
+                    verboseGCLog.string("  parallel walkers: ").signed(parallelGC.getLastParticipants()).string("  steals: ").signed(parallelGC.getLastSteals());
+                }
                 if (HeapOptions.PrintHeapShape.getValue()) {
                     heap.report(verboseGCLog);
                 }
@@ -539,23 +587,28 @@ public final class GCImpl implements GC {
              */
             promoteIndividualPinnedObjects();
 
-            /*
-             * Stack references are grey at the beginning of a collection, so I need to blacken
-             * them.
-             */
-            blackenStackRoots();
+            if (ParallelGC.isEnabled() && parallelGC.hasWorkers()) {
+                /* Stacks, thread locals and the image heap are scanned by all walkers. */
+                scanRootsInParallel(false);
+            } else {
+                /*
+                 * Stack references are grey at the beginning of a collection, so I need to blacken
+                 * them.
+                 */
+                blackenStackRoots();
 
-            /* Custom memory regions which contain object references. */
-            walkThreadLocals();
+                /* Custom memory regions which contain object references. */
+                walkThreadLocals();
 
-            /*
-             * Native image Objects are grey at the beginning of a collection, so I need to blacken
-             * them.
-             */
-            blackenImageHeapRoots();
+                /*
+                 * Native image Objects are grey at the beginning of a collection, so I need to
+                 * blacken them.
+                 */
+                blackenImageHeapRoots();
 
-            /* Visit all the Objects promoted since the snapshot. */
-            scanGreyObjects(false);
+                /* Visit all the Objects promoted since the snapshot. */
+                scanGreyObjects(false);
+            }
 
             if (DeoptimizationSupport.enabled()) {
                 /* Visit the runtime compiled code, now that we know all the reachable objects. */
@@ -602,30 +655,35 @@ public final class GCImpl implements GC {
              */
             promoteIndividualPinnedObjects();
 
-            /*
-             * Blacken Objects that are dirty roots. There are dirty cards in ToSpace. Do this early
-             * so I don't have to walk the cards of individually promoted objects, which will be
-             * visited by the grey object scanner.
-             */
-            blackenDirtyCardRoots();
+            if (ParallelGC.isEnabled() && parallelGC.hasWorkers()) {
+                /* Dirty cards, stacks, thread locals and image heap are scanned by all walkers. */
+                scanRootsInParallel(true);
+            } else {
+                /*
+                 * Blacken Objects that are dirty roots. There are dirty cards in ToSpace. Do this
+                 * early so I don't have to walk the cards of individually promoted objects, which
+                 * will be visited by the grey object scanner.
+                 */
+                blackenDirtyCardRoots();
 
-            /*
-             * Stack references are grey at the beginning of a collection, so I need to blacken
-             * them.
-             */
-            blackenStackRoots();
+                /*
+                 * Stack references are grey at the beginning of a collection, so I need to blacken
+                 * them.
+                 */
+                blackenStackRoots();
 
-            /* Custom memory regions which contain object references. */
-            walkThreadLocals();
+                /* Custom memory regions which contain object references. */
+                walkThreadLocals();
 
-            /*
-             * Native image Objects are grey at the beginning of a collection, so I need to blacken
-             * them.
-             */
-            blackenDirtyImageHeapRoots();
+                /*
+                 * Native image Objects are grey at the beginning of a collection, so I need to
+                 * blacken them.
+                 */
+                blackenDirtyImageHeapRoots();
 
-            /* Visit all the Objects promoted since the snapshot, transitively. */
-            scanGreyObjects(true);
+                /* Visit all the Objects promoted since the snapshot, transitively. */
+                scanGreyObjects(true);
+            }
 
             if (DeoptimizationSupport.enabled()) {
                 /* Visit the runtime compiled code, now that we know all the reachable objects. */
@@ -643,6 +701,29 @@ public final class GCImpl implements GC {
         trace.string("]").newline();
     }
 
+    /**
+     * Scans the roots and copies the reachable objects with all {@link ParallelGC} walkers. The
+     * chunks promoted with pinned objects are scanned before the phase starts, so the walkers only
+     * have to trace what they copy themselves. Afterwards, the snapshot for the grey object scanner
+     * is taken again because the walkers already blackened everything they promoted.
+     */
+    private void scanRootsInParallel(boolean isIncremental) {
+        Timer parallelPhaseTimer = timers.parallelPhase.open();
+        try {
+            scanGreyObjects(isIncremental);
+
+            parallelGC.startPhase(isIncremental);
+            /* Only the coordinator can walk its own stack, and the stacks of the busy workers. */
+            blackenStackRoots();
+            parallelGC.participate();
+            parallelGC.finishPhase();
+
+            prepareForPromotion(isIncremental);
+        } finally {
+            parallelPhaseTimer.close();
+        }
+    }
+
     private void promoteIndividualPinnedObjects() {
         Log trace = Log.noopLog().string("[GCImpl.promoteIndividualPinnedObjects:").newline();
         Timer promotePinnedObjectsTimer = timers.promotePinnedObjects.open();
@@ -699,6 +780,10 @@ public final class GCImpl implements GC {
                          */
                         continue;
                     }
+                    if (ParallelGC.isEnabled() && ParallelGC.isInParallelPhase() && !parallelGC.isParticipatingWorkerThread(vmThread)) {
+                        /* Claimed and scanned by the parallel walkers. */
+                        continue;
+                    }
                     if (JavaStackWalker.initWalk(walk, vmThread)) {
                         walkStack(walk);
                     }
@@ -712,6 +797,26 @@ public final class GCImpl implements GC {
         trace.string("]").newline();
     }
 
+    /**
+     * Visits the references on the stacks of all threads with the given visitor, e.g., to mark the
+     * roots of a {@link ConcurrentMarking} cycle.
+     */
+    @NeverInline("Starting a stack walk in the caller frame.")
+    @Uninterruptible(reason = "Required by called JavaStackWalker methods. We are at a safepoint during GC, so it does not change anything for this method.", calleeMustBe = false)
+    static void walkStackRoots(ObjectReferenceVisitor visitor) {
+        JavaStackWalk walk = StackValue.get(JavaStackWalk.class);
+        JavaStackWalker.initWalk(walk, readCallerStackPointer(), readReturnAddress());
+        walkStack(walk, visitor);
+
+        if (SubstrateOptions.MultiThreaded.getValue()) {
+            for (IsolateThread vmThread = VMThreads.firstThread(); vmThread.isNonNull(); vmThread = VMThreads.nextThread(vmThread)) {
+                if (vmThread != CurrentIsolate.getCurrentThread() && JavaStackWalker.initWalk(walk, vmThread)) {
+                    walkStack(walk, visitor);
+                }
+            }
+        }
+    }
+
     /**
      * This method inlines {@link JavaStackWalker#continueWalk(JavaStackWalk, CodeInfo)} and
      * {@link CodeInfoTable#visitObjectReferences}. This avoids looking up the
@@ -719,7 +824,12 @@ public final class GCImpl implements GC {
      * calls to a stack frame visitor.
      */
     @Uninterruptible(reason = "Required by called JavaStackWalker methods. We are at a safepoint during GC, so it does not change anything for this method.", calleeMustBe = false)
-    private void walkStack(JavaStackWalk walk) {
+    void walkStack(JavaStackWalk walk) {
+        walkStack(walk, greyToBlackObjRefVisitor);
+    }
+
+    @Uninterruptible(reason = "Required by called JavaStackWalker methods. We are at a safepoint during GC, so it does not change anything for this method.", calleeMustBe = false)
+    private static void walkStack(JavaStackWalk walk, ObjectReferenceVisitor visitor) {
         assert VMOperation.isGCInProgress() : "This methods accesses a CodeInfo without a tether";
 
         while (true) {
@@ -743,7 +853,7 @@ public final class GCImpl implements GC {
                 if (referenceMapIndex == CodeInfoQueryResult.NO_REFERENCE_MAP) {
                     throw CodeInfoTable.reportNoReferenceMap(sp, ip, codeInfo);
                 }
-                CodeReferenceMapDecoder.walkOffsetsFromPointer(sp, referenceMapEncoding, referenceMapIndex, greyToBlackObjRefVisitor);
+                CodeReferenceMapDecoder.walkOffsetsFromPointer(sp, referenceMapEncoding, referenceMapIndex, visitor);
             } else {
                 /*
                  * This is a deoptimized frame. The DeoptimizedFrame object is stored in the frame,
@@ -759,8 +869,8 @@ public final class GCImpl implements GC {
                  * decide to invalidate too much code, depending on the order in which the CodeInfo
                  * objects are visited.
                  */
-                RuntimeCodeInfoAccess.walkStrongReferences(codeInfo, greyToBlackObjRefVisitor);
-                RuntimeCodeInfoAccess.walkWeakReferences(codeInfo, greyToBlackObjRefVisitor);
+                RuntimeCodeInfoAccess.walkStrongReferences(codeInfo, visitor);
+                RuntimeCodeInfoAccess.walkWeakReferences(codeInfo, visitor);
             }
 
             if (!JavaStackWalker.continueWalk(walk, queryResult, deoptFrame)) {
@@ -825,7 +935,7 @@ public final class GCImpl implements GC {
     }
 
     @SuppressWarnings("unchecked")
-    private static <T extends HeapChunk.Header<T>> T asImageHeapChunk(long offsetInImageHeap) {
+    static <T extends HeapChunk.Header<T>> T asImageHeapChunk(long offsetInImageHeap) {
         if (offsetInImageHeap < 0) {
             return (T) WordFactory.nullPointer();
         }
@@ -999,6 +1109,10 @@ public final class GCImpl implements GC {
             return;
         }
 
+        if (ConcurrentMarking.isEnabled()) {
+            concurrentMarking.wakeUpMarker();
+        }
+
         Timer refsTimer = new Timer("Enqueuing pending references and invoking internal cleaners");
         Timer timer = refsTimer.open();
         try {
@@ -1029,6 +1143,18 @@ public final class GCImpl implements GC {
         return greyToBlackObjectVisitor;
     }
 
+    GreyToBlackObjRefVisitor getGreyToBlackObjRefVisitor() {
+        return greyToBlackObjRefVisitor;
+    }
+
+    ParallelGC getParallelGC() {
+        return parallelGC;
+    }
+
+    ConcurrentMarking getConcurrentMarking() {
+        return concurrentMarking;
+    }
+
     RememberedSetConstructor getRememberedSetConstructor() {
         return rememberedSetConstructor;
     }
@@ -1249,5 +1375,12 @@ public final class GCImpl implements GC {
         log.string(prefix).string("GCNanos: ").signed(gcNanos).newline();
         log.string(prefix).string("TotalNanos: ").signed(totalNanos).newline();
         log.string(prefix).string("GCLoadPercent: ").signed(roundedGCLoad).newline();
+        log.string(prefix).string("UncommittedTotalChunkBytes: ").unsigned(HeapImpl.getChunkProvider().getTotalUncommittedBytes()).newline();
+        if (NumaAllocation.isEnabled()) {
+            HeapImpl.getChunkProvider().getNumaAllocation().printSummary(log, prefix);
+        }
+        if (ConcurrentMarking.isEnabled()) {
+            concurrentMarking.printSummary(log, prefix);
+        }
     }
 }
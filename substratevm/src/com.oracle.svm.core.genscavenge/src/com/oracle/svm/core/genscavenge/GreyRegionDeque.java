@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.genscavenge;
+
+import org.graalvm.compiler.api.replacements.Fold;
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+import org.graalvm.nativeimage.UnmanagedMemory;
+import org.graalvm.word.Pointer;
+import org.graalvm.word.WordFactory;
+
+import com.oracle.svm.core.config.ConfigurationValues;
+import com.oracle.svm.core.jdk.UninterruptibleUtils.AtomicInteger;
+
+/**
+ * A bounded work-stealing deque of grey regions, following Chase and Lev, "Dynamic Circular
+ * Work-Stealing Deque". A grey region is a range of objects in a heap chunk that have been copied
+ * (or whose chunk has been promoted) but whose references have not been visited yet.
+ *
+ * Only the owning {@link ParallelGreyObjectsWalker} {@linkplain #push pushes} and
+ * {@linkplain #pop pops} at the bottom, other walkers {@linkplain #steal steal} from the top.
+ *
+ * The entries are kept in unmanaged memory that is allocated when the worker is started, so that
+ * they neither move nor have to be scanned during a collection.
+ */
+final class GreyRegionDeque {
+    /** Maximum number of regions, must be a power of two. */
+    static final int CAPACITY = 16 * 1024;
+
+    private final AtomicInteger top = new AtomicInteger(0);
+    private final AtomicInteger bottom = new AtomicInteger(0);
+    private Pointer entries;
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    GreyRegionDeque() {
+    }
+
+    @Fold
+    static int wordSize() {
+        return ConfigurationValues.getTarget().wordSize;
+    }
+
+    @Fold
+    static int entrySize() {
+        return 2 * wordSize();
+    }
+
+    void allocate() {
+        if (entries.isNull()) {
+            entries = UnmanagedMemory.calloc(WordFactory.unsigned(CAPACITY).multiply(entrySize()));
+        }
+    }
+
+    void free() {
+        if (entries.isNonNull()) {
+            UnmanagedMemory.free(entries);
+            entries = WordFactory.nullPointer();
+        }
+    }
+
+    /** Resets the indices before a collection, so that they cannot overflow. */
+    void reset() {
+        assert isEmpty() : "must not drop grey regions";
+        top.set(0);
+        bottom.set(0);
+    }
+
+    boolean isEmpty() {
+        return bottom.get() - top.get() <= 0;
+    }
+
+    /**
+     * Adds a region at the bottom. Returns false if the deque is full, in which case the caller
+     * has to scan the region itself.
+     */
+    boolean push(Pointer start, Pointer end) {
+        int b = bottom.get();
+        if (b - top.get() >= CAPACITY) {
+            return false;
+        }
+        Pointer entry = entryAt(b);
+        entry.writeWord(0, start);
+        entry.writeWord(wordSize(), end);
+        /* The volatile store publishes the entry to stealing walkers. */
+        bottom.set(b + 1);
+        return true;
+    }
+
+    /**
+     * Removes the region that was pushed last and stores its start and end into {@code result},
+     * which must have room for two words. Returns false if the deque is empty or the last region
+     * was stolen concurrently.
+     */
+    boolean pop(Pointer result) {
+        int b = bottom.get() - 1;
+        /* The volatile store followed by the volatile load of top orders against steal(). */
+        bottom.set(b);
+        int t = top.get();
+        if (t > b) {
+            bottom.set(t);
+            return false;
+        }
+        copyEntry(b, result);
+        if (t == b) {
+            /* Last entry: race against stealing walkers. */
+            boolean won = top.compareAndSet(t, t + 1);
+            bottom.set(t + 1);
+            return won;
+        }
+        return true;
+    }
+
+    /**
+     * Removes the region that was pushed first and stores its start and end into {@code result}.
+     * Called by walkers other than the owner. Returns false if the deque is empty or another
+     * walker won the race for the region.
+     */
+    boolean steal(Pointer result) {
+        int t = top.get();
+        int b = bottom.get();
+        if (t >= b) {
+            return false;
+        }
+        copyEntry(t, result);
+        return top.compareAndSet(t, t + 1);
+    }
+
+    private void copyEntry(int index, Pointer result) {
+        Pointer entry = entryAt(index);
+        result.writeWord(0, entry.readWord(0));
+        result.writeWord(wordSize(), entry.readWord(wordSize()));
+    }
+
+    private Pointer entryAt(int index) {
+        return entries.add(WordFactory.unsigned(index & (CAPACITY - 1)).multiply(entrySize()));
+    }
+}
@@ -44,6 +44,7 @@ import com.oracle.svm.core.jdk.UninterruptibleUtils.AtomicUnsigned;
 import com.oracle.svm.core.log.Log;
 import com.oracle.svm.core.os.CommittedMemoryProvider;
 import com.oracle.svm.core.thread.VMThreads;
+import com.oracle.svm.core.util.UnsignedUtils;
 
 /**
  * Allocates and frees the memory for aligned and unaligned heap chunks. The methods are
@@ -52,23 +53,49 @@ import com.oracle.svm.core.thread.VMThreads;
  * Memory for aligned chunks is not immediately released to the OS. Up to
  * {@link HeapPolicy#getMinimumHeapSize()} chunks are saved in an unused chunk list. Memory for
  * unaligned chunks is released immediately.
+ *
+ * With {@link HeapOptions#UnusedChunkUncommitDelay}, unused chunks that were not needed for that
+ * long are uncommitted: their memory is returned to the OS, but their address range stays reserved
+ * in a separate list, so that they can be committed again without reserving a new aligned range.
+ *
+ * With {@link HeapOptions#UseNumaAwareAllocation}, there is a separate list of unused chunks for
+ * each NUMA node, and chunks are provided from the node of the requesting thread, see
+ * {@link NumaAllocation}.
  */
 final class HeapChunkProvider {
     /**
-     * The head of the linked list of unused aligned chunks. Chunks are chained using
-     * {@link HeapChunk#getNext}.
+     * The heads of the linked lists of unused aligned chunks, indexed by the
+     * {@linkplain AlignedHeapChunk#getNumaNode NUMA node} of the chunks. There is only one list
+     * unless NUMA-aware allocation is enabled. Chunks are chained using {@link HeapChunk#getNext}.
      */
-    private final UninterruptibleUtils.AtomicPointer<AlignedHeader> unusedAlignedChunks = new UninterruptibleUtils.AtomicPointer<>();
+    private final UninterruptibleUtils.AtomicPointer<AlignedHeader>[] unusedAlignedChunks;
 
     /**
-     * The number of chunks in the {@link #unusedAlignedChunks} list.
+     * The number of bytes in all of the {@link #unusedAlignedChunks} lists.
      *
      * The value is not updated atomically with respect to the {@link #unusedAlignedChunks list
-     * head}, but this is OK because we only need the number of chunks for policy code (to avoid
-     * running down the list and counting the number of chunks).
+     * heads}, but this is OK because we only need the number of chunks for policy code (to avoid
+     * running down the lists and counting the number of chunks).
      */
     private final AtomicUnsigned bytesInUnusedAlignedChunks = new AtomicUnsigned();
 
+    /**
+     * The head of the linked list of unused aligned chunks whose memory is uncommitted, except for
+     * the first page, which holds the chunk header with the link to the next chunk.
+     */
+    private final UninterruptibleUtils.AtomicPointer<AlignedHeader> uncommittedAlignedChunks = new UninterruptibleUtils.AtomicPointer<>();
+
+    /** The number of bytes in the {@link #uncommittedAlignedChunks} list, including the headers. */
+    private final AtomicUnsigned bytesInUncommittedAlignedChunks = new AtomicUnsigned();
+
+    /**
+     * The lowest number of bytes in unused chunks at the start of a collection since chunks were
+     * last uncommitted. These chunks were not needed during that time.
+     */
+    private UnsignedWord lowestBytesInUnusedChunks = UnsignedUtils.MAX_VALUE;
+    private long lastUncommitMillis;
+    private UnsignedWord totalUncommittedBytes = WordFactory.zero();
+
     /**
      * The time of the first allocation, as the basis for computing deltas.
      *
@@ -77,8 +104,16 @@ final class HeapChunkProvider {
      */
     private long firstAllocationTime;
 
+    private final NumaAllocation numaAllocation = new NumaAllocation();
+
     @Platforms(Platform.HOSTED_ONLY.class)
+    @SuppressWarnings("unchecked")
     HeapChunkProvider() {
+        int lists = NumaAllocation.getMaxNodes();
+        unusedAlignedChunks = (UninterruptibleUtils.AtomicPointer<AlignedHeader>[]) new UninterruptibleUtils.AtomicPointer<?>[lists];
+        for (int i = 0; i < lists; i++) {
+            unusedAlignedChunks[i] = new UninterruptibleUtils.AtomicPointer<>();
+        }
     }
 
     @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
@@ -86,6 +121,19 @@ final class HeapChunkProvider {
         return bytesInUnusedAlignedChunks.get();
     }
 
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public UnsignedWord getBytesInUncommittedChunks() {
+        return bytesInUncommittedAlignedChunks.get();
+    }
+
+    UnsignedWord getTotalUncommittedBytes() {
+        return totalUncommittedBytes;
+    }
+
+    NumaAllocation getNumaAllocation() {
+        return numaAllocation;
+    }
+
     @AlwaysInline("Remove all logging when noopLog is returned by this method")
     private static Log log() {
         return Log.noopLog();
@@ -95,25 +143,60 @@ final class HeapChunkProvider {
 
     private static final OutOfMemoryError UNALIGNED_OUT_OF_MEMORY_ERROR = new OutOfMemoryError("Could not allocate an unaligned heap chunk");
 
-    /** Acquire a new AlignedHeapChunk, either from the free list or from the operating system. */
+    /**
+     * Acquire a new AlignedHeapChunk, either from the free list or from the operating system. With
+     * NUMA-aware allocation, the chunk is taken from the node of the current thread if possible.
+     */
     AlignedHeader produceAlignedChunk() {
+        return produceAlignedChunk(false);
+    }
+
+    /**
+     * Like {@link #produceAlignedChunk()}, but for a chunk that the collector requests for promoted
+     * objects, which is counted separately from the chunks that are handed to application threads.
+     */
+    AlignedHeader produceAlignedChunkForCollector() {
+        return produceAlignedChunk(true);
+    }
+
+    private AlignedHeader produceAlignedChunk(boolean forCollector) {
         UnsignedWord chunkSize = HeapPolicy.getAlignedHeapChunkSize();
         log().string("[HeapChunkProvider.produceAlignedChunk  chunk size: ").unsigned(chunkSize).newline();
 
-        AlignedHeader result = popUnusedAlignedChunk();
+        int node = numaAllocation.getCurrentNode();
+        AlignedHeader result = popUnusedAlignedChunk(node);
         log().string("  unused chunk: ").hex(result).newline();
 
+        if (result.isNull()) {
+            result = popUncommittedAlignedChunk(node);
+            log().string("  uncommitted chunk: ").hex(result).newline();
+        }
+
         if (result.isNull()) {
             /* Unused list was empty, need to allocate memory. */
             noteFirstAllocationTime();
             result = (AlignedHeader) CommittedMemoryProvider.get().allocate(chunkSize, HeapPolicy.getAlignedHeapChunkAlignment(), false);
-            if (result.isNull()) {
-                throw ALIGNED_OUT_OF_MEMORY_ERROR;
+            if (result.isNonNull()) {
+                log().string("  new chunk: ").hex(result).newline();
+
+                /* Before the memory is touched, so that its pages are provided by the node. */
+                NumaAllocation.bindToNode(HeapChunk.asPointer(result), chunkSize, node);
+                initializeChunk(result, chunkSize);
+                resetAlignedHeapChunk(result);
+                AlignedHeapChunk.setNumaNode(result, node);
+            } else {
+                /* Rather than failing, use an unused chunk of a remote node. */
+                result = popUnusedAlignedChunkOfAnyNode(node);
+                if (result.isNull()) {
+                    throw ALIGNED_OUT_OF_MEMORY_ERROR;
+                }
+                log().string("  remote chunk: ").hex(result).newline();
             }
-            log().string("  new chunk: ").hex(result).newline();
-
-            initializeChunk(result, chunkSize);
-            resetAlignedHeapChunk(result);
+        }
+        if (forCollector) {
+            numaAllocation.noteCollectorAllocation(chunkSize);
+        } else {
+            numaAllocation.noteAllocation(node, AlignedHeapChunk.getNumaNode(result), chunkSize);
         }
         assert HeapChunk.getTopOffset(result).equal(AlignedHeapChunk.getObjectsStartOffset());
         assert HeapChunk.getEndOffset(result).equal(chunkSize);
@@ -137,9 +220,9 @@ final class HeapChunkProvider {
         AlignedHeader cur = firstChunk;
 
         UnsignedWord minimumHeapSize = HeapPolicy.getMinimumHeapSize();
-        UnsignedWord committedBytesAfterGC = GCImpl.getChunkBytes().add(getBytesInUnusedChunks());
-        if (minimumHeapSize.aboveThan(committedBytesAfterGC)) {
-            UnsignedWord chunksToKeep = minimumHeapSize.subtract(committedBytesAfterGC).unsignedDivide(HeapPolicy.getAlignedHeapChunkSize());
+        UnsignedWord retainedBytesAfterGC = GCImpl.getChunkBytes().add(getBytesInUnusedChunks()).add(getBytesInUncommittedChunks());
+        if (minimumHeapSize.aboveThan(retainedBytesAfterGC)) {
+            UnsignedWord chunksToKeep = minimumHeapSize.subtract(retainedBytesAfterGC).unsignedDivide(HeapPolicy.getAlignedHeapChunkSize());
             while (cur.isNonNull() && chunksToKeep.aboveThan(0)) {
                 AlignedHeader next = HeapChunk.getNext(cur);
                 cleanAlignedChunk(cur);
@@ -160,7 +243,7 @@ final class HeapChunkProvider {
     }
 
     /**
-     * Push a chunk to the global linked list of unused chunks.
+     * Push a chunk to the global linked list of unused chunks of its NUMA node.
      * <p>
      * This method is <em>not</em> atomic. It only runs when the VMThreads.THREAD_MUTEX is held (or
      * the virtual machine is single-threaded). However it must not be allowed to compete with pops
@@ -168,53 +251,70 @@ final class HeapChunkProvider {
      * during garbage collection, so making popping uninterruptible prevents simultaneous pushing
      * and popping.
      *
-     * Note the asymmetry with {@link #popUnusedAlignedChunk()}, which does not use a global free
+     * Note the asymmetry with {@link #popUnusedAlignedChunk(int)}, which does not use a global free
      * list.
      */
     private void pushUnusedAlignedChunk(AlignedHeader chunk) {
         if (SubstrateOptions.MultiThreaded.getValue()) {
             VMThreads.guaranteeOwnsThreadMutex("Should hold the lock when pushing to the global list.");
         }
-        log().string("  old list top: ").hex(unusedAlignedChunks.get()).string("  list bytes ").signed(bytesInUnusedAlignedChunks.get()).newline();
+        UninterruptibleUtils.AtomicPointer<AlignedHeader> list = unusedAlignedChunks[AlignedHeapChunk.getNumaNode(chunk)];
+        log().string("  old list top: ").hex(list.get()).string("  list bytes ").signed(bytesInUnusedAlignedChunks.get()).newline();
 
-        HeapChunk.setNext(chunk, unusedAlignedChunks.get());
-        unusedAlignedChunks.set(chunk);
+        HeapChunk.setNext(chunk, list.get());
+        list.set(chunk);
         bytesInUnusedAlignedChunks.addAndGet(HeapPolicy.getAlignedHeapChunkSize());
 
-        log().string("  new list top: ").hex(unusedAlignedChunks.get()).string("  list bytes ").signed(bytesInUnusedAlignedChunks.get()).newline();
+        log().string("  new list top: ").hex(list.get()).string("  list bytes ").signed(bytesInUnusedAlignedChunks.get()).newline();
     }
 
     /**
-     * Pop a chunk from the global linked list of unused chunks. Returns {@code null} if the list is
-     * empty.
+     * Pop a chunk from the global linked list of unused chunks of a NUMA node. Returns {@code null}
+     * if the list is empty.
      * <p>
      * This method uses compareAndSet to protect itself from races with competing pop operations,
      * but it is <em>not</em> safe with respect to competing pushes. Since pushes can happen during
      * garbage collections, I avoid the ABA problem by making the kernel of this method
      * uninterruptible so it can not be interrupted by a safepoint.
      */
-    private AlignedHeader popUnusedAlignedChunk() {
-        log().string("  old list top: ").hex(unusedAlignedChunks.get()).string("  list bytes ").signed(bytesInUnusedAlignedChunks.get()).newline();
+    private AlignedHeader popUnusedAlignedChunk(int node) {
+        UninterruptibleUtils.AtomicPointer<AlignedHeader> list = unusedAlignedChunks[node];
+        log().string("  old list top: ").hex(list.get()).string("  list bytes ").signed(bytesInUnusedAlignedChunks.get()).newline();
 
-        AlignedHeader result = popUnusedAlignedChunkUninterruptibly();
+        AlignedHeader result = popAlignedChunkUninterruptibly(list);
         if (result.isNull()) {
             return WordFactory.nullPointer();
         } else {
             bytesInUnusedAlignedChunks.subtractAndGet(HeapPolicy.getAlignedHeapChunkSize());
-            log().string("  new list top: ").hex(unusedAlignedChunks.get()).string("  list bytes ").signed(bytesInUnusedAlignedChunks.get()).newline();
+            log().string("  new list top: ").hex(list.get()).string("  list bytes ").signed(bytesInUnusedAlignedChunks.get()).newline();
             return result;
         }
     }
 
+    /**
+     * Pop a chunk from the first non-empty list of unused chunks, starting with the list of the
+     * given NUMA node. Returns {@code null} if all lists are empty.
+     */
+    private AlignedHeader popUnusedAlignedChunkOfAnyNode(int preferredNode) {
+        int nodeCount = numaAllocation.getNodeCount();
+        for (int i = 0; i < nodeCount; i++) {
+            AlignedHeader result = popUnusedAlignedChunk((preferredNode + i) % nodeCount);
+            if (result.isNonNull()) {
+                return result;
+            }
+        }
+        return WordFactory.nullPointer();
+    }
+
     @Uninterruptible(reason = "Must not be interrupted by competing pushes.")
-    private AlignedHeader popUnusedAlignedChunkUninterruptibly() {
+    private static AlignedHeader popAlignedChunkUninterruptibly(UninterruptibleUtils.AtomicPointer<AlignedHeader> list) {
         while (true) {
-            AlignedHeader result = unusedAlignedChunks.get();
+            AlignedHeader result = list.get();
             if (result.isNull()) {
                 return WordFactory.nullPointer();
             } else {
                 AlignedHeader next = HeapChunk.getNext(result);
-                if (unusedAlignedChunks.compareAndSet(result, next)) {
+                if (list.compareAndSet(result, next)) {
                     HeapChunk.setNext(result, WordFactory.nullPointer());
                     return result;
                 }
@@ -222,6 +322,94 @@ final class HeapChunkProvider {
         }
     }
 
+    /**
+     * Pop a chunk from the list of uncommitted chunks and commit it again, with its memory bound to
+     * the given NUMA node. Returns {@code null} if the list is empty or if the memory could not be
+     * committed.
+     */
+    private AlignedHeader popUncommittedAlignedChunk(int node) {
+        AlignedHeader result = popAlignedChunkUninterruptibly(uncommittedAlignedChunks);
+        if (result.isNull()) {
+            return WordFactory.nullPointer();
+        }
+        UnsignedWord chunkSize = HeapPolicy.getAlignedHeapChunkSize();
+        bytesInUncommittedAlignedChunks.subtractAndGet(chunkSize);
+        UnsignedWord headerBytes = getUncommitHeaderSize();
+        Pointer recommitStart = HeapChunk.asPointer(result).add(headerBytes);
+        if (!CommittedMemoryProvider.get().recommit(recommitStart, chunkSize.subtract(headerBytes), false)) {
+            freeUncommittedAlignedChunk(result);
+            return WordFactory.nullPointer();
+        }
+        NumaAllocation.bindToNode(recommitStart, chunkSize.subtract(headerBytes), node);
+        /* The card table and the first object table were partially uncommitted. */
+        resetAlignedHeapChunk(result);
+        AlignedHeapChunk.setNumaNode(result, node);
+        return result;
+    }
+
+    /** The part of an uncommitted chunk that stays committed because it holds the chunk header. */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static UnsignedWord getUncommitHeaderSize() {
+        return CommittedMemoryProvider.get().getGranularity();
+    }
+
+    /** Called at the start of a collection, before any chunks are returned to the unused list. */
+    void beforeCollection() {
+        UnsignedWord unusedBytes = getBytesInUnusedChunks();
+        if (unusedBytes.belowThan(lowestBytesInUnusedChunks)) {
+            lowestBytesInUnusedChunks = unusedBytes;
+        }
+    }
+
+    /**
+     * Called at the end of a collection. Once per {@link HeapOptions#UnusedChunkUncommitDelay},
+     * uncommits as many unused chunks as were not needed during that time. Chunks are freed instead
+     * if the {@link CommittedMemoryProvider} cannot uncommit memory.
+     */
+    void afterCollection() {
+        long delay = HeapOptions.UnusedChunkUncommitDelay.getValue();
+        if (delay <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (lastUncommitMillis == 0) {
+            lastUncommitMillis = now;
+            return;
+        }
+        if (now - lastUncommitMillis < delay) {
+            return;
+        }
+
+        UnsignedWord chunkSize = HeapPolicy.getAlignedHeapChunkSize();
+        UnsignedWord headerBytes = getUncommitHeaderSize();
+        UnsignedWord bytesToUncommit = UnsignedUtils.min(lowestBytesInUnusedChunks, getBytesInUnusedChunks());
+        while (bytesToUncommit.aboveOrEqual(chunkSize)) {
+            AlignedHeader chunk = popUnusedAlignedChunkOfAnyNode(0);
+            if (chunk.isNull()) {
+                break;
+            }
+            bytesToUncommit = bytesToUncommit.subtract(chunkSize);
+            if (chunkSize.aboveThan(headerBytes) && CommittedMemoryProvider.get().uncommit(HeapChunk.asPointer(chunk).add(headerBytes), chunkSize.subtract(headerBytes))) {
+                pushUncommittedAlignedChunk(chunk);
+                totalUncommittedBytes = totalUncommittedBytes.add(chunkSize);
+            } else {
+                freeAlignedChunk(chunk);
+            }
+        }
+        lastUncommitMillis = now;
+        lowestBytesInUnusedChunks = getBytesInUnusedChunks();
+    }
+
+    /** Like {@link #pushUnusedAlignedChunk}, but for the list of uncommitted chunks. */
+    private void pushUncommittedAlignedChunk(AlignedHeader chunk) {
+        if (SubstrateOptions.MultiThreaded.getValue()) {
+            VMThreads.guaranteeOwnsThreadMutex("Should hold the lock when pushing to the global list.");
+        }
+        HeapChunk.setNext(chunk, uncommittedAlignedChunks.get());
+        uncommittedAlignedChunks.set(chunk);
+        bytesInUncommittedAlignedChunks.addAndGet(HeapPolicy.getAlignedHeapChunkSize());
+    }
+
     /** Acquire an UnalignedHeapChunk from the operating system. */
     UnalignedHeader produceUnalignedChunk(UnsignedWord objectSize) {
         UnsignedWord chunkSize = UnalignedHeapChunk.getChunkSizeForObject(objectSize);
@@ -233,6 +421,10 @@ final class HeapChunkProvider {
             throw UNALIGNED_OUT_OF_MEMORY_ERROR;
         }
 
+        int node = numaAllocation.getCurrentNode();
+        NumaAllocation.bindToNode(HeapChunk.asPointer(result), chunkSize, node);
+        numaAllocation.noteAllocation(node, node, chunkSize);
+
         initializeChunk(result, chunkSize);
         resetUnalignedChunk(result);
         assert objectSize.belowOrEqual(HeapChunk.availableObjectMemory(result)) : "UnalignedHeapChunk insufficient for requested object";
@@ -295,13 +487,27 @@ final class HeapChunkProvider {
         log.string("aligned: ").signed(bytesInUnusedAlignedChunks.get())
                         .string("/")
                         .signed(bytesInUnusedAlignedChunks.get().unsignedDivide(HeapPolicy.getAlignedHeapChunkSize()));
+        log.string("  uncommitted: ").signed(bytesInUncommittedAlignedChunks.get())
+                        .string("/")
+                        .signed(bytesInUncommittedAlignedChunks.get().unsignedDivide(HeapPolicy.getAlignedHeapChunkSize()));
+        if (NumaAllocation.isEnabled()) {
+            for (int node = 0; node < numaAllocation.getNodeCount(); node++) {
+                int chunks = 0;
+                for (AlignedHeader aChunk = unusedAlignedChunks[node].get(); aChunk.isNonNull(); aChunk = HeapChunk.getNext(aChunk)) {
+                    chunks++;
+                }
+                log.string("  node ").signed(node).string(": ").signed(chunks);
+            }
+        }
         if (traceHeapChunks) {
-            if (unusedAlignedChunks.get().isNonNull()) {
-                log.newline().string("aligned chunks:").redent(true);
-                for (AlignedHeapChunk.AlignedHeader aChunk = unusedAlignedChunks.get(); aChunk.isNonNull(); aChunk = HeapChunk.getNext(aChunk)) {
-                    log.newline().hex(aChunk).string(" (").hex(AlignedHeapChunk.getObjectsStart(aChunk)).string("-").hex(HeapChunk.getTopPointer(aChunk)).string(")");
+            for (UninterruptibleUtils.AtomicPointer<AlignedHeader> list : unusedAlignedChunks) {
+                if (list.get().isNonNull()) {
+                    log.newline().string("aligned chunks:").redent(true);
+                    for (AlignedHeapChunk.AlignedHeader aChunk = list.get(); aChunk.isNonNull(); aChunk = HeapChunk.getNext(aChunk)) {
+                        log.newline().hex(aChunk).string(" (").hex(AlignedHeapChunk.getObjectsStart(aChunk)).string("-").hex(HeapChunk.getTopPointer(aChunk)).string(")");
+                    }
+                    log.redent(false);
                 }
-                log.redent(false);
             }
         }
         log.redent(false).string("]");
@@ -311,8 +517,10 @@ final class HeapChunkProvider {
     boolean walkHeapChunks(MemoryWalker.Visitor visitor) {
         boolean continueVisiting = true;
         MemoryWalker.HeapChunkAccess<AlignedHeapChunk.AlignedHeader> access = AlignedHeapChunk.getMemoryWalkerAccess();
-        for (AlignedHeapChunk.AlignedHeader aChunk = unusedAlignedChunks.get(); continueVisiting && aChunk.isNonNull(); aChunk = HeapChunk.getNext(aChunk)) {
-            continueVisiting = visitor.visitHeapChunk(aChunk, access);
+        for (int i = 0; continueVisiting && i < unusedAlignedChunks.length; i++) {
+            for (AlignedHeapChunk.AlignedHeader aChunk = unusedAlignedChunks[i].get(); continueVisiting && aChunk.isNonNull(); aChunk = HeapChunk.getNext(aChunk)) {
+                continueVisiting = visitor.visitHeapChunk(aChunk, access);
+            }
         }
         return continueVisiting;
     }
@@ -328,7 +536,16 @@ final class HeapChunkProvider {
     }
 
     boolean slowlyFindPointer(Pointer p) {
-        for (AlignedHeader chunk = unusedAlignedChunks.get(); chunk.isNonNull(); chunk = HeapChunk.getNext(chunk)) {
+        for (UninterruptibleUtils.AtomicPointer<AlignedHeader> list : unusedAlignedChunks) {
+            if (slowlyFindPointer(list.get(), p)) {
+                return true;
+            }
+        }
+        return slowlyFindPointer(uncommittedAlignedChunks.get(), p);
+    }
+
+    private static boolean slowlyFindPointer(AlignedHeader first, Pointer p) {
+        for (AlignedHeader chunk = first; chunk.isNonNull(); chunk = HeapChunk.getNext(chunk)) {
             Pointer chunkPtr = HeapChunk.asPointer(chunk);
             if (p.aboveOrEqual(chunkPtr) && p.belowThan(chunkPtr.add(HeapPolicy.getAlignedHeapChunkSize()))) {
                 return true;
@@ -339,7 +556,26 @@ final class HeapChunkProvider {
 
     @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     void tearDown() {
-        freeAlignedChunkList(unusedAlignedChunks.get());
+        for (int i = 0; i < unusedAlignedChunks.length; i++) {
+            freeAlignedChunkList(unusedAlignedChunks[i].get());
+        }
+        for (AlignedHeader chunk = uncommittedAlignedChunks.get(); chunk.isNonNull();) {
+            AlignedHeader next = HeapChunk.getNext(chunk);
+            freeUncommittedAlignedChunk(chunk);
+            chunk = next;
+        }
+    }
+
+    /**
+     * Frees a chunk from the list of uncommitted chunks. Its memory is committed again first, as
+     * required by {@link CommittedMemoryProvider#uncommit}, which does not touch any pages. If that
+     * fails, the chunk is freed anyway and only the provider's accounting is off.
+     */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static void freeUncommittedAlignedChunk(AlignedHeader chunk) {
+        UnsignedWord headerBytes = getUncommitHeaderSize();
+        CommittedMemoryProvider.get().recommit(HeapChunk.asPointer(chunk).add(headerBytes), HeapPolicy.getAlignedHeapChunkSize().subtract(headerBytes), false);
+        freeAlignedChunk(chunk);
     }
 
     @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
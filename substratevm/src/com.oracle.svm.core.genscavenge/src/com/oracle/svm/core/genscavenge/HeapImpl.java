@@ -572,7 +572,7 @@ public final class HeapImpl extends Heap {
     @Override
     public CardTableBarrierSet createBarrierSet(MetaAccessProvider metaAccess) {
         ResolvedJavaType objectArrayType = metaAccess.lookupJavaType(Object[].class);
-        return new SubstrateCardTableBarrierSet(objectArrayType);
+        return new SubstrateCardTableBarrierSet(objectArrayType, ConcurrentMarking.isEnabled());
     }
 
     void addToReferencePendingList(Reference<?> list) {
@@ -714,6 +714,11 @@ public final class HeapImpl extends Heap {
             REF_MUTEX.unlock();
         }
     }
+
+    @Override
+    public boolean needsBarrierToClearReferent() {
+        return ConcurrentMarking.isEnabled();
+    }
 }
 
 @TargetClass(value = java.lang.Runtime.class, onlyWith = UseCardRememberedSetHeap.class)
@@ -33,8 +33,13 @@ import com.oracle.svm.core.heap.AbstractMemoryMXBean;
 
 /**
  * A MemoryMXBean for this heap.
+ *
+ * In addition to the current usage, it reports the heap memory usage after each of the most recent
+ * collections, so that the growth of committed memory relative to used memory can be observed in a
+ * long-running process, as well as the memory of unused chunks that is currently uncommitted. With
+ * NUMA-aware allocation, it also reports the bytes in chunks that were allocated on each node.
  */
-public final class HeapImplMemoryMXBean extends AbstractMemoryMXBean {
+public final class HeapImplMemoryMXBean extends AbstractMemoryMXBean implements HeapMemoryMXBean {
     @Platforms(Platform.HOSTED_ONLY.class)
     public HeapImplMemoryMXBean() {
     }
@@ -45,4 +50,72 @@ public final class HeapImplMemoryMXBean extends AbstractMemoryMXBean {
         long heapCommitted = HeapImpl.getHeapImpl().getCommittedBytes().rawValue();
         return new MemoryUsage(UNDEFINED_MEMORY_USAGE, heapUsed, heapCommitted, UNDEFINED_MEMORY_USAGE);
     }
+
+    @Override
+    public FootprintSample[] getHeapMemoryUsageHistory() {
+        GCAccounting accounting = HeapImpl.getHeapImpl().getGCImpl().getAccounting();
+        while (true) {
+            long count = accounting.getFootprintSampleCount();
+            /* Leave out the slot that the next collection overwrites. */
+            int length = (int) Math.min(count, GCAccounting.FOOTPRINT_HISTORY_LENGTH - 1);
+            FootprintSample[] result = new FootprintSample[length];
+            for (int i = 0; i < length; i++) {
+                long sample = count - length + i;
+                MemoryUsage usage = new MemoryUsage(UNDEFINED_MEMORY_USAGE, accounting.getFootprintUsedBytes(sample), accounting.getFootprintCommittedBytes(sample), UNDEFINED_MEMORY_USAGE);
+                result[i] = new FootprintSample(accounting.getFootprintTimestamp(sample), usage);
+            }
+            if (accounting.getFootprintSampleCount() == count) {
+                return result;
+            }
+        }
+    }
+
+    @Override
+    public long getUncommittedHeapMemory() {
+        return HeapImpl.getChunkProvider().getBytesInUncommittedChunks().rawValue();
+    }
+
+    @Override
+    public long getConcurrentMarkingCycleCount() {
+        if (!ConcurrentMarking.isEnabled()) {
+            return -1;
+        }
+        return HeapImpl.getHeapImpl().getGCImpl().getConcurrentMarking().getCompletedCycles();
+    }
+
+    @Override
+    public long getOldGenerationCompactionCount() {
+        if (!OldGenerationCompaction.isEnabled()) {
+            return -1;
+        }
+        return HeapImpl.getHeapImpl().getGCImpl().getConcurrentMarking().getCompactions();
+    }
+
+    @Override
+    public int getNumaNodeCount() {
+        return HeapImpl.getChunkProvider().getNumaAllocation().getNodeCount();
+    }
+
+    @Override
+    public long getNumaNodeAllocatedBytes(int node) {
+        checkNumaNode(node);
+        return HeapImpl.getChunkProvider().getNumaAllocation().getAllocatedBytes(node).rawValue();
+    }
+
+    @Override
+    public long getNumaNodeRemoteBytes(int node) {
+        checkNumaNode(node);
+        return HeapImpl.getChunkProvider().getNumaAllocation().getRemoteBytes(node).rawValue();
+    }
+
+    @Override
+    public long getNumaCollectorBytes() {
+        return HeapImpl.getChunkProvider().getNumaAllocation().getCollectorBytes().rawValue();
+    }
+
+    private void checkNumaNode(int node) {
+        if (node < 0 || node >= getNumaNodeCount()) {
+            throw new IllegalArgumentException("Invalid NUMA node: " + node);
+        }
+    }
 }
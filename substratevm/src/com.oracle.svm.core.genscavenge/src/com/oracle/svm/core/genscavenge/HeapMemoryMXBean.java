@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.genscavenge;
+
+//Checkstyle: stop
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+//Checkstyle: resume
+
+/**
+ * The {@link MemoryMXBean} of this heap. Its additional attributes are available via
+ * {@link ManagementFactory#getPlatformMXBean(Class)} and, like the attributes of all platform
+ * beans, via the {@linkplain ManagementFactory#getPlatformMBeanServer() platform MBean server}
+ * if the methods of this interface are registered for reflection.
+ */
+public interface HeapMemoryMXBean extends MemoryMXBean {
+
+    /**
+     * Returns the heap memory usage right after each of the most recent collections, oldest first.
+     */
+    FootprintSample[] getHeapMemoryUsageHistory();
+
+    /**
+     * Returns the number of bytes of unused heap chunks whose memory was returned to the operating
+     * system, but whose address range is still reserved. These bytes are not included in the
+     * committed heap memory.
+     */
+    long getUncommittedHeapMemory();
+
+    /**
+     * Returns the number of concurrent marking cycles that completed, or -1 if concurrent marking is
+     * not enabled.
+     */
+    long getConcurrentMarkingCycleCount();
+
+    /**
+     * Returns how often the old generation was compacted at the end of a concurrent marking cycle,
+     * or -1 if old generation compaction is not enabled.
+     */
+    long getOldGenerationCompactionCount();
+
+    /**
+     * Returns the number of NUMA nodes that heap chunks are allocated from, which is 1 unless
+     * NUMA-aware allocation is enabled.
+     */
+    int getNumaNodeCount();
+
+    /**
+     * Returns the number of bytes in heap chunks that were provided to threads while they were
+     * running on the given NUMA node. Returns 0 unless NUMA-aware allocation is enabled.
+     */
+    long getNumaNodeAllocatedBytes(int node);
+
+    /**
+     * Returns the part of {@link #getNumaNodeAllocatedBytes} whose memory is on a different node,
+     * because the local node had none left.
+     */
+    long getNumaNodeRemoteBytes(int node);
+
+    /**
+     * Returns the number of bytes in heap chunks that the collector requested for promoted objects,
+     * which are not included in {@link #getNumaNodeAllocatedBytes}. Returns 0 unless NUMA-aware
+     * allocation is enabled.
+     */
+    long getNumaCollectorBytes();
+
+    /** The heap memory usage after a collection. */
+    final class FootprintSample {
+        private final long timestampMillis;
+        private final MemoryUsage usage;
+
+        FootprintSample(long timestampMillis, MemoryUsage usage) {
+            this.timestampMillis = timestampMillis;
+            this.usage = usage;
+        }
+
+        /** The time at the end of the collection, in milliseconds since the epoch. */
+        public long getTimestampMillis() {
+            return timestampMillis;
+        }
+
+        public MemoryUsage getUsage() {
+            return usage;
+        }
+    }
+}
@@ -80,6 +80,33 @@ public final class HeapOptions {
     @Option(help = "Enables card marking for image heap objects, which arranges them in chunks. Automatically enabled when supported.", type = OptionType.Expert) //
     public static final HostedOptionKey<Boolean> ImageHeapCardMarking = new HostedOptionKey<>(null);
 
+    @Option(help = "Use multiple threads for the root scanning and copying phases of incremental and complete collections.", type = OptionType.Expert) //
+    public static final HostedOptionKey<Boolean> UseParallelGC = new HostedOptionKey<>(false);
+
+    @Option(help = "Number of threads that take part in a parallel collection, including the thread that initiated it (0: number of processors). Requires +UseParallelGC.", type = OptionType.Expert) //
+    public static final RuntimeOptionKey<Integer> ParallelGCThreads = new RuntimeOptionKey<>(0);
+
+    @Option(help = "Mark the old generation concurrently to the application, using snapshot-at-the-beginning write barriers and a background marker thread.", type = OptionType.Expert) //
+    public static final HostedOptionKey<Boolean> UseConcurrentMarking = new HostedOptionKey<>(false);
+
+    @Option(help = "Start a concurrent marking cycle when the old generation occupies this percentage of the maximum heap size. Requires +UseConcurrentMarking.", type = OptionType.Expert) //
+    public static final RuntimeOptionKey<Integer> ConcurrentMarkingInitiatingOccupancy = new RuntimeOptionKey<>(45);
+
+    @Option(help = "Compact the old generation in place at the end of a concurrent marking cycle when it is fragmented, instead of only replacing dead objects with filler objects. Requires +UseConcurrentMarking.", type = OptionType.Expert) //
+    public static final HostedOptionKey<Boolean> UseOldGenerationCompaction = new HostedOptionKey<>(false);
+
+    @Option(help = "Compact the old generation when dead objects occupy at least this percentage of its aligned chunks. Requires +UseOldGenerationCompaction.", type = OptionType.Expert) //
+    public static final RuntimeOptionKey<Integer> OldGenerationCompactionThreshold = new RuntimeOptionKey<>(20);
+
+    @Option(help = "Uncommit unused aligned chunks that were not needed for this many milliseconds, which returns their memory to the operating system but keeps their address range reserved. 0 disables uncommitting.", type = OptionType.Expert) //
+    public static final RuntimeOptionKey<Long> UnusedChunkUncommitDelay = new RuntimeOptionKey<>(0L);
+
+    @Option(help = "Keep a pool of unused heap chunks for each NUMA node and provide threads with chunks from the node they are running on. Only supported on Linux.", type = OptionType.Expert) //
+    public static final HostedOptionKey<Boolean> UseNumaAwareAllocation = new HostedOptionKey<>(false);
+
+    @Option(help = "Simulate this many NUMA nodes, assigning each processor to the node given by its number modulo the number of nodes, without binding memory to nodes. 0 uses the actual topology. Requires +UseNumaAwareAllocation.", type = OptionType.Expert) //
+    public static final RuntimeOptionKey<Integer> NumaSimulatedNodes = new RuntimeOptionKey<>(0);
+
     private HeapOptions() {
     }
 }
@@ -313,13 +313,13 @@ public final class HeapPolicy {
     }
 
     public static void maybeCollectOnAllocation() {
-        UnsignedWord maxYoungSize = getMaximumYoungGenerationSize();
-        maybeCollectOnAllocation(maxYoungSize);
+        UnsignedWord youngSize = GCImpl.getGCImpl().getPolicy().getDesiredYoungGenerationSize();
+        maybeCollectOnAllocation(youngSize);
     }
 
     @Uninterruptible(reason = "Avoid races with other threads that also try to trigger a GC")
-    private static void maybeCollectOnAllocation(UnsignedWord maxYoungSize) {
-        if (youngUsedBytes.get().aboveOrEqual(maxYoungSize)) {
+    private static void maybeCollectOnAllocation(UnsignedWord youngSize) {
+        if (youngUsedBytes.get().aboveOrEqual(youngSize)) {
             GCImpl.getGCImpl().collectWithoutAllocating(GenScavengeGCCause.OnAllocation, false);
         }
     }
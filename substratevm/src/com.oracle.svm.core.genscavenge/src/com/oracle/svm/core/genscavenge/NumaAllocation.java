@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.genscavenge;
+
+import org.graalvm.compiler.api.replacements.Fold;
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+import org.graalvm.word.Pointer;
+import org.graalvm.word.UnsignedWord;
+
+import com.oracle.svm.core.jdk.UninterruptibleUtils.AtomicUnsigned;
+import com.oracle.svm.core.log.Log;
+import com.oracle.svm.core.os.NumaSupport;
+
+/**
+ * Node-local placement of heap chunks on machines with non-uniform memory access (NUMA). With
+ * {@link HeapOptions#UseNumaAwareAllocation}, the {@link HeapChunkProvider} keeps a separate pool
+ * of unused aligned chunks for each node, binds the memory of new chunks to a node, and hands each
+ * thread chunks of the node that it is currently running on. Because threads allocate their TLABs
+ * from such chunks, most of their allocations go to local memory.
+ *
+ * With {@link HeapOptions#NumaSimulatedNodes}, processors are distributed over a number of
+ * simulated nodes and memory is not bound. This exercises the per-node pools and counters on
+ * machines with a single node.
+ */
+final class NumaAllocation {
+    /** Sentinel for {@link #nodeCount} until the topology has been queried. */
+    private static final int UNINITIALIZED = 0;
+
+    @Fold
+    static boolean isEnabled() {
+        return HeapOptions.UseNumaAwareAllocation.getValue() && NumaSupport.isSupported();
+    }
+
+    /**
+     * The number of nodes whose chunks are pooled and counted. Races when initializing this field
+     * are harmless because all threads compute the same value.
+     */
+    private int nodeCount = UNINITIALIZED;
+
+    /** Bytes in chunks that were handed to threads running on each node. */
+    private final AtomicUnsigned[] allocatedBytes;
+
+    /** The part of {@link #allocatedBytes} that had to be taken from the pool of another node. */
+    private final AtomicUnsigned[] remoteBytes;
+
+    /**
+     * Bytes in chunks that the collector requested for promoted objects, which are not counted in
+     * {@link #allocatedBytes} because they are not handed to application threads.
+     */
+    private final AtomicUnsigned collectorBytes = new AtomicUnsigned();
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    NumaAllocation() {
+        int maxNodes = getMaxNodes();
+        allocatedBytes = new AtomicUnsigned[maxNodes];
+        remoteBytes = new AtomicUnsigned[maxNodes];
+        for (int i = 0; i < maxNodes; i++) {
+            allocatedBytes[i] = new AtomicUnsigned();
+            remoteBytes[i] = new AtomicUnsigned();
+        }
+    }
+
+    /** The number of per-node pools and counters, which is 1 if NUMA-aware allocation is disabled. */
+    static int getMaxNodes() {
+        return HeapOptions.UseNumaAwareAllocation.getValue() ? NumaSupport.MAX_NODES : 1;
+    }
+
+    private static boolean isSimulated() {
+        return HeapOptions.NumaSimulatedNodes.getValue() > 0;
+    }
+
+    /** Returns the number of nodes, which is 1 if NUMA-aware allocation is disabled. */
+    int getNodeCount() {
+        if (!isEnabled()) {
+            return 1;
+        }
+        if (nodeCount == UNINITIALIZED) {
+            int count = isSimulated() ? HeapOptions.NumaSimulatedNodes.getValue() : NumaSupport.get().getNodeCount();
+            nodeCount = Math.min(Math.max(count, 1), NumaSupport.MAX_NODES);
+        }
+        return nodeCount;
+    }
+
+    /**
+     * Returns the node of the processor that the current thread is running on, or 0 if it cannot be
+     * determined or NUMA-aware allocation is disabled.
+     */
+    int getCurrentNode() {
+        if (!isEnabled()) {
+            return 0;
+        }
+        int node = isSimulated() ? NumaSupport.get().getCurrentProcessor() : NumaSupport.get().getCurrentNode();
+        if (node < 0) {
+            return 0;
+        }
+        return node % getNodeCount();
+    }
+
+    /**
+     * Requests that the physical memory of a range that has not been accessed yet is provided by
+     * the given node. A failure is not an error: the memory is then placed by the default policy of
+     * the operating system, which is typically on the node of the thread that first accesses it.
+     */
+    static void bindToNode(Pointer start, UnsignedWord nbytes, int node) {
+        if (isEnabled() && !isSimulated()) {
+            NumaSupport.get().bindToNode(start, nbytes, node);
+        }
+    }
+
+    /**
+     * Counts a chunk that was handed to a thread running on {@code threadNode} and whose memory is
+     * on {@code memoryNode}.
+     */
+    void noteAllocation(int threadNode, int memoryNode, UnsignedWord bytes) {
+        if (!isEnabled()) {
+            return;
+        }
+        allocatedBytes[threadNode].addAndGet(bytes);
+        if (memoryNode != threadNode) {
+            remoteBytes[threadNode].addAndGet(bytes);
+        }
+    }
+
+    /** Counts a chunk that the collector requested for promoted objects. */
+    void noteCollectorAllocation(UnsignedWord bytes) {
+        if (isEnabled()) {
+            collectorBytes.addAndGet(bytes);
+        }
+    }
+
+    UnsignedWord getAllocatedBytes(int node) {
+        return allocatedBytes[node].get();
+    }
+
+    UnsignedWord getRemoteBytes(int node) {
+        return remoteBytes[node].get();
+    }
+
+    UnsignedWord getCollectorBytes() {
+        return collectorBytes.get();
+    }
+
+    void printSummary(Log log, String prefix) {
+        int count = getNodeCount();
+        log.string(prefix).string("NumaNodes: ").signed(count).string(isSimulated() ? " (simulated)" : "").newline();
+        for (int node = 0; node < count; node++) {
+            log.string(prefix).string("NumaNode").signed(node).string("AllocatedChunkBytes: ").unsigned(getAllocatedBytes(node)).newline();
+            log.string(prefix).string("NumaNode").signed(node).string("RemoteChunkBytes: ").unsigned(getRemoteBytes(node)).newline();
+        }
+        log.string(prefix).string("NumaCollectorChunkBytes: ").unsigned(getCollectorBytes()).newline();
+    }
+}
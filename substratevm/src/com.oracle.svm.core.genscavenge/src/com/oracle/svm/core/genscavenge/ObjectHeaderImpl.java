@@ -27,6 +27,9 @@ package com.oracle.svm.core.genscavenge;
 import org.graalvm.compiler.api.directives.GraalDirectives;
 import org.graalvm.compiler.api.replacements.Fold;
 import org.graalvm.compiler.core.common.CompressEncoding;
+import org.graalvm.compiler.nodes.PauseNode;
+import org.graalvm.compiler.nodes.extended.MembarNode;
+import org.graalvm.compiler.nodes.java.ArrayLengthNode;
 import org.graalvm.compiler.replacements.ReplacementsUtil;
 import org.graalvm.compiler.word.ObjectAccess;
 import org.graalvm.compiler.word.Word;
@@ -43,14 +46,18 @@ import com.oracle.svm.core.SubstrateOptions;
 import com.oracle.svm.core.annotate.Uninterruptible;
 import com.oracle.svm.core.config.ConfigurationValues;
 import com.oracle.svm.core.config.ObjectLayout;
+import com.oracle.svm.core.graal.nodes.KillMemoryNode;
 import com.oracle.svm.core.heap.Heap;
 import com.oracle.svm.core.heap.ObjectHeader;
 import com.oracle.svm.core.heap.ReferenceAccess;
 import com.oracle.svm.core.hub.DynamicHub;
+import com.oracle.svm.core.hub.LayoutEncoding;
 import com.oracle.svm.core.image.ImageHeapObject;
 import com.oracle.svm.core.snippets.KnownIntrinsics;
 import com.oracle.svm.core.util.VMError;
 
+import jdk.vm.ci.code.MemoryBarriers;
+
 /**
  * The pointer to the hub is either an uncompressed absolute reference or a heap-base-relative
  * reference without a shift. This limits the address space where all hubs must be placed to 32/64
@@ -70,6 +77,12 @@ public final class ObjectHeaderImpl extends ObjectHeader {
     private static final int RESERVED_BITS_MASK                     = 0b111;
     private static final UnsignedWord MASK_HEADER_BITS              = WordFactory.unsigned(RESERVED_BITS_MASK);
     private static final UnsignedWord CLEAR_HEADER_BITS             = MASK_HEADER_BITS.not();
+
+    /**
+     * Header of an object that a {@link ParallelGreyObjectsWalker} is currently copying. It is
+     * distinguishable from every forwarding header because its reference bits are zero.
+     */
+    private static final UnsignedWord CLAIMED_HEADER                = FORWARDED_BIT;
     // @formatter:on
 
     @Platforms(Platform.HOSTED_ONLY.class)
@@ -348,6 +361,10 @@ public final class ObjectHeaderImpl extends ObjectHeader {
 
     static Object getForwardedObject(Pointer ptr, UnsignedWord header) {
         assert isForwardedHeader(header);
+        UnsignedWord forwardHeader = header;
+        if (ParallelGC.isEnabled() && forwardHeader.equal(CLAIMED_HEADER)) {
+            forwardHeader = waitForForwardingHeader(ptr);
+        }
         if (ReferenceAccess.singleton().haveCompressedReferences()) {
             if (ReferenceAccess.singleton().getCompressEncoding().hasShift()) {
                 // References compressed with shift have no bits to spare, so the forwarding
@@ -357,10 +374,10 @@ public final class ObjectHeaderImpl extends ObjectHeader {
                 int forwardRefOffset = getHubOffset() + getReferenceSize();
                 return ReferenceAccess.singleton().readObjectAt(ptr.add(forwardRefOffset), true);
             } else {
-                return ReferenceAccess.singleton().uncompressReference(clearBits(header));
+                return ReferenceAccess.singleton().uncompressReference(clearBits(forwardHeader));
             }
         } else {
-            return ((Pointer) clearBits(header)).toObject();
+            return ((Pointer) clearBits(forwardHeader)).toObject();
         }
     }
 
@@ -385,6 +402,80 @@ public final class ObjectHeaderImpl extends ObjectHeader {
         assert isPointerToForwardedObject(Word.objectToUntrackedPointer(original));
     }
 
+    /**
+     * Atomically replaces the header of an object that is about to be copied by a parallel
+     * collection with {@link #CLAIMED_HEADER}. Returns false if another thread claimed or forwarded
+     * the object first.
+     */
+    static boolean tryClaimForForwarding(Pointer ptr, UnsignedWord expectedHeader) {
+        assert !isForwardedHeader(expectedHeader);
+        if (getReferenceSize() == Integer.BYTES) {
+            return ptr.logicCompareAndSwapInt(getHubOffset(), (int) expectedHeader.rawValue(), (int) CLAIMED_HEADER.rawValue(), LocationIdentity.ANY_LOCATION);
+        } else {
+            return ptr.logicCompareAndSwapWord(getHubOffset(), expectedHeader, CLAIMED_HEADER, LocationIdentity.ANY_LOCATION);
+        }
+    }
+
+    /**
+     * Computes the size of a claimed object from its original header. The hub cannot be read from
+     * the object anymore, but the array length is still intact.
+     */
+    static UnsignedWord getSizeFromHeader(Object obj, UnsignedWord header) {
+        int encoding = getObjectHeaderImpl().dynamicHubFromObjectHeader(header).getLayoutEncoding();
+        if (LayoutEncoding.isArray(encoding)) {
+            return LayoutEncoding.getArraySize(encoding, ArrayLengthNode.arrayLength(obj));
+        } else {
+            return LayoutEncoding.getInstanceSize(encoding);
+        }
+    }
+
+    /**
+     * Restores the original header in the copy of a {@linkplain #tryClaimForForwarding claimed}
+     * object, which was copied together with the claimed header.
+     */
+    static void initializeHeaderOfCopy(Object copy, UnsignedWord originalHeader) {
+        assert !isForwardedHeader(originalHeader);
+        writeHeaderToObject(copy, originalHeader);
+    }
+
+    /**
+     * Like {@link #installForwardingPointer} for an object that was
+     * {@linkplain #tryClaimForForwarding claimed}. The forwarding header is published only after
+     * everything else that other threads read from the original or the copy has been written.
+     */
+    static void installForwardingPointerParallel(Object original, Object copy) {
+        assert readHeaderFromObject(original).equal(CLAIMED_HEADER);
+        UnsignedWord forwardHeader;
+        if (ReferenceAccess.singleton().haveCompressedReferences()) {
+            if (ReferenceAccess.singleton().getCompressEncoding().hasShift()) {
+                forwardHeader = WordFactory.unsigned(0xf0f0f0f0f0f0f0f0L);
+                ObjectAccess.writeObject(original, getHubOffset() + getReferenceSize(), copy);
+            } else {
+                forwardHeader = ReferenceAccess.singleton().getCompressedRepresentation(copy);
+            }
+        } else {
+            forwardHeader = Word.objectToUntrackedPointer(copy);
+        }
+        assert ObjectHeaderImpl.getHeaderBitsFromHeader(forwardHeader).equal(0);
+        MembarNode.memoryBarrier(MemoryBarriers.STORE_STORE);
+        writeHeaderToObject(original, forwardHeader.or(FORWARDED_BIT));
+    }
+
+    /**
+     * Spins until the thread that claimed the object has installed its forwarding header, and
+     * returns that header.
+     */
+    private static UnsignedWord waitForForwardingHeader(Pointer ptr) {
+        UnsignedWord header = readHeaderFromPointer(ptr);
+        while (header.equal(CLAIMED_HEADER)) {
+            PauseNode.pause();
+            KillMemoryNode.killMemory(LocationIdentity.ANY_LOCATION);
+            header = readHeaderFromPointer(ptr);
+        }
+        MembarNode.memoryBarrier(MemoryBarriers.LOAD_LOAD);
+        return header;
+    }
+
     @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     private static UnsignedWord getHeaderBitsFromHeader(UnsignedWord header) {
         assert !isProducedHeapChunkZapped(header) : "Produced chunk zap value";
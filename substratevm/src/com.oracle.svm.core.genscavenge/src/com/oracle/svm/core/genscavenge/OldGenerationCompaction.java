@@ -0,0 +1,500 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.genscavenge;
+
+import java.lang.ref.Reference;
+
+import org.graalvm.compiler.api.replacements.Fold;
+import org.graalvm.compiler.word.Word;
+import org.graalvm.nativeimage.ImageSingletons;
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+import org.graalvm.nativeimage.impl.UnmanagedMemorySupport;
+import org.graalvm.word.Pointer;
+import org.graalvm.word.UnsignedWord;
+import org.graalvm.word.WordFactory;
+
+import com.oracle.svm.core.MemoryUtil;
+import com.oracle.svm.core.MemoryWalker;
+import com.oracle.svm.core.annotate.AlwaysInline;
+import com.oracle.svm.core.code.CodeInfo;
+import com.oracle.svm.core.code.RuntimeCodeCache.CodeInfoVisitor;
+import com.oracle.svm.core.code.RuntimeCodeInfoAccess;
+import com.oracle.svm.core.code.RuntimeCodeInfoMemory;
+import com.oracle.svm.core.deopt.DeoptimizationSupport;
+import com.oracle.svm.core.genscavenge.AlignedHeapChunk.AlignedHeader;
+import com.oracle.svm.core.genscavenge.GCImpl.ChunkReleaser;
+import com.oracle.svm.core.genscavenge.UnalignedHeapChunk.UnalignedHeader;
+import com.oracle.svm.core.heap.ObjectReferenceVisitor;
+import com.oracle.svm.core.heap.ObjectVisitor;
+import com.oracle.svm.core.heap.ReferenceAccess;
+import com.oracle.svm.core.heap.ReferenceInternals;
+import com.oracle.svm.core.hub.InteriorObjRefWalker;
+import com.oracle.svm.core.hub.LayoutEncoding;
+import com.oracle.svm.core.log.Log;
+import com.oracle.svm.core.thread.VMOperation;
+import com.oracle.svm.core.util.PointerUtils;
+
+/**
+ * Compacts the aligned chunks of the old generation in place at the end of a
+ * {@link ConcurrentMarking} cycle, using the mark bitmaps of its {@link ConcurrentMarkTable}.
+ *
+ * When the old generation is reclaimed by concurrent marking, complete collections (which copy the
+ * old generation and thereby compact it) become rare, and the filler objects that the sweep leaves
+ * behind fragment the old generation over time. Compaction slides the live objects of all
+ * participating chunks towards the start of the chunk list, so that the chunks at the end become
+ * empty and can be released. It does not need any additional chunks, unlike a copying collection.
+ *
+ * Compaction runs in the remark pause, after marking has completed, in four phases:
+ * <ol>
+ * <li><em>Summary:</em> live objects are assigned new addresses in chunk list and address order.
+ * Forwarding information is kept in a side table per chunk with one word per block of
+ * {@value #BLOCK_SIZE} bytes, which holds the new address of the first live object that starts in
+ * the block. The new address of any other object is that address plus the sizes of the marked
+ * objects before it in the same block. All objects that start in a block move to the same chunk,
+ * which wastes at most the size of a block at the end of each destination chunk.</li>
+ * <li><em>Adjust:</em> all references from the roots, from the young generation and from live old
+ * objects are updated to the new addresses. Objects have not moved yet, so their sizes can still be
+ * read from their headers.</li>
+ * <li><em>Move:</em> objects are copied to their new addresses in the same order. An object only
+ * moves to a lower address in its own chunk or to an earlier chunk in the list, so no object is
+ * overwritten before it has been moved.</li>
+ * <li><em>Finish:</em> chunks that became empty are released, and the first object table and card
+ * table of every other participating chunk are rebuilt.</li>
+ * </ol>
+ *
+ * A chunk only participates if nothing was allocated in it since the start of the cycle, so that it
+ * is completely covered by the mark bitmap, and if it does not contain a pinned object. Other chunks
+ * are swept as usual.
+ */
+final class OldGenerationCompaction {
+    private static final int BLOCK_SHIFT = 9;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+    private final AdjustReferenceVisitor adjustReferenceVisitor = new AdjustReferenceVisitor();
+    private final AdjustObjectVisitor adjustObjectVisitor = new AdjustObjectVisitor();
+    private final AdjustImageHeapVisitor adjustImageHeapVisitor = new AdjustImageHeapVisitor();
+    private final AdjustRuntimeCodeVisitor adjustRuntimeCodeVisitor = new AdjustRuntimeCodeVisitor();
+    private final RememberedSetRebuilder rememberedSetRebuilder = new RememberedSetRebuilder();
+
+    /** The table of the cycle that is being compacted, only set during {@link #compact}. */
+    private ConcurrentMarkTable table;
+
+    private long compactions;
+    private long lastCompactionNanos;
+    private int lastFragmentationPercent;
+    private UnsignedWord lastReleasedChunkBytes = WordFactory.zero();
+    private UnsignedWord totalReleasedChunkBytes = WordFactory.zero();
+    private UnsignedWord totalMovedBytes = WordFactory.zero();
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    OldGenerationCompaction() {
+    }
+
+    @Fold
+    static boolean isEnabled() {
+        return HeapOptions.UseOldGenerationCompaction.getValue() && ConcurrentMarking.isEnabled();
+    }
+
+    long getCompactions() {
+        return compactions;
+    }
+
+    UnsignedWord getLastReleasedChunkBytes() {
+        return lastReleasedChunkBytes;
+    }
+
+    /**
+     * Compacts the old generation if enough of it is occupied by dead objects. Returns false if it
+     * was not compacted, in which case it needs to be swept. Otherwise, the chunks that took part
+     * are {@linkplain ConcurrentMarkTable#COMPACTED marked} in the table and must not be swept.
+     */
+    boolean compact(ConcurrentMarkTable markTable, ChunkReleaser releaser) {
+        assert VMOperation.isGCInProgress() && table == null;
+        long startNanos = System.nanoTime();
+        table = markTable;
+        try {
+            Space space = HeapImpl.getHeapImpl().getOldGeneration().getFromSpace();
+            Pointer blockTables = selectChunks(space);
+            if (blockTables.isNull()) {
+                return false;
+            }
+            summarize(space);
+            adjustReferences(space);
+            moveObjects(space);
+            finishChunks(space, releaser);
+            ImageSingletons.lookup(UnmanagedMemorySupport.class).free(blockTables);
+        } finally {
+            table = null;
+        }
+        compactions++;
+        totalReleasedChunkBytes = totalReleasedChunkBytes.add(lastReleasedChunkBytes);
+        lastCompactionNanos = System.nanoTime() - startNanos;
+        return true;
+    }
+
+    /**
+     * Decides whether compaction is worthwhile and, if so, allocates the block tables of the
+     * participating chunks. Returns the memory of the block tables, or null if the old generation
+     * is not compacted.
+     */
+    private Pointer selectChunks(Space space) {
+        excludePinnedChunks();
+
+        UnsignedWord alignedChunkBytes = WordFactory.zero();
+        UnsignedWord candidateBytes = WordFactory.zero();
+        UnsignedWord liveBytes = WordFactory.zero();
+        UnsignedWord blocks = WordFactory.zero();
+        for (AlignedHeader chunk = space.getFirstAlignedHeapChunk(); chunk.isNonNull(); chunk = HeapChunk.getNext(chunk)) {
+            alignedChunkBytes = alignedChunkBytes.add(HeapChunk.getEndOffset(chunk));
+            Pointer entry = table.lookupChunk(HeapChunk.asPointer(chunk));
+            if (isCandidate(chunk, entry)) {
+                Pointer start = ConcurrentMarkTable.getObjectsStart(entry);
+                Pointer topAtMarkStart = ConcurrentMarkTable.getTopAtMarkStart(entry);
+                candidateBytes = candidateBytes.add(topAtMarkStart.subtract(start));
+                liveBytes = liveBytes.add(getLiveBytes(entry, start, topAtMarkStart));
+                blocks = blocks.add(getBlockCount(entry));
+            }
+        }
+
+        UnsignedWord deadBytes = candidateBytes.subtract(liveBytes);
+        lastFragmentationPercent = alignedChunkBytes.equal(0) ? 0 : (int) deadBytes.multiply(100).unsignedDivide(alignedChunkBytes).rawValue();
+        UnsignedWord chunkCapacity = HeapPolicy.getAlignedHeapChunkSize().subtract(AlignedHeapChunk.getObjectsStartOffset());
+        if (lastFragmentationPercent < HeapOptions.OldGenerationCompactionThreshold.getValue() || deadBytes.belowThan(chunkCapacity)) {
+            return WordFactory.nullPointer();
+        }
+
+        Pointer blockTables = ImageSingletons.lookup(UnmanagedMemorySupport.class).calloc(blocks.multiply(ConcurrentMarkTable.wordSize()));
+        if (blockTables.isNull()) {
+            return WordFactory.nullPointer();
+        }
+        Pointer next = blockTables;
+        for (AlignedHeader chunk = space.getFirstAlignedHeapChunk(); chunk.isNonNull(); chunk = HeapChunk.getNext(chunk)) {
+            Pointer entry = table.lookupChunk(HeapChunk.asPointer(chunk));
+            if (isCandidate(chunk, entry)) {
+                ConcurrentMarkTable.setCompactionState(entry, ConcurrentMarkTable.COMPACTED);
+                ConcurrentMarkTable.setBlockTable(entry, next);
+                next = next.add(getBlockCount(entry).multiply(ConcurrentMarkTable.wordSize()));
+            }
+        }
+        return blockTables;
+    }
+
+    /** Pinned objects must not move, so their chunks are swept instead. */
+    private void excludePinnedChunks() {
+        for (PinnedObjectImpl pinned = HeapImpl.getHeapImpl().getPinHead().get(); pinned != null; pinned = pinned.getNext()) {
+            if (pinned.isOpen() && pinned.getObject() != null) {
+                Pointer entry = table.lookup(Word.objectToUntrackedPointer(pinned.getObject()));
+                if (entry.isNonNull() && ConcurrentMarkTable.isAligned(entry)) {
+                    ConcurrentMarkTable.setCompactionState(entry, ConcurrentMarkTable.PINNED);
+                }
+            }
+        }
+    }
+
+    private static boolean isCandidate(AlignedHeader chunk, Pointer entry) {
+        return entry.isNonNull() && ConcurrentMarkTable.getCompactionState(entry) != ConcurrentMarkTable.PINNED &&
+                        HeapChunk.getTopPointer(chunk).equal(ConcurrentMarkTable.getTopAtMarkStart(entry));
+    }
+
+    /** Returns the first chunk at or after the given one that takes part in the compaction. */
+    private AlignedHeader nextCompacted(AlignedHeader first) {
+        for (AlignedHeader chunk = first; chunk.isNonNull(); chunk = HeapChunk.getNext(chunk)) {
+            Pointer entry = table.lookupChunk(HeapChunk.asPointer(chunk));
+            if (entry.isNonNull() && ConcurrentMarkTable.getCompactionState(entry) == ConcurrentMarkTable.COMPACTED) {
+                return chunk;
+            }
+        }
+        return WordFactory.nullPointer();
+    }
+
+    private static UnsignedWord getBlockCount(Pointer entry) {
+        UnsignedWord bytes = ConcurrentMarkTable.getTopAtMarkStart(entry).subtract(ConcurrentMarkTable.getObjectsStart(entry));
+        return bytes.add(BLOCK_SIZE - 1).unsignedShiftRight(BLOCK_SHIFT);
+    }
+
+    /** Returns the sum of the sizes of the marked objects that start within the given range. */
+    private static UnsignedWord getLiveBytes(Pointer entry, Pointer from, Pointer limit) {
+        UnsignedWord result = WordFactory.zero();
+        Pointer obj = ConcurrentMarkTable.nextMarked(entry, from, limit);
+        while (obj.isNonNull()) {
+            UnsignedWord size = LayoutEncoding.getSizeFromObject(obj.toObject());
+            result = result.add(size);
+            obj = ConcurrentMarkTable.nextMarked(entry, obj.add(size), limit);
+        }
+        return result;
+    }
+
+    private void summarize(Space space) {
+        AlignedHeader destination = nextCompacted(space.getFirstAlignedHeapChunk());
+        Pointer destinationEntry = table.lookupChunk(HeapChunk.asPointer(destination));
+        Pointer cursor = ConcurrentMarkTable.getObjectsStart(destinationEntry);
+        Pointer destinationEnd = HeapChunk.getEndPointer(destination);
+
+        for (AlignedHeader chunk = destination; chunk.isNonNull(); chunk = nextCompacted(HeapChunk.getNext(chunk))) {
+            Pointer entry = table.lookupChunk(HeapChunk.asPointer(chunk));
+            Pointer start = ConcurrentMarkTable.getObjectsStart(entry);
+            Pointer topAtMarkStart = ConcurrentMarkTable.getTopAtMarkStart(entry);
+            Pointer blockTable = ConcurrentMarkTable.getBlockTable(entry);
+            for (UnsignedWord block = WordFactory.zero(); block.belowThan(getBlockCount(entry)); block = block.add(1)) {
+                Pointer blockStart = start.add(block.shiftLeft(BLOCK_SHIFT));
+                Pointer blockEnd = PointerUtils.min(blockStart.add(BLOCK_SIZE), topAtMarkStart);
+                UnsignedWord blockLiveBytes = getLiveBytes(entry, blockStart, blockEnd);
+                if (blockLiveBytes.equal(0)) {
+                    continue;
+                }
+                if (cursor.add(blockLiveBytes).aboveThan(destinationEnd)) {
+                    /*
+                     * The block does not fit, so continue with the next chunk. This never passes
+                     * the current chunk: the live objects of a block always fit below their
+                     * current addresses.
+                     */
+                    ConcurrentMarkTable.setNewTop(destinationEntry, cursor);
+                    destination = nextCompacted(HeapChunk.getNext(destination));
+                    destinationEntry = table.lookupChunk(HeapChunk.asPointer(destination));
+                    cursor = ConcurrentMarkTable.getObjectsStart(destinationEntry);
+                    destinationEnd = HeapChunk.getEndPointer(destination);
+                }
+                blockTable.writeWord(block.multiply(ConcurrentMarkTable.wordSize()), cursor);
+                cursor = cursor.add(blockLiveBytes);
+            }
+        }
+        ConcurrentMarkTable.setNewTop(destinationEntry, cursor);
+
+        /* All remaining chunks become empty. */
+        for (AlignedHeader chunk = nextCompacted(HeapChunk.getNext(destination)); chunk.isNonNull(); chunk = nextCompacted(HeapChunk.getNext(chunk))) {
+            Pointer entry = table.lookupChunk(HeapChunk.asPointer(chunk));
+            ConcurrentMarkTable.setNewTop(entry, ConcurrentMarkTable.getObjectsStart(entry));
+        }
+    }
+
+    /** Returns the address that the given object moves to, which is the same if it does not move. */
+    @AlwaysInline("GC performance")
+    private Pointer forward(Pointer obj) {
+        Pointer entry = table.lookup(obj);
+        if (entry.isNull()) {
+            return obj;
+        }
+        Pointer blockTable = ConcurrentMarkTable.getBlockTable(entry);
+        if (blockTable.isNull()) {
+            return obj;
+        }
+        assert ConcurrentMarkTable.isMarked(entry, obj) : "only live objects are referenced";
+        UnsignedWord block = obj.subtract(ConcurrentMarkTable.getObjectsStart(entry)).unsignedShiftRight(BLOCK_SHIFT);
+        Pointer blockStart = ConcurrentMarkTable.getObjectsStart(entry).add(block.shiftLeft(BLOCK_SHIFT));
+        Pointer result = blockTable.readWord(block.multiply(ConcurrentMarkTable.wordSize()));
+        return result.add(getLiveBytes(entry, blockStart, obj));
+    }
+
+    private void adjustReferences(Space space) {
+        GCImpl.walkStackRoots(adjustReferenceVisitor);
+        ThreadLocalMTWalker.walk(adjustReferenceVisitor);
+        HeapImpl heap = HeapImpl.getHeapImpl();
+        heap.walkNativeImageHeapRegions(adjustImageHeapVisitor);
+        if (DeoptimizationSupport.enabled()) {
+            RuntimeCodeInfoMemory.singleton().walkRuntimeMethodsDuringGC(adjustRuntimeCodeVisitor);
+        }
+        heap.getYoungGeneration().walkObjects(adjustObjectVisitor);
+
+        /* Objects that are not covered by the table are implicitly live. */
+        for (AlignedHeader chunk = space.getFirstAlignedHeapChunk(); chunk.isNonNull(); chunk = HeapChunk.getNext(chunk)) {
+            Pointer entry = table.lookupChunk(HeapChunk.asPointer(chunk));
+            if (entry.isNull()) {
+                AlignedHeapChunk.walkObjects(chunk, adjustObjectVisitor);
+            } else {
+                Pointer topAtMarkStart = ConcurrentMarkTable.getTopAtMarkStart(entry);
+                Pointer obj = ConcurrentMarkTable.nextMarked(entry, ConcurrentMarkTable.getObjectsStart(entry), topAtMarkStart);
+                while (obj.isNonNull()) {
+                    adjustObjectVisitor.visitObject(obj.toObject());
+                    obj = ConcurrentMarkTable.nextMarked(entry, LayoutEncoding.getObjectEnd(obj.toObject()), topAtMarkStart);
+                }
+                HeapChunk.walkObjectsFrom(chunk, topAtMarkStart, adjustObjectVisitor);
+            }
+        }
+        for (UnalignedHeader chunk = space.getFirstUnalignedHeapChunk(); chunk.isNonNull(); chunk = HeapChunk.getNext(chunk)) {
+            Pointer entry = table.lookupChunk(HeapChunk.asPointer(chunk));
+            if (entry.isNull() || ConcurrentMarkTable.hasMarks(entry)) {
+                UnalignedHeapChunk.walkObjects(chunk, adjustObjectVisitor);
+            }
+        }
+    }
+
+    private void moveObjects(Space space) {
+        UnsignedWord movedBytes = WordFactory.zero();
+        for (AlignedHeader chunk = nextCompacted(space.getFirstAlignedHeapChunk()); chunk.isNonNull(); chunk = nextCompacted(HeapChunk.getNext(chunk))) {
+            Pointer entry = table.lookupChunk(HeapChunk.asPointer(chunk));
+            Pointer start = ConcurrentMarkTable.getObjectsStart(entry);
+            Pointer topAtMarkStart = ConcurrentMarkTable.getTopAtMarkStart(entry);
+            Pointer blockTable = ConcurrentMarkTable.getBlockTable(entry);
+            for (UnsignedWord block = WordFactory.zero(); block.belowThan(getBlockCount(entry)); block = block.add(1)) {
+                Pointer destination = blockTable.readWord(block.multiply(ConcurrentMarkTable.wordSize()));
+                if (destination.isNull()) {
+                    continue;
+                }
+                Pointer blockStart = start.add(block.shiftLeft(BLOCK_SHIFT));
+                Pointer blockEnd = PointerUtils.min(blockStart.add(BLOCK_SIZE), topAtMarkStart);
+                Pointer obj = ConcurrentMarkTable.nextMarked(entry, blockStart, blockEnd);
+                while (obj.isNonNull()) {
+                    UnsignedWord size = LayoutEncoding.getSizeFromObject(obj.toObject());
+                    /* Find the next object first, the copy may overwrite the current one. */
+                    Pointer next = ConcurrentMarkTable.nextMarked(entry, obj.add(size), blockEnd);
+                    assert destination.belowOrEqual(obj) || AlignedHeapChunk.getEnclosingChunkFromObjectPointer(destination).notEqual(chunk);
+                    if (destination.notEqual(obj)) {
+                        MemoryUtil.copy(obj, destination, size);
+                        movedBytes = movedBytes.add(size);
+                    }
+                    destination = destination.add(size);
+                    obj = next;
+                }
+            }
+        }
+        totalMovedBytes = totalMovedBytes.add(movedBytes);
+    }
+
+    private void finishChunks(Space space, ChunkReleaser releaser) {
+        lastReleasedChunkBytes = WordFactory.zero();
+        AlignedHeader chunk = nextCompacted(space.getFirstAlignedHeapChunk());
+        while (chunk.isNonNull()) {
+            AlignedHeader next = nextCompacted(HeapChunk.getNext(chunk));
+            Pointer entry = table.lookupChunk(HeapChunk.asPointer(chunk));
+            Pointer newTop = ConcurrentMarkTable.getNewTop(entry);
+            if (newTop.equal(AlignedHeapChunk.getObjectsStart(chunk))) {
+                lastReleasedChunkBytes = lastReleasedChunkBytes.add(HeapChunk.getEndOffset(chunk));
+                space.extractAlignedHeapChunk(chunk);
+                releaser.add(chunk);
+            } else {
+                HeapChunk.setTopPointer(chunk, newTop);
+                rebuildRememberedSet(chunk);
+            }
+            ConcurrentMarkTable.setBlockTable(entry, WordFactory.nullPointer());
+            chunk = next;
+        }
+    }
+
+    private void rebuildRememberedSet(AlignedHeader chunk) {
+        CardTable.cleanTableToPointer(AlignedHeapChunk.getCardTableStart(chunk), AlignedHeapChunk.getCardTableLimit(chunk));
+        FirstObjectTable.initializeTableToLimit(AlignedHeapChunk.getFirstObjectTableStart(chunk), AlignedHeapChunk.getFirstObjectTableLimit(chunk));
+        rememberedSetRebuilder.initialize(chunk);
+        AlignedHeapChunk.walkObjects(chunk, rememberedSetRebuilder);
+        rememberedSetRebuilder.reset();
+    }
+
+    void logStatus(Log log) {
+        log.string("  compactions: ").signed(compactions);
+        log.string("  last fragmentation: ").signed(lastFragmentationPercent).string("%");
+        log.string("  last compaction: ").signed(lastCompactionNanos).string(" ns");
+    }
+
+    void printSummary(Log log, String prefix) {
+        log.string(prefix).string("OldGenerationCompactions: ").signed(compactions).newline();
+        log.string(prefix).string("OldGenerationCompactionMovedBytes: ").unsigned(totalMovedBytes).newline();
+        log.string(prefix).string("OldGenerationCompactionReleasedChunkBytes: ").unsigned(totalReleasedChunkBytes).newline();
+    }
+
+    private class AdjustReferenceVisitor implements ObjectReferenceVisitor {
+        @Override
+        public boolean visitObjectReference(Pointer objRef, boolean compressed) {
+            return visitObjectReferenceInline(objRef, 0, compressed);
+        }
+
+        @Override
+        public boolean visitObjectReferenceInline(Pointer objRef, int innerOffset, boolean compressed) {
+            Pointer derived = ReferenceAccess.singleton().readObjectAsUntrackedPointer(objRef, compressed);
+            if (derived.isNull()) {
+                return true;
+            }
+            Pointer obj = derived.subtract(innerOffset);
+            Pointer forwarded = forward(obj);
+            if (forwarded.notEqual(obj)) {
+                ReferenceAccess.singleton().writeObjectAt(objRef, forwarded.add(innerOffset).toObject(), compressed);
+            }
+            return true;
+        }
+    }
+
+    private class AdjustObjectVisitor implements ObjectVisitor {
+        @Override
+        public boolean visitObject(Object o) {
+            InteriorObjRefWalker.walkObject(o, adjustReferenceVisitor);
+            if (o instanceof Reference) {
+                /* Not part of the reference map. */
+                Pointer referentAddress = ReferenceInternals.getReferentFieldAddress((Reference<?>) o);
+                adjustReferenceVisitor.visitObjectReference(referentAddress, ReferenceAccess.singleton().haveCompressedReferences());
+            }
+            return true;
+        }
+    }
+
+    private class AdjustImageHeapVisitor implements MemoryWalker.ImageHeapRegionVisitor {
+        @Override
+        public <T> boolean visitNativeImageHeapRegion(T region, MemoryWalker.NativeImageHeapRegionAccess<T> access) {
+            if (access.containsReferences(region) && access.isWritable(region)) {
+                access.visitObjects(region, adjustObjectVisitor);
+            }
+            return true;
+        }
+    }
+
+    private class AdjustRuntimeCodeVisitor implements CodeInfoVisitor {
+        @Override
+        public <T extends CodeInfo> boolean visitCode(T codeInfo) {
+            if (!RuntimeCodeInfoAccess.areAllObjectsOnImageHeap(codeInfo)) {
+                RuntimeCodeInfoAccess.walkObjectFields(codeInfo, adjustReferenceVisitor);
+                RuntimeCodeInfoAccess.walkStrongReferences(codeInfo, adjustReferenceVisitor);
+                RuntimeCodeInfoAccess.walkWeakReferences(codeInfo, adjustReferenceVisitor);
+            }
+            return true;
+        }
+    }
+
+    /** Sets up the first object table and dirties the cards of objects that reference young ones. */
+    private static class RememberedSetRebuilder implements ObjectVisitor {
+        private AlignedHeader chunk;
+
+        @Platforms(Platform.HOSTED_ONLY.class)
+        RememberedSetRebuilder() {
+        }
+
+        void initialize(AlignedHeader aChunk) {
+            this.chunk = aChunk;
+        }
+
+        void reset() {
+            chunk = WordFactory.nullPointer();
+        }
+
+        @Override
+        public boolean visitObject(Object o) {
+            AlignedHeapChunk.setUpRememberedSetForObject(chunk, o);
+            if (CardTable.containsReferenceToYoungSpace(o)) {
+                AlignedHeapChunk.dirtyCardForObject(o, false);
+            } else if (o instanceof Reference) {
+                Object referent = ReferenceInternals.getReferentPointer((Reference<?>) o).toObject();
+                HeapImpl.getHeapImpl().dirtyCardIfNecessary(o, referent);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,555 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.genscavenge;
+
+import org.graalvm.compiler.api.replacements.Fold;
+import org.graalvm.compiler.nodes.PauseNode;
+import org.graalvm.nativeimage.CurrentIsolate;
+import org.graalvm.nativeimage.IsolateThread;
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+import org.graalvm.nativeimage.StackValue;
+import org.graalvm.word.Pointer;
+import org.graalvm.word.WordFactory;
+
+import com.oracle.svm.core.SubstrateOptions;
+import com.oracle.svm.core.annotate.NeverInline;
+import com.oracle.svm.core.annotate.RestrictHeapAccess;
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.genscavenge.AlignedHeapChunk.AlignedHeader;
+import com.oracle.svm.core.genscavenge.UnalignedHeapChunk.UnalignedHeader;
+import com.oracle.svm.core.jdk.RuntimeSupport;
+import com.oracle.svm.core.jdk.UninterruptibleUtils.AtomicInteger;
+import com.oracle.svm.core.jdk.UninterruptibleUtils.AtomicLong;
+import com.oracle.svm.core.jdk.UninterruptibleUtils.AtomicWord;
+import com.oracle.svm.core.locks.VMCondition;
+import com.oracle.svm.core.locks.VMMutex;
+import com.oracle.svm.core.log.Log;
+import com.oracle.svm.core.nodes.CFunctionEpilogueNode;
+import com.oracle.svm.core.nodes.CFunctionPrologueNode;
+import com.oracle.svm.core.stack.JavaStackWalk;
+import com.oracle.svm.core.stack.JavaStackWalker;
+import com.oracle.svm.core.thread.Safepoint;
+import com.oracle.svm.core.thread.VMOperation;
+import com.oracle.svm.core.thread.VMThreads;
+import com.oracle.svm.core.thread.VMThreads.StatusSupport;
+import com.oracle.svm.core.threadlocal.FastThreadLocalFactory;
+import com.oracle.svm.core.threadlocal.FastThreadLocalObject;
+import com.oracle.svm.core.util.VMError;
+
+/**
+ * Coordinates the parallel part of an incremental or complete collection, see
+ * {@link HeapOptions#UseParallelGC}.
+ *
+ * The thread that executes the collection (the coordinator) does the parts of the collection that
+ * are cheap or hard to split up, such as promoting pinned objects, walking the runtime code cache
+ * and processing references, on its own. In between, it wakes up the worker threads for a
+ * <em>parallel phase</em>, in which all {@link ParallelGreyObjectsWalker walkers} claim roots
+ * (thread stacks, thread locals, dirty cards of the old generation and the image heap), copy the
+ * objects reachable from them and steal grey regions from each other until no grey objects are
+ * left.
+ *
+ * Worker threads are started when the isolate starts. They stay in native state for their whole
+ * life, so they never block a safepoint and their stacks can be walked from their frame anchors.
+ * During a parallel phase, they execute the same (interruptible) collector code as the coordinator,
+ * between {@link Safepoint#beginHelperThreadWork} and {@link Safepoint#endHelperThreadWork}, which
+ * turn the safepoint checks in that code into no-ops.
+ */
+final class ParallelGC {
+    static final int MAX_WALKERS = 64;
+
+    private static final FastThreadLocalObject<ParallelGreyObjectsWalker> currentWalker = FastThreadLocalFactory.createObject(ParallelGreyObjectsWalker.class);
+
+    private final VMMutex mutex = new VMMutex();
+    private final VMCondition workCondition = new VMCondition(mutex);
+    private final VMCondition doneCondition = new VMCondition(mutex);
+    private final ParallelGreyObjectsWalker[] walkers = new ParallelGreyObjectsWalker[MAX_WALKERS];
+    private Thread[] workerThreads;
+    private int walkerCount;
+
+    /* Protected by the mutex. */
+    private int phaseEpoch;
+    private int busyWorkers;
+    private boolean stopped;
+
+    /* State of the current parallel phase. */
+    private boolean isIncremental;
+    private int participants;
+    private IsolateThread coordinatorThread;
+    private final AtomicInteger idleWalkers = new AtomicInteger(0);
+    private final AtomicWord<IsolateThread> threadCursor = new AtomicWord<>();
+    private final AtomicInteger threadLocalsClaimed = new AtomicInteger(0);
+    private final ChunkCursor oldAlignedChunks = new ChunkCursor(true);
+    private final ChunkCursor oldUnalignedChunks = new ChunkCursor(false);
+    private final ChunkCursor imageHeapAlignedChunks = new ChunkCursor(true);
+    private final ChunkCursor imageHeapUnalignedChunks = new ChunkCursor(false);
+    private final ChunkCursor auxImageHeapAlignedChunks = new ChunkCursor(true);
+    private final ChunkCursor auxImageHeapUnalignedChunks = new ChunkCursor(false);
+    private final AtomicLong claimedImageHeapRegions = new AtomicLong(0);
+
+    /* Statistics of the last parallel phase. */
+    private int lastParticipants;
+    private int lastSteals;
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    ParallelGC() {
+        for (int i = 0; i < MAX_WALKERS; i++) {
+            walkers[i] = new ParallelGreyObjectsWalker(i);
+        }
+        RuntimeSupport.getRuntimeSupport().addStartupHook(this::startWorkers);
+        RuntimeSupport.getRuntimeSupport().addTearDownHook(this::stopWorkers);
+    }
+
+    @Fold
+    static boolean isEnabled() {
+        return HeapOptions.UseParallelGC.getValue() && SubstrateOptions.MultiThreaded.getValue();
+    }
+
+    static ParallelGC singleton() {
+        return GCImpl.getGCImpl().getParallelGC();
+    }
+
+    /** Returns true if the current thread is a walker in a parallel phase. */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    static boolean isInParallelPhase() {
+        return currentWalker.get() != null;
+    }
+
+    static ParallelGreyObjectsWalker getCurrentWalker() {
+        ParallelGreyObjectsWalker walker = currentWalker.get();
+        assert walker != null;
+        return walker;
+    }
+
+    ParallelGreyObjectsWalker[] getWalkers() {
+        return walkers;
+    }
+
+    int getWalkerCount() {
+        return walkerCount;
+    }
+
+    int getLastParticipants() {
+        return lastParticipants;
+    }
+
+    int getLastSteals() {
+        return lastSteals;
+    }
+
+    /** Returns true if there is at least one worker thread that can help with a collection. */
+    boolean hasWorkers() {
+        for (int i = 1; i < walkerCount; i++) {
+            if (walkers[i].getWorkerThread().isNonNull()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void startWorkers() {
+        int count = HeapOptions.ParallelGCThreads.getValue();
+        if (count <= 0) {
+            count = Runtime.getRuntime().availableProcessors();
+        }
+        walkerCount = Math.min(count, MAX_WALKERS);
+        for (int i = 0; i < walkerCount; i++) {
+            walkers[i].getDeque().allocate();
+        }
+        Thread[] threads = new Thread[walkerCount - 1];
+        for (int i = 1; i < walkerCount; i++) {
+            int id = i;
+            Thread thread = new Thread(() -> transitionToNativeThenWork(id), "GC Worker #" + i);
+            thread.setDaemon(true);
+            threads[i - 1] = thread;
+        }
+        workerThreads = threads;
+        for (Thread thread : threads) {
+            thread.start();
+        }
+    }
+
+    private void stopWorkers() {
+        if (workerThreads == null) {
+            return;
+        }
+        requestStop();
+        for (Thread thread : workerThreads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        workerThreads = null;
+        for (int i = 0; i < walkerCount; i++) {
+            walkers[i].getDeque().free();
+        }
+    }
+
+    @Uninterruptible(reason = "Locking without transition requires that the whole critical section is uninterruptible.")
+    private void requestStop() {
+        mutex.lockNoTransition();
+        try {
+            stopped = true;
+            workCondition.broadcast();
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    @NeverInline("Must not be inlined in a caller that has an exception handler: We only support InvokeNode and not InvokeWithExceptionNode between a CFunctionPrologueNode and CFunctionEpilogueNode")
+    private static void transitionToNativeThenWork(int id) {
+        CFunctionPrologueNode.cFunctionPrologue(StatusSupport.STATUS_IN_NATIVE);
+        workInNative(id);
+        CFunctionEpilogueNode.cFunctionEpilogue(StatusSupport.STATUS_IN_NATIVE);
+    }
+
+    /**
+     * The life of a worker thread: wait for a parallel phase, take part in it, and report back to
+     * the coordinator. Like other code in native state, this only accesses image heap objects.
+     */
+    @Uninterruptible(reason = "In native.")
+    @NeverInline("Provide a return address for the Java frame anchor.")
+    private static void workInNative(int id) {
+        ParallelGC parallelGC = singleton();
+        ParallelGreyObjectsWalker walker = parallelGC.walkers[id];
+        parallelGC.mutex.lockNoTransition();
+        try {
+            walker.setWorkerThread(CurrentIsolate.getCurrentThread());
+            int seenEpoch = parallelGC.phaseEpoch;
+            while (true) {
+                while (parallelGC.phaseEpoch == seenEpoch && !parallelGC.stopped) {
+                    parallelGC.workCondition.blockNoTransition();
+                }
+                if (parallelGC.phaseEpoch == seenEpoch || !walker.isParticipating()) {
+                    if (parallelGC.stopped) {
+                        walker.setWorkerThread(WordFactory.nullPointer());
+                        return;
+                    }
+                    /* Registered after the phase started, wait for the next one. */
+                    seenEpoch = parallelGC.phaseEpoch;
+                    continue;
+                }
+                seenEpoch = parallelGC.phaseEpoch;
+                boolean incremental = parallelGC.isIncremental;
+                parallelGC.mutex.unlock();
+
+                runWalker(walker, incremental);
+
+                parallelGC.mutex.lockNoTransition();
+                parallelGC.busyWorkers--;
+                if (parallelGC.busyWorkers == 0) {
+                    parallelGC.doneCondition.broadcast();
+                }
+            }
+        } finally {
+            parallelGC.mutex.unlock();
+        }
+    }
+
+    @Uninterruptible(reason = "The worker stays in native state while it helps the collector, which holds the safepoint.", calleeMustBe = false)
+    @RestrictHeapAccess(access = RestrictHeapAccess.Access.NO_ALLOCATION, reason = "Must not allocate in the implementation of garbage collection.")
+    private static void runWalker(ParallelGreyObjectsWalker walker, boolean incremental) {
+        Safepoint.beginHelperThreadWork();
+        currentWalker.set(walker);
+        walker.run(incremental);
+        currentWalker.set(null);
+        Safepoint.endHelperThreadWork();
+    }
+
+    /**
+     * Starts a parallel phase, in which the current thread takes part as walker 0. The caller must
+     * then scan its own stack and call {@link #participate} and {@link #finishPhase}.
+     */
+    void startPhase(boolean incremental) {
+        assert VMOperation.isGCInProgress() && !isInParallelPhase();
+        isIncremental = incremental;
+        coordinatorThread = CurrentIsolate.getCurrentThread();
+        threadCursor.set(VMThreads.firstThread());
+        threadLocalsClaimed.set(0);
+        claimedImageHeapRegions.set(0L);
+        idleWalkers.set(0);
+
+        if (incremental) {
+            Space oldToSpace = HeapImpl.getHeapImpl().getOldGeneration().getToSpace();
+            oldAlignedChunks.reset(oldToSpace.getFirstAlignedHeapChunk(), oldToSpace.getLastAlignedHeapChunk());
+            oldUnalignedChunks.reset(oldToSpace.getFirstUnalignedHeapChunk(), oldToSpace.getLastUnalignedHeapChunk());
+        } else {
+            oldAlignedChunks.reset(WordFactory.nullPointer(), WordFactory.nullPointer());
+            oldUnalignedChunks.reset(WordFactory.nullPointer(), WordFactory.nullPointer());
+        }
+        if (incremental && HeapImpl.usesImageHeapCardMarking()) {
+            ImageHeapInfo info = HeapImpl.getImageHeapInfo();
+            imageHeapAlignedChunks.reset(GCImpl.asImageHeapChunk(info.offsetOfFirstAlignedChunkWithRememberedSet), WordFactory.nullPointer());
+            imageHeapUnalignedChunks.reset(GCImpl.asImageHeapChunk(info.offsetOfFirstUnalignedChunkWithRememberedSet), WordFactory.nullPointer());
+            ImageHeapInfo auxInfo = AuxiliaryImageHeap.isPresent() ? AuxiliaryImageHeap.singleton().getImageHeapInfo() : null;
+            if (auxInfo != null) {
+                auxImageHeapAlignedChunks.reset(GCImpl.asImageHeapChunk(auxInfo.offsetOfFirstAlignedChunkWithRememberedSet), WordFactory.nullPointer());
+                auxImageHeapUnalignedChunks.reset(GCImpl.asImageHeapChunk(auxInfo.offsetOfFirstUnalignedChunkWithRememberedSet), WordFactory.nullPointer());
+            } else {
+                auxImageHeapAlignedChunks.reset(WordFactory.nullPointer(), WordFactory.nullPointer());
+                auxImageHeapUnalignedChunks.reset(WordFactory.nullPointer(), WordFactory.nullPointer());
+            }
+        }
+
+        walkers[0].startPhase();
+        currentWalker.set(walkers[0]);
+        wakeUpWorkers();
+    }
+
+    @Uninterruptible(reason = "Locking without transition requires that the whole critical section is uninterruptible.")
+    private void wakeUpWorkers() {
+        mutex.lockNoTransition();
+        try {
+            int workers = 0;
+            for (int i = 1; i < walkerCount; i++) {
+                if (walkers[i].getWorkerThread().isNonNull()) {
+                    walkers[i].startPhase();
+                    workers++;
+                }
+            }
+            participants = workers + 1;
+            busyWorkers = workers;
+            phaseEpoch++;
+            workCondition.broadcast();
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    /** Lets the coordinator take part in the parallel phase until no grey objects are left. */
+    void participate() {
+        assert CurrentIsolate.getCurrentThread() == coordinatorThread;
+        walkers[0].run(isIncremental);
+    }
+
+    /** Waits for the workers to finish the parallel phase. */
+    void finishPhase() {
+        waitForWorkers();
+        int steals = 0;
+        for (int i = 0; i < walkerCount; i++) {
+            if (walkers[i].isParticipating()) {
+                steals += walkers[i].getSteals();
+                walkers[i].finishPhase();
+            }
+        }
+        currentWalker.set(null);
+        lastParticipants = participants;
+        lastSteals = steals;
+        Log.noopLog().string("[ParallelGC.finishPhase:  participants: ").signed(participants).string("  steals: ").signed(steals).string("]").newline();
+    }
+
+    @Uninterruptible(reason = "Locking without transition requires that the whole critical section is uninterruptible.")
+    private void waitForWorkers() {
+        /*
+         * Blocking without a transition is fine here: the coordinator holds the safepoint, so no
+         * other thread can wait for it to reach one.
+         */
+        mutex.lockNoTransition();
+        try {
+            while (busyWorkers > 0) {
+                doneCondition.blockNoTransition();
+            }
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    /** Guards changes to the chunk lists of spaces and other shared state during a phase. */
+    @Uninterruptible(reason = "Only called during a parallel phase, which no safepoint can interrupt.")
+    void lock() {
+        mutex.lockNoTransition();
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.")
+    void unlock() {
+        mutex.unlock();
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    void guaranteeOwnsLock(String message) {
+        mutex.guaranteeIsOwner(message);
+    }
+
+    /** Claims and scans the roots of the current phase, see {@link GCImpl#blackenStackRoots}. */
+    void scanRoots(ParallelGreyObjectsWalker walker, boolean incremental, Pointer region) {
+        for (IsolateThread thread = claimThread(); thread.isNonNull(); thread = claimThread()) {
+            walkThreadStack(thread);
+            walker.drain(region);
+        }
+
+        if (threadLocalsClaimed.compareAndSet(0, 1)) {
+            ThreadLocalMTWalker.walk(GCImpl.getGCImpl().getGreyToBlackObjRefVisitor());
+            walker.drain(region);
+        }
+
+        if (incremental) {
+            scanDirtyChunks(oldAlignedChunks, walker, region);
+            scanDirtyChunks(oldUnalignedChunks, walker, region);
+        }
+
+        if (incremental && HeapImpl.usesImageHeapCardMarking()) {
+            scanDirtyChunks(imageHeapAlignedChunks, walker, region);
+            scanDirtyChunks(imageHeapUnalignedChunks, walker, region);
+            scanDirtyChunks(auxImageHeapAlignedChunks, walker, region);
+            scanDirtyChunks(auxImageHeapUnalignedChunks, walker, region);
+        } else {
+            walker.walkClaimedImageHeapRegions();
+            walker.drain(region);
+        }
+    }
+
+    private IsolateThread claimThread() {
+        while (true) {
+            IsolateThread thread = threadCursor.get();
+            if (thread.isNull()) {
+                return thread;
+            }
+            if (threadCursor.compareAndSet(thread, VMThreads.nextThread(thread)) && thread != coordinatorThread && !isParticipatingWorkerThread(thread)) {
+                return thread;
+            }
+        }
+    }
+
+    /**
+     * Returns true if the thread is a worker of the current phase. The stacks of those threads are
+     * scanned by the coordinator, see {@link GCImpl#blackenStackRoots}.
+     */
+    boolean isParticipatingWorkerThread(IsolateThread thread) {
+        for (int i = 1; i < walkerCount; i++) {
+            if (walkers[i].isParticipating() && walkers[i].getWorkerThread() == thread) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Uninterruptible(reason = "Required by called JavaStackWalker methods. We are at a safepoint during GC, so it does not change anything for this method.", calleeMustBe = false)
+    private static void walkThreadStack(IsolateThread thread) {
+        JavaStackWalk walk = StackValue.get(JavaStackWalk.class);
+        if (JavaStackWalker.initWalk(walk, thread)) {
+            GCImpl.getGCImpl().walkStack(walk);
+        }
+    }
+
+    private static void scanDirtyChunks(ChunkCursor cursor, ParallelGreyObjectsWalker walker, Pointer region) {
+        GreyToBlackObjectVisitor visitor = GCImpl.getGCImpl().getGreyToBlackObjectVisitor();
+        for (Pointer chunk = cursor.claim(); chunk.isNonNull(); chunk = cursor.claim()) {
+            if (cursor.isAligned()) {
+                AlignedHeapChunk.walkDirtyObjects((AlignedHeader) chunk, visitor, true);
+            } else {
+                UnalignedHeapChunk.walkDirtyObjects((UnalignedHeader) chunk, visitor, true);
+            }
+            walker.drain(region);
+        }
+    }
+
+    boolean tryClaimImageHeapRegion(int index) {
+        VMError.guarantee(index < Long.SIZE, "Too many image heap regions");
+        long bit = 1L << index;
+        while (true) {
+            long claimed = claimedImageHeapRegions.get();
+            if ((claimed & bit) != 0) {
+                return false;
+            }
+            if (claimedImageHeapRegions.compareAndSet(claimed, claimed | bit)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Called by a walker that has run out of grey objects. Returns true if all walkers are out of
+     * grey objects, or false if the walker should try to steal again. A walker only becomes idle
+     * with an empty deque, and only busy walkers push regions, so the count of idle walkers only
+     * reaches the number of participants when no grey objects are left.
+     */
+    boolean offerTermination() {
+        idleWalkers.incrementAndGet();
+        while (true) {
+            if (idleWalkers.get() == participants) {
+                return true;
+            }
+            if (hasGreyRegions()) {
+                idleWalkers.decrementAndGet();
+                return false;
+            }
+            PauseNode.pause();
+        }
+    }
+
+    private boolean hasGreyRegions() {
+        for (int i = 0; i < walkerCount; i++) {
+            if (walkers[i].isParticipating() && !walkers[i].getDeque().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Hands out the chunks of a chunk list up to a snapshot of its last chunk, one at a time. */
+    private static final class ChunkCursor {
+        private final boolean aligned;
+        private final AtomicWord<Pointer> next = new AtomicWord<>();
+        private Pointer last;
+
+        @Platforms(Platform.HOSTED_ONLY.class)
+        ChunkCursor(boolean aligned) {
+            this.aligned = aligned;
+        }
+
+        boolean isAligned() {
+            return aligned;
+        }
+
+        /** A null {@code lastChunk} hands out all chunks up to the end of the list. */
+        void reset(HeapChunk.Header<?> firstChunk, HeapChunk.Header<?> lastChunk) {
+            last = (Pointer) lastChunk;
+            next.set((Pointer) firstChunk);
+        }
+
+        Pointer claim() {
+            while (true) {
+                Pointer chunk = next.get();
+                if (chunk.isNull()) {
+                    return chunk;
+                }
+                Pointer successor;
+                if (chunk.equal(last)) {
+                    successor = WordFactory.nullPointer();
+                } else if (aligned) {
+                    successor = (Pointer) HeapChunk.getNext((AlignedHeader) chunk);
+                } else {
+                    successor = (Pointer) HeapChunk.getNext((UnalignedHeader) chunk);
+                }
+                if (next.compareAndSet(chunk, successor)) {
+                    return chunk;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,350 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.genscavenge;
+
+import static org.graalvm.compiler.nodes.extended.BranchProbabilityNode.FREQUENT_PROBABILITY;
+import static org.graalvm.compiler.nodes.extended.BranchProbabilityNode.LUDICROUSLY_SLOW_PATH_PROBABILITY;
+import static org.graalvm.compiler.nodes.extended.BranchProbabilityNode.probability;
+
+import org.graalvm.compiler.word.Word;
+import org.graalvm.nativeimage.IsolateThread;
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+import org.graalvm.nativeimage.StackValue;
+import org.graalvm.word.Pointer;
+import org.graalvm.word.UnsignedWord;
+import org.graalvm.word.WordFactory;
+
+import com.oracle.svm.core.MemoryWalker;
+import com.oracle.svm.core.annotate.AlwaysInline;
+import com.oracle.svm.core.annotate.NeverInline;
+import com.oracle.svm.core.config.ConfigurationValues;
+import com.oracle.svm.core.genscavenge.AlignedHeapChunk.AlignedHeader;
+import com.oracle.svm.core.genscavenge.UnalignedHeapChunk.UnalignedHeader;
+import com.oracle.svm.core.hub.LayoutEncoding;
+import com.oracle.svm.core.log.Log;
+import com.oracle.svm.core.util.VMError;
+
+/**
+ * The per-thread part of a parallel collection: copies objects into chunks that only this walker
+ * allocates in, and visits the grey objects in those chunks. This is the parallel counterpart of
+ * {@link Space#promoteAlignedObject} and {@link GreyObjectsWalker}.
+ *
+ * For each target space, the walker keeps one <em>promotion chunk</em> and a scan pointer into it.
+ * When the promotion chunk is full, the objects between the scan pointer and the top of the chunk
+ * are pushed as a grey region onto the walker's {@link GreyRegionDeque}, from where other walkers
+ * can steal them. Chunks of promoted unaligned objects are pushed in the same way.
+ */
+final class ParallelGreyObjectsWalker {
+    private final int id;
+    private final GreyRegionDeque deque = new GreyRegionDeque();
+    private final ImageHeapRegionClaimer imageHeapRegionClaimer = new ImageHeapRegionClaimer();
+
+    /** Promotion chunk and scan pointer per target space, indexed by {@code space.getAge() - 1}. */
+    private final long[] promotionChunks;
+    private final long[] scanPointers;
+
+    /** The thread this walker runs on if it is a worker thread, otherwise null. */
+    private IsolateThread workerThread;
+    private boolean participating;
+    private int randomSeed;
+
+    private int steals;
+    private UnsignedWord promotedBytes;
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    ParallelGreyObjectsWalker(int id) {
+        this.id = id;
+        this.promotionChunks = new long[HeapPolicy.getMaxSurvivorSpaces() + 1];
+        this.scanPointers = new long[HeapPolicy.getMaxSurvivorSpaces() + 1];
+        this.randomSeed = id + 1;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    GreyRegionDeque getDeque() {
+        return deque;
+    }
+
+    IsolateThread getWorkerThread() {
+        return workerThread;
+    }
+
+    void setWorkerThread(IsolateThread thread) {
+        workerThread = thread;
+    }
+
+    boolean isParticipating() {
+        return participating;
+    }
+
+    int getSteals() {
+        return steals;
+    }
+
+    UnsignedWord getPromotedBytes() {
+        return promotedBytes;
+    }
+
+    void startPhase() {
+        assert !participating;
+        for (int i = 0; i < promotionChunks.length; i++) {
+            promotionChunks[i] = 0L;
+            scanPointers[i] = 0L;
+        }
+        deque.reset();
+        steals = 0;
+        promotedBytes = WordFactory.zero();
+        participating = true;
+    }
+
+    void finishPhase() {
+        assert deque.isEmpty() : "all grey regions must have been scanned";
+        for (int i = 0; i < promotionChunks.length; i++) {
+            assert promotionChunks[i] == 0L || scanPointers[i] == HeapChunk.getTopPointer((AlignedHeader) WordFactory.pointer(promotionChunks[i])).rawValue();
+            /* The chunks stay in their spaces, only the claim on them ends. */
+            promotionChunks[i] = 0L;
+            scanPointers[i] = 0L;
+        }
+        participating = false;
+    }
+
+    /** Promote an aligned object to {@code toSpace}, racing with other walkers. */
+    Object promoteAlignedObject(Object original, Space toSpace) {
+        Pointer originalMemory = Word.objectToUntrackedPointer(original);
+        UnsignedWord header = ObjectHeaderImpl.readHeaderFromPointer(originalMemory);
+        if (ObjectHeaderImpl.isForwardedHeader(header) || !ObjectHeaderImpl.tryClaimForForwarding(originalMemory, header)) {
+            /* Another walker copies or has copied the object. */
+            return ObjectHeaderImpl.getForwardedObject(originalMemory);
+        }
+
+        UnsignedWord size = ObjectHeaderImpl.getSizeFromHeader(original, header);
+        if (HeapOptions.TraceObjectPromotion.getValue()) {
+            Log.log().string("[ParallelGreyObjectsWalker.promoteAlignedObject:").string("  walker: ").signed(id).string("  obj: ").hex(originalMemory)
+                            .string("  toSpace: ").string(toSpace.getName()).string("  size: ").unsigned(size).string("]").newline();
+        }
+
+        Pointer copyMemory = allocate(toSpace, size);
+        UnsignedWord offset = WordFactory.zero();
+        while (probability(FREQUENT_PROBABILITY, offset.belowThan(size))) {
+            /* See Space.copyAlignedObject: the header is copied while claimed and restored below. */
+            copyMemory.writeWord(offset, originalMemory.readWord(offset));
+            offset = offset.add(ConfigurationValues.getTarget().wordSize);
+        }
+        promotedBytes = promotedBytes.add(size);
+
+        Object copy = copyMemory.toObject();
+        ObjectHeaderImpl.initializeHeaderOfCopy(copy, header);
+        if (toSpace.isOldSpace()) {
+            /* The promotion chunk belongs to this walker, so nobody else updates its tables. */
+            AlignedHeapChunk.setUpRememberedSetForObject(AlignedHeapChunk.getEnclosingChunk(copy), copy);
+        }
+        ObjectHeaderImpl.installForwardingPointerParallel(original, copy);
+        return copy;
+    }
+
+    /** Promote an unaligned chunk to {@code toSpace} unless another walker has already done so. */
+    void promoteUnalignedHeapChunk(UnalignedHeader chunk, Space originalSpace, Space toSpace) {
+        ParallelGC parallelGC = ParallelGC.singleton();
+        parallelGC.lock();
+        try {
+            if (HeapChunk.getSpace(chunk) != originalSpace) {
+                return;
+            }
+            originalSpace.extractUnalignedHeapChunk(chunk);
+            toSpace.appendUnalignedHeapChunk(chunk);
+        } finally {
+            parallelGC.unlock();
+        }
+        if (toSpace.isOldSpace()) {
+            UnalignedHeapChunk.setUpRememberedSet(chunk);
+        }
+        pushGreyRegion(UnalignedHeapChunk.getObjectStart(chunk), HeapChunk.getTopPointer(chunk));
+    }
+
+    private Pointer allocate(Space toSpace, UnsignedWord size) {
+        int index = toSpace.getAge() - 1;
+        AlignedHeader chunk = WordFactory.pointer(promotionChunks[index]);
+        if (chunk.isNonNull()) {
+            Pointer result = AlignedHeapChunk.allocateMemory(chunk, size);
+            if (result.isNonNull()) {
+                return result;
+            }
+            /* Hand the grey remainder of the full chunk to whoever gets to it first. */
+            Pointer scan = WordFactory.pointer(scanPointers[index]);
+            promotionChunks[index] = 0L;
+            scanPointers[index] = 0L;
+            Pointer top = HeapChunk.getTopPointer(chunk);
+            if (scan.belowThan(top)) {
+                pushGreyRegion(scan, top);
+            }
+        }
+
+        AlignedHeader newChunk;
+        ParallelGC parallelGC = ParallelGC.singleton();
+        parallelGC.lock();
+        try {
+            newChunk = HeapImpl.getChunkProvider().produceAlignedChunkForCollector();
+            if (newChunk.isNonNull()) {
+                toSpace.appendAlignedHeapChunk(newChunk);
+            }
+        } finally {
+            parallelGC.unlock();
+        }
+        Pointer result = newChunk.isNull() ? WordFactory.nullPointer() : AlignedHeapChunk.allocateMemory(newChunk, size);
+        if (probability(LUDICROUSLY_SLOW_PATH_PROBABILITY, result.isNull())) {
+            Log.log().string("[! ParallelGreyObjectsWalker.allocate: failure to allocate ").unsigned(size).string(" bytes !]").newline();
+            throw VMError.shouldNotReachHere("Promotion failure");
+        }
+        promotionChunks[index] = newChunk.rawValue();
+        scanPointers[index] = AlignedHeapChunk.getObjectsStart(newChunk).rawValue();
+        return result;
+    }
+
+    private void pushGreyRegion(Pointer start, Pointer end) {
+        if (!deque.push(start, end)) {
+            /* The deque is full, so scan the region right away. */
+            scanRegion(start, end);
+        }
+    }
+
+    /**
+     * The main loop of a walker: helps scanning the roots, then scans and steals grey objects until
+     * all walkers agree that there are none left.
+     */
+    @NeverInline("Split the GC into reasonable compilation units")
+    void run(boolean isIncremental) {
+        Pointer region = StackValue.get(GreyRegionDeque.entrySize());
+        ParallelGC parallelGC = ParallelGC.singleton();
+        parallelGC.scanRoots(this, isIncremental, region);
+        while (true) {
+            drain(region);
+            if (trySteal(region)) {
+                scanRegion(region.readWord(0), region.readWord(GreyRegionDeque.wordSize()));
+            } else if (parallelGC.offerTermination()) {
+                return;
+            }
+        }
+    }
+
+    /** Scans grey objects until neither the promotion chunks nor the deque contain any. */
+    void drain(Pointer region) {
+        while (true) {
+            if (scanPromotionChunks()) {
+                continue;
+            }
+            if (deque.pop(region)) {
+                scanRegion(region.readWord(0), region.readWord(GreyRegionDeque.wordSize()));
+                continue;
+            }
+            return;
+        }
+    }
+
+    /**
+     * Visits the grey objects in the promotion chunks. The scan pointer is advanced before an
+     * object is visited, because visiting it can retire the chunk it is in.
+     */
+    @AlwaysInline("GC performance")
+    private boolean scanPromotionChunks() {
+        GreyToBlackObjectVisitor visitor = GCImpl.getGCImpl().getGreyToBlackObjectVisitor();
+        boolean scanned = false;
+        for (int i = 0; i < promotionChunks.length; i++) {
+            while (true) {
+                AlignedHeader chunk = WordFactory.pointer(promotionChunks[i]);
+                if (chunk.isNull()) {
+                    break;
+                }
+                Pointer scan = WordFactory.pointer(scanPointers[i]);
+                if (scan.aboveOrEqual(HeapChunk.getTopPointer(chunk))) {
+                    break;
+                }
+                Object obj = scan.toObject();
+                scanPointers[i] = scan.add(LayoutEncoding.getSizeFromObject(obj)).rawValue();
+                visitor.visitObjectInline(obj);
+                scanned = true;
+            }
+        }
+        return scanned;
+    }
+
+    @AlwaysInline("GC performance")
+    private static void scanRegion(Pointer start, Pointer end) {
+        GreyToBlackObjectVisitor visitor = GCImpl.getGCImpl().getGreyToBlackObjectVisitor();
+        Pointer p = start;
+        while (p.belowThan(end)) {
+            Object obj = p.toObject();
+            p = p.add(LayoutEncoding.getSizeFromObject(obj));
+            visitor.visitObjectInline(obj);
+        }
+    }
+
+    private boolean trySteal(Pointer region) {
+        ParallelGreyObjectsWalker[] walkers = ParallelGC.singleton().getWalkers();
+        int count = ParallelGC.singleton().getWalkerCount();
+        /* Start at a pseudo-random victim so that thieves do not all line up at the same deque. */
+        randomSeed ^= randomSeed << 13;
+        randomSeed ^= randomSeed >>> 17;
+        randomSeed ^= randomSeed << 5;
+        int start = (randomSeed & Integer.MAX_VALUE) % count;
+        for (int i = 0; i < count; i++) {
+            ParallelGreyObjectsWalker victim = walkers[(start + i) % count];
+            if (victim != this && victim.isParticipating() && victim.getDeque().steal(region)) {
+                steals++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean walkClaimedImageHeapRegions() {
+        imageHeapRegionClaimer.reset();
+        return HeapImpl.getHeapImpl().walkNativeImageHeapRegions(imageHeapRegionClaimer);
+    }
+
+    /** Visits those image heap regions with references that no other walker has claimed. */
+    private static final class ImageHeapRegionClaimer implements MemoryWalker.ImageHeapRegionVisitor {
+        private int regionIndex;
+
+        @Platforms(Platform.HOSTED_ONLY.class)
+        ImageHeapRegionClaimer() {
+        }
+
+        void reset() {
+            regionIndex = 0;
+        }
+
+        @Override
+        public <T> boolean visitNativeImageHeapRegion(T region, MemoryWalker.NativeImageHeapRegionAccess<T> access) {
+            int index = regionIndex++;
+            if (access.containsReferences(region) && access.isWritable(region) && ParallelGC.singleton().tryClaimImageHeapRegion(index)) {
+                access.visitObjects(region, GCImpl.getGCImpl().getGreyToBlackObjectVisitor());
+            }
+            return true;
+        }
+    }
+}
@@ -138,6 +138,19 @@ final class ReferenceObjectProcessing {
         // lets add the reference to the list of remembered references. All remembered references
         // are revisited after the GC finished promoting all strongly reachable objects.
 
+        if (ParallelGC.isEnabled() && ParallelGC.isInParallelPhase()) {
+            ParallelGC.singleton().lock();
+            try {
+                remember(dr);
+            } finally {
+                ParallelGC.singleton().unlock();
+            }
+        } else {
+            remember(dr);
+        }
+    }
+
+    private static void remember(Reference<?> dr) {
         // null link means undiscovered, avoid for the last node with a cyclic reference
         Reference<?> next = (rememberedRefsList != null) ? rememberedRefsList : dr;
         ReferenceInternals.setNextDiscovered(dr, next);
@@ -297,7 +297,9 @@ final class Space {
          * This method is used from {@link PosixJavaThreads#detachThread(VMThread)}, so it can not
          * guarantee that it is inside a VMOperation, only that there is some mutual exclusion.
          */
-        if (SubstrateOptions.MultiThreaded.getValue()) {
+        if (ParallelGC.isEnabled() && ParallelGC.isInParallelPhase()) {
+            ParallelGC.singleton().guaranteeOwnsLock("Trying to append an aligned heap chunk during a parallel phase without the lock.");
+        } else if (SubstrateOptions.MultiThreaded.getValue()) {
             VMThreads.guaranteeOwnsThreadMutex("Trying to append an aligned heap chunk but no mutual exclusion.");
         }
         appendAlignedHeapChunkUninterruptibly(aChunk);
@@ -350,7 +352,9 @@ final class Space {
          * This method is used from {@link PosixJavaThreads#detachThread(VMThread)}, so it can not
          * guarantee that it is inside a VMOperation, only that there is some mutual exclusion.
          */
-        if (SubstrateOptions.MultiThreaded.getValue()) {
+        if (ParallelGC.isEnabled() && ParallelGC.isInParallelPhase()) {
+            ParallelGC.singleton().guaranteeOwnsLock("Trying to append an unaligned chunk during a parallel phase without the lock.");
+        } else if (SubstrateOptions.MultiThreaded.getValue()) {
             VMThreads.guaranteeOwnsThreadMutex("Trying to append an unaligned chunk but no mutual exclusion.");
         }
         appendUnalignedHeapChunkUninterruptibly(uChunk);
@@ -443,6 +447,11 @@ final class Space {
         assert ObjectHeaderImpl.isAlignedObject(original);
         assert this != originalSpace && originalSpace.isFromSpace();
 
+        if (ParallelGC.isEnabled() && ParallelGC.isInParallelPhase()) {
+            /* Other walkers may try to copy the same object at the same time. */
+            return ParallelGC.getCurrentWalker().promoteAlignedObject(original, this);
+        }
+
         if (HeapOptions.TraceObjectPromotion.getValue()) {
             Log.log().string("[promoteAlignedObject:").string("  obj: ").object(original).string("  fromSpace: ").string(originalSpace.getName()).string("  toSpace: ").string(this.getName())
                             .string("  size: ").unsigned(LayoutEncoding.getSizeFromObject(original)).string("]").newline();
@@ -513,6 +522,11 @@ final class Space {
     void promoteUnalignedHeapChunk(UnalignedHeapChunk.UnalignedHeader chunk, Space originalSpace) {
         assert this != originalSpace && originalSpace.isFromSpace();
 
+        if (ParallelGC.isEnabled() && ParallelGC.isInParallelPhase()) {
+            ParallelGC.getCurrentWalker().promoteUnalignedHeapChunk(chunk, originalSpace, this);
+            return;
+        }
+
         if (HeapOptions.TraceObjectPromotion.getValue()) {
             Log.log().string("[promoteUnalignedHeapChunk:").string("  chunk: ").hex(chunk).string("  fromSpace: ").string(originalSpace.getName()).string("  toSpace: ").string(this.getName())
                             .string("]").newline();
@@ -529,7 +543,7 @@ final class Space {
     private AlignedHeapChunk.AlignedHeader requestAlignedHeapChunk() {
         assert VMOperation.isGCInProgress() : "Should only be called from the collector.";
         Log trace = Log.noopLog().string("[Space.requestAlignedHeapChunk:").string("  space: ").string(getName()).newline();
-        AlignedHeapChunk.AlignedHeader aChunk = HeapImpl.getChunkProvider().produceAlignedChunk();
+        AlignedHeapChunk.AlignedHeader aChunk = HeapImpl.getChunkProvider().produceAlignedChunkForCollector();
         trace.string("  aChunk: ").hex(aChunk);
         if (aChunk.isNonNull()) {
             appendAlignedHeapChunk(aChunk);
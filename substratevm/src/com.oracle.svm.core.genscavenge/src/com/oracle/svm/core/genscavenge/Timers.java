@@ -99,6 +99,7 @@ final class Timers {
     final Timer cleanCodeCache = new Timer("cleanCodeCache");
     final Timer referenceObjects = new Timer("referenceObjects");
     final Timer promotePinnedObjects = new Timer("promotePinnedObjects");
+    final Timer parallelPhase = new Timer("parallelPhase");
     final Timer rootScan = new Timer("rootScan");
     final Timer scanGreyObjects = new Timer("scanGreyObjects");
     final Timer releaseSpaces = new Timer("releaseSpaces");
@@ -107,6 +108,8 @@ final class Timers {
     final Timer walkThreadLocals = new Timer("walkThreadLocals");
     final Timer walkRuntimeCodeCache = new Timer("walkRuntimeCodeCache");
     final Timer cleanRuntimeCodeCache = new Timer("cleanRuntimeCodeCache");
+    final Timer initialMark = new Timer("initialMark");
+    final Timer remark = new Timer("remark");
     final Timer mutator = new Timer("mutator");
 
     Timers() {
@@ -121,6 +124,7 @@ final class Timers {
         cheneyScanFromRoots.reset();
         cheneyScanFromDirtyRoots.reset();
         promotePinnedObjects.reset();
+        parallelPhase.reset();
         blackenStackRoots.reset();
         walkThreadLocals.reset();
         walkRuntimeCodeCache.reset();
@@ -131,6 +135,8 @@ final class Timers {
         cleanCodeCache.reset();
         referenceObjects.reset();
         releaseSpaces.reset();
+        initialMark.reset();
+        remark.reset();
         verifyAfter.reset();
         /* The mutator timer is *not* reset here. */
         trace.string("]").newline();
@@ -146,6 +152,7 @@ final class Timers {
             logOneTimer(log, "        ", cheneyScanFromRoots);
             logOneTimer(log, "        ", cheneyScanFromDirtyRoots);
             logOneTimer(log, "          ", promotePinnedObjects);
+            logOneTimer(log, "          ", parallelPhase);
             logOneTimer(log, "          ", blackenStackRoots);
             logOneTimer(log, "          ", walkThreadLocals);
             logOneTimer(log, "          ", walkRuntimeCodeCache);
@@ -156,6 +163,8 @@ final class Timers {
             logOneTimer(log, "      ", cleanCodeCache);
             logOneTimer(log, "      ", referenceObjects);
             logOneTimer(log, "      ", releaseSpaces);
+            logOneTimer(log, "      ", initialMark);
+            logOneTimer(log, "      ", remark);
             logOneTimer(log, "    ", verifyAfter);
             logGCLoad(log, "    ", "GCLoad", collection, mutator);
             log.string("]");
@@ -43,12 +43,14 @@ final class YoungGeneration extends Generation {
     private final Space[] survivorToSpaces;
     private final GreyObjectsWalker[] survivorGreyObjectsWalkers;
     private final int maxSurvivorSpaces;
+    private int tenuringThreshold;
 
     @Platforms(Platform.HOSTED_ONLY.class)
     YoungGeneration(String name) {
         super(name);
         this.eden = new Space("edenSpace", true, 0);
         this.maxSurvivorSpaces = HeapPolicy.getMaxSurvivorSpaces();
+        this.tenuringThreshold = maxSurvivorSpaces;
         this.survivorFromSpaces = new Space[maxSurvivorSpaces];
         this.survivorToSpaces = new Space[maxSurvivorSpaces];
         this.survivorGreyObjectsWalkers = new GreyObjectsWalker[maxSurvivorSpaces];
@@ -121,6 +123,19 @@ final class YoungGeneration extends Generation {
         return survivorFromSpaces[index];
     }
 
+    /**
+     * Sets the age at which objects are promoted from the survivor spaces to the old generation,
+     * which is at most the number of survivor spaces.
+     */
+    void setTenuringThreshold(int threshold) {
+        assert threshold >= 0 && threshold <= maxSurvivorSpaces;
+        tenuringThreshold = threshold;
+    }
+
+    int getTenuringThreshold() {
+        return tenuringThreshold;
+    }
+
     private GreyObjectsWalker getSurvivorGreyObjectsWalker(int index) {
         return survivorGreyObjectsWalkers[index];
     }
@@ -308,7 +323,7 @@ final class YoungGeneration extends Generation {
         assert originalSpace.isEdenSpace() || originalSpace.isSurvivorSpace() : "Should be Eden or survivor.";
         assert originalSpace.isFromSpace() : "must not be called for other objects";
 
-        if (originalSpace.getAge() < maxSurvivorSpaces) {
+        if (originalSpace.getAge() < tenuringThreshold) {
             int age = originalSpace.getNextAgeForPromotion();
             Space toSpace = getSurvivorToSpaceAt(age - 1);
             return toSpace.promoteAlignedObject(original, originalSpace);
@@ -321,7 +336,7 @@ final class YoungGeneration extends Generation {
     private void promoteUnalignedObject(UnalignedHeapChunk.UnalignedHeader originalChunk, Space originalSpace) {
         assert originalSpace.isFromSpace() : "must not be called for other objects";
 
-        if (originalSpace.getAge() < maxSurvivorSpaces) {
+        if (originalSpace.getAge() < tenuringThreshold) {
             int age = originalSpace.getNextAgeForPromotion();
             Space toSpace = getSurvivorToSpaceAt(age - 1);
             toSpace.promoteUnalignedHeapChunk(originalChunk, originalSpace);
@@ -32,13 +32,22 @@ import org.graalvm.compiler.api.replacements.Fold;
 import org.graalvm.compiler.api.replacements.Snippet;
 import org.graalvm.compiler.api.replacements.Snippet.ConstantParameter;
 import org.graalvm.compiler.api.replacements.SnippetReflectionProvider;
+import org.graalvm.compiler.core.common.spi.ForeignCallDescriptor;
 import org.graalvm.compiler.debug.DebugHandlersFactory;
 import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.graph.Node.ConstantNodeParameter;
+import org.graalvm.compiler.graph.Node.NodeIntrinsic;
 import org.graalvm.compiler.nodes.extended.BranchProbabilityNode;
 import org.graalvm.compiler.nodes.extended.FixedValueAnchorNode;
+import org.graalvm.compiler.nodes.extended.ForeignCallNode;
+import org.graalvm.compiler.nodes.gc.G1ArrayRangePreWriteBarrier;
+import org.graalvm.compiler.nodes.gc.G1PreWriteBarrier;
 import org.graalvm.compiler.nodes.gc.SerialArrayRangeWriteBarrier;
 import org.graalvm.compiler.nodes.gc.SerialWriteBarrier;
 import org.graalvm.compiler.nodes.gc.WriteBarrier;
+import org.graalvm.compiler.nodes.memory.OnHeapMemoryAccess.BarrierType;
+import org.graalvm.compiler.nodes.memory.address.AddressNode;
+import org.graalvm.compiler.nodes.memory.address.AddressNode.Address;
 import org.graalvm.compiler.nodes.memory.address.OffsetAddressNode;
 import org.graalvm.compiler.nodes.spi.LoweringTool;
 import org.graalvm.compiler.options.Option;
@@ -48,23 +57,33 @@ import org.graalvm.compiler.replacements.SnippetTemplate;
 import org.graalvm.compiler.replacements.SnippetTemplate.Arguments;
 import org.graalvm.compiler.replacements.SnippetTemplate.SnippetInfo;
 import org.graalvm.compiler.replacements.Snippets;
+import org.graalvm.compiler.word.Word;
 import org.graalvm.nativeimage.ImageSingletons;
 import org.graalvm.nativeimage.hosted.Feature;
+import org.graalvm.word.LocationIdentity;
 import org.graalvm.word.UnsignedWord;
+import org.graalvm.word.WordFactory;
 
 import com.oracle.svm.core.SubstrateOptions;
 import com.oracle.svm.core.annotate.AutomaticFeature;
+import com.oracle.svm.core.config.ConfigurationValues;
 import com.oracle.svm.core.genscavenge.AlignedHeapChunk;
 import com.oracle.svm.core.genscavenge.CardTable;
+import com.oracle.svm.core.genscavenge.ConcurrentMarking;
 import com.oracle.svm.core.genscavenge.ObjectHeaderImpl;
 import com.oracle.svm.core.genscavenge.UnalignedHeapChunk;
+import com.oracle.svm.core.graal.meta.SubstrateForeignCallsProvider;
 import com.oracle.svm.core.graal.snippets.NodeLoweringProvider;
 import com.oracle.svm.core.graal.snippets.SubstrateTemplates;
 import com.oracle.svm.core.option.HostedOptionKey;
+import com.oracle.svm.core.snippets.SnippetRuntime;
+import com.oracle.svm.core.snippets.SnippetRuntime.SubstrateForeignCallDescriptor;
 import com.oracle.svm.core.util.Counter;
 import com.oracle.svm.core.util.CounterFeature;
 
 public class BarrierSnippets extends SubstrateTemplates implements Snippets {
+    private static final SubstrateForeignCallDescriptor LOG_PREVIOUS_VALUE = SnippetRuntime.findForeignCall(ConcurrentMarking.class, "logPreviousValue", true);
+
     public static class Options {
         @Option(help = "Instrument write barriers with counters")//
         public static final HostedOptionKey<Boolean> CountWriteBarriers = new HostedOptionKey<>(false);
@@ -75,6 +94,17 @@ public class BarrierSnippets extends SubstrateTemplates implements Snippets {
         return ImageSingletons.lookup(BarrierSnippetCounters.class);
     }
 
+    @Fold
+    static int referenceSize() {
+        return ConfigurationValues.getObjectLayout().getReferenceSize();
+    }
+
+    public static void registerForeignCalls(Providers providers, SubstrateForeignCallsProvider foreignCalls) {
+        if (ConcurrentMarking.isEnabled()) {
+            foreignCalls.register(providers, LOG_PREVIOUS_VALUE);
+        }
+    }
+
     BarrierSnippets(OptionValues options, Iterable<DebugHandlersFactory> factories, Providers providers, SnippetReflectionProvider snippetReflection) {
         super(options, factories, providers, snippetReflection);
     }
@@ -84,6 +114,11 @@ public class BarrierSnippets extends SubstrateTemplates implements Snippets {
         lowerings.put(SerialWriteBarrier.class, lowering);
         // write barriers are currently always imprecise
         lowerings.put(SerialArrayRangeWriteBarrier.class, lowering);
+
+        if (ConcurrentMarking.isEnabled()) {
+            lowerings.put(G1PreWriteBarrier.class, new PreWriteBarrierLowering());
+            lowerings.put(G1ArrayRangePreWriteBarrier.class, new ArrayRangePreWriteBarrierLowering());
+        }
     }
 
     @Snippet
@@ -106,6 +141,84 @@ public class BarrierSnippets extends SubstrateTemplates implements Snippets {
         UnalignedHeapChunk.dirtyCardForObject(fixedObject, verifyOnly);
     }
 
+    /**
+     * Snapshot-at-the-beginning barrier for {@link ConcurrentMarking}: while a marking cycle is
+     * active, the reference that is about to be overwritten is handed to the marker.
+     */
+    @Snippet
+    public static void preWriteBarrierSnippet(Address address, Object object, @ConstantParameter boolean checkObject) {
+        if (BranchProbabilityNode.probability(BranchProbabilityNode.FREQUENT_PROBABILITY, !ConcurrentMarking.isMarkingActive())) {
+            return;
+        }
+        if (checkObject && object == null) {
+            /* Leave the null check to the write itself. */
+            return;
+        }
+        counters().preWriteBarrierMarking.inc();
+        Object previous = Word.fromAddress(address).readObject(0, BarrierType.NONE, LocationIdentity.any());
+        if (BranchProbabilityNode.probability(BranchProbabilityNode.LIKELY_PROBABILITY, previous != null)) {
+            logPreviousValue(LOG_PREVIOUS_VALUE, previous);
+        }
+    }
+
+    @Snippet
+    public static void arrayRangePreWriteBarrierSnippet(Address address, int length, @ConstantParameter int elementStride) {
+        if (BranchProbabilityNode.probability(BranchProbabilityNode.FREQUENT_PROBABILITY, !ConcurrentMarking.isMarkingActive() || length == 0)) {
+            return;
+        }
+        counters().preWriteBarrierMarking.inc();
+        long first = Word.fromAddress(address).rawValue();
+        if (elementStride < 0) {
+            /* The address points to the place after the last array element. */
+            first += (long) elementStride * length;
+        }
+        Word start = WordFactory.unsigned(first);
+        for (int i = 0; i < length; i++) {
+            Object previous = start.add(i * referenceSize()).readObject(0, BarrierType.NONE, LocationIdentity.any());
+            if (previous != null) {
+                logPreviousValue(LOG_PREVIOUS_VALUE, previous);
+            }
+        }
+    }
+
+    @NodeIntrinsic(ForeignCallNode.class)
+    private static native void logPreviousValue(@ConstantNodeParameter ForeignCallDescriptor descriptor, Object previous);
+
+    private class PreWriteBarrierLowering implements NodeLoweringProvider<G1PreWriteBarrier> {
+        private final SnippetInfo preWriteBarrierSnippet = snippet(BarrierSnippets.class, "preWriteBarrierSnippet");
+
+        @Override
+        public void lower(G1PreWriteBarrier barrier, LoweringTool tool) {
+            assert barrier.doLoad() && !barrier.getNullCheck();
+            Arguments args = new Arguments(preWriteBarrierSnippet, barrier.graph().getGuardsStage(), tool.getLoweringStage());
+            AddressNode address = barrier.getAddress();
+            args.add("address", address);
+            if (address instanceof OffsetAddressNode) {
+                args.add("object", ((OffsetAddressNode) address).getBase());
+                args.addConst("checkObject", true);
+            } else {
+                args.add("object", null);
+                args.addConst("checkObject", false);
+            }
+
+            template(barrier, args).instantiate(providers.getMetaAccess(), barrier, SnippetTemplate.DEFAULT_REPLACER, args);
+        }
+    }
+
+    private class ArrayRangePreWriteBarrierLowering implements NodeLoweringProvider<G1ArrayRangePreWriteBarrier> {
+        private final SnippetInfo arrayRangePreWriteBarrierSnippet = snippet(BarrierSnippets.class, "arrayRangePreWriteBarrierSnippet");
+
+        @Override
+        public void lower(G1ArrayRangePreWriteBarrier barrier, LoweringTool tool) {
+            Arguments args = new Arguments(arrayRangePreWriteBarrierSnippet, barrier.graph().getGuardsStage(), tool.getLoweringStage());
+            args.add("address", barrier.getAddress());
+            args.add("length", barrier.getLength());
+            args.addConst("elementStride", barrier.getElementStride());
+
+            template(barrier, args).instantiate(providers.getMetaAccess(), barrier, SnippetTemplate.DEFAULT_REPLACER, args);
+        }
+    }
+
     private class PostWriteBarrierLowering implements NodeLoweringProvider<WriteBarrier> {
         private final SnippetInfo postWriteBarrierSnippet = snippet(BarrierSnippets.class, "postWriteBarrierSnippet", CardTable.CARD_REMEMBERED_SET_LOCATION);
 
@@ -142,6 +255,10 @@ public class BarrierSnippets extends SubstrateTemplates implements Snippets {
         public static long getPostWriteBarrierUnalignedCount() {
             return counters().postWriteBarrierUnaligned.getValue();
         }
+
+        public static long getPreWriteBarrierMarkingCount() {
+            return counters().preWriteBarrierMarking.getValue();
+        }
     }
 }
 
@@ -150,6 +267,7 @@ class BarrierSnippetCounters {
     final Counter postWriteBarrier = new Counter(counters, "postWriteBarrier", "post-write barriers");
     final Counter postWriteBarrierAligned = new Counter(counters, "postWriteBarrierAligned", "aligned object path of post-write barriers");
     final Counter postWriteBarrierUnaligned = new Counter(counters, "postWriteBarrierUnaligned", "unaligned object path of post-write barriers");
+    final Counter preWriteBarrierMarking = new Counter(counters, "preWriteBarrierMarking", "pre-write barriers executed while concurrent marking is active");
 }
 
 @AutomaticFeature
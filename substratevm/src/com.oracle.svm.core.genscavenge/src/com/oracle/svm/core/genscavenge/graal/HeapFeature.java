@@ -39,9 +39,11 @@ import org.graalvm.nativeimage.hosted.Feature;
 import com.oracle.svm.core.SubstrateOptions;
 import com.oracle.svm.core.annotate.AutomaticFeature;
 import com.oracle.svm.core.genscavenge.ChunkedImageHeapLayouter;
+import com.oracle.svm.core.genscavenge.CollectionPolicyMXBean;
 import com.oracle.svm.core.genscavenge.CompleteGarbageCollectorMXBean;
 import com.oracle.svm.core.genscavenge.HeapImpl;
 import com.oracle.svm.core.genscavenge.HeapImplMemoryMXBean;
+import com.oracle.svm.core.genscavenge.HeapMemoryMXBean;
 import com.oracle.svm.core.genscavenge.ImageHeapInfo;
 import com.oracle.svm.core.genscavenge.IncrementalGarbageCollectorMXBean;
 import com.oracle.svm.core.genscavenge.LinearImageHeapLayouter;
@@ -75,8 +77,10 @@ class HeapFeature implements GraalFeature {
         ImageSingletons.add(SubstrateAllocationSnippets.class, new GenScavengeAllocationSnippets());
 
         ManagementSupport managementSupport = ManagementSupport.getSingleton();
-        managementSupport.addPlatformManagedObjectSingleton(java.lang.management.MemoryMXBean.class, new HeapImplMemoryMXBean());
-        managementSupport.addPlatformManagedObjectList(com.sun.management.GarbageCollectorMXBean.class, Arrays.asList(new IncrementalGarbageCollectorMXBean(), new CompleteGarbageCollectorMXBean()));
+        managementSupport.addPlatformManagedObjectSingleton(HeapMemoryMXBean.class, new HeapImplMemoryMXBean());
+        managementSupport.addPlatformManagedObjectList(com.sun.management.GarbageCollectorMXBean.class, Arrays.asList(new IncrementalGarbageCollectorMXBean()));
+        /* Also adds the bean for complete collections to the list of all collector beans. */
+        managementSupport.addPlatformManagedObjectList(CollectionPolicyMXBean.class, Arrays.asList(new CompleteGarbageCollectorMXBean()));
     }
 
     @Override
@@ -116,5 +120,6 @@ class HeapFeature implements GraalFeature {
     @Override
     public void registerForeignCalls(RuntimeConfiguration runtimeConfig, Providers providers, SnippetReflectionProvider snippetReflection, SubstrateForeignCallsProvider foreignCalls, boolean hosted) {
         GenScavengeAllocationSnippets.registerForeignCalls(providers, foreignCalls);
+        BarrierSnippets.registerForeignCalls(providers, foreignCalls);
     }
 }
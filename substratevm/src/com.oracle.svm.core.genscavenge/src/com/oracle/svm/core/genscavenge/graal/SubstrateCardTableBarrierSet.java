@@ -24,10 +24,22 @@
  */
 package com.oracle.svm.core.genscavenge.graal;
 
+import org.graalvm.compiler.core.common.type.AbstractObjectStamp;
+import org.graalvm.compiler.nodes.NodeView;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.extended.ArrayRangeWrite;
 import org.graalvm.compiler.nodes.gc.CardTableBarrierSet;
+import org.graalvm.compiler.nodes.gc.G1ArrayRangePreWriteBarrier;
+import org.graalvm.compiler.nodes.gc.G1PreWriteBarrier;
+import org.graalvm.compiler.nodes.java.AbstractCompareAndSwapNode;
+import org.graalvm.compiler.nodes.java.LoweredAtomicReadAndWriteNode;
+import org.graalvm.compiler.nodes.memory.FixedAccessNode;
 import org.graalvm.compiler.nodes.memory.OnHeapMemoryAccess.BarrierType;
+import org.graalvm.compiler.nodes.memory.WriteNode;
 
 import com.oracle.svm.core.StaticFieldsSupport;
+import com.oracle.svm.core.genscavenge.ConcurrentMarking;
 
 import jdk.vm.ci.meta.JavaKind;
 import jdk.vm.ci.meta.ResolvedJavaField;
@@ -37,10 +49,17 @@ import jdk.vm.ci.meta.ResolvedJavaType;
  * Static fields in SVM are represented as two arrays in the native image heap: one for Object
  * fields and one for all primitive fields (see {@link StaticFieldsSupport}). Therefore, we must
  * emit array write barriers for static fields.
+ *
+ * With {@link ConcurrentMarking}, every store that overwrites an object reference additionally
+ * gets a snapshot-at-the-beginning pre-barrier, which records the previous value while a marking
+ * cycle is active. Initializing stores are skipped because they never overwrite a reference.
  */
 public class SubstrateCardTableBarrierSet extends CardTableBarrierSet {
-    public SubstrateCardTableBarrierSet(ResolvedJavaType objectArrayType) {
+    private final boolean concurrentMarking;
+
+    public SubstrateCardTableBarrierSet(ResolvedJavaType objectArrayType, boolean concurrentMarking) {
         super(objectArrayType);
+        this.concurrentMarking = concurrentMarking;
     }
 
     @Override
@@ -50,4 +69,40 @@ public class SubstrateCardTableBarrierSet extends CardTableBarrierSet {
         }
         return super.fieldStoreBarrierType(field, storageKind);
     }
+
+    @Override
+    public void addBarriers(FixedAccessNode n) {
+        if (concurrentMarking) {
+            if (n instanceof WriteNode) {
+                addPreWriteBarrier(n, ((WriteNode) n).value());
+            } else if (n instanceof LoweredAtomicReadAndWriteNode) {
+                addPreWriteBarrier(n, ((LoweredAtomicReadAndWriteNode) n).getNewValue());
+            } else if (n instanceof AbstractCompareAndSwapNode) {
+                addPreWriteBarrier(n, ((AbstractCompareAndSwapNode) n).getNewValue());
+            } else if (n instanceof ArrayRangeWrite) {
+                addArrayRangePreWriteBarrier((ArrayRangeWrite) n);
+            }
+        }
+        super.addBarriers(n);
+    }
+
+    private static void addPreWriteBarrier(FixedAccessNode node, ValueNode writtenValue) {
+        if (node.getBarrierType() == BarrierType.NONE || node.getLocationIdentity().isInit() || !(writtenValue.stamp(NodeView.DEFAULT) instanceof AbstractObjectStamp)) {
+            return;
+        }
+        /*
+         * The barrier always loads the previous value itself, also for compare-and-swap nodes, so
+         * that it never has to deal with compressed expected values.
+         */
+        StructuredGraph graph = node.graph();
+        graph.addBeforeFixed(node, graph.add(new G1PreWriteBarrier(node.getAddress(), null, true, false)));
+    }
+
+    private static void addArrayRangePreWriteBarrier(ArrayRangeWrite write) {
+        if (write.writesObjectArray() && !write.isInitialization()) {
+            StructuredGraph graph = write.asNode().graph();
+            G1ArrayRangePreWriteBarrier barrier = graph.add(new G1ArrayRangePreWriteBarrier(write.getAddress(), write.getLength(), write.getElementStride()));
+            graph.addBeforeFixed(write.preBarrierInsertionPosition(), barrier);
+        }
+    }
 }
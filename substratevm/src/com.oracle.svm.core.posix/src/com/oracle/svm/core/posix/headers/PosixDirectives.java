@@ -64,7 +64,9 @@ public class PosixDirectives implements CContext.Directives {
     };
 
     private static final String[] linuxLibs = new String[]{
+                    "<linux/mempolicy.h>",
                     "<mntent.h>",
+                    "<sys/syscall.h>",
     };
 
     @Override
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.posix.headers.linux;
+
+import org.graalvm.nativeimage.c.CContext;
+import org.graalvm.nativeimage.c.constant.CConstant;
+import org.graalvm.nativeimage.c.function.CFunction;
+
+import com.oracle.svm.core.posix.headers.PosixDirectives;
+
+// Checkstyle: stop
+
+/**
+ * Definitions manually translated from the C header files sys/syscall.h and unistd.h, for system
+ * calls that the C library does not provide a wrapper function for.
+ */
+@CContext(PosixDirectives.class)
+public class LinuxSyscall {
+
+    @CConstant
+    public static native int SYS_getcpu();
+
+    @CConstant
+    public static native int SYS_get_mempolicy();
+
+    @CConstant
+    public static native int SYS_mbind();
+
+    public static class NoTransitions {
+        /**
+         * The variadic {@code syscall} function, declared with the maximum number of arguments of
+         * the system calls above. Unused arguments are ignored by the kernel.
+         */
+        @CFunction(transition = CFunction.Transition.NO_TRANSITION)
+        public static native long syscall(long number, long arg1, long arg2, long arg3, long arg4, long arg5, long arg6);
+    }
+}
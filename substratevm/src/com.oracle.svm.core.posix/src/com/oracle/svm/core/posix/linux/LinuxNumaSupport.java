@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.posix.linux;
+
+import static com.oracle.svm.core.posix.headers.linux.LinuxMempolicy.MPOL_F_MEMS_ALLOWED;
+import static com.oracle.svm.core.posix.headers.linux.LinuxMempolicy.MPOL_PREFERRED;
+import static com.oracle.svm.core.posix.headers.linux.LinuxSyscall.SYS_get_mempolicy;
+import static com.oracle.svm.core.posix.headers.linux.LinuxSyscall.SYS_getcpu;
+import static com.oracle.svm.core.posix.headers.linux.LinuxSyscall.SYS_mbind;
+import static com.oracle.svm.core.posix.headers.linux.LinuxSyscall.NoTransitions.syscall;
+
+import org.graalvm.nativeimage.ImageSingletons;
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+import org.graalvm.nativeimage.StackValue;
+import org.graalvm.nativeimage.c.type.CIntPointer;
+import org.graalvm.nativeimage.c.type.CLongPointer;
+import org.graalvm.nativeimage.hosted.Feature;
+import org.graalvm.word.PointerBase;
+import org.graalvm.word.UnsignedWord;
+
+import com.oracle.svm.core.annotate.AutomaticFeature;
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.os.NumaSupport;
+
+/**
+ * Implements {@link NumaSupport} with the {@code getcpu}, {@code get_mempolicy} and {@code mbind}
+ * system calls. These are invoked directly instead of through libnuma, so that images do not depend
+ * on that library being installed.
+ */
+class LinuxNumaSupport implements NumaSupport {
+    /**
+     * The number of bits in the node masks that are passed to the kernel, plus one, because the
+     * kernel ignores the last bit.
+     */
+    private static final int MAX_NODE_BITS = MAX_NODES + 1;
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    LinuxNumaSupport() {
+    }
+
+    @Override
+    public int getNodeCount() {
+        CLongPointer nodeMask = StackValue.get(CLongPointer.class);
+        nodeMask.write(0L);
+        long result = syscall(SYS_get_mempolicy(), 0L, nodeMask.rawValue(), MAX_NODE_BITS, 0L, MPOL_F_MEMS_ALLOWED(), 0L);
+        if (result != 0 || nodeMask.read() == 0L) {
+            /* Also fails if the kernel supports more nodes than fit in the mask. */
+            return 1;
+        }
+        return Long.SIZE - Long.numberOfLeadingZeros(nodeMask.read());
+    }
+
+    @Override
+    @Uninterruptible(reason = "May be called from uninterruptible code.")
+    public int getCurrentProcessor() {
+        CIntPointer processor = StackValue.get(CIntPointer.class);
+        if (syscall(SYS_getcpu(), processor.rawValue(), 0L, 0L, 0L, 0L, 0L) != 0) {
+            return -1;
+        }
+        return processor.read();
+    }
+
+    @Override
+    @Uninterruptible(reason = "May be called from uninterruptible code.")
+    public int getCurrentNode() {
+        CIntPointer node = StackValue.get(CIntPointer.class);
+        if (syscall(SYS_getcpu(), 0L, node.rawValue(), 0L, 0L, 0L, 0L) != 0) {
+            return -1;
+        }
+        return node.read();
+    }
+
+    @Override
+    @Uninterruptible(reason = "May be called from uninterruptible code.")
+    public boolean bindToNode(PointerBase start, UnsignedWord nbytes, int node) {
+        assert node >= 0 && node < MAX_NODES;
+        CLongPointer nodeMask = StackValue.get(CLongPointer.class);
+        nodeMask.write(1L << node);
+        return syscall(SYS_mbind(), start.rawValue(), nbytes.rawValue(), MPOL_PREFERRED(), nodeMask.rawValue(), MAX_NODE_BITS, 0L) == 0;
+    }
+}
+
+@AutomaticFeature
+class LinuxNumaSupportFeature implements Feature {
+    @Override
+    public void afterRegistration(AfterRegistrationAccess access) {
+        if (!ImageSingletons.contains(NumaSupport.class)) {
+            ImageSingletons.add(NumaSupport.class, new LinuxNumaSupport());
+        }
+    }
+}
@@ -169,4 +169,12 @@ public abstract class Heap {
      * May return {@code null}.
      */
     public abstract Reference<?> getAndClearReferencePendingList();
+
+    /**
+     * Returns whether {@link Reference#clear} must write the referent field with write barriers,
+     * which is the case when the collector marks referents concurrently to the application.
+     */
+    public boolean needsBarrierToClearReferent() {
+        return false;
+    }
 }
@@ -99,9 +99,17 @@ public final class ReferenceInternals {
          *
          * JDK-8240696: This issue affects G1.
          *
-         * This barrier-less write is to resolve JDK-8240696.
+         * The fix for JDK-8240696 is a write without a pre-barrier. That is not possible when the
+         * old generation is marked concurrently: the referent may have been loaded before and must
+         * be recorded by the snapshot-at-the-beginning pre-barrier, or it could be swept while it
+         * is still reachable. Outside of a marking cycle, the barriers do not keep the referent
+         * alive.
          */
-        ObjectAccess.writeObject(instance, WordFactory.signed(Target_java_lang_ref_Reference.referentFieldOffset), null);
+        if (Heap.getHeap().needsBarrierToClearReferent()) {
+            BarrieredAccess.writeObject(instance, WordFactory.signed(Target_java_lang_ref_Reference.referentFieldOffset), null);
+        } else {
+            ObjectAccess.writeObject(instance, WordFactory.signed(Target_java_lang_ref_Reference.referentFieldOffset), null);
+        }
     }
 
     public static <T> Pointer getReferentFieldAddress(Reference<T> instance) {
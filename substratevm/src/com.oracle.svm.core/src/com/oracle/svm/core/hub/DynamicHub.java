@@ -577,6 +577,7 @@ public final class DynamicHub implements JavaKind.FormatWithToString, AnnotatedE
         return arrayHub;
     }
 
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     public int getReferenceMapIndex() {
         return referenceMapIndex;
     }
@@ -616,6 +617,7 @@ public final class DynamicHub implements JavaKind.FormatWithToString, AnnotatedE
         return HubType.isInstance(hubType);
     }
 
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     public boolean isReferenceInstanceClass() {
         return HubType.isReferenceInstance(hubType);
     }
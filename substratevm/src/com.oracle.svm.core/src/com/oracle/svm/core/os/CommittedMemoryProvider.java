@@ -114,6 +114,38 @@ public interface CommittedMemoryProvider {
     @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     boolean free(PointerBase start, UnsignedWord nbytes, UnsignedWord alignment, boolean executable);
 
+    /**
+     * Return the physical memory that backs a range within a block of committed memory to the
+     * operating system, but keep the address range reserved so that it can be
+     * {@linkplain #recommit committed again} later. The range must be committed again before the
+     * block is {@linkplain #free freed} with its original parameters, so that the provider can
+     * account for the committed memory.
+     *
+     * @param start The start of the range, which must be a multiple of the
+     *            {@linkplain #getGranularity() granularity}.
+     * @param nbytes The size in bytes of the range, which must be a multiple of the
+     *            {@linkplain #getGranularity() granularity}.
+     * @return true on success, or false if the range is still committed, which is also the case
+     *         when this provider does not support uncommitting memory.
+     */
+    default boolean uncommit(PointerBase start, UnsignedWord nbytes) {
+        return false;
+    }
+
+    /**
+     * Commit a range again that was {@linkplain #uncommit uncommitted} before. The contents of the
+     * range are undefined afterwards.
+     *
+     * @param start The start of the range, as passed to {@link #uncommit}.
+     * @param nbytes The size in bytes of the range, as passed to {@link #uncommit}.
+     * @param executable Whether the block was requested to be executable.
+     * @return true on success, or false otherwise.
+     */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    default boolean recommit(PointerBase start, UnsignedWord nbytes, boolean executable) {
+        return false;
+    }
+
     /**
      * Called by the garbage collector before a collection is started, as an opportunity to perform
      * lazy operations, sanity checks or clean-ups.
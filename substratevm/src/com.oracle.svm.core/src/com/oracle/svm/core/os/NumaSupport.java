@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.os;
+
+import org.graalvm.compiler.api.replacements.Fold;
+import org.graalvm.nativeimage.ImageSingletons;
+import org.graalvm.word.PointerBase;
+import org.graalvm.word.UnsignedWord;
+
+import com.oracle.svm.core.annotate.Uninterruptible;
+
+/**
+ * Primitive operations for querying the non-uniform memory access (NUMA) topology of the machine
+ * and for placing memory on its nodes. Only available on platforms that register an implementation
+ * as an image singleton.
+ */
+public interface NumaSupport {
+    /** The highest number of nodes that is supported. Nodes are numbered from zero. */
+    int MAX_NODES = 64;
+
+    @Fold
+    static boolean isSupported() {
+        return ImageSingletons.contains(NumaSupport.class);
+    }
+
+    @Fold
+    static NumaSupport get() {
+        return ImageSingletons.lookup(NumaSupport.class);
+    }
+
+    /**
+     * Returns one more than the highest node number whose memory this process may use, which is
+     * between 1 and {@link #MAX_NODES}. Returns 1 if the topology cannot be determined.
+     */
+    int getNodeCount();
+
+    /**
+     * Returns the number of the processor that the current thread is running on, or -1 if it cannot
+     * be determined. The thread can be migrated to a different processor at any time.
+     */
+    @Uninterruptible(reason = "May be called from uninterruptible code.")
+    int getCurrentProcessor();
+
+    /**
+     * Returns the node of the processor that the current thread is running on, or -1 if it cannot
+     * be determined. The thread can be migrated to a different node at any time.
+     */
+    @Uninterruptible(reason = "May be called from uninterruptible code.")
+    int getCurrentNode();
+
+    /**
+     * Requests that physical memory for an address range is provided by the specified node when it
+     * is first accessed. Memory is taken from other nodes if the node has none left. Pages of the
+     * range that were already accessed are not migrated.
+     *
+     * @param start The start of the address range, which must be a multiple of the
+     *            {@linkplain VirtualMemoryProvider#getGranularity() granularity}.
+     * @param nbytes The size in bytes of the address range.
+     * @param node The node number, less than {@link #getNodeCount()}.
+     * @return true on success, or false otherwise.
+     */
+    @Uninterruptible(reason = "May be called from uninterruptible code.")
+    boolean bindToNode(PointerBase start, UnsignedWord nbytes, int node);
+}
@@ -111,6 +111,31 @@ public class OSCommittedMemoryProvider extends AbstractCommittedMemoryProvider {
         return false;
     }
 
+    @Override
+    public boolean uncommit(PointerBase start, UnsignedWord nbytes) {
+        if (VirtualMemoryProvider.get().uncommit(start, nbytes) == 0) {
+            tracker.untrack(nbytes);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public boolean recommit(PointerBase start, UnsignedWord nbytes, boolean executable) {
+        int access = VirtualMemoryProvider.Access.READ | VirtualMemoryProvider.Access.WRITE;
+        if (executable) {
+            access |= VirtualMemoryProvider.Access.EXECUTE;
+        }
+        Pointer committed = VirtualMemoryProvider.get().commit(start, nbytes, access);
+        assert committed.isNull() || committed.equal(start);
+        if (committed.isNull()) {
+            return false;
+        }
+        tracker.track(nbytes);
+        return true;
+    }
+
     private final VirtualMemoryTracker tracker = new VirtualMemoryTracker();
 
     protected static class VirtualMemoryTracker {
@@ -121,6 +146,7 @@ public class OSCommittedMemoryProvider extends AbstractCommittedMemoryProvider {
             this.totalAllocated = WordFactory.zero();
         }
 
+        @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
         public void track(UnsignedWord size) {
             totalAllocated = totalAllocated.add(size);
         }
@@ -354,6 +354,30 @@ public final class Safepoint {
         safepointRequested.setVolatile(value);
     }
 
+    /** Non-zero while the thread works for a VM operation, see {@link #beginHelperThreadWork}. */
+    private static final FastThreadLocalInt helperThreadWorking = FastThreadLocalFactory.createInt();
+
+    /**
+     * Called before a helper thread executes interruptible code on behalf of a VM operation, e.g.,
+     * a parallel GC worker. Such a thread stays in native state while the VM operation is in
+     * progress, so the safepoint checks in that code must never block or run callbacks: until
+     * {@link #endHelperThreadWork}, the slow path of a safepoint check only resets the counter and
+     * returns. This must only be called while the VM operation holds the safepoint, so that no
+     * safepoint request can be pending.
+     */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public static void beginHelperThreadWork() {
+        assert StatusSupport.isStatusNativeOrSafepoint() && VMOperation.isGCInProgress();
+        helperThreadWorking.set(1);
+        safepointRequested.setVolatile(THREAD_REQUEST_RESET);
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public static void endHelperThreadWork() {
+        assert helperThreadWorking.get() != 0;
+        helperThreadWorking.set(0);
+    }
+
     @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
     static int getSafepointRequested(IsolateThread vmThread) {
         return safepointRequested.getVolatile(vmThread);
@@ -374,6 +398,11 @@ public final class Safepoint {
     @SubstrateForeignCallTarget(stubCallingConvention = true)
     @Uninterruptible(reason = "Must not contain safepoint checks")
     private static void enterSlowPathSafepointCheck() throws Throwable {
+        if (helperThreadWorking.get() != 0) {
+            /* In native state on behalf of a VM operation, which already holds the safepoint. */
+            Safepoint.setSafepointRequested(THREAD_REQUEST_RESET);
+            return;
+        }
         if (StatusSupport.isStatusIgnoreSafepoints(CurrentIsolate.getCurrentThread())) {
             /* The thread is detaching so it won't ever need to execute a safepoint again. */
             Safepoint.setSafepointRequested(THREAD_REQUEST_RESET);
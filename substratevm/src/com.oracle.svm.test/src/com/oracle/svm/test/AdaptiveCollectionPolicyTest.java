@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+import javax.management.AttributeNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.graalvm.nativeimage.hosted.Feature;
+import org.graalvm.nativeimage.hosted.RuntimeReflection;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests how the adaptive collection policy resizes the young generation and adjusts the tenuring
+ * threshold, via the collector bean of the platform MBean server. The test only runs in an image
+ * built with
+ * {@code -H:InitialCollectionPolicy=com.oracle.svm.core.genscavenge.AdaptiveCollectionPolicy -H:MaxSurvivorSpaces=4 -R:MaxGCPauseMillis=1 -R:GCTimeRatio=99 -R:TargetSurvivorPercent=1}
+ * and is skipped otherwise.
+ */
+public class AdaptiveCollectionPolicyTest {
+    private static final String COLLECTION_POLICY_MXBEAN = "com.oracle.svm.core.genscavenge.CollectionPolicyMXBean";
+    private static final int MAX_SURVIVOR_SPACES = 4;
+    private static final long TIMEOUT_MILLIS = 30_000;
+
+    /** Objects that survive incremental collections, which makes them slow. */
+    private static final int RETAINED_ARRAYS = 64 * 1024;
+    private static final int ARRAY_LENGTH = 512;
+
+    public static class TestFeature implements Feature {
+        @Override
+        public void beforeAnalysis(BeforeAnalysisAccess access) {
+            /* Attributes of platform beans are only available via reflection. */
+            Class<?> bean = access.findClassByName(COLLECTION_POLICY_MXBEAN);
+            if (bean != null) {
+                RuntimeReflection.register(bean.getMethods());
+            }
+        }
+    }
+
+    private MBeanServer server;
+    private ObjectName collectorBean;
+
+    @Before
+    public void checkAdaptivePolicy() throws JMException {
+        server = ManagementFactory.getPlatformMBeanServer();
+        String policyName = null;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            try {
+                policyName = (String) server.getAttribute(bean.getObjectName(), "CollectionPolicyName");
+                collectorBean = bean.getObjectName();
+                break;
+            } catch (AttributeNotFoundException e) {
+                /* Not the bean of complete collections, or not running with the heap of this image. */
+            }
+        }
+        Assume.assumeTrue("the adaptive collection policy is not enabled", "adaptive".equals(policyName));
+    }
+
+    private long getLong(String attribute) throws JMException {
+        return ((Number) server.getAttribute(collectorBean, attribute)).longValue();
+    }
+
+    private static Object[] allocateRetained() {
+        Object[] retained = new Object[RETAINED_ARRAYS];
+        for (int i = 0; i < retained.length; i++) {
+            retained[i] = new long[ARRAY_LENGTH];
+        }
+        return retained;
+    }
+
+    /** Replaces retained objects one by one, so that each incremental collection copies many. */
+    private static void churn(Object[] retained, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < retained.length; i++) {
+                retained[i] = new long[ARRAY_LENGTH];
+            }
+        }
+    }
+
+    /** Allocates objects that die immediately, so that incremental collections are fast. */
+    private static long allocateGarbage(int count) {
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            long[] garbage = new long[ARRAY_LENGTH];
+            garbage[i % ARRAY_LENGTH] = i;
+            sum += garbage.length;
+        }
+        return sum;
+    }
+
+    @Test
+    public void testShrinkAndGrowYoungGeneration() throws JMException {
+        long initialGoal = getLong("YoungGenerationSizeGoal");
+        long shrinkCount = getLong("YoungGenerationShrinkCount");
+        long growCount = getLong("YoungGenerationGrowCount");
+
+        /* Copying many survivors misses the pause goal of 1 ms. */
+        Object[] retained = allocateRetained();
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (getLong("YoungGenerationShrinkCount") == shrinkCount && System.currentTimeMillis() < deadline) {
+            churn(retained, 1);
+        }
+        Assert.assertTrue("young generation must shrink when the pause goal is missed", getLong("YoungGenerationShrinkCount") > shrinkCount);
+        long shrunkGoal = getLong("YoungGenerationSizeGoal");
+        Assert.assertTrue(shrunkGoal < initialGoal);
+        Assert.assertTrue("average pause must be tracked", getLong("AverageIncrementalPauseMillis") >= 0);
+
+        /* Without survivors, pauses are short but frequent, which misses the GC time goal of 1%. */
+        retained = null; // let the survivors die
+        System.gc();
+        deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (getLong("YoungGenerationGrowCount") == growCount && System.currentTimeMillis() < deadline) {
+            allocateGarbage(RETAINED_ARRAYS);
+        }
+        Assert.assertTrue("young generation must grow when too much time is spent in collections", getLong("YoungGenerationGrowCount") > growCount);
+        Assert.assertTrue(getLong("YoungGenerationSizeGoal") <= initialGoal);
+    }
+
+    @Test
+    public void testTenuringThreshold() throws JMException {
+        /* Survivors exceed 1% of the young generation after their first collection. */
+        Object[] retained = allocateRetained();
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (getLong("TenuringThreshold") == MAX_SURVIVOR_SPACES && System.currentTimeMillis() < deadline) {
+            churn(retained, 1);
+        }
+        long threshold = getLong("TenuringThreshold");
+        Assert.assertTrue("tenuring threshold must drop when survivors exceed their budget", threshold >= 1 && threshold < MAX_SURVIVOR_SPACES);
+
+        /* Without survivors, all survivor spaces are used again. */
+        retained = null; // let the survivors die
+        System.gc();
+        deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (getLong("TenuringThreshold") != MAX_SURVIVOR_SPACES && System.currentTimeMillis() < deadline) {
+            allocateGarbage(RETAINED_ARRAYS);
+        }
+        Assert.assertEquals(MAX_SURVIVOR_SPACES, getLong("TenuringThreshold"));
+    }
+}
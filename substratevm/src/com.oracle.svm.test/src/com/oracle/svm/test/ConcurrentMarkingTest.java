@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.AttributeNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.graalvm.nativeimage.hosted.Feature;
+import org.graalvm.nativeimage.hosted.RuntimeReflection;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that concurrent marking does not reclaim objects that the application keeps alive while
+ * a cycle is active. The test moves the only reference to old objects from holders that the marker
+ * has not scanned yet to holders that it may have scanned already, which is what the
+ * snapshot-at-the-beginning write barrier and the remark must handle. The test only runs in an
+ * image built with
+ * {@code -H:+UseConcurrentMarking -H:+VerifyHeapAfterCollection -R:ConcurrentMarkingInitiatingOccupancy=1}
+ * and a small heap, in which heap verification checks the integrity of the heap after every
+ * collection, and is skipped otherwise.
+ */
+public class ConcurrentMarkingTest {
+    private static final String HEAP_MEMORY_MXBEAN = "com.oracle.svm.core.genscavenge.HeapMemoryMXBean";
+    private static final long TIMEOUT_MILLIS = 60_000;
+
+    private static final int PAYLOAD_COUNT = 64 * 1024;
+    private static final int HOLDER_COUNT = 2 * PAYLOAD_COUNT;
+    /** Larger than the slices in which the marker scans object arrays. */
+    private static final int ARRAY_LENGTH = 4 * 1024;
+    private static final int PAYLOAD_LENGTH = 8;
+    private static final int CYCLES = 3;
+    private static final int MOVES_PER_ROUND = 16 * 1024;
+    private static final int BALLAST_SLOTS = 64;
+    private static final int BALLAST_LENGTH = 4 * 1024;
+
+    public static class TestFeature implements Feature {
+        @Override
+        public void beforeAnalysis(BeforeAnalysisAccess access) {
+            /* Attributes of platform beans are only available via reflection. */
+            Class<?> bean = access.findClassByName(HEAP_MEMORY_MXBEAN);
+            if (bean != null) {
+                RuntimeReflection.register(bean.getMethods());
+            }
+        }
+    }
+
+    /** An object whose contents can be recomputed from its id. */
+    static final class Payload {
+        final int id;
+        final long[] data;
+
+        Payload(int id) {
+            this.id = id;
+            this.data = new long[PAYLOAD_LENGTH];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = id * 31L + i;
+            }
+        }
+
+        void verify() {
+            Assert.assertEquals(PAYLOAD_LENGTH, data.length);
+            for (int i = 0; i < data.length; i++) {
+                Assert.assertEquals(id * 31L + i, data[i]);
+            }
+        }
+    }
+
+    static final class Holder {
+        Payload value;
+    }
+
+    private MBeanServer server;
+    private ObjectName memoryBean;
+
+    @Before
+    public void checkConcurrentMarkingEnabled() throws JMException {
+        server = ManagementFactory.getPlatformMBeanServer();
+        memoryBean = new ObjectName(ManagementFactory.MEMORY_MXBEAN_NAME);
+        long cycles;
+        try {
+            cycles = getCompletedCycles();
+        } catch (AttributeNotFoundException e) {
+            /* Not running with the heap of this image. */
+            cycles = -1;
+        }
+        Assume.assumeTrue("concurrent marking is not enabled", cycles >= 0);
+    }
+
+    private long getCompletedCycles() throws JMException {
+        return ((Number) server.getAttribute(memoryBean, "ConcurrentMarkingCycleCount")).longValue();
+    }
+
+    private Holder[] holders;
+    private Payload[][] arrays;
+    private int seed = 42;
+
+    private int nextIndex(int bound) {
+        seed = seed * 1103515245 + 12345;
+        return (seed >>> 1) % bound;
+    }
+
+    /**
+     * Puts half of the payloads into holders and the other half into object arrays. Incremental
+     * collections during the build promote them to the old generation.
+     */
+    private void build() {
+        holders = new Holder[HOLDER_COUNT];
+        for (int i = 0; i < holders.length; i++) {
+            holders[i] = new Holder();
+            if (i % 4 == 0) {
+                holders[i].value = new Payload(i / 4);
+            }
+        }
+        int firstId = HOLDER_COUNT / 4;
+        int arrayCount = (PAYLOAD_COUNT - firstId) * 2 / ARRAY_LENGTH;
+        arrays = new Payload[arrayCount][ARRAY_LENGTH];
+        for (int i = 0; i < arrayCount * ARRAY_LENGTH; i += 2) {
+            arrays[i / ARRAY_LENGTH][i % ARRAY_LENGTH] = new Payload(firstId + i / 2);
+        }
+    }
+
+    /**
+     * Moves payloads to other places, so that each one is only referenced from its new place, and
+     * replaces some of the holders, so that the only reference to their payload is in a new object.
+     */
+    private void mutate() {
+        for (int m = 0; m < MOVES_PER_ROUND; m++) {
+            Holder from = holders[nextIndex(HOLDER_COUNT)];
+            Payload[] array = arrays[nextIndex(arrays.length)];
+            int index = nextIndex(ARRAY_LENGTH);
+            switch (m % 3) {
+                case 0:
+                    /* From a holder to an array element. */
+                    if (from.value != null && array[index] == null) {
+                        array[index] = from.value;
+                        from.value = null;
+                    }
+                    break;
+                case 1:
+                    /* From an array element to a holder. */
+                    if (array[index] != null && from.value == null) {
+                        from.value = array[index];
+                        array[index] = null;
+                    }
+                    break;
+                default:
+                    /* Replace a holder, which leaves the old one without a payload. */
+                    int h = nextIndex(HOLDER_COUNT);
+                    Holder replacement = new Holder();
+                    replacement.value = holders[h].value;
+                    holders[h].value = null;
+                    holders[h] = replacement;
+                    break;
+            }
+        }
+    }
+
+    private void verify() {
+        boolean[] seen = new boolean[PAYLOAD_COUNT];
+        int count = 0;
+        for (Holder holder : holders) {
+            count += verify(holder.value, seen);
+        }
+        for (Payload[] array : arrays) {
+            for (Payload payload : array) {
+                count += verify(payload, seen);
+            }
+        }
+        Assert.assertEquals(PAYLOAD_COUNT, count);
+    }
+
+    private static int verify(Payload payload, boolean[] seen) {
+        if (payload == null) {
+            return 0;
+        }
+        payload.verify();
+        Assert.assertFalse("payload " + payload.id + " must be referenced once", seen[payload.id]);
+        seen[payload.id] = true;
+        return 1;
+    }
+
+    /** Allocates short-lived objects, which triggers the incremental collections of a cycle. */
+    private static long allocateGarbage() {
+        long sum = 0;
+        for (int i = 0; i < 16 * 1024; i++) {
+            sum += new Payload(i).data.length;
+        }
+        return sum;
+    }
+
+    @Test
+    public void testMutationDuringMarking() throws Exception {
+        build();
+        verify();
+
+        /* A cycle only starts after the old generation grew, so keep promoting ballast objects. */
+        Object[][] ballast = new Object[BALLAST_SLOTS][];
+        long cycles = getCompletedCycles();
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        for (int i = 0; getCompletedCycles() < cycles + CYCLES && System.currentTimeMillis() < deadline; i++) {
+            Object[] slot = new Object[BALLAST_LENGTH];
+            for (int j = 0; j < slot.length; j++) {
+                slot[j] = new Holder();
+            }
+            ballast[i % BALLAST_SLOTS] = slot;
+            mutate();
+            allocateGarbage();
+            verify();
+        }
+        Assert.assertTrue("concurrent marking cycles must complete", getCompletedCycles() >= cycles + CYCLES);
+        verify();
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+
+import javax.management.AttributeNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.graalvm.nativeimage.hosted.Feature;
+import org.graalvm.nativeimage.hosted.RuntimeReflection;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Stresses the in-place compaction of the old generation and the uncommitting and recommitting of
+ * unused heap chunks, and checks that the contents of all live objects survive both. The test only
+ * runs in an image built with
+ * {@code -H:+UseConcurrentMarking -H:+UseOldGenerationCompaction -H:+VerifyHeapAfterCollection -R:OldGenerationCompactionThreshold=1 -R:UnusedChunkUncommitDelay=1}
+ * and a small heap, in which heap verification checks the integrity of the heap after every
+ * collection, and is skipped otherwise.
+ *
+ * A concurrent marking cycle only starts when the old generation has grown by the size of the
+ * young generation since the last cycle, so the test keeps promoting ballast objects while it waits
+ * for a cycle that starts after the old generation was fragmented.
+ */
+public class HeapCompactionStressTest {
+    private static final String HEAP_MEMORY_MXBEAN = "com.oracle.svm.core.genscavenge.HeapMemoryMXBean";
+    private static final long TIMEOUT_MILLIS = 60_000;
+
+    private static final int NODE_COUNT = 256 * 1024;
+    private static final int PAYLOAD_LENGTH = 24;
+    private static final int ROUNDS = 4;
+    private static final int BALLAST_SLOTS = 64;
+    private static final int BALLAST_NODES = 4 * 1024;
+
+    public static class TestFeature implements Feature {
+        @Override
+        public void beforeAnalysis(BeforeAnalysisAccess access) {
+            /* Attributes of platform beans are only available via reflection. */
+            Class<?> bean = access.findClassByName(HEAP_MEMORY_MXBEAN);
+            if (bean != null) {
+                RuntimeReflection.register(bean.getMethods());
+                for (Class<?> nested : bean.getClasses()) {
+                    RuntimeReflection.register(nested.getMethods());
+                }
+                RuntimeReflection.register(MemoryUsage.class.getMethods());
+            }
+        }
+    }
+
+    /** An object whose contents can be recomputed from its id. */
+    static final class Node {
+        final long id;
+        final byte[] payload;
+        final String name;
+        Node next;
+
+        Node(long id) {
+            this.id = id;
+            this.payload = new byte[PAYLOAD_LENGTH];
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] = (byte) (id * 31 + i);
+            }
+            this.name = "node" + id;
+        }
+
+        void verify(long expectedId) {
+            Assert.assertEquals(expectedId, id);
+            Assert.assertEquals(PAYLOAD_LENGTH, payload.length);
+            for (int i = 0; i < payload.length; i++) {
+                Assert.assertEquals((byte) (id * 31 + i), payload[i]);
+            }
+            Assert.assertEquals("node" + id, name);
+        }
+    }
+
+    private MBeanServer server;
+    private ObjectName memoryBean;
+
+    @Before
+    public void checkCompactionEnabled() throws JMException {
+        server = ManagementFactory.getPlatformMBeanServer();
+        memoryBean = new ObjectName(ManagementFactory.MEMORY_MXBEAN_NAME);
+        long compactions;
+        try {
+            compactions = getLong("OldGenerationCompactionCount");
+        } catch (AttributeNotFoundException e) {
+            /* Not running with the heap of this image. */
+            compactions = -1;
+        }
+        Assume.assumeTrue("old generation compaction is not enabled", compactions >= 0);
+    }
+
+    private long getLong(String attribute) throws JMException {
+        return ((Number) server.getAttribute(memoryBean, attribute)).longValue();
+    }
+
+    /**
+     * Builds nodes that are reachable both from an array and from a list that links every node to
+     * the next one, so that moving a node requires updating references from several places.
+     * Incremental collections during the build promote them to the old generation.
+     */
+    private static Node[] build(long firstId, int count) {
+        Node[] nodes = new Node[count];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new Node(firstId + i);
+            if (i > 0) {
+                nodes[i - 1].next = nodes[i];
+            }
+        }
+        return nodes;
+    }
+
+    /** Drops every other node, which leaves gaps between the live nodes in the old generation. */
+    private static void fragment(Node[] nodes) {
+        for (int i = 0; i < nodes.length; i += 2) {
+            nodes[i] = null;
+        }
+        for (int i = 1; i + 2 < nodes.length; i += 2) {
+            nodes[i].next = nodes[i + 2];
+        }
+        nodes[nodes.length - 1].next = null;
+    }
+
+    private static void verifyFragmented(Node[] nodes, long firstId) {
+        Node expectedNext = null;
+        for (int i = nodes.length - 1; i >= 0; i--) {
+            if (i % 2 == 0) {
+                Assert.assertNull(nodes[i]);
+            } else {
+                nodes[i].verify(firstId + i);
+                Assert.assertSame(expectedNext, nodes[i].next);
+                expectedNext = nodes[i];
+            }
+        }
+    }
+
+    /** Allocates short-lived objects, which triggers the incremental collections of a cycle. */
+    private static long allocateGarbage() {
+        long sum = 0;
+        for (int i = 0; i < 16 * 1024; i++) {
+            sum += new Node(i).payload.length;
+        }
+        return sum;
+    }
+
+    @Test
+    public void testCompactionAndUncommit() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            long firstId = (long) round * NODE_COUNT;
+            Node[] nodes = build(firstId, NODE_COUNT);
+            fragment(nodes);
+
+            Node[][] ballast = new Node[BALLAST_SLOTS][];
+            long compactions = getLong("OldGenerationCompactionCount");
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            for (int i = 0; getLong("OldGenerationCompactionCount") == compactions && System.currentTimeMillis() < deadline; i++) {
+                ballast[i % BALLAST_SLOTS] = build(0, BALLAST_NODES);
+                allocateGarbage();
+                verifyFragmented(nodes, firstId);
+            }
+            Assert.assertTrue("a concurrent marking cycle must compact the fragmented old generation", getLong("OldGenerationCompactionCount") > compactions);
+            verifyFragmented(nodes, firstId);
+            for (Node[] slot : ballast) {
+                if (slot != null) {
+                    slot[slot.length - 1].verify(BALLAST_NODES - 1);
+                }
+            }
+
+            /* Release all nodes and wait until their chunks are uncommitted. */
+            nodes = null; // let the nodes die
+            ballast = null; // let the ballast die
+            long uncommitted = getLong("UncommittedHeapMemory");
+            System.gc();
+            deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while (getLong("UncommittedHeapMemory") <= uncommitted && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+                allocateGarbage();
+            }
+            Assert.assertTrue("unused chunks must be uncommitted", getLong("UncommittedHeapMemory") > uncommitted);
+        }
+
+        /* Reuse the uncommitted chunks, which recommits them, and check their new contents. */
+        Node[] nodes = build(-NODE_COUNT, NODE_COUNT);
+        fragment(nodes);
+        System.gc();
+        verifyFragmented(nodes, -NODE_COUNT);
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.AttributeNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.graalvm.nativeimage.hosted.Feature;
+import org.graalvm.nativeimage.hosted.RuntimeReflection;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the per-node chunk pools and counters of NUMA-aware heap allocation via the memory bean of
+ * the platform MBean server. The test only runs in an image built with
+ * {@code -H:+UseNumaAwareAllocation -R:NumaSimulatedNodes=4} on Linux, which simulates multiple
+ * nodes on any machine, and is skipped otherwise.
+ */
+public class NumaAllocationTest {
+    private static final String HEAP_MEMORY_MXBEAN = "com.oracle.svm.core.genscavenge.HeapMemoryMXBean";
+
+    /** Small enough to be allocated in aligned chunks, which are copied during collections. */
+    private static final int ARRAY_LENGTH = 1024;
+    private static final int ARRAY_COUNT = 8 * 1024;
+    private static final long ARRAY_BYTES = (long) ARRAY_LENGTH * ARRAY_COUNT;
+    private static final int THREADS = 8;
+
+    public static class TestFeature implements Feature {
+        @Override
+        public void beforeAnalysis(BeforeAnalysisAccess access) {
+            /* Attributes of platform beans are only available via reflection. */
+            Class<?> bean = access.findClassByName(HEAP_MEMORY_MXBEAN);
+            if (bean != null) {
+                RuntimeReflection.register(bean.getMethods());
+                for (Class<?> nested : bean.getClasses()) {
+                    RuntimeReflection.register(nested.getMethods());
+                }
+                RuntimeReflection.register(MemoryUsage.class.getMethods());
+            }
+        }
+    }
+
+    private MBeanServer server;
+    private ObjectName memoryBean;
+
+    @Before
+    public void checkNumaEnabled() throws JMException {
+        server = ManagementFactory.getPlatformMBeanServer();
+        memoryBean = new ObjectName(ManagementFactory.MEMORY_MXBEAN_NAME);
+        Assume.assumeTrue("NUMA-aware allocation with multiple nodes is not enabled", getNodeCount() > 1);
+    }
+
+    private int getNodeCount() throws JMException {
+        try {
+            return (Integer) server.getAttribute(memoryBean, "NumaNodeCount");
+        } catch (AttributeNotFoundException e) {
+            /* Not running with the heap of this image. */
+            return 1;
+        }
+    }
+
+    private long getNodeCounter(String operation, int node) throws JMException {
+        return (Long) server.invoke(memoryBean, operation, new Object[]{node}, new String[]{int.class.getName()});
+    }
+
+    private long[] getAllocatedBytes() throws JMException {
+        long[] result = new long[getNodeCount()];
+        for (int node = 0; node < result.length; node++) {
+            result[node] = getNodeCounter("getNumaNodeAllocatedBytes", node);
+        }
+        return result;
+    }
+
+    private static long sum(long[] values) {
+        long result = 0;
+        for (long value : values) {
+            result += value;
+        }
+        return result;
+    }
+
+    private static List<byte[]> allocate() {
+        List<byte[]> arrays = new ArrayList<>(ARRAY_COUNT);
+        for (int i = 0; i < ARRAY_COUNT; i++) {
+            byte[] array = new byte[ARRAY_LENGTH];
+            array[i % ARRAY_LENGTH] = (byte) i;
+            arrays.add(array);
+        }
+        return arrays;
+    }
+
+    @Test
+    public void testNodeCount() throws JMException {
+        int nodeCount = getNodeCount();
+        Assert.assertTrue(nodeCount > 1 && nodeCount <= 64);
+        try {
+            getNodeCounter("getNumaNodeAllocatedBytes", nodeCount);
+            Assert.fail("node out of range must be rejected");
+        } catch (JMException | RuntimeException e) {
+            /* Expected. */
+        }
+    }
+
+    @Test
+    public void testThreadsAllocateFromLocalNode() throws Exception {
+        long[] before = getAllocatedBytes();
+        Thread[] threads = new Thread[THREADS];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(NumaAllocationTest::allocate);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long[] after = getAllocatedBytes();
+
+        Assert.assertTrue("chunks for thread-local allocation must be counted", sum(after) - sum(before) >= THREADS * ARRAY_BYTES / 2);
+        for (int node = 0; node < after.length; node++) {
+            Assert.assertTrue(after[node] >= before[node]);
+            /* Simulated nodes never run out of memory, so every chunk comes from the local pool. */
+            Assert.assertEquals(0, getNodeCounter("getNumaNodeRemoteBytes", node));
+        }
+    }
+
+    @Test
+    public void testCollectorChunksAreCountedSeparately() throws JMException {
+        List<byte[]> retained = allocate();
+        long allocatedBefore = sum(getAllocatedBytes());
+        long collectorBefore = (Long) server.getAttribute(memoryBean, "NumaCollectorBytes");
+
+        /* Copies the retained arrays into chunks that the collector requests. */
+        System.gc();
+
+        long allocatedAfter = sum(getAllocatedBytes());
+        long collectorAfter = (Long) server.getAttribute(memoryBean, "NumaCollectorBytes");
+        Assert.assertTrue("promotion must be counted for the collector", collectorAfter - collectorBefore >= ARRAY_BYTES / 2);
+        Assert.assertTrue("promotion must not be counted for threads", allocatedAfter - allocatedBefore < ARRAY_BYTES / 2);
+        Assert.assertEquals(ARRAY_COUNT, retained.size());
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test;
+
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that incremental and complete collections preserve the contents, the sharing and the
+ * identity hash codes of a graph of objects. The test runs both in the default image, which
+ * collects serially, and in an image built with {@code -H:+UseParallelGC}, so both kinds of
+ * collections must leave the graph exactly as it was built.
+ */
+public class ParallelGCTest {
+    private static final int NODE_COUNT = 64 * 1024;
+    private static final int DATA_LENGTH = 6;
+    private static final int FAN_OUT = 5;
+    private static final int ROUNDS = 8;
+
+    static final class Node {
+        final int id;
+        final int[] data;
+        Node left;
+        Node right;
+        Object[] refs;
+
+        Node(int id) {
+            this.id = id;
+            this.data = new int[DATA_LENGTH];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = id * 17 + i;
+            }
+        }
+    }
+
+    private Node[] nodes;
+    private int seed = 7;
+
+    private int nextIndex(int bound) {
+        seed = seed * 1103515245 + 12345;
+        return (seed >>> 1) % bound;
+    }
+
+    /**
+     * Links the nodes into a graph with shared nodes, cycles, and object arrays that reference
+     * nodes, strings and primitive arrays.
+     */
+    private void build() {
+        nodes = new Node[NODE_COUNT];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new Node(i);
+        }
+        for (Node node : nodes) {
+            node.left = nodes[nextIndex(NODE_COUNT)];
+            node.right = node.id % 3 == 0 ? null : nodes[nextIndex(NODE_COUNT)];
+            if (node.id % 4 == 0) {
+                node.refs = new Object[FAN_OUT];
+                for (int i = 0; i < FAN_OUT; i++) {
+                    switch (i % 3) {
+                        case 0:
+                            node.refs[i] = nodes[nextIndex(NODE_COUNT)];
+                            break;
+                        case 1:
+                            node.refs[i] = "refs" + node.id + "_" + i;
+                            break;
+                        default:
+                            node.refs[i] = nodes[nextIndex(NODE_COUNT)].data;
+                            break;
+                    }
+                }
+            }
+        }
+    }
+
+    /** Relinks some nodes, so that the next collections copy a different graph. */
+    private void mutate() {
+        for (int i = 0; i < NODE_COUNT / 8; i++) {
+            Node node = nodes[nextIndex(NODE_COUNT)];
+            node.left = nodes[nextIndex(NODE_COUNT)];
+            if (node.refs != null) {
+                node.refs[0] = new Node(-node.id);
+            }
+        }
+        /* Only reachable from other nodes from now on. */
+        nodes[nextIndex(NODE_COUNT)] = null;
+    }
+
+    /**
+     * Walks the graph from the roots and describes it in a string, in which every object is named
+     * by the order in which the walk reached it, so that two graphs have the same description if
+     * and only if they have the same shape and contents.
+     */
+    private String describe() {
+        Map<Object, Integer> visited = new IdentityHashMap<>();
+        ArrayDeque<Object> queue = new ArrayDeque<>();
+        StringBuilder sb = new StringBuilder();
+        for (Node root : nodes) {
+            sb.append(name(root, visited, queue)).append(';');
+        }
+        while (!queue.isEmpty()) {
+            Object obj = queue.removeFirst();
+            sb.append('\n').append(visited.get(obj)).append('#').append(System.identityHashCode(obj)).append(':');
+            if (obj instanceof Node) {
+                Node node = (Node) obj;
+                sb.append("Node ").append(node.id);
+                sb.append(' ').append(name(node.data, visited, queue));
+                sb.append(' ').append(name(node.left, visited, queue));
+                sb.append(' ').append(name(node.right, visited, queue));
+                sb.append(' ').append(name(node.refs, visited, queue));
+            } else if (obj instanceof Object[]) {
+                for (Object element : (Object[]) obj) {
+                    sb.append(' ').append(name(element, visited, queue));
+                }
+            } else if (obj instanceof int[]) {
+                for (int value : (int[]) obj) {
+                    sb.append(' ').append(value);
+                }
+            } else {
+                sb.append('"').append(obj).append('"');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String name(Object obj, Map<Object, Integer> visited, ArrayDeque<Object> queue) {
+        if (obj == null) {
+            return "null";
+        }
+        Integer name = visited.get(obj);
+        if (name == null) {
+            name = visited.size();
+            visited.put(obj, name);
+            queue.addLast(obj);
+        }
+        return "@" + name;
+    }
+
+    /** Allocates short-lived objects, which triggers incremental collections. */
+    private static long allocateGarbage() {
+        long sum = 0;
+        for (int i = 0; i < 256 * 1024; i++) {
+            sum += new Node(i).data.length;
+        }
+        return sum;
+    }
+
+    @Test
+    public void testCollectionsPreserveGraph() {
+        build();
+        for (int round = 0; round < ROUNDS; round++) {
+            String expected = describe();
+            allocateGarbage();
+            Assert.assertEquals("incremental collections must preserve the graph", expected, describe());
+            System.gc();
+            Assert.assertEquals("complete collections must preserve the graph", expected, describe());
+            mutate();
+        }
+    }
+}
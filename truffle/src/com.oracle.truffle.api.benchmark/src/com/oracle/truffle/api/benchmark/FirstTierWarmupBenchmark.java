@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.api.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.impl.DefaultTruffleRuntime;
+import com.oracle.truffle.api.instrumentation.test.InstrumentationTestLanguage;
+
+/**
+ * Measures how long a loop heavy program takes to run in a fresh engine, which is dominated by its
+ * warmup, with the economy first tier and adaptive promotion, with multi-tier promotion without
+ * adaptive promotion, and with single-tier compilation. Every invocation uses a new context, so it
+ * starts in the interpreter and compiles all call targets again. The configurations only differ
+ * with the GraalVM compiler, without it all of them run in the interpreter.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+public class FirstTierWarmupBenchmark extends TruffleBenchmark {
+
+    private static final Source SOURCE = Source.newBuilder(InstrumentationTestLanguage.ID, "ROOT(\n" +
+                    "DEFINE(leaf,ROOT(STATEMENT)),\n" +
+                    "DEFINE(iteration,ROOT(LOOP(1000, BLOCK(STATEMENT,CALL(leaf))))),\n" +
+                    "LOOP(300, CALL(iteration))\n" +
+                    ")", "warmup-benchmark").buildLiteral();
+
+    @State(Scope.Thread)
+    public static class EngineState {
+        @Param({"single-tier", "multi-tier", "adaptive-promotion"}) public String configuration;
+
+        Context context;
+
+        @Setup(Level.Invocation)
+        public void setup() {
+            Context.Builder builder = Context.newBuilder().allowExperimentalOptions(true);
+            if (!(Truffle.getRuntime() instanceof DefaultTruffleRuntime)) {
+                builder.option("engine.BackgroundCompilation", "true");
+                switch (configuration) {
+                    case "single-tier":
+                        builder.option("engine.MultiTier", "false");
+                        break;
+                    case "multi-tier":
+                        builder.option("engine.MultiTier", "true").option("engine.FirstTierAdaptivePromotion", "false");
+                        break;
+                    case "adaptive-promotion":
+                        builder.option("engine.MultiTier", "true").option("engine.FirstTierAdaptivePromotion", "true");
+                        break;
+                    default:
+                        throw new IllegalArgumentException(configuration);
+                }
+            }
+            context = builder.build();
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public Object warmup(EngineState state) {
+        return state.context.eval(SOURCE);
+    }
+}